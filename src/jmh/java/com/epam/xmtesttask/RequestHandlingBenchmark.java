@@ -0,0 +1,100 @@
+package com.epam.xmtesttask;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request handling on Tomcat's platform thread pool with virtual threads under many concurrent
+ * connections.
+ * <p>
+ * Each trial starts the application on a random port with the bundled prices, with
+ * {@code spring.threads.virtual.enabled} set by {@code threads} and {@code price.service.fan-out} set by
+ * {@code fanOut}. Each of the {@value #CLIENTS} benchmark threads acts as one client with its own keep-alive
+ * connection, which exceeds Tomcat's default pool of 200 platform threads. Throughput mode reports requests
+ * per millisecond; sample time mode reports the latency distribution including p99. The rate and concurrency
+ * limits are disabled so that every request is served. Use {@code -t} to change the number of clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(RequestHandlingBenchmark.CLIENTS)
+@Fork(1)
+public class RequestHandlingBenchmark {
+
+    static final int CLIENTS = 256;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"sequential", "virtual"})
+    private String fanOut;
+
+    @Param({"/cryptos/normalized-range", "/cryptos/highest-normalized-range?date=2022-01-05"})
+    private String path;
+
+    private ConfigurableApplicationContext context;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(RecommendationServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=warn",
+                "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--price.service.fan-out=" + fanOut,
+                "--price.service.fan-out-min-symbols=1",
+                "--rate-limit.capacity=1000000000",
+                "--rate-limit.refill-tokens=1000000000",
+                "--concurrency-limit.enabled=false");
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        uri = URI.create("http://localhost:" + port + path);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * One HTTP client per benchmark thread, so that each thread holds its own connection.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+
+        private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @Benchmark
+    public int request(Client client) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.httpClient.send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode() + " for " + uri);
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,81 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link CSVPriceLoader#loadCsvFiles()} on synthetic CSV files written to a temporary directory.
+ * <p>
+ * Each invocation loads all files into an empty repository, without snapshots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLoaderBenchmark {
+
+    @Param({"sequential", "parallel"})
+    private String mode;
+
+    @Param({"in-memory", "columnar"})
+    private String repositoryType;
+
+    @Param({"5", "50"})
+    private int symbols;
+
+    @Param({"10000", "100000"})
+    private int historyLength;
+
+    private Path directory;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("prices-benchmark");
+        SyntheticPrices.generate(symbols, historyLength, 42).writeCsv(directory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public PriceRepository loadCsvFiles() {
+        PriceRepository repository = SyntheticPrices.newRepository(repositoryType);
+        CSVPriceLoader loader = new CSVPriceLoader();
+        setField(loader, "priceRepository", repository);
+        setField(loader, "meterRegistry", meterRegistry);
+        setField(loader, "mode", mode);
+        setField(loader, "directory", directory.toString());
+        loader.loadCsvFiles();
+        return repository;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        var field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,76 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks writing and reading price histories through {@link PriceRepository}.
+ * <p>
+ * {@link #savePrice(Blackhole)} saves the whole synthetic dataset row by row into an empty repository,
+ * {@link #getPrices(Blackhole)} reads the full history of one symbol, materializing every {@link CryptoPrice}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceRepositoryBenchmark {
+
+    @Param({"in-memory", "columnar", "compressed"})
+    private String repositoryType;
+
+    @Param({"5", "50"})
+    private int symbols;
+
+    @Param({"10000", "100000"})
+    private int historyLength;
+
+    private SyntheticPrices data;
+    private PriceRepository filled;
+    private int nextSymbol;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = SyntheticPrices.generate(symbols, historyLength, 42);
+        filled = data.fill(SyntheticPrices.newRepository(repositoryType));
+    }
+
+    @Benchmark
+    public void savePrice(Blackhole blackhole) {
+        PriceRepository repository = SyntheticPrices.newRepository(repositoryType);
+        for (int s = 0; s < symbols; s++) {
+            String symbol = data.symbols().get(s);
+            long[] timestamps = data.timestamps(s);
+            long[] prices = data.prices(s);
+            for (int i = 0; i < timestamps.length; i++) {
+                repository.savePrice(symbol, PriceCodec.toUtcDateTime(timestamps[i]), PriceCodec.decodePrice(prices[i]));
+            }
+        }
+        blackhole.consume(repository);
+    }
+
+    @Benchmark
+    public void getPrices(Blackhole blackhole) {
+        String symbol = data.symbols().get(nextSymbol++ % symbols);
+        List<CryptoPrice> prices = filled.getPrices(symbol);
+        for (CryptoPrice price : prices) {
+            blackhole.consume(price);
+        }
+    }
+}
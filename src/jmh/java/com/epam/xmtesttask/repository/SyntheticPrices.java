@@ -0,0 +1,136 @@
+package com.epam.xmtesttask.repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic price histories for benchmarks.
+ * <p>
+ * Each symbol gets a random walk starting at 1000 with one price per {@link #INTERVAL_MILLIS}, starting at
+ * 2022-01-01T00:00Z. Prices are rounded to 4 significant digits, like the CSV loader does, and held as
+ * fixed-point columns (see {@link PriceCodec}). The same seed always yields the same data.
+ */
+public final class SyntheticPrices {
+
+    /**
+     * Distance between two prices of a symbol: one hour.
+     */
+    public static final long INTERVAL_MILLIS = 3_600_000L;
+
+    private static final long START_MILLIS = 1640995200000L;
+    private static final MathContext CSV_PRECISION = new MathContext(4);
+
+    private final List<String> symbols;
+    private final long[][] timestamps;
+    private final long[][] prices;
+
+    private SyntheticPrices(List<String> symbols, long[][] timestamps, long[][] prices) {
+        this.symbols = symbols;
+        this.timestamps = timestamps;
+        this.prices = prices;
+    }
+
+    /**
+     * Generates the price histories.
+     *
+     * @param symbolCount   the number of symbols, named {@code S0}, {@code S1}, ...
+     * @param historyLength the number of prices per symbol
+     * @param seed          the random seed
+     * @return the generated data
+     */
+    public static SyntheticPrices generate(int symbolCount, int historyLength, long seed) {
+        Random random = new Random(seed);
+        List<String> symbols = new ArrayList<>(symbolCount);
+        long[][] timestamps = new long[symbolCount][historyLength];
+        long[][] prices = new long[symbolCount][historyLength];
+        for (int s = 0; s < symbolCount; s++) {
+            symbols.add("S" + s);
+            double price = 1000;
+            for (int i = 0; i < historyLength; i++) {
+                price = Math.max(0.0001, price * (1 + random.nextGaussian() * 0.01));
+                timestamps[s][i] = START_MILLIS + i * INTERVAL_MILLIS;
+                prices[s][i] = PriceCodec.encodePrice(new BigDecimal(price, CSV_PRECISION));
+            }
+        }
+        return new SyntheticPrices(symbols, timestamps, prices);
+    }
+
+    public List<String> symbols() {
+        return symbols;
+    }
+
+    public int historyLength() {
+        return timestamps.length == 0 ? 0 : timestamps[0].length;
+    }
+
+    public long[] timestamps(int symbolIndex) {
+        return timestamps[symbolIndex];
+    }
+
+    public long[] prices(int symbolIndex) {
+        return prices[symbolIndex];
+    }
+
+    /**
+     * Returns the UTC day of the price at the given position of every history.
+     */
+    public LocalDate day(int index) {
+        return PriceCodec.toUtcDateTime(START_MILLIS + index * INTERVAL_MILLIS).toLocalDate();
+    }
+
+    /**
+     * Saves all prices to a repository with one bulk call per symbol.
+     *
+     * @param repository the repository to fill
+     * @return the repository
+     */
+    public <R extends PriceRepository> R fill(R repository) {
+        for (int s = 0; s < symbols.size(); s++) {
+            repository.savePrices(symbols.get(s), timestamps[s], prices[s]);
+        }
+        return repository;
+    }
+
+    /**
+     * Writes one {@code <SYMBOL>_values.csv} file per symbol in the format read by {@link CSVPriceLoader}.
+     *
+     * @param directory the target directory
+     * @throws IOException if a file cannot be written
+     */
+    public void writeCsv(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (int s = 0; s < symbols.size(); s++) {
+            String symbol = symbols.get(s);
+            try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(symbol + "_values.csv"))) {
+                writer.write("timestamp,symbol,price\n");
+                for (int i = 0; i < timestamps[s].length; i++) {
+                    writer.write(timestamps[s][i] + "," + symbol + ","
+                            + PriceCodec.decodePrice(prices[s][i]).toPlainString() + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty repository of the given {@code price.repository.type}.
+     *
+     * @param type {@code columnar} or {@code in-memory}
+     * @return the repository
+     */
+    public static PriceRepository newRepository(String type) {
+        return switch (type) {
+            case "columnar" -> new ColumnarPriceRepository();
+            case "in-memory" -> new InMemoryPriceRepository();
+            case "compressed" -> new CompressedPriceRepository();
+            default -> throw new IllegalArgumentException("Unknown repository type: " + type);
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.repository.PriceCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the normalized range of a summary's fixed-point minimum and maximum computed by
+ * {@link FixedPointNormalizedRange#of(long, long)} with decoding both prices and dividing them as
+ * {@link BigDecimal} values, which is what the calculation cost before.
+ * <p>
+ * The inputs are random prices rounded to 4 significant digits, like the prices loaded from CSV files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NormalizedRangeBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private final long[] max = new long[PAIRS];
+    private final long[] min = new long[PAIRS];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < PAIRS; i++) {
+            BigDecimal low = BigDecimal.valueOf(random.nextDouble() * Math.pow(10, random.nextInt(10) - 3))
+                    .round(FixedPointNormalizedRange.PRECISION);
+            BigDecimal high = low.multiply(BigDecimal.valueOf(1 + random.nextDouble()))
+                    .round(FixedPointNormalizedRange.PRECISION);
+            min[i] = Math.max(1, PriceCodec.encodePrice(low));
+            max[i] = Math.max(min[i], PriceCodec.encodePrice(high));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal decimal() {
+        int i = next++ & (PAIRS - 1);
+        return FixedPointNormalizedRange.of(PriceCodec.decodePrice(max[i]), PriceCodec.decodePrice(min[i]));
+    }
+
+    @Benchmark
+    public BigDecimal fixedPoint() {
+        int i = next++ & (PAIRS - 1);
+        return FixedPointNormalizedRange.of(max[i], min[i]);
+    }
+}
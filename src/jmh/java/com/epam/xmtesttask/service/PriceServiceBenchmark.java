@@ -0,0 +1,123 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
+import com.epam.xmtesttask.domain.crypto.CryptoStats;
+import com.epam.xmtesttask.repository.PriceCodec;
+import com.epam.xmtesttask.repository.PriceRepository;
+import com.epam.xmtesttask.repository.SyntheticPrices;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the query methods of {@link PriceService} on a repository filled with synthetic prices.
+ * <p>
+ * Symbols and dates are rotated between invocations so that results are not served from a single hot entry.
+ * The {@code fanOut} parameter compares evaluating the symbols one after another with one virtual thread per
+ * symbol (see {@link SymbolFanOut}); it only affects the calculations over all symbols.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceServiceBenchmark {
+
+    @Param({"in-memory", "columnar"})
+    private String repositoryType;
+
+    @Param({"5", "50"})
+    private int symbols;
+
+    @Param({"10000", "100000"})
+    private int historyLength;
+
+    @Param({"sequential", "virtual"})
+    private String fanOut;
+
+    private PriceService priceService;
+    private PriceRepository repository;
+    private long lastTimestamp;
+    private List<String> symbolNames;
+    private LocalDate[] days;
+    private LocalDateTime[] weekStarts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticPrices data = SyntheticPrices.generate(symbols, historyLength, 42);
+        repository = data.fill(SyntheticPrices.newRepository(repositoryType));
+        priceService = new PriceService();
+        setField(priceService, "priceRepository", repository);
+        setField(priceService, "meterRegistry", new SimpleMeterRegistry());
+        setField(priceService, "fanOutMode", fanOut);
+        setField(priceService, "fanOutMinSymbols", 1);
+        priceService.init();
+        symbolNames = data.symbols();
+        long[] timestamps = data.timestamps(0);
+        lastTimestamp = timestamps[timestamps.length - 1];
+        days = new LocalDate[64];
+        weekStarts = new LocalDateTime[64];
+        for (int i = 0; i < days.length; i++) {
+            int index = (int) ((long) i * (historyLength - 1) / (days.length - 1));
+            days[i] = data.day(index);
+            weekStarts[i] = PriceCodec.toUtcDateTime(data.timestamps(0)[index]);
+        }
+    }
+
+    @Benchmark
+    public CryptoStats getStats() {
+        return priceService.getStats(symbolNames.get(next++ % symbols));
+    }
+
+    @Benchmark
+    public CryptoStats getStatsInRange() {
+        LocalDateTime from = weekStarts[next & (weekStarts.length - 1)];
+        return priceService.getStats(symbolNames.get(next++ % symbols), from, from.plusWeeks(1));
+    }
+
+    @Benchmark
+    public List<CryptoNormalizedRange> getDescNormalizedRanges() {
+        return priceService.getDescNormalizedRanges();
+    }
+
+    /**
+     * Saves one price of a rotating symbol, then reads the first page of the normalized ranges, which evaluates
+     * only that symbol again.
+     */
+    @Benchmark
+    public List<CryptoNormalizedRange> getDescNormalizedRangesPageAfterWrite() {
+        String symbol = symbolNames.get(next++ % symbols);
+        repository.savePrices(symbol, new long[]{++lastTimestamp}, new long[]{PriceCodec.encodePrice(
+                priceService.getStats(symbol).newest())});
+        return priceService.getDescNormalizedRanges(0, 10);
+    }
+
+    @Benchmark
+    public CryptoNormalizedRange getHighestNormalizedRange() {
+        return priceService.getHighestNormalizedRange(days[next++ & (days.length - 1)]);
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        var field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
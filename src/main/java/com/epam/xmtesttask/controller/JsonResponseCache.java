@@ -0,0 +1,135 @@
+package com.epam.xmtesttask.controller;
+
+import com.epam.xmtesttask.repository.DataVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cache of JSON-encoded response bodies, keyed by endpoint and parameters and valid for one {@link DataVersion}.
+ * <p>
+ * A hit returns the UTF-8 bytes that Jackson produced for an earlier request with the same key, as long as the
+ * data version has not changed since; the controller hands them to the servlet output stream unchanged, so
+ * repeated requests neither compute nor serialize anything. A miss computes the result, encodes it with the
+ * application's {@link ObjectMapper} and stores the bytes. Failures of the computation, e.g. unknown cryptos,
+ * are propagated and not cached.
+ * <p>
+ * Entries are kept in access order and the least recently used entry is evicted beyond
+ * {@code response.cache.max-entries}, which bounds memory for arbitrary time ranges and dates. An entry of an
+ * older version is replaced on the next request for its key. The cache is disabled with
+ * {@code response.cache.enabled=false}, in which case every request is computed and serialized.
+ * <p>
+ * Lookups are counted in {@code response.cache.requests}, tagged with the outcome {@code hit} or {@code miss},
+ * and the number of entries is published as the {@code response.cache.entries} gauge.
+ */
+@Component
+public class JsonResponseCache {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${response.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${response.cache.max-entries:1024}")
+    private int maxEntries;
+
+    private Map<List<Object>, Entry> entries;
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    /**
+     * Creates the entry map and registers the meters.
+     */
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        hitCounter = requestCounter("hit");
+        missCounter = requestCounter("miss");
+        Gauge.builder("response.cache.entries", this, JsonResponseCache::size)
+                .description("Cached response bodies")
+                .register(meterRegistry);
+    }
+
+    private Counter requestCounter(String outcome) {
+        return Counter.builder("response.cache.requests")
+                .description("Response cache lookups")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the JSON encoding of a result, from the cache if it was encoded for the same key and data version.
+     * <p>
+     * Read {@code version} before computing: the result may then reflect newer data than the version says,
+     * which only causes a needless recomputation once the version is observed to change.
+     *
+     * @param version the version of the data the result is computed from
+     * @param result  computes the result on a miss
+     * @param key     the endpoint name followed by the request parameters; {@code null} elements are allowed
+     * @return the UTF-8 JSON bytes; must not be modified
+     */
+    public byte[] get(DataVersion version, Supplier<?> result, Object... key) {
+        if (!enabled) {
+            return encode(result.get());
+        }
+        List<Object> cacheKey = Arrays.asList(key);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(cacheKey);
+        }
+        if (entry != null && entry.version().equals(version)) {
+            hitCounter.increment();
+            return entry.json();
+        }
+        missCounter.increment();
+        byte[] json = encode(result.get());
+        synchronized (entries) {
+            Entry current = entries.get(cacheKey);
+            if (current == null || current.version().version() <= version.version()) {
+                entries.put(cacheKey, new Entry(version, json));
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Returns the number of cached responses.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode response", e);
+        }
+    }
+
+    private record Entry(DataVersion version, byte[] json) {
+    }
+}
@@ -1,7 +1,12 @@
 package com.epam.xmtesttask.controller;
 
+import com.epam.xmtesttask.domain.crypto.CryptoDailyNormalizedRange;
 import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceTick;
 import com.epam.xmtesttask.domain.crypto.CryptoStats;
+import com.epam.xmtesttask.repository.DataVersion;
+import com.epam.xmtesttask.repository.Resolution;
+import com.epam.xmtesttask.service.PriceIngestionService;
 import com.epam.xmtesttask.service.PriceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,20 +15,38 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
  * REST controller for crypto recommendation endpoints.
  * <p>
- * Provides endpoints to retrieve normalized ranges, statistics, and recommendations for cryptocurrencies.
+ * Provides endpoints to retrieve normalized ranges, statistics, and recommendations for cryptocurrencies,
+ * and to submit live prices.
  * All endpoints are documented with OpenAPI annotations for interactive API documentation.
+ * <p>
+ * The read endpoints support conditional requests: responses carry an {@code ETag} and {@code Last-Modified}
+ * derived from the {@link DataVersion} of the data they are computed from, and a request whose
+ * {@code If-None-Match} (or {@code If-Modified-Since}) still matches is answered with 304 (Not Modified)
+ * before anything is computed or serialized.
+ * <p>
+ * Their bodies are served from a {@link JsonResponseCache}: the JSON bytes encoded for the same parameters and
+ * data version are written to the response as they are, so unchanged results are neither recomputed nor
+ * serialized again.
  */
 @RestController
 @RequestMapping("/cryptos")
@@ -32,14 +55,50 @@ public class RecommendationServiceController {
     @Autowired
     private PriceService priceService;
 
+    @Autowired
+    private PriceIngestionService priceIngestionService;
+
+    @Autowired
+    private JsonResponseCache responseCache;
+
     /**
      * Returns a descending sorted list of all cryptos, comparing the normalized range ((max-min)/min).
      *
-     * @return List of {@link CryptoNormalizedRange} objects, sorted by normalized range descending.
+     * @param from    Optional inclusive UTC start of the time range (ISO date-time).
+     * @param to      Optional exclusive UTC end of the time range (ISO date-time).
+     * @param offset  Number of leading cryptos to skip; 0 if omitted.
+     * @param limit   Optional maximum number of cryptos to return; all if omitted.
+     * @param request The request, checked for a matching {@code If-None-Match} or {@code If-Modified-Since}.
+     * @return JSON list of {@link CryptoNormalizedRange} objects, sorted by normalized range descending,
+     * or {@code null} if the response is 304 (Not Modified).
      */
     @Operation(
             summary = "Get normalized ranges for all cryptos",
-            description = "Returns a descending sorted list of all supported cryptocurrencies, comparing their normalized range ((max-min)/min) over the available period.",
+            description = "Returns a descending sorted list of all supported cryptocurrencies, comparing their normalized range ((max-min)/min) over the available period. "
+                    + "With from and/or to, only prices in that range are considered and cryptos without prices in the range are left out. "
+                    + "Cryptos with equal ranges are ordered by symbol; offset and limit return one page of the list.",
+            parameters = {
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive UTC start of the time range (ISO date-time)",
+                            example = "2022-01-01T00:00:00"
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Exclusive UTC end of the time range (ISO date-time)",
+                            example = "2022-01-15T00:00:00"
+                    ),
+                    @Parameter(
+                            name = "offset",
+                            description = "Number of leading cryptos to skip (default 0)",
+                            example = "0"
+                    ),
+                    @Parameter(
+                            name = "limit",
+                            description = "Maximum number of cryptos to return (default all)",
+                            example = "10"
+                    )
+            },
             responses = {
                     @ApiResponse(
                             responseCode = "200",
@@ -48,29 +107,66 @@ public class RecommendationServiceController {
                                     mediaType = "application/json",
                                     schema = @Schema(implementation = CryptoNormalizedRange.class)
                             )
+                    ),
+                    @ApiResponse(responseCode = "304", description = "Not modified since the version in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid time range or page",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"BAD_REQUEST\", \"message\": \"Invalid time range: from (2022-01-15T00:00) must be before to (2022-01-01T00:00)\"}"
+                                    )
+                            )
                     )
             }
     )
     @GetMapping("/normalized-range")
-    public List<CryptoNormalizedRange> getDescNormalizedRanges() {
-        return priceService.getDescNormalizedRanges();
+    public ResponseEntity<byte[]> getDescNormalizedRanges(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            WebRequest request) {
+        DataVersion version = priceService.getDataVersion();
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        int pageLimit = limit == null ? Integer.MAX_VALUE : limit;
+        return json(responseCache.get(version, () -> priceService.getDescNormalizedRanges(from, to, offset, pageLimit),
+                "normalized-range", from, to, offset, pageLimit));
     }
 
     /**
      * Returns the oldest, newest, min, and max values for a requested crypto.
      *
-     * @param symbol The symbol of the cryptocurrency (e.g., BTC, ETH).
-     * @return {@link CryptoStats} object containing statistics for the requested crypto.
+     * @param symbol  The symbol of the cryptocurrency (e.g., BTC, ETH).
+     * @param from    Optional inclusive UTC start of the time range (ISO date-time).
+     * @param to      Optional exclusive UTC end of the time range (ISO date-time).
+     * @param request The request, checked for a matching {@code If-None-Match} or {@code If-Modified-Since}.
+     * @return JSON {@link CryptoStats} object containing statistics for the requested crypto,
+     * or {@code null} if the response is 304 (Not Modified).
      */
     @Operation(
             summary = "Get stats for a specific crypto",
-            description = "Returns the oldest, newest, min, and max price values for the specified cryptocurrency symbol.",
+            description = "Returns the oldest, newest, min, and max price values for the specified cryptocurrency symbol, "
+                    + "over the whole history or within the time range given by from and/or to.",
             parameters = {
                     @Parameter(
                             name = "symbol",
                             description = "Cryptocurrency symbol (e.g., BTC, ETH)",
                             example = "BTC",
                             required = true
+                    ),
+                    @Parameter(
+                            name = "from",
+                            description = "Inclusive UTC start of the time range (ISO date-time)",
+                            example = "2022-01-01T00:00:00"
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Exclusive UTC end of the time range (ISO date-time)",
+                            example = "2022-01-15T00:00:00"
                     )
             },
             responses = {
@@ -82,9 +178,20 @@ public class RecommendationServiceController {
                                     schema = @Schema(implementation = CryptoStats.class)
                             )
                     ),
+                    @ApiResponse(responseCode = "304", description = "Not modified since the version in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid time range",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"BAD_REQUEST\", \"message\": \"Invalid time range: from (2022-01-15T00:00) must be before to (2022-01-01T00:00)\"}"
+                                    )
+                            )
+                    ),
                     @ApiResponse(
                             responseCode = "404",
-                            description = "Crypto not found",
+                            description = "Crypto not found, or no data in the time range",
                             content = @Content(
                                     mediaType = "application/json",
                                     schema = @Schema(
@@ -95,16 +202,26 @@ public class RecommendationServiceController {
             }
     )
     @GetMapping("/{symbol}/stats")
-    public CryptoStats getStats(
-            @PathVariable("symbol") String symbol) {
-        return priceService.getStats(symbol);
+    public ResponseEntity<byte[]> getStats(
+            @PathVariable("symbol") String symbol,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            WebRequest request) {
+        DataVersion version = priceService.getDataVersion(symbol);
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        return json(responseCache.get(version, () -> priceService.getStats(symbol, from, to),
+                "stats", symbol, from, to));
     }
 
     /**
      * Returns the crypto with the highest normalized range for a specific day.
      *
-     * @param date The date to check (format: yyyy-MM-dd).
-     * @return {@link CryptoNormalizedRange} object for the crypto with the highest normalized range on the given day.
+     * @param date    The date to check (format: yyyy-MM-dd).
+     * @param request The request, checked for a matching {@code If-None-Match} or {@code If-Modified-Since}.
+     * @return JSON {@link CryptoNormalizedRange} object for the crypto with the highest normalized range on the given
+     * day, or {@code null} if the response is 304 (Not Modified).
      */
     @Operation(
             summary = "Get crypto with highest normalized range for a day",
@@ -126,6 +243,7 @@ public class RecommendationServiceController {
                                     schema = @Schema(implementation = CryptoNormalizedRange.class)
                             )
                     ),
+                    @ApiResponse(responseCode = "304", description = "Not modified since the version in If-None-Match"),
                     @ApiResponse(
                             responseCode = "404",
                             description = "No data for date",
@@ -139,8 +257,276 @@ public class RecommendationServiceController {
             }
     )
     @GetMapping("/highest-normalized-range")
-    public CryptoNormalizedRange getHighestNormalizedRange(
-            @RequestParam(value = "date", defaultValue = "yyyy-mm-dd") LocalDate date) {
-        return priceService.getHighestNormalizedRange(date);
+    public ResponseEntity<byte[]> getHighestNormalizedRange(
+            @RequestParam(value = "date", defaultValue = "yyyy-mm-dd") LocalDate date,
+            WebRequest request) {
+        DataVersion version = priceService.getDataVersion();
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        return json(responseCache.get(version, () -> priceService.getHighestNormalizedRange(date),
+                "highest-normalized-range", date));
+    }
+
+    /**
+     * Returns the crypto with the highest normalized range for each day of a date range.
+     *
+     * @param from    The first day, inclusive (format: yyyy-MM-dd).
+     * @param to      The last day, inclusive (format: yyyy-MM-dd).
+     * @param request The request, checked for a matching {@code If-None-Match} or {@code If-Modified-Since}.
+     * @return JSON list of {@link CryptoDailyNormalizedRange} objects in date order, one for each day with prices,
+     * or {@code null} if the response is 304 (Not Modified).
+     */
+    @Operation(
+            summary = "Get crypto with highest normalized range for each day of a date range",
+            description = "Returns the cryptocurrency with the highest normalized range for each UTC day from the "
+                    + "first to the last given date. Each day is decided among the cryptos with prices on that day; "
+                    + "days without any prices are left out. The range may span at most 366 days by default.",
+            parameters = {
+                    @Parameter(
+                            name = "from",
+                            description = "First day, inclusive (format: yyyy-MM-dd)",
+                            example = "2022-01-01",
+                            required = true
+                    ),
+                    @Parameter(
+                            name = "to",
+                            description = "Last day, inclusive (format: yyyy-MM-dd)",
+                            example = "2022-01-31",
+                            required = true
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Crypto with highest normalized range per day",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CryptoDailyNormalizedRange.class)
+                            )
+                    ),
+                    @ApiResponse(responseCode = "304", description = "Not modified since the version in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid date range",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"BAD_REQUEST\", \"message\": \"Invalid date range: from (2022-01-31) must not be after to (2022-01-01)\"}"
+                                    )
+                            )
+                    )
+            }
+    )
+    @GetMapping(value = "/highest-normalized-range", params = {"from", "to"})
+    public ResponseEntity<byte[]> getHighestNormalizedRanges(
+            @RequestParam("from") LocalDate from,
+            @RequestParam("to") LocalDate to,
+            WebRequest request) {
+        DataVersion version = priceService.getDataVersion();
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        return json(responseCache.get(version, () -> priceService.getHighestNormalizedRanges(from, to),
+                "highest-normalized-range-daily", from, to));
+    }
+
+    /**
+     * Returns the crypto with the highest normalized range in an hour, day, week or month of a time zone.
+     *
+     * @param resolution The length of the period: {@code hour}, {@code day}, {@code week} or {@code month}.
+     * @param at         A local date and time within the period (ISO date-time).
+     * @param zone       The time zone of {@code at} and of the period boundaries; UTC if omitted.
+     * @param request    The request, checked for a matching {@code If-None-Match} or {@code If-Modified-Since}.
+     * @return JSON {@link CryptoNormalizedRange} object for the crypto with the highest normalized range in the
+     * period, or {@code null} if the response is 304 (Not Modified).
+     */
+    @Operation(
+            summary = "Get crypto with highest normalized range for an hour, day, week or month",
+            description = "Returns the cryptocurrency with the highest normalized range in the hour, calendar day, "
+                    + "ISO week (Monday to Sunday) or calendar month of the given time zone that contains the given "
+                    + "local date-time. Cryptos without prices in the period are left out.",
+            parameters = {
+                    @Parameter(
+                            name = "resolution",
+                            description = "Length of the period: hour, day, week or month",
+                            example = "week",
+                            required = true
+                    ),
+                    @Parameter(
+                            name = "at",
+                            description = "Local date-time within the period (ISO date-time)",
+                            example = "2022-01-05T13:00:00",
+                            required = true
+                    ),
+                    @Parameter(
+                            name = "zone",
+                            description = "Time zone ID of the period (default UTC)",
+                            example = "Europe/Budapest"
+                    )
+            },
+            responses = {
+                    @ApiResponse(
+                            responseCode = "200",
+                            description = "Crypto with highest normalized range",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(implementation = CryptoNormalizedRange.class)
+                            )
+                    ),
+                    @ApiResponse(responseCode = "304", description = "Not modified since the version in If-None-Match"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid resolution, date-time or time zone",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"BAD_REQUEST\", \"message\": \"Invalid value for parameter resolution: year\"}"
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "404",
+                            description = "No data in the period",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"NOT_FOUND\", \"message\": \"Crypto data not found in period: 2023-01-02T00:00Z[UTC] - 2023-01-09T00:00Z[UTC]\"}"
+                                    )
+                            )
+                    )
+            }
+    )
+    @GetMapping("/highest-normalized-range/{resolution}")
+    public ResponseEntity<byte[]> getHighestNormalizedRange(
+            @PathVariable("resolution") Resolution resolution,
+            @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(value = "zone", defaultValue = "UTC") ZoneId zone,
+            WebRequest request) {
+        DataVersion version = priceService.getDataVersion();
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        return json(responseCache.get(version, () -> priceService.getHighestNormalizedRange(resolution, at, zone),
+                "highest-normalized-range", resolution, resolution.truncate(at), zone));
+    }
+
+    /**
+     * Accepts live prices of a single crypto for asynchronous ingestion.
+     *
+     * @param symbol The symbol of the cryptocurrency (e.g., BTC, ETH).
+     * @param ticks  The prices to save; the symbol of each tick may be omitted.
+     * @return 202 Accepted once the prices are queued; they may still be dropped if saving them fails.
+     */
+    @Operation(
+            summary = "Submit prices for a specific crypto",
+            description = "Queues price ticks (UTC epoch milliseconds and price) of the specified cryptocurrency. "
+                    + "The prices become visible shortly after the request is accepted. "
+                    + "Acceptance does not guarantee that the prices are saved; prices that fail to save are dropped. "
+                    + "Returns 503 with a Retry-After header when the ingestion queue is full.",
+            parameters = {
+                    @Parameter(
+                            name = "symbol",
+                            description = "Cryptocurrency symbol (e.g., BTC, ETH)",
+                            example = "BTC",
+                            required = true
+                    )
+            },
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Prices queued"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid price tick",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"BAD_REQUEST\", \"message\": \"Invalid price tick: tick 0 has no positive price\"}"
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Ingestion queue full",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"SERVICE_UNAVAILABLE\", \"message\": \"Ingestion queue is full, rejected 100 ticks\"}"
+                                    )
+                            )
+                    )
+            }
+    )
+    @PostMapping("/{symbol}/prices")
+    public ResponseEntity<Void> submitPrices(
+            @PathVariable("symbol") String symbol,
+            @RequestBody List<CryptoPriceTick> ticks) {
+        priceIngestionService.submit(symbol, ticks);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Accepts live prices of several cryptos for asynchronous ingestion.
+     *
+     * @param ticks The prices to save; each tick names its symbol.
+     * @return 202 Accepted once the prices are queued; they may still be dropped if saving them fails.
+     */
+    @Operation(
+            summary = "Submit prices for several cryptos",
+            description = "Queues price ticks (symbol, UTC epoch milliseconds and price) of any cryptocurrencies. "
+                    + "The request is accepted or rejected as a whole. "
+                    + "Acceptance does not guarantee that the prices are saved; prices of a crypto that fail to save "
+                    + "are dropped while those of the other cryptos are still saved. "
+                    + "Returns 503 with a Retry-After header when the ingestion queue is full.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Prices queued"),
+                    @ApiResponse(
+                            responseCode = "400",
+                            description = "Invalid price tick",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"BAD_REQUEST\", \"message\": \"Invalid price tick: symbol must be 1 to 16 letters or digits, got null\"}"
+                                    )
+                            )
+                    ),
+                    @ApiResponse(
+                            responseCode = "503",
+                            description = "Ingestion queue full",
+                            content = @Content(
+                                    mediaType = "application/json",
+                                    schema = @Schema(
+                                            example = "{\"code\": \"SERVICE_UNAVAILABLE\", \"message\": \"Ingestion queue is full, rejected 100 ticks\"}"
+                                    )
+                            )
+                    )
+            }
+    )
+    @PostMapping("/prices")
+    public ResponseEntity<Void> submitPrices(
+            @RequestBody List<CryptoPriceTick> ticks) {
+        priceIngestionService.submit(ticks);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Sets the {@code ETag} and {@code Last-Modified} of a response from a data version and checks the
+     * request's preconditions against them. Data that has never been written gets no validators, so
+     * requests for unknown cryptos still end in 404.
+     * <p>
+     * {@code Last-Modified} has whole seconds, so writes within the same second share it; the {@code ETag} holds
+     * the version number and tells them apart, and takes precedence when a request sends both validators.
+     *
+     * @return {@code true} if the response has been set to 304 (Not Modified)
+     */
+    private static boolean isNotModified(WebRequest request, DataVersion version) {
+        if (version.version() == 0) {
+            return false;
+        }
+        String etag = "\"" + version.version() + "-" + Long.toHexString(version.modifiedAt()) + "\"";
+        return request.checkNotModified(etag, version.modifiedAt());
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
@@ -0,0 +1,21 @@
+package com.epam.xmtesttask.controller;
+
+import com.epam.xmtesttask.repository.Resolution;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Converts request parameters such as {@code hour} or {@code week} to a {@link Resolution}, ignoring case.
+ * <p>
+ * Registered with Spring MVC as a bean; unknown values fail the conversion, which is answered with 400 (Bad Request).
+ */
+@Component
+public class ResolutionConverter implements Converter<String, Resolution> {
+
+    @Override
+    public Resolution convert(String source) {
+        return Resolution.valueOf(source.trim().toUpperCase(Locale.ROOT));
+    }
+}
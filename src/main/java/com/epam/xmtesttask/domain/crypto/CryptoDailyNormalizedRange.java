@@ -0,0 +1,27 @@
+package com.epam.xmtesttask.domain.crypto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Immutable value object representing the normalized range of a cryptocurrency on a UTC calendar day.
+ * <p>
+ * Used to list the crypto with the highest normalized range ((max-min)/min) for each day of a date range.
+ *
+ * @param date             the UTC calendar day; must not be null
+ * @param symbol           the cryptocurrency symbol (e.g., "BTC", "ETH"); must not be null
+ * @param normalizedRange  the normalized range value of the day; must not be null
+ */
+public record CryptoDailyNormalizedRange(
+        LocalDate date,
+        String symbol,
+        BigDecimal normalizedRange
+) {
+
+    public CryptoDailyNormalizedRange {
+        Objects.requireNonNull(date);
+        Objects.requireNonNull(symbol);
+        Objects.requireNonNull(normalizedRange);
+    }
+}
@@ -0,0 +1,74 @@
+package com.epam.xmtesttask.domain.crypto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Immutable aggregate of a set of cryptocurrency price entries.
+ * <p>
+ * The summary keeps the first and last price by timestamp, the minimum and maximum price and the
+ * number of aggregated entries. Summaries can be merged, which allows them to be maintained incrementally
+ * as new prices arrive.
+ * <p>
+ * When two entries share the same timestamp, the one aggregated first is treated as the first price
+ * and the one aggregated last as the last price. Ties between equal minimum or maximum prices keep the
+ * value aggregated first.
+ *
+ * @param firstDateTime the UTC date and time of the earliest entry; must not be null
+ * @param first         the price of the earliest entry; must not be null
+ * @param lastDateTime  the UTC date and time of the latest entry; must not be null
+ * @param last          the price of the latest entry; must not be null
+ * @param min           the minimum price; must not be null
+ * @param max           the maximum price; must not be null
+ * @param count         the number of aggregated entries
+ */
+public record CryptoPriceSummary(
+        LocalDateTime firstDateTime,
+        BigDecimal first,
+        LocalDateTime lastDateTime,
+        BigDecimal last,
+        BigDecimal min,
+        BigDecimal max,
+        long count
+) {
+    public CryptoPriceSummary {
+        Objects.requireNonNull(firstDateTime);
+        Objects.requireNonNull(first);
+        Objects.requireNonNull(lastDateTime);
+        Objects.requireNonNull(last);
+        Objects.requireNonNull(min);
+        Objects.requireNonNull(max);
+    }
+
+    /**
+     * Creates a summary of a single price entry.
+     *
+     * @param utcDateTime the UTC date and time of the entry
+     * @param price       the price of the entry
+     * @return a summary with a count of one
+     */
+    public static CryptoPriceSummary of(LocalDateTime utcDateTime, BigDecimal price) {
+        return new CryptoPriceSummary(utcDateTime, price, utcDateTime, price, price, price, 1);
+    }
+
+    /**
+     * Merges this summary with a summary of entries aggregated after it.
+     *
+     * @param later the summary to merge into this one
+     * @return a new summary covering the entries of both summaries
+     */
+    public CryptoPriceSummary merge(CryptoPriceSummary later) {
+        boolean laterFirst = later.firstDateTime.isBefore(firstDateTime);
+        boolean laterLast = !later.lastDateTime.isBefore(lastDateTime);
+        return new CryptoPriceSummary(
+                laterFirst ? later.firstDateTime : firstDateTime,
+                laterFirst ? later.first : first,
+                laterLast ? later.lastDateTime : lastDateTime,
+                laterLast ? later.last : last,
+                later.min.compareTo(min) < 0 ? later.min : min,
+                later.max.compareTo(max) > 0 ? later.max : max,
+                count + later.count
+        );
+    }
+}
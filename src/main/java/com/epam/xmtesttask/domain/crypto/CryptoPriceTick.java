@@ -0,0 +1,21 @@
+package com.epam.xmtesttask.domain.crypto;
+
+import java.math.BigDecimal;
+
+/**
+ * Value object representing a live price observation submitted for ingestion.
+ * <p>
+ * The timestamp uses the same representation as the CSV files: UTC epoch milliseconds.
+ * The symbol may be omitted when it is given by the request path.
+ * Values are validated by the ingestion service rather than on construction,
+ * so invalid requests are reported with a descriptive message.
+ *
+ * @param symbol    the cryptocurrency symbol (e.g., "BTC"); optional for symbol-specific endpoints
+ * @param timestamp the UTC timestamp of the observation in epoch milliseconds
+ * @param price     the observed price; must be positive
+ */
+public record CryptoPriceTick(
+        String symbol,
+        Long timestamp,
+        BigDecimal price
+) {}
@@ -1,9 +1,20 @@
 package com.epam.xmtesttask.domain.exception;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 
 public class CryptoDataNotFoundException extends RuntimeException {
     public CryptoDataNotFoundException(String symbol, LocalDate date) {
         super("Crypto (" + symbol + ") data not found for date: " + date);
     }
+
+    public CryptoDataNotFoundException(String symbol, LocalDateTime from, LocalDateTime to) {
+        super("Crypto (" + symbol + ") data not found in range: "
+                + (from == null ? "start" : from) + " - " + (to == null ? "end" : to));
+    }
+
+    public CryptoDataNotFoundException(ZonedDateTime from, ZonedDateTime to) {
+        super("Crypto data not found in period: " + from + " - " + to);
+    }
 }
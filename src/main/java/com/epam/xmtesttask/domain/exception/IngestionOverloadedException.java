@@ -0,0 +1,7 @@
+package com.epam.xmtesttask.domain.exception;
+
+public class IngestionOverloadedException extends RuntimeException {
+    public IngestionOverloadedException(int ticks) {
+        super("Ingestion queue is full, rejected " + ticks + " ticks");
+    }
+}
@@ -0,0 +1,7 @@
+package com.epam.xmtesttask.domain.exception;
+
+public class InvalidPageException extends RuntimeException {
+    public InvalidPageException(int offset, int limit) {
+        super("Invalid page: offset (" + offset + ") must not be negative and limit (" + limit + ") must be positive");
+    }
+}
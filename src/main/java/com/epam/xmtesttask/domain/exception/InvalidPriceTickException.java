@@ -0,0 +1,7 @@
+package com.epam.xmtesttask.domain.exception;
+
+public class InvalidPriceTickException extends RuntimeException {
+    public InvalidPriceTickException(String message) {
+        super("Invalid price tick: " + message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.epam.xmtesttask.domain.exception;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class InvalidTimeRangeException extends RuntimeException {
+    public InvalidTimeRangeException(LocalDateTime from, LocalDateTime to) {
+        super("Invalid time range: from (" + from + ") must be before to (" + to + ")");
+    }
+
+    public InvalidTimeRangeException(LocalDate from, LocalDate to) {
+        super("Invalid date range: from (" + from + ") must not be after to (" + to + ")");
+    }
+
+    public InvalidTimeRangeException(LocalDate from, LocalDate to, long maxDays) {
+        super("Invalid date range: " + from + " - " + to + " is longer than " + maxDays + " days");
+    }
+}
@@ -1,75 +1,378 @@
 package com.epam.xmtesttask.repository;
 
 import com.opencsv.CSVReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Service responsible for loading cryptocurrency price data from CSV files at application startup.
  * <p>
- * This loader scans the {@code resources/prices} directory for all files ending with {@code _values.csv},
- * parses each file, and saves the price data into the provided {@link PriceRepository}.
+ * This loader scans the {@code resources/prices} directory, or the directory given by {@code price.loader.directory},
+ * for all files ending with {@code _values.csv}, parses each file, and saves the price data into the provided
+ * {@link PriceRepository}. When the resources are packaged in a plain jar, its file system is opened to read them
+ * and stays open until the loader is destroyed.
  * <p>
  * The expected CSV format is: {@code timestamp,symbol,price}
  * <p>
+ * Two loading modes are supported, selected with {@code price.loader.mode}:
+ * <ul>
+ *     <li>{@code sequential} (default) - files are read one after another with OpenCSV
+ *     and saved row by row through {@link PriceRepository#savePrice}.</li>
+ *     <li>{@code parallel} - files are memory-mapped and parsed concurrently, one task per file,
+ *     by {@link CsvPriceParser}, and saved in bulk through {@link PriceRepository#savePrices}.</li>
+ * </ul>
+ * Both modes log the number of loaded rows, the throughput in rows per second and the number of rejected lines.
+ * The same figures are recorded as metrics: the {@code price.loader.duration} timer, tagged with the mode, and the
+ * {@code price.loader.rows} counter, tagged with the outcome {@code loaded} or {@code rejected}.
+ * <p>
+ * With {@code price.snapshot.enabled=true} the loaded prices are also written to a binary {@link PriceSnapshot}
+ * at {@code price.snapshot.path}. On the next start the snapshot is memory-mapped and restored instead of parsing
+ * the CSV files, unless it is missing, corrupt or stale, i.e. the CSV files changed since it was written.
+ * <p>
+ * With the {@link LazyPriceRepository} ({@code price.repository.type=lazy}) the files are only indexed, one symbol
+ * per file named after it, and each file is read on the first access to its symbol.
+ * <p>
+ * With {@code price.watcher.enabled=true} the loader always uses the parallel mode and remembers how far it read
+ * each file (see {@link #getLoadedOffsets()}), so that {@link CsvDirectoryWatcher} continues from there.
+ * <p>
+ * The CSV files only seed an empty repository: if it already holds prices when the loader runs, e.g. because a
+ * durable repository such as {@link WalPriceRepository} recovered them, nothing is loaded. A
+ * {@link WalPriceRepository} is seeded through {@link WalPriceRepository#seed}, which makes the loaded prices durable
+ * all at once, so a crash during the first load leaves it empty and the CSV files are loaded again on the next start.
+ * <p>
  * The {@link #loadCsvFiles()} is automatically invoked after bean construction
  * due to the {@link PostConstruct} annotation.
  */
 @Service
 public class CSVPriceLoader {
+    private static final Logger log = LoggerFactory.getLogger(CSVPriceLoader.class);
+
+    private static final String CSV_SUFFIX = "_values.csv";
+
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.loader.mode:sequential}")
+    private String mode;
+
+    @Value("${price.loader.directory:}")
+    private String directory;
+
+    @Value("${price.snapshot.enabled:false}")
+    private boolean snapshotEnabled;
+
+    @Value("${price.snapshot.path:data/prices.snapshot}")
+    private Path snapshotPath;
+
+    @Value("${price.watcher.enabled:false}")
+    private boolean watcherEnabled;
+
+    /**
+     * The position up to which each file has been loaded, for {@link CsvDirectoryWatcher}.
+     */
+    private final Map<Path, Long> loadedOffsets = new ConcurrentHashMap<>();
+
+    /**
+     * The file system of the jar the bundled prices are read from, if this loader had to open it.
+     */
+    private FileSystem jarFileSystem;
+
     @PostConstruct
     public void loadCsvFiles() {
-        ClassLoader classLoader = getClass().getClassLoader();
-        URL priceResource = classLoader.getResource("prices");
-        List<String> fileList;
+        if (watcherEnabled && !"parallel".equalsIgnoreCase(mode)) {
+            log.info("Loading prices in parallel mode instead of {} mode, as the directory watcher continues "
+                    + "from the loaded byte offsets", mode);
+            mode = "parallel";
+        }
+        List<Path> fileList;
         try {
-            Path path = Paths.get(priceResource.toURI());
-            fileList = Files.walk(path)
-                    .filter(Files::isRegularFile)
-                    .map(Path::toString)
-                    .filter(filePath -> filePath.endsWith("_values.csv"))
-                    .map(filePath -> filePath.substring(filePath.indexOf("prices")))
-                    .toList();
+            Path path = resolveDirectory();
+            try (var files = Files.walk(path)) {
+                fileList = files
+                        .filter(Files::isRegularFile)
+                        .filter(filePath -> filePath.toString().endsWith(CSV_SUFFIX))
+                        .toList();
+            }
         } catch (IOException | URISyntaxException e) {
             throw new RuntimeException(e);
         }
 
         if (fileList.isEmpty()) return;
 
+        if (priceRepository instanceof LazyPriceRepository lazyRepository) {
+            indexFiles(lazyRepository, fileList);
+            return;
+        }
+
+        if (priceRepository.getDataVersion().version() > 0) {
+            log.info("Repository already holds {} symbols, e.g. recovered from durable storage, skipping the CSV load",
+                    priceRepository.getSupportedCryptos().size());
+            recordFileSizes(fileList);
+            return;
+        }
+
+        long fingerprint = 0;
+        if (snapshotEnabled) {
+            fingerprint = fingerprint(fileList);
+            if (restoreSnapshot(fingerprint)) {
+                recordFileSizes(fileList);
+                return;
+            }
+        }
+
+        long start = System.nanoTime();
+        Supplier<LoadReport> load = "parallel".equalsIgnoreCase(mode)
+                ? () -> loadParallel(fileList) : () -> loadSequential(fileList);
+        LoadReport report = priceRepository instanceof WalPriceRepository walRepository
+                ? seed(walRepository, load) : load.get();
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Loaded {} prices from {} files in {} ms ({} rows/s, {} mode), rejected {} lines, {} files failed",
+                report.rows, fileList.size(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                report.rows * 1_000_000_000L / Math.max(elapsedNanos, 1), mode, report.rejected, report.failedFiles);
+        recordMetrics(report, elapsedNanos);
+
+        if (snapshotEnabled && report.failedFiles == 0) {
+            writeSnapshot(fingerprint, elapsedNanos);
+        }
+    }
+
+    /**
+     * Returns the position up to which each file has been loaded.
+     * <p>
+     * Files that were not parsed because their prices were restored from a snapshot, recovered from durable
+     * storage or left to a {@link LazyPriceRepository} are considered loaded up to their size at startup.
+     *
+     * @return the byte offset after the last loaded line of each file; unmodifiable
+     */
+    public Map<Path, Long> getLoadedOffsets() {
+        return Collections.unmodifiableMap(loadedOffsets);
+    }
+
+    /**
+     * Registers the file of each symbol with a lazy repository instead of loading it.
+     */
+    private void indexFiles(LazyPriceRepository lazyRepository, List<Path> fileList) {
+        long start = System.nanoTime();
+        Map<String, LazyPriceRepository.CsvFile> files = new HashMap<>();
+        for (Path file : fileList) {
+            String name = file.getFileName().toString();
+            try {
+                long length = Files.size(file);
+                files.put(name.substring(0, name.length() - CSV_SUFFIX.length()),
+                        new LazyPriceRepository.CsvFile(file, length));
+                loadedOffsets.put(file, length);
+            } catch (IOException e) {
+                log.error("Failed to index prices in {}", file, e);
+            }
+        }
+        lazyRepository.index(files);
+        log.info("Indexed {} symbol files in {} ms for loading on first access",
+                files.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private LoadReport seed(WalPriceRepository walRepository, Supplier<LoadReport> load) {
+        try {
+            return walRepository.seed(load);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to seed the repository with the CSV prices", e);
+        }
+    }
+
+    private void recordFileSizes(List<Path> fileList) {
+        for (Path file : fileList) {
+            try {
+                loadedOffsets.put(file, Files.size(file));
+            } catch (IOException e) {
+                log.warn("Failed to read the size of {}", file, e);
+            }
+        }
+    }
+
+    private void recordMetrics(LoadReport report, long elapsedNanos) {
+        Timer.builder("price.loader.duration")
+                .description("Duration of loading prices from CSV files")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        rowCounter("loaded").increment(report.rows);
+        rowCounter("rejected").increment(report.rejected);
+    }
+
+    private Counter rowCounter(String outcome) {
+        return Counter.builder("price.loader.rows")
+                .description("CSV rows processed by the price loader")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Closes the jar file system opened to read the bundled prices, if any.
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (jarFileSystem != null) {
+            jarFileSystem.close();
+        }
+    }
+
+    private Path resolveDirectory() throws URISyntaxException, IOException {
+        if (!directory.isBlank()) {
+            return Paths.get(directory);
+        }
+        URL priceResource = getClass().getClassLoader().getResource("prices");
+        URI uri = priceResource.toURI();
+        try {
+            return Paths.get(uri);
+        } catch (FileSystemNotFoundException e) {
+            // A jar: URI of a plain jar, whose file system is only available once opened.
+            jarFileSystem = FileSystems.newFileSystem(uri, Map.of());
+            return Paths.get(uri);
+        }
+    }
+
+    private long fingerprint(List<Path> fileList) {
+        try {
+            return PriceSnapshot.fingerprint(fileList);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean restoreSnapshot(long fingerprint) {
+        long start = System.nanoTime();
+        try {
+            Optional<PriceSnapshot.Restored> restored = PriceSnapshot.restore(snapshotPath, fingerprint, priceRepository);
+            if (restored.isEmpty()) {
+                log.info("Snapshot {} is missing or stale, loading prices from CSV", snapshotPath);
+                return false;
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            long csvLoadNanos = restored.get().csvLoadNanos();
+            log.info("Restored {} prices of {} symbols from snapshot {} in {} ms, {} ms faster than the CSV load ({} ms)",
+                    restored.get().rows(), restored.get().symbols(), snapshotPath,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(csvLoadNanos - elapsedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(csvLoadNanos));
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to read snapshot {}, loading prices from CSV", snapshotPath, e);
+            return false;
+        }
+    }
+
+    private void writeSnapshot(long fingerprint, long csvLoadNanos) {
+        long start = System.nanoTime();
+        try {
+            long rows = PriceSnapshot.write(snapshotPath, priceRepository, fingerprint, csvLoadNanos);
+            log.info("Wrote {} prices to snapshot {} in {} ms", rows, snapshotPath,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            log.warn("Failed to write snapshot {}", snapshotPath, e);
+        }
+    }
+
+    private LoadReport loadSequential(List<Path> fileList) {
+        LoadReport report = new LoadReport();
         fileList.forEach(file -> {
-                InputStream inputStream = classLoader.getResourceAsStream(file);
-                try (CSVReader reader = new CSVReader(new InputStreamReader(inputStream))) {
+                try (InputStream inputStream = Files.newInputStream(file);
+                     CSVReader reader = new CSVReader(new InputStreamReader(inputStream))) {
                     String[] line;
                     reader.readNext();
                     while ((line = reader.readNext()) != null) {
-                        LocalDateTime utcDateTime = createLocalDateTime(line[0]);
-                        String symbol = line[1];
-                        BigDecimal price = new BigDecimal(line[2], new MathContext(4));
-                        priceRepository.savePrice(symbol, utcDateTime, price);
+                        try {
+                            LocalDateTime utcDateTime = createLocalDateTime(line[0]);
+                            String symbol = line[1];
+                            BigDecimal price = new BigDecimal(line[2], new MathContext(4));
+                            priceRepository.savePrice(symbol, utcDateTime, price);
+                            report.rows++;
+                        } catch (RuntimeException e) {
+                            report.rejected++;
+                            log.debug("Rejected line {} of {}: {}", reader.getLinesRead(), file, e.getMessage());
+                        }
                     }
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    report.failedFiles++;
+                    log.error("Failed to load prices from {}", file, e);
                 }
             });
+        return report;
+    }
+
+    private LoadReport loadParallel(List<Path> fileList) {
+        LoadReport report = new LoadReport();
+        int threads = Math.min(fileList.size(), Runtime.getRuntime().availableProcessors());
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<CsvPriceParser.Result>> results = new ArrayList<>(fileList.size());
+            // With the watcher, a trailing line that is still being written is left to it.
+            fileList.forEach(file -> results.add(executor.submit(() ->
+                    watcherEnabled ? CsvPriceParser.parse(file, 0, true) : CsvPriceParser.parse(file))));
+            // Parsing runs in parallel; results are handed to the repository from this thread only.
+            for (int i = 0; i < fileList.size(); i++) {
+                Path file = fileList.get(i);
+                try {
+                    CsvPriceParser.Result result = results.get(i).get();
+                    result.series().forEach(series ->
+                            priceRepository.savePrices(series.symbol(), series.timestamps(), series.prices()));
+                    loadedOffsets.put(file, result.end());
+                    report.rows += result.rows();
+                    report.rejected += result.rejected();
+                    if (result.rejected() > 0) {
+                        log.warn("Rejected {} lines of {}, first at line {}",
+                                result.rejected(), file, result.firstRejectedLine());
+                    }
+                } catch (ExecutionException e) {
+                    report.failedFiles++;
+                    log.error("Failed to load prices from {}", file, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading prices", e);
+                }
+            }
+        }
+        return report;
     }
 
     private LocalDateTime createLocalDateTime(String timestamp) {
@@ -77,4 +380,13 @@ public class CSVPriceLoader {
         Instant instant = Instant.ofEpochMilli(longTimeStamp);
         return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
     }
+
+    /**
+     * Mutable counters collected while loading.
+     */
+    private static final class LoadReport {
+        private long rows;
+        private long rejected;
+        private int failedFiles;
+    }
 }
@@ -0,0 +1,43 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columnar, thread-safe in-memory implementation of the {@link PriceRepository} interface.
+ * <p>
+ * Each symbol is stored as a {@link PriceSeries}: parallel {@code long} arrays of epoch milliseconds and
+ * fixed-point prices. This keeps the heap footprint at 16 bytes per price and avoids creating
+ * long-lived objects per tick, so memory use and GC pauses stay flat as the history grows.
+ * {@link CryptoPrice} objects are built lazily when the list returned by {@link #getPrices(String)} is read.
+ * <p>
+ * Writes and reads are those of {@link SnapshotPriceRepository}: reads never block and work on the most recently
+ * published state. Appends share the column arrays with earlier states (see {@link PriceSeries}).
+ * <p>
+ * Summaries, including the rollups of every {@link Resolution}, are kept as {@link FixedPointSummary} values and
+ * decoded only by the methods that return {@link CryptoPriceSummary}.
+ * <p>
+ * Each series is kept sorted by timestamp, so {@link #getPrices(String)} lists prices in timestamp order and
+ * {@link #getRangeSummary(String, LocalDateTime, LocalDateTime)} takes O(log n) for any range.
+ * <p>
+ * Prices are rounded to {@value PriceCodec#PRICE_SCALE} decimal places.
+ * <p>
+ * This is the default implementation, selected when {@code price.repository.type} is unset or {@code columnar}.
+ */
+@Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "columnar", matchIfMissing = true)
+public class ColumnarPriceRepository extends SnapshotPriceRepository<PriceSeries> {
+
+    public ColumnarPriceRepository() {
+        super(PriceSeries.EMPTY);
+    }
+
+    @Override
+    PriceSeries appendAll(PriceSeries series, long[] timestamps, long[] prices) {
+        return series.appendAll(timestamps, prices);
+    }
+}
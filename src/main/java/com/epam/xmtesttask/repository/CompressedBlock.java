@@ -0,0 +1,184 @@
+package com.epam.xmtesttask.repository;
+
+/**
+ * Immutable, compressed block of consecutive prices of one symbol, sorted by timestamp.
+ * <p>
+ * Timestamps are stored as delta-of-delta values, which are zero for regular intervals, and prices as deltas to
+ * the previous price. Both are zigzag-encoded and bit-packed with the width of the largest value in the block, so
+ * a block of hourly ticks needs no bits at all for its timestamps. Price deltas are divided by the largest power of
+ * ten that divides all of them first: prices rounded to a few significant digits are stored with
+ * {@value PriceCodec#PRICE_SCALE} decimal places, so their deltas are multiples of a large power of ten.
+ * <p>
+ * Each block keeps the {@link FixedPointSummary} of its prices, so range queries only decode blocks that
+ * partially overlap the range.
+ */
+final class CompressedBlock {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final FixedPointSummary summary;
+    private final long firstDelta;
+    private final byte timestampBits;
+    private final byte priceExponent;
+    private final byte priceBits;
+    private final long[] bits;
+
+    private CompressedBlock(FixedPointSummary summary, long firstDelta, int timestampBits, int priceExponent,
+                            int priceBits, long[] bits) {
+        this.summary = summary;
+        this.firstDelta = firstDelta;
+        this.timestampBits = (byte) timestampBits;
+        this.priceExponent = (byte) priceExponent;
+        this.priceBits = (byte) priceBits;
+        this.bits = bits;
+    }
+
+    /**
+     * Encodes the entries in {@code [from, to)} of parallel columns sorted by timestamp.
+     *
+     * @param timestamps the timestamps in epoch milliseconds
+     * @param prices     the fixed-point prices
+     * @param from       the index of the first entry
+     * @param to         the index after the last entry; greater than {@code from}
+     * @return the block
+     */
+    static CompressedBlock encode(long[] timestamps, long[] prices, int from, int to) {
+        int count = to - from;
+        long min = prices[from];
+        long max = prices[from];
+        long timestampMask = 0;
+        long priceGcdCandidate = 0;
+        for (int i = from + 1; i < to; i++) {
+            min = Math.min(min, prices[i]);
+            max = Math.max(max, prices[i]);
+            if (i >= from + 2) {
+                timestampMask |= zigzag(deltaOfDelta(timestamps, i));
+            }
+            priceGcdCandidate |= prices[i] - prices[i - 1];
+        }
+        int exponent = 0;
+        if (priceGcdCandidate != 0) {
+            while (exponent + 1 < POWERS_OF_TEN.length && dividesAll(prices, from, to, POWERS_OF_TEN[exponent + 1])) {
+                exponent++;
+            }
+        }
+        long priceMask = 0;
+        for (int i = from + 1; i < to; i++) {
+            priceMask |= zigzag((prices[i] - prices[i - 1]) / POWERS_OF_TEN[exponent]);
+        }
+        int timestampBits = 64 - Long.numberOfLeadingZeros(timestampMask);
+        int priceBits = 64 - Long.numberOfLeadingZeros(priceMask);
+        long totalBits = (long) Math.max(0, count - 2) * timestampBits + (long) (count - 1) * priceBits;
+        long[] bits = new long[(int) ((totalBits + 63) >>> 6)];
+        long position = 0;
+        for (int i = from + 2; i < to; i++) {
+            position = write(bits, position, zigzag(deltaOfDelta(timestamps, i)), timestampBits);
+        }
+        for (int i = from + 1; i < to; i++) {
+            position = write(bits, position, zigzag((prices[i] - prices[i - 1]) / POWERS_OF_TEN[exponent]), priceBits);
+        }
+        FixedPointSummary summary = new FixedPointSummary(timestamps[from], prices[from], timestamps[to - 1],
+                prices[to - 1], min, max, count);
+        long firstDelta = count > 1 ? timestamps[from + 1] - timestamps[from] : 0;
+        return new CompressedBlock(summary, firstDelta, timestampBits, exponent, priceBits, bits);
+    }
+
+    /**
+     * Decodes the block into parallel columns.
+     *
+     * @param timestamps the target of the timestamps
+     * @param prices     the target of the prices
+     * @param offset     the index in the targets of the first entry
+     */
+    void decode(long[] timestamps, long[] prices, int offset) {
+        int count = size();
+        timestamps[offset] = summary.firstEpochMilli();
+        prices[offset] = summary.first();
+        long position = 0;
+        long delta = firstDelta;
+        for (int i = 1; i < count; i++) {
+            if (i >= 2) {
+                delta += unzigzag(read(bits, position, timestampBits));
+                position += timestampBits;
+            }
+            timestamps[offset + i] = timestamps[offset + i - 1] + delta;
+        }
+        long scale = POWERS_OF_TEN[priceExponent];
+        for (int i = 1; i < count; i++) {
+            prices[offset + i] = prices[offset + i - 1] + unzigzag(read(bits, position, priceBits)) * scale;
+            position += priceBits;
+        }
+    }
+
+    FixedPointSummary summary() {
+        return summary;
+    }
+
+    int size() {
+        return (int) summary.count();
+    }
+
+    /**
+     * Estimates the heap size of the block, including its summary and bit array.
+     */
+    long sizeInBytes() {
+        return 40 + 72 + 16 + 8L * bits.length;
+    }
+
+    private static long deltaOfDelta(long[] timestamps, int i) {
+        return (timestamps[i] - timestamps[i - 1]) - (timestamps[i - 1] - timestamps[i - 2]);
+    }
+
+    private static boolean dividesAll(long[] prices, int from, int to, long divisor) {
+        for (int i = from + 1; i < to; i++) {
+            if ((prices[i] - prices[i - 1]) % divisor != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes the lowest {@code width} bits of a value at a bit position and returns the position after them.
+     */
+    private static long write(long[] bits, long position, long value, int width) {
+        if (width == 0) {
+            return position;
+        }
+        int index = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        bits[index] |= value << shift;
+        if (shift + width > 64) {
+            bits[index + 1] |= value >>> (64 - shift);
+        }
+        return position + width;
+    }
+
+    private static long read(long[] bits, long position, int width) {
+        if (width == 0) {
+            return 0;
+        }
+        int index = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        long value = bits[index] >>> shift;
+        if (shift + width > 64) {
+            value |= bits[index + 1] << (64 - shift);
+        }
+        return width == 64 ? value : value & ((1L << width) - 1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Thread-safe in-memory implementation of the {@link PriceRepository} interface that stores prices compressed.
+ * <p>
+ * Each symbol is stored as a {@link CompressedPriceSeries} of {@link CompressedBlock}s: timestamps as
+ * delta-of-delta values and prices as deltas, bit-packed per block of
+ * {@value CompressedPriceSeries#BLOCK_SIZE} prices. Regular hourly prices rounded to four significant digits take
+ * about two bytes each, against the 16 bytes of {@link ColumnarPriceRepository}, at the cost of decoding
+ * blocks on reads.
+ * <p>
+ * Rollups are not maintained; daily summaries and rollups are summarized from the blocks of their time range,
+ * whose summaries are kept with the blocks, so only the blocks at the edges of the range are decoded.
+ * <p>
+ * The {@code price.compressed.bytes} gauge reports the estimated heap size of all series, and
+ * {@code price.compressed.prices} the number of prices they hold.
+ * <p>
+ * Prices are rounded to {@value PriceCodec#PRICE_SCALE} decimal places.
+ * <p>
+ * Selected when {@code price.repository.type} is {@code compressed}.
+ */
+@Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "compressed")
+public class CompressedPriceRepository extends SnapshotPriceRepository<CompressedPriceSeries> {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public CompressedPriceRepository() {
+        super(CompressedPriceSeries.EMPTY);
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("price.compressed.bytes", this, repository -> repository.state().series().values().stream()
+                        .mapToLong(CompressedPriceSeries::sizeInBytes).sum())
+                .description("Estimated heap size of the compressed price series")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("price.compressed.prices", this, repository -> repository.state().series().values().stream()
+                        .mapToLong(CompressedPriceSeries::size).sum())
+                .description("Prices held by the compressed repository")
+                .register(meterRegistry);
+    }
+
+    @Override
+    CompressedPriceSeries appendAll(CompressedPriceSeries series, long[] timestamps, long[] prices) {
+        return series.appendAll(timestamps, prices);
+    }
+}
@@ -0,0 +1,317 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * Immutable snapshot of the price history of a single symbol, stored as {@link CompressedBlock}s.
+ * <p>
+ * Entries are kept sorted by timestamp, with entries of equal timestamps in insertion order, like in
+ * {@link PriceSeries}. Every {@value #BLOCK_SIZE} entries form a block; the latest entries that do not fill a block
+ * yet are kept uncompressed in a tail, which grows up to the size of a block. Hourly prices rounded to four
+ * significant digits take about two bytes each instead of the 16 of {@link PriceSeries}.
+ * <p>
+ * {@link #rangeSummary(long, long)} merges the summaries of the blocks that lie completely in the range and decodes
+ * only the at most two blocks at its edges, so it takes O(log b + k + {@value #BLOCK_SIZE}) for b blocks, k of
+ * which lie in the range. The summary of all prices is maintained with every append.
+ * <p>
+ * Appending in timestamp order returns a new instance that shares the block array and the tail with this one,
+ * writing beyond what existing instances read, as {@link PriceSeries} does. Entries older than the latest one are
+ * merged into the blocks from the first one they affect onwards, which are encoded again. The append methods must
+ * only be called on the most recent instance and by a single writer.
+ */
+final class CompressedPriceSeries implements PriceHistory {
+
+    /**
+     * The number of entries of each block.
+     */
+    static final int BLOCK_SIZE = 256;
+
+    private static final long[] EMPTY_TAIL = new long[0];
+
+    static final CompressedPriceSeries EMPTY = new CompressedPriceSeries(new CompressedBlock[0], 0, EMPTY_TAIL,
+            EMPTY_TAIL, 0, null, 0);
+
+    private final CompressedBlock[] blocks;
+    private final int blockCount;
+    private final long[] tailTimestamps;
+    private final long[] tailPrices;
+    private final int tailSize;
+    private final FixedPointSummary summary;
+    /**
+     * The estimated heap size of the blocks.
+     */
+    private final long blockBytes;
+
+    private CompressedPriceSeries(CompressedBlock[] blocks, int blockCount, long[] tailTimestamps, long[] tailPrices,
+                                  int tailSize, FixedPointSummary summary, long blockBytes) {
+        this.blocks = blocks;
+        this.blockCount = blockCount;
+        this.tailTimestamps = tailTimestamps;
+        this.tailPrices = tailPrices;
+        this.tailSize = tailSize;
+        this.summary = summary;
+        this.blockBytes = blockBytes;
+    }
+
+    /**
+     * Returns a new series with a batch of prices appended.
+     * <p>
+     * A batch that is sorted and starts at or after the latest timestamp is added to the tail, and each tail that
+     * fills up is encoded as a block. Any other batch is merged into the blocks it overlaps.
+     *
+     * @param epochMillis the UTC timestamps in epoch milliseconds
+     * @param newPrices   the fixed-point prices, parallel to {@code epochMillis}
+     * @return the updated series
+     */
+    CompressedPriceSeries appendAll(long[] epochMillis, long[] newPrices) {
+        if (epochMillis.length == 0) {
+            return this;
+        }
+        FixedPointSummary batch = PriceSeries.summarize(epochMillis, newPrices, 0, epochMillis.length);
+        FixedPointSummary newSummary = summary == null ? batch : summary.merge(batch);
+        return isAppendable(epochMillis)
+                ? appendSorted(epochMillis, newPrices, newSummary)
+                : mergeBatch(epochMillis, newPrices, newSummary);
+    }
+
+    private CompressedPriceSeries appendSorted(long[] epochMillis, long[] newPrices, FixedPointSummary newSummary) {
+        CompressedBlock[] newBlocks = blocks;
+        int newBlockCount = blockCount;
+        long newBlockBytes = blockBytes;
+        long[] timestamps = tailTimestamps;
+        long[] prices = tailPrices;
+        int newTailSize = tailSize;
+        int copied = 0;
+        while (copied < epochMillis.length) {
+            int length = Math.min(BLOCK_SIZE - newTailSize, epochMillis.length - copied);
+            if (newTailSize + length > timestamps.length) {
+                int capacity = Math.min(BLOCK_SIZE,
+                        Math.max(newTailSize + length, Math.max(16, 2 * timestamps.length)));
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            System.arraycopy(epochMillis, copied, timestamps, newTailSize, length);
+            System.arraycopy(newPrices, copied, prices, newTailSize, length);
+            newTailSize += length;
+            copied += length;
+            if (newTailSize == BLOCK_SIZE) {
+                CompressedBlock block = CompressedBlock.encode(timestamps, prices, 0, BLOCK_SIZE);
+                newBlocks = add(newBlocks, newBlockCount++, block);
+                newBlockBytes += block.sizeInBytes();
+                timestamps = EMPTY_TAIL;
+                prices = EMPTY_TAIL;
+                newTailSize = 0;
+            }
+        }
+        return new CompressedPriceSeries(newBlocks, newBlockCount, timestamps, prices, newTailSize, newSummary,
+                newBlockBytes);
+    }
+
+    /**
+     * Merges a batch into the blocks from the first one that ends after the batch's earliest timestamp, and encodes
+     * them again. Existing entries precede batch entries with the same timestamp.
+     */
+    private CompressedPriceSeries mergeBatch(long[] epochMillis, long[] newPrices, FixedPointSummary newSummary) {
+        int[] order = SortedPrices.order(epochMillis);
+        int firstBlock = firstBlockEndingAfter(epochMillis[order[0]]);
+
+        int existing = (blockCount - firstBlock) * BLOCK_SIZE + tailSize;
+        long[] timestamps = new long[existing];
+        long[] prices = new long[existing];
+        for (int b = firstBlock; b < blockCount; b++) {
+            blocks[b].decode(timestamps, prices, (b - firstBlock) * BLOCK_SIZE);
+        }
+        System.arraycopy(tailTimestamps, 0, timestamps, existing - tailSize, tailSize);
+        System.arraycopy(tailPrices, 0, prices, existing - tailSize, tailSize);
+
+        int total = existing + epochMillis.length;
+        long[] mergedTimestamps = new long[total];
+        long[] mergedPrices = new long[total];
+        SortedPrices.merge(i -> timestamps[i], i -> prices[i], 0, existing, epochMillis, newPrices, order,
+                (index, epochMilli, price) -> {
+                    mergedTimestamps[index] = epochMilli;
+                    mergedPrices[index] = price;
+                });
+
+        int newBlockCount = firstBlock + total / BLOCK_SIZE;
+        CompressedBlock[] newBlocks = Arrays.copyOf(blocks, Math.max(newBlockCount, blocks.length));
+        long newBlockBytes = 0;
+        for (int b = 0; b < newBlockCount; b++) {
+            if (b >= firstBlock) {
+                int from = (b - firstBlock) * BLOCK_SIZE;
+                newBlocks[b] = CompressedBlock.encode(mergedTimestamps, mergedPrices, from, from + BLOCK_SIZE);
+            }
+            newBlockBytes += newBlocks[b].sizeInBytes();
+        }
+        int sealed = (newBlockCount - firstBlock) * BLOCK_SIZE;
+        long[] newTailTimestamps = Arrays.copyOfRange(mergedTimestamps, sealed, total);
+        long[] newTailPrices = Arrays.copyOfRange(mergedPrices, sealed, total);
+        return new CompressedPriceSeries(newBlocks, newBlockCount, newTailTimestamps, newTailPrices, total - sealed,
+                newSummary, newBlockBytes);
+    }
+
+    private static CompressedBlock[] add(CompressedBlock[] blocks, int count, CompressedBlock block) {
+        CompressedBlock[] target = blocks;
+        if (count == blocks.length) {
+            target = Arrays.copyOf(blocks, Math.max(8, blocks.length + (blocks.length >> 1)));
+        }
+        target[count] = block;
+        return target;
+    }
+
+    /**
+     * Checks whether a batch is sorted and starts at or after the latest timestamp.
+     */
+    private boolean isAppendable(long[] epochMillis) {
+        return SortedPrices.isAppendable(summary == null ? Long.MIN_VALUE : summary.lastEpochMilli(), epochMillis);
+    }
+
+    /**
+     * Returns the index of the first block whose latest timestamp is after the given one, or the block count.
+     */
+    private int firstBlockEndingAfter(long epochMilli) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blocks[mid].summary().lastEpochMilli() <= epochMilli) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int size() {
+        return blockCount * BLOCK_SIZE + tailSize;
+    }
+
+    @Override
+    public FixedPointSummary summary() {
+        return summary;
+    }
+
+    /**
+     * Estimates the heap size of the series, including the uncompressed tail.
+     */
+    long sizeInBytes() {
+        return blockBytes + 4L * blocks.length + 16L * tailTimestamps.length;
+    }
+
+    /**
+     * Summarizes the prices with timestamps in {@code [fromEpochMilli, toEpochMilli)}.
+     *
+     * @param fromEpochMilli the inclusive lower bound in epoch milliseconds
+     * @param toEpochMilli   the exclusive upper bound in epoch milliseconds
+     * @return the summary of the range, or empty if it contains no prices
+     */
+    @Override
+    public Optional<FixedPointSummary> rangeSummary(long fromEpochMilli, long toEpochMilli) {
+        FixedPointSummary result = null;
+        long[] timestamps = null;
+        long[] prices = null;
+        int first = fromEpochMilli == Long.MIN_VALUE ? 0 : firstBlockEndingAfter(fromEpochMilli - 1);
+        for (int b = first; b < blockCount; b++) {
+            FixedPointSummary block = blocks[b].summary();
+            if (block.firstEpochMilli() >= toEpochMilli) {
+                return Optional.ofNullable(result);
+            }
+            if (block.firstEpochMilli() >= fromEpochMilli && block.lastEpochMilli() < toEpochMilli) {
+                result = result == null ? block : result.merge(block);
+            } else {
+                if (timestamps == null) {
+                    timestamps = new long[BLOCK_SIZE];
+                    prices = new long[BLOCK_SIZE];
+                }
+                blocks[b].decode(timestamps, prices, 0);
+                result = merge(result, timestamps, prices, BLOCK_SIZE, fromEpochMilli, toEpochMilli);
+            }
+        }
+        return Optional.ofNullable(merge(result, tailTimestamps, tailPrices, tailSize, fromEpochMilli, toEpochMilli));
+    }
+
+    /**
+     * Merges the summary of the sorted entries in {@code [0, size)} that lie in a range into a summary.
+     */
+    private static FixedPointSummary merge(FixedPointSummary summary, long[] timestamps, long[] prices, int size,
+                                           long fromEpochMilli, long toEpochMilli) {
+        int from = SortedPrices.lowerBound(i -> timestamps[i], size, fromEpochMilli);
+        int to = SortedPrices.lowerBound(i -> timestamps[i], size, toEpochMilli);
+        if (from >= to) {
+            return summary;
+        }
+        FixedPointSummary part = PriceSeries.summarize(timestamps, prices, from, to);
+        return summary == null ? part : summary.merge(part);
+    }
+
+    /**
+     * Returns a read-only list view of this series.
+     * <p>
+     * Elements are decoded block by block; the view keeps the most recently decoded block, so iterating the list
+     * decodes each block once. Threads that share a view may replace each other's block and decode it again.
+     *
+     * @return a list that decodes each element on access
+     */
+    @Override
+    public List<CryptoPrice> asList() {
+        return new PriceListView(size(), new BlockReader());
+    }
+
+    /**
+     * Decodes all blocks straight into the columns, each block once.
+     */
+    @Override
+    public PriceBatch toBatch(String symbol) {
+        long[] timestamps = new long[size()];
+        long[] prices = new long[size()];
+        for (int block = 0; block < blockCount; block++) {
+            blocks[block].decode(timestamps, prices, block * BLOCK_SIZE);
+        }
+        System.arraycopy(tailTimestamps, 0, timestamps, blockCount * BLOCK_SIZE, tailSize);
+        System.arraycopy(tailPrices, 0, prices, blockCount * BLOCK_SIZE, tailSize);
+        return new PriceBatch(symbol, timestamps, prices);
+    }
+
+    /**
+     * The decoded entries of one block.
+     */
+    private record DecodedBlock(int index, long[] timestamps, long[] prices) {
+    }
+
+    /**
+     * Reads the prices of a list view, keeping the most recently decoded block.
+     */
+    private class BlockReader implements IntFunction<CryptoPrice> {
+
+        /**
+         * The most recently decoded block. Blocks are decoded before the {@link DecodedBlock} is constructed, so its
+         * final fields make the entries visible to every thread that reads the block from this field, although the
+         * field itself is not synchronized.
+         */
+        private DecodedBlock decoded;
+
+        @Override
+        public CryptoPrice apply(int index) {
+            int block = index / BLOCK_SIZE;
+            int offset = index % BLOCK_SIZE;
+            if (block == blockCount) {
+                return PriceListView.price(tailTimestamps[offset], tailPrices[offset]);
+            }
+            DecodedBlock current = decoded;
+            if (current == null || current.index() != block) {
+                long[] timestamps = new long[BLOCK_SIZE];
+                long[] prices = new long[BLOCK_SIZE];
+                blocks[block].decode(timestamps, prices, 0);
+                current = new DecodedBlock(block, timestamps, prices);
+                decoded = current;
+            }
+            return PriceListView.price(current.timestamps()[offset], current.prices()[offset]);
+        }
+    }
+}
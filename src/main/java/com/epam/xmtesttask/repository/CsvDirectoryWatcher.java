@@ -0,0 +1,252 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service that keeps ingesting prices appended to the CSV files in {@code price.loader.directory} after startup.
+ * <p>
+ * A {@link WatchService} reports created and modified files. For each {@code _values.csv} file the watcher keeps
+ * the byte offset up to which it has been read, starting where {@link CSVPriceLoader} stopped, and parses only the
+ * complete lines after it with {@link CsvPriceParser}, saving the prices of all symbols read from it with one call
+ * of {@link PriceRepository#savePrices(List)}, which the snapshot repositories and the write-ahead log apply
+ * atomically. If that call fails, some of the prices may have been accepted, so the file is no longer followed
+ * rather than read again from the same offset. A trailing line without a line feed is left until it is completed. Files
+ * created later are read from their start, so new symbols appear without a restart. A file that shrinks, or that is
+ * deleted after rows of it were ingested, is no longer followed and an error is logged: reading its new content
+ * from the start would save the prices already ingested from it a second time. Such a file is picked up again after
+ * a restart, which loads it from scratch.
+ * <p>
+ * All files are also scanned every {@code price.watcher.rescan-interval}, and after the watch service dropped
+ * events, since file systems such as network mounts may not report every change. Only files directly in the
+ * directory are watched, not those in subdirectories.
+ * <p>
+ * The {@code price.watcher.ingest.lag} timer records the time from a file's last modification until its new rows
+ * are saved, and {@code price.watcher.rows} counts the rows by outcome {@code loaded} or {@code rejected}.
+ * <p>
+ * Enabled with {@code price.watcher.enabled=true}; requires {@code price.loader.directory}.
+ */
+@Service
+@ConditionalOnProperty(name = "price.watcher.enabled", havingValue = "true")
+public class CsvDirectoryWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvDirectoryWatcher.class);
+
+    private static final String SUFFIX = "_values.csv";
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private CSVPriceLoader csvPriceLoader;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.loader.directory:}")
+    private String directory;
+
+    @Value("${price.watcher.rescan-interval:30s}")
+    private Duration rescanInterval;
+
+    /**
+     * The position after the last ingested line of each file; only modified by the watcher thread.
+     */
+    private final Map<Path, Long> offsets = new ConcurrentHashMap<>();
+
+    /**
+     * Files that were truncated or replaced and are no longer followed; only modified by the watcher thread.
+     */
+    private final Set<Path> abandoned = ConcurrentHashMap.newKeySet();
+
+    private Path path;
+    private WatchService watchService;
+    private Thread watcher;
+    private volatile boolean running;
+    private Timer lagTimer;
+    private Counter loadedRows;
+    private Counter rejectedRows;
+
+    /**
+     * Starts watching the directory from the offsets at which the initial load stopped.
+     *
+     * @throws IllegalStateException if {@code price.loader.directory} is not set
+     * @throws IOException           if the directory cannot be watched
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (directory.isBlank()) {
+            throw new IllegalStateException("price.watcher.enabled requires price.loader.directory to be set");
+        }
+        path = Paths.get(directory);
+        offsets.putAll(csvPriceLoader.getLoadedOffsets());
+        lagTimer = Timer.builder("price.watcher.ingest.lag")
+                .description("Time from the modification of a watched CSV file until its appended rows are saved")
+                .register(meterRegistry);
+        loadedRows = rowCounter("loaded");
+        rejectedRows = rowCounter("rejected");
+        Gauge.builder("price.watcher.files", offsets, Map::size)
+                .description("CSV files followed by the directory watcher")
+                .register(meterRegistry);
+        watchService = path.getFileSystem().newWatchService();
+        path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+        watcher = Thread.ofPlatform().name("price-csv-watcher").daemon().start(this::watchLoop);
+        log.info("Watching {} for appended prices", path);
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        watchService.close();
+        watcher.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private Counter rowCounter(String outcome) {
+        return Counter.builder("price.watcher.rows")
+                .description("CSV rows appended to watched files and processed by the directory watcher")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private void watchLoop() {
+        // Picks up rows appended between the initial load and the registration of the watch.
+        scanAll();
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.poll(rescanInterval.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            if (key == null) {
+                scanAll();
+                continue;
+            }
+            boolean overflow = false;
+            Set<Path> changed = new LinkedHashSet<>();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                } else if (event.context() instanceof Path name && name.toString().endsWith(SUFFIX)) {
+                    changed.add(path.resolve(name));
+                }
+            }
+            if (!key.reset()) {
+                log.warn("Directory {} is no longer accessible, stopped watching it", path);
+                return;
+            }
+            if (overflow) {
+                scanAll();
+            } else {
+                changed.forEach(this::tail);
+            }
+        }
+    }
+
+    private void scanAll() {
+        List<Path> files;
+        try (var paths = Files.list(path)) {
+            files = paths.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .filter(Files::isRegularFile)
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to list {}", path, e);
+            return;
+        }
+        files.forEach(this::tail);
+    }
+
+    /**
+     * Saves the complete lines appended to a file since it was last read.
+     */
+    private void tail(Path file) {
+        if (abandoned.contains(file)) {
+            return;
+        }
+        try {
+            long offset = offsets.getOrDefault(file, 0L);
+            long size = Files.size(file);
+            if (size < offset) {
+                abandon(file, "shrank from " + offset + " to " + size + " bytes after its prices were ingested");
+                return;
+            }
+            if (size == offset) {
+                return;
+            }
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            CsvPriceParser.Result result = CsvPriceParser.parse(file, offset, true);
+            List<PriceBatch> batches = result.series().stream()
+                    .map(series -> new PriceBatch(series.symbol(), series.timestamps(), series.prices()))
+                    .toList();
+            try {
+                priceRepository.savePrices(batches);
+            } catch (RuntimeException e) {
+                // Reading the same lines again could save prices that were already accepted a second time.
+                log.warn("Failed to save the prices appended to {} after byte {}", file, offset, e);
+                abandon(file, "had appended prices that could not all be saved");
+                return;
+            }
+            offsets.put(file, result.end());
+            loadedRows.increment(result.rows());
+            rejectedRows.increment(result.rejected());
+            if (result.rejected() > 0) {
+                log.warn("Rejected {} appended lines of {}, first at line {} after byte {}", result.rejected(), file,
+                        result.firstRejectedLine(), offset);
+            }
+            if (result.rows() > 0) {
+                lagTimer.record(Math.max(0, System.currentTimeMillis() - modified), TimeUnit.MILLISECONDS);
+                log.debug("Ingested {} appended prices from {}", result.rows(), file);
+            }
+        } catch (NoSuchFileException e) {
+            Long offset = offsets.get(file);
+            if (offset != null && offset > 0) {
+                abandon(file, "was deleted after its prices were ingested");
+            } else {
+                offsets.remove(file);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to ingest appended prices from {}", file, e);
+        }
+    }
+
+    /**
+     * Stops following a file that cannot be read on without saving some of its prices a second time.
+     */
+    private void abandon(Path file, String reason) {
+        abandoned.add(file);
+        offsets.remove(file);
+        log.error("{} {}, no longer following it; restart to load it again", file, reason);
+    }
+}
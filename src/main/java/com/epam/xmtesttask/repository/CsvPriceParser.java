@@ -0,0 +1,352 @@
+package com.epam.xmtesttask.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Low-allocation parser for price CSV files in the {@code timestamp,symbol,price} format.
+ * <p>
+ * The file is memory-mapped and parsed byte by byte: timestamps are read as epoch milliseconds and prices are
+ * rounded to 4 significant digits ({@code HALF_UP}, like {@code new BigDecimal(price, new MathContext(4))})
+ * and converted straight to fixed-point values (see {@link PriceCodec}). No objects are created per row;
+ * a symbol string is only created when the symbol changes between rows.
+ * <p>
+ * The first line is treated as a header and skipped. Blank lines are ignored and malformed lines are counted
+ * as rejected. Instances are not thread-safe; use one parser per file.
+ */
+final class CsvPriceParser {
+
+    /**
+     * Maximum number of bytes mapped at once; larger files are processed in windows aligned to line ends.
+     */
+    static final int MAX_WINDOW = 1 << 30;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private static final int SIGNIFICANT_DIGITS = 4;
+
+    private final Map<String, PriceColumns> series = new LinkedHashMap<>();
+    private byte[] currentSymbolBytes = new byte[0];
+    private PriceColumns currentColumns;
+    private long lineNumber;
+    private long rows;
+    private long rejected;
+    private long firstRejectedLine;
+    private boolean headerPending = true;
+
+    /**
+     * Prices of one symbol parsed from a file, in file order.
+     *
+     * @param symbol     the cryptocurrency symbol
+     * @param timestamps the timestamps in epoch milliseconds
+     * @param prices     the fixed-point prices
+     */
+    record ParsedSeries(String symbol, long[] timestamps, long[] prices) {
+    }
+
+    /**
+     * Outcome of parsing a file.
+     *
+     * @param series            the parsed prices grouped by symbol
+     * @param rows              the number of accepted rows
+     * @param rejected          the number of malformed lines
+     * @param firstRejectedLine the 1-based line number of the first malformed line, or 0 if none
+     * @param end               the position in the file after the last parsed line
+     */
+    record Result(List<ParsedSeries> series, long rows, long rejected, long firstRejectedLine, long end) {
+    }
+
+    /**
+     * Parses a CSV file through a read-only memory mapping.
+     * <p>
+     * Files that are not on the default file system, such as resources packaged in the application jar,
+     * cannot be mapped and are read into a heap buffer instead.
+     *
+     * @param file the file to parse
+     * @return the parsed prices and line counters
+     * @throws IOException if the file cannot be read or contains a line longer than {@link #MAX_WINDOW}
+     */
+    static Result parse(Path file) throws IOException {
+        return parse(file, 0, false);
+    }
+
+    /**
+     * Parses the lines of a CSV file from a position through a read-only memory mapping.
+     * <p>
+     * Used to pick up rows appended to a file that has been parsed before: the first line is only treated as
+     * the header if {@code offset} is 0, and with {@code completeLinesOnly} a trailing line without a line feed,
+     * which may still be being written, is left for the next call.
+     *
+     * @param file              the file to parse
+     * @param offset            the position to start at; the start of a line, usually the {@link Result#end()}
+     *                          of the previous call
+     * @param completeLinesOnly whether to stop at the last line feed instead of the end of the file
+     * @return the parsed prices and line counters, with line numbers relative to {@code offset}
+     * @throws IOException if the file cannot be read or contains a line longer than {@link #MAX_WINDOW}
+     */
+    static Result parse(Path file, long offset, boolean completeLinesOnly) throws IOException {
+        return parse(file, offset, Long.MAX_VALUE, completeLinesOnly);
+    }
+
+    /**
+     * Parses the lines of a CSV file between two positions through a read-only memory mapping.
+     * <p>
+     * Like {@link #parse(Path, long, boolean)}, but ignores anything after {@code end}, e.g. rows appended after
+     * the file was indexed; {@code end} is then treated as the end of the file. Files that are not on the default
+     * file system are read into a heap buffer, like in {@link #parse(Path)}.
+     *
+     * @param file              the file to parse
+     * @param offset            the position to start at; the start of a line
+     * @param end               the position to stop at; the size of the file if it is smaller
+     * @param completeLinesOnly whether to stop at the last line feed instead of {@code end}
+     * @return the parsed prices and line counters, with line numbers relative to {@code offset}
+     * @throws IOException if the file cannot be read or contains a line longer than {@link #MAX_WINDOW}
+     */
+    static Result parse(Path file, long offset, long end, boolean completeLinesOnly) throws IOException {
+        CsvPriceParser parser = new CsvPriceParser();
+        parser.headerPending = offset == 0;
+        if (file.getFileSystem() != FileSystems.getDefault()) {
+            byte[] bytes = Files.readAllBytes(file);
+            int from = (int) Math.min(offset, bytes.length);
+            int to = (int) Math.min(end, bytes.length);
+            int consumed = parser.parseLines(ByteBuffer.wrap(bytes, from, to - from), !completeLinesOnly);
+            return parser.result(from + consumed);
+        }
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), end);
+            while (position < size) {
+                long length = Math.min(MAX_WINDOW, size - position);
+                boolean lastWindow = position + length == size;
+                int consumed = parser.parseLines(channel.map(FileChannel.MapMode.READ_ONLY, position, length),
+                        lastWindow && !completeLinesOnly);
+                position += consumed;
+                if (lastWindow) {
+                    break;
+                }
+                if (consumed == 0) {
+                    throw new IOException("Line longer than " + MAX_WINDOW + " bytes in " + file);
+                }
+            }
+        }
+        return parser.result(position);
+    }
+
+    /**
+     * Parses CSV content held in a buffer.
+     *
+     * @param buffer the complete CSV content
+     * @return the parsed prices and line counters
+     */
+    static Result parse(ByteBuffer buffer) {
+        CsvPriceParser parser = new CsvPriceParser();
+        int consumed = parser.parseLines(buffer, true);
+        return parser.result(consumed);
+    }
+
+    /**
+     * Parses the lines of a buffer between its position and limit.
+     *
+     * @param buffer     the buffer to parse; its position is not modified
+     * @param endOfInput whether the buffer ends the input, in which case a trailing line without a line feed is parsed
+     * @return the number of bytes consumed, which ends after the last parsed line
+     */
+    int parseLines(ByteBuffer buffer, boolean endOfInput) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+        int lineStart = start;
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                parseLine(buffer, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (endOfInput && lineStart < limit) {
+            parseLine(buffer, lineStart, limit);
+            lineStart = limit;
+        }
+        return lineStart - start;
+    }
+
+    Result result(long end) {
+        List<ParsedSeries> parsed = new ArrayList<>(series.size());
+        series.forEach((symbol, columns) ->
+                parsed.add(new ParsedSeries(symbol, columns.copyTimestamps(), columns.copyPrices())));
+        return new Result(parsed, rows, rejected, firstRejectedLine, end);
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end) {
+        lineNumber++;
+        if (end > start && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        if (headerPending) {
+            headerPending = false;
+            return;
+        }
+        if (end == start) {
+            return;
+        }
+        int timestampEnd = indexOf(buffer, ',', start, end);
+        int symbolEnd = timestampEnd < 0 ? -1 : indexOf(buffer, ',', timestampEnd + 1, end);
+        if (symbolEnd < 0 || symbolEnd == timestampEnd + 1) {
+            reject();
+            return;
+        }
+        long timestamp;
+        long price;
+        try {
+            timestamp = parseTimestamp(buffer, start, timestampEnd);
+            price = parsePrice(buffer, symbolEnd + 1, end);
+        } catch (NumberFormatException | ArithmeticException e) {
+            reject();
+            return;
+        }
+        resolveColumns(buffer, timestampEnd + 1, symbolEnd).append(timestamp, price);
+        rows++;
+    }
+
+    private void reject() {
+        rejected++;
+        if (firstRejectedLine == 0) {
+            firstRejectedLine = lineNumber;
+        }
+    }
+
+    private PriceColumns resolveColumns(ByteBuffer buffer, int from, int to) {
+        int length = to - from;
+        boolean same = length == currentSymbolBytes.length;
+        for (int i = 0; same && i < length; i++) {
+            same = buffer.get(from + i) == currentSymbolBytes[i];
+        }
+        if (!same) {
+            currentSymbolBytes = new byte[length];
+            buffer.get(from, currentSymbolBytes);
+            currentColumns = series.computeIfAbsent(
+                    new String(currentSymbolBytes, StandardCharsets.UTF_8), k -> new PriceColumns());
+        }
+        return currentColumns;
+    }
+
+    private static int indexOf(ByteBuffer buffer, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses an unsigned decimal epoch-millisecond timestamp.
+     *
+     * @throws NumberFormatException if the field is empty, not numeric or too long
+     */
+    static long parseTimestamp(ByteBuffer buffer, int from, int to) {
+        if (to <= from || to - from > 18) {
+            throw new NumberFormatException("Invalid timestamp length: " + (to - from));
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid timestamp digit at " + i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Parses a plain decimal price, rounds it to 4 significant digits using {@code HALF_UP} and converts it
+     * to a fixed-point value with {@link PriceCodec#PRICE_SCALE} decimal places, again rounding {@code HALF_UP}.
+     * <p>
+     * The result equals {@code PriceCodec.encodePrice(new BigDecimal(price, new MathContext(4)))}.
+     *
+     * @throws NumberFormatException if the field is not an optionally signed plain decimal number
+     * @throws ArithmeticException   if the price does not fit into the fixed-point representation
+     */
+    static long parsePrice(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int firstDropped = 0;
+        int dropped = 0;
+        int fractionDigits = 0;
+        boolean digitSeen = false;
+        boolean pointSeen = false;
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !pointSeen) {
+                pointSeen = true;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid price character at " + i);
+            }
+            digitSeen = true;
+            if (pointSeen) {
+                fractionDigits++;
+            }
+            if (significant == 0 && digit == 0) {
+                continue;
+            }
+            if (significant < SIGNIFICANT_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                significant++;
+            } else {
+                if (dropped == 0) {
+                    firstDropped = digit;
+                }
+                dropped++;
+            }
+        }
+        if (!digitSeen) {
+            throw new NumberFormatException("Missing price digits");
+        }
+        if (firstDropped >= 5) {
+            mantissa++;
+            if (mantissa == POWERS_OF_TEN[SIGNIFICANT_DIGITS]) {
+                mantissa /= 10;
+                dropped++;
+            }
+        }
+        int shift = dropped - fractionDigits + PriceCodec.PRICE_SCALE;
+        long units;
+        if (shift >= 0) {
+            if (mantissa != 0 && shift >= POWERS_OF_TEN.length) {
+                throw new ArithmeticException("Price out of range");
+            }
+            units = mantissa == 0 ? 0 : Math.multiplyExact(mantissa, POWERS_OF_TEN[shift]);
+        } else if (-shift > SIGNIFICANT_DIGITS) {
+            units = 0;
+        } else {
+            long divisor = POWERS_OF_TEN[-shift];
+            units = mantissa / divisor;
+            if ((mantissa % divisor) * 2 >= divisor) {
+                units++;
+            }
+        }
+        return negative ? -units : units;
+    }
+}
@@ -0,0 +1,31 @@
+package com.epam.xmtesttask.repository;
+
+/**
+ * Version of the price data of a repository, or of one symbol in it.
+ * <p>
+ * The version increases with every write, so two reads that return the same version observed the same data.
+ * A symbol's version is the repository version of the last write to that symbol. Versions restart when the
+ * application restarts; {@code modifiedAt} tells the data of different runs apart.
+ *
+ * @param version    the version; {@code 0} if nothing has been written
+ * @param modifiedAt the UTC epoch milliseconds of the write that produced the version, never decreasing;
+ *                   {@code 0} if nothing has been written
+ */
+public record DataVersion(long version, long modifiedAt) {
+
+    /**
+     * The version of data that has never been written.
+     */
+    public static final DataVersion NONE = new DataVersion(0, 0);
+
+    /**
+     * Returns the version following this one, modified at the given time or, if the clock went backwards,
+     * at the time of this version.
+     *
+     * @param nowMillis the current UTC epoch milliseconds
+     * @return the next version
+     */
+    public DataVersion next(long nowMillis) {
+        return new DataVersion(version + 1, Math.max(modifiedAt, nowMillis));
+    }
+}
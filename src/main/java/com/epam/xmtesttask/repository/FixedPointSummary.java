@@ -0,0 +1,89 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+
+/**
+ * Primitive counterpart of {@link CryptoPriceSummary}, with timestamps as UTC epoch milliseconds and prices as
+ * fixed-point values (see {@link PriceCodec}).
+ * <p>
+ * Merging compares {@code long} values only, so summaries can be maintained and evaluated without creating
+ * date-time or decimal objects; {@link #toCryptoPriceSummary()} converts at the API boundary. Merging follows
+ * the tie rules of {@link CryptoPriceSummary#merge(CryptoPriceSummary)}.
+ *
+ * @param firstEpochMilli the timestamp of the earliest entry
+ * @param first           the fixed-point price of the earliest entry
+ * @param lastEpochMilli  the timestamp of the latest entry
+ * @param last            the fixed-point price of the latest entry
+ * @param min             the minimum fixed-point price
+ * @param max             the maximum fixed-point price
+ * @param count           the number of aggregated entries
+ */
+public record FixedPointSummary(
+        long firstEpochMilli,
+        long first,
+        long lastEpochMilli,
+        long last,
+        long min,
+        long max,
+        long count
+) {
+
+    /**
+     * Creates a summary of a single price entry.
+     *
+     * @param epochMilli the UTC timestamp in epoch milliseconds
+     * @param price      the fixed-point price
+     * @return a summary with a count of one
+     */
+    public static FixedPointSummary of(long epochMilli, long price) {
+        return new FixedPointSummary(epochMilli, price, epochMilli, price, price, price, 1);
+    }
+
+    /**
+     * Encodes a decimal summary.
+     *
+     * @param summary the summary to encode
+     * @return the summary with prices rounded to {@value PriceCodec#PRICE_SCALE} decimal places
+     * @throws ArithmeticException if a price does not fit into a {@code long}
+     */
+    public static FixedPointSummary of(CryptoPriceSummary summary) {
+        return new FixedPointSummary(
+                PriceCodec.toEpochMilli(summary.firstDateTime()), PriceCodec.encodePrice(summary.first()),
+                PriceCodec.toEpochMilli(summary.lastDateTime()), PriceCodec.encodePrice(summary.last()),
+                PriceCodec.encodePrice(summary.min()), PriceCodec.encodePrice(summary.max()),
+                summary.count());
+    }
+
+    /**
+     * Merges this summary with a summary of entries aggregated after it.
+     *
+     * @param later the summary to merge into this one
+     * @return a new summary covering the entries of both summaries
+     */
+    public FixedPointSummary merge(FixedPointSummary later) {
+        boolean laterFirst = later.firstEpochMilli < firstEpochMilli;
+        boolean laterLast = later.lastEpochMilli >= lastEpochMilli;
+        return new FixedPointSummary(
+                laterFirst ? later.firstEpochMilli : firstEpochMilli,
+                laterFirst ? later.first : first,
+                laterLast ? later.lastEpochMilli : lastEpochMilli,
+                laterLast ? later.last : last,
+                Math.min(later.min, min),
+                Math.max(later.max, max),
+                count + later.count
+        );
+    }
+
+    /**
+     * Decodes this summary.
+     *
+     * @return the {@link CryptoPriceSummary} with prices decoded by {@link PriceCodec#decodePrice(long)}
+     */
+    public CryptoPriceSummary toCryptoPriceSummary() {
+        return new CryptoPriceSummary(
+                PriceCodec.toUtcDateTime(firstEpochMilli), PriceCodec.decodePrice(first),
+                PriceCodec.toUtcDateTime(lastEpochMilli), PriceCodec.decodePrice(last),
+                PriceCodec.decodePrice(min), PriceCodec.decodePrice(max),
+                count);
+    }
+}
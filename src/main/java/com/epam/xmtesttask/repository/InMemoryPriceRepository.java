@@ -1,15 +1,19 @@
 package com.epam.xmtesttask.repository;
 
 import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
 import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -19,8 +23,12 @@ import java.util.Set;
  * <p>
  * This implementation is suitable for development, testing, or small-scale deployments where persistence is not required.
  * For production use, consider a database-backed implementation.
+ * <p>
+ * Selected with {@code price.repository.type=in-memory}; use {@link ColumnarPriceRepository} when prices are
+ * written while the application serves requests.
  */
 @Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "in-memory")
 public class InMemoryPriceRepository implements PriceRepository {
 
     /**
@@ -29,12 +37,26 @@ public class InMemoryPriceRepository implements PriceRepository {
      */
     private final Map<String, List<CryptoPrice>> prices = new HashMap<>();
 
+    /**
+     * Aggregates maintained alongside {@link #prices} for constant-time statistics lookups.
+     */
+    private final PriceSummaryIndex summaryIndex = new PriceSummaryIndex();
+
+    /**
+     * Version of all data and of each symbol, advanced on every save.
+     */
+    private DataVersion version = DataVersion.NONE;
+    private final Map<String, DataVersion> symbolVersions = new HashMap<>();
+
     @Override
     public void savePrice(String symbol, LocalDateTime utcDateTime, BigDecimal price) {
         prices.putIfAbsent(symbol, new ArrayList<>());
         prices.get(symbol).add(
                 new CryptoPrice(utcDateTime, price)
         );
+        summaryIndex.add(symbol, utcDateTime, price);
+        version = version.next(System.currentTimeMillis());
+        symbolVersions.put(symbol, version);
     }
 
     @Override
@@ -54,4 +76,29 @@ public class InMemoryPriceRepository implements PriceRepository {
         }
         return prices.get(symbol);
     }
+
+    @Override
+    public CryptoPriceSummary getSummary(String symbol) {
+        return summaryIndex.getSummary(symbol).orElseThrow(() -> new CryptoNotFoundException(symbol));
+    }
+
+    @Override
+    public Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date) {
+        return summaryIndex.getDailySummary(symbol, date);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointRollup(String symbol, Resolution resolution, long bucket) {
+        return summaryIndex.getRollup(symbol, resolution, bucket).map(FixedPointSummary::of);
+    }
+
+    @Override
+    public DataVersion getDataVersion() {
+        return version;
+    }
+
+    @Override
+    public DataVersion getDataVersion(String symbol) {
+        return symbolVersions.getOrDefault(symbol, DataVersion.NONE);
+    }
 }
@@ -0,0 +1,533 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread-safe {@link PriceRepository} that loads the price series of each symbol from its CSV file on first access.
+ * <p>
+ * At startup {@link CSVPriceLoader} only indexes the files: {@link #index(Map)} registers one {@link CsvFile} per
+ * symbol, named after the file, e.g. {@code BTC} for {@code BTC_values.csv}. The first read of a symbol parses its
+ * file into a {@link PriceSeries}, with the same summaries and rollups as {@link ColumnarPriceRepository}.
+ * Concurrent reads of a symbol that is not loaded share a single load. Rows of other symbols in a file are ignored,
+ * and a symbol whose file has no rows of it is not supported; finding that out loads the file, so checking or listing
+ * the supported symbols loads the series that are not loaded yet.
+ * <p>
+ * Loaded series are held through {@link SoftReference}s, so the garbage collector releases series that have not
+ * been read recently when memory runs short, and the next read loads them again. Series that have been written to
+ * hold prices that are not in their file and are kept in memory; the first write to a symbol loads it first, before
+ * taking the write lock.
+ * <p>
+ * As in {@link ColumnarPriceRepository}, each write publishes a new immutable {@link State}, and {@link #readView()}
+ * hands out a state for consistent reads. Loading does not change the data, so it does not change the
+ * {@link DataVersion}; results cached by version stay valid while a series is released and loaded again.
+ * <p>
+ * Loads are recorded by the {@code price.lazy.load.duration} timer, and the {@code price.lazy.series.loaded}
+ * gauge counts the series in memory.
+ * <p>
+ * Selected when {@code price.repository.type} is {@code lazy}.
+ */
+@Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "lazy")
+public class LazyPriceRepository implements PriceRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(LazyPriceRepository.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Object writeLock = new Object();
+    private final SeriesCache cache = new SeriesCache();
+
+    /**
+     * The most recently published state. Only replaced while holding {@link #writeLock}.
+     */
+    private volatile State state = new State(DataVersion.NONE, Map.of(), Map.of(), SymbolVersions.EMPTY, Set.of(), cache);
+
+    /**
+     * A symbol's CSV file as indexed at startup.
+     *
+     * @param path   the file
+     * @param length the size of the file when it was indexed; later appended rows are not loaded
+     */
+    public record CsvFile(Path path, long length) {
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        cache.loadTimer = Timer.builder("price.lazy.load.duration")
+                .description("Duration of loading a symbol's price series from its CSV file on first access")
+                .register(meterRegistry);
+        Gauge.builder("price.lazy.series.loaded", cache, SeriesCache::loadedCount)
+                .description("Price series held in memory by the lazy repository")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers the CSV file of each symbol without reading it.
+     *
+     * @param files the file of each symbol
+     */
+    public void index(Map<String, CsvFile> files) {
+        synchronized (writeLock) {
+            State current = state;
+            DataVersion next = current.version().next(System.currentTimeMillis());
+            Map<String, CsvFile> allFiles = new HashMap<>(current.files());
+            allFiles.putAll(files);
+            state = new State(next, Collections.unmodifiableMap(allFiles), current.written(),
+                    current.symbolVersions().with(files.keySet(), next), symbols(allFiles, current.written()), cache);
+        }
+    }
+
+    @Override
+    public void savePrice(String symbol, LocalDateTime utcDateTime, BigDecimal price) {
+        savePrices(symbol, new long[]{PriceCodec.toEpochMilli(utcDateTime)}, new long[]{PriceCodec.encodePrice(price)});
+    }
+
+    @Override
+    public void savePrices(String symbol, long[] timestamps, long[] prices) {
+        save(List.of(new PriceBatch(symbol, timestamps, prices)));
+    }
+
+    @Override
+    public void savePrices(List<PriceBatch> batches) {
+        save(batches);
+    }
+
+    /**
+     * Appends the batches and publishes one state for all of them; empty batches are skipped.
+     */
+    private void save(List<PriceBatch> batches) {
+        // The series of symbols that have not been written to are loaded before taking the lock, so that parsing
+        // their files does not stall the other writers.
+        State loadedFrom = state;
+        Map<String, PriceSeries> loaded = new HashMap<>();
+        for (PriceBatch batch : batches) {
+            if (batch.timestamps().length > 0) {
+                loaded.computeIfAbsent(batch.symbol(), loadedFrom::series);
+            }
+        }
+        if (loaded.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            State current = state;
+            Map<String, PriceSeries> updated = new HashMap<>();
+            for (PriceBatch batch : batches) {
+                if (batch.timestamps().length == 0) {
+                    continue;
+                }
+                String symbol = batch.symbol();
+                PriceSeries series = updated.get(symbol);
+                if (series == null) {
+                    series = current.written().containsKey(symbol)
+                            || current.files().get(symbol) != loadedFrom.files().get(symbol)
+                            ? current.series(symbol) : loaded.get(symbol);
+                }
+                updated.put(symbol, series.appendAll(batch.timestamps(), batch.prices()));
+            }
+            state = current.with(updated, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Releases all loaded series that have not been written to, as the garbage collector does under memory
+     * pressure.
+     */
+    void releaseLoadedSeries() {
+        cache.release();
+    }
+
+    @Override
+    public PriceReader readView() {
+        return state;
+    }
+
+    @Override
+    public boolean isSupported(String symbol) {
+        return state.isSupported(symbol);
+    }
+
+    @Override
+    public Set<String> getSupportedCryptos() {
+        return state.getSupportedCryptos();
+    }
+
+    @Override
+    public List<CryptoPrice> getPrices(String symbol) {
+        return state.getPrices(symbol);
+    }
+
+    @Override
+    public CryptoPriceSummary getSummary(String symbol) {
+        return state.getSummary(symbol);
+    }
+
+    @Override
+    public Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date) {
+        return state.getDailySummary(symbol, date);
+    }
+
+    @Override
+    public DataVersion getDataVersion() {
+        return state.getDataVersion();
+    }
+
+    @Override
+    public DataVersion getDataVersion(String symbol) {
+        return state.getDataVersion(symbol);
+    }
+
+    @Override
+    public Set<String> getCryptosChangedAfter(long version) {
+        return state.getCryptosChangedAfter(version);
+    }
+
+    @Override
+    public Optional<CryptoPriceSummary> getRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+        return state.getRangeSummary(symbol, from, to);
+    }
+
+    @Override
+    public PriceBatch getFixedPointPrices(String symbol) {
+        return state.getFixedPointPrices(symbol);
+    }
+
+    @Override
+    public FixedPointSummary getFixedPointSummary(String symbol) {
+        return state.getFixedPointSummary(symbol);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointDailySummary(String symbol, LocalDate date) {
+        return state.getFixedPointDailySummary(symbol, date);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+        return state.getFixedPointRangeSummary(symbol, from, to);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointRollup(String symbol, Resolution resolution, long bucket) {
+        return state.getFixedPointRollup(symbol, resolution, bucket);
+    }
+
+    @Override
+    public FixedPointSummary[] getFixedPointRollups(String symbol, Resolution resolution, long fromBucket,
+                                                    long toBucket) {
+        return state.getFixedPointRollups(symbol, resolution, fromBucket, toBucket);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointPeriodSummary(String symbol, LocalDateTime from,
+                                                                  LocalDateTime to) {
+        return state.getFixedPointPeriodSummary(symbol, from, to);
+    }
+
+    private static Set<String> symbols(Map<String, CsvFile> files, Map<String, PriceSeries> written) {
+        Set<String> symbols = new HashSet<>(files.keySet());
+        symbols.addAll(written.keySet());
+        return Collections.unmodifiableSet(symbols);
+    }
+
+    /**
+     * Immutable state of the repository after a write.
+     *
+     * @param version        the version of this state
+     * @param files          the indexed CSV file of each symbol; unmodifiable
+     * @param written        the series of the symbols that have been written to, including the prices of their
+     *                       files; unmodifiable
+     * @param symbolVersions the version of each symbol
+     * @param symbols        the symbols of {@code files} and {@code written}, with or without prices; unmodifiable
+     * @param cache          the series loaded from {@code files}
+     */
+    record State(DataVersion version, Map<String, CsvFile> files, Map<String, PriceSeries> written,
+                 SymbolVersions symbolVersions, Set<String> symbols, SeriesCache cache)
+            implements PriceReader {
+
+        /**
+         * Returns the series of a symbol, loading it from its file if needed.
+         *
+         * @throws UncheckedIOException if the file cannot be read
+         */
+        PriceSeries series(String symbol) {
+            PriceSeries series = written.get(symbol);
+            if (series != null) {
+                return series;
+            }
+            CsvFile file = files.get(symbol);
+            return file == null ? PriceSeries.EMPTY : cache.get(symbol, file);
+        }
+
+        /**
+         * Returns the state after one write that updated the series of some symbols.
+         */
+        State with(Map<String, PriceSeries> updated, long nowMillis) {
+            DataVersion next = version.next(nowMillis);
+            Map<String, PriceSeries> copy = new HashMap<>(written);
+            copy.putAll(updated);
+            updated.keySet().forEach(cache::remove);
+            Set<String> allSymbols = symbols.containsAll(updated.keySet())
+                    ? symbols : LazyPriceRepository.symbols(files, copy);
+            return new State(next, files, Collections.unmodifiableMap(copy),
+                    symbolVersions.with(updated.keySet(), next), allSymbols, cache);
+        }
+
+        /**
+         * Returns whether a symbol has prices, loading its series if needed; an indexed file without rows of its
+         * symbol does not make the symbol supported.
+         */
+        @Override
+        public boolean isSupported(String symbol) {
+            return symbols.contains(symbol) && series(symbol).size() > 0;
+        }
+
+        /**
+         * Returns the symbols with prices, loading the series that are not loaded yet; see
+         * {@link #isSupported(String)}.
+         */
+        @Override
+        public Set<String> getSupportedCryptos() {
+            Set<String> supported = new HashSet<>();
+            for (String symbol : symbols) {
+                if (series(symbol).size() > 0) {
+                    supported.add(symbol);
+                }
+            }
+            return Collections.unmodifiableSet(supported);
+        }
+
+        @Override
+        public List<CryptoPrice> getPrices(String symbol) {
+            PriceSeries series = supportedSeries(symbol);
+            if (series.size() == 0) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.asList();
+        }
+
+        @Override
+        public PriceBatch getFixedPointPrices(String symbol) {
+            PriceSeries series = supportedSeries(symbol);
+            if (series.size() == 0) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.toBatch(symbol);
+        }
+
+        @Override
+        public CryptoPriceSummary getSummary(String symbol) {
+            return getFixedPointSummary(symbol).toCryptoPriceSummary();
+        }
+
+        @Override
+        public Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date) {
+            return getFixedPointDailySummary(symbol, date).map(FixedPointSummary::toCryptoPriceSummary);
+        }
+
+        @Override
+        public DataVersion getDataVersion() {
+            return version;
+        }
+
+        @Override
+        public DataVersion getDataVersion(String symbol) {
+            return symbolVersions.of(symbol);
+        }
+
+        /**
+         * Returns the changed symbols with prices, loading the series of those that are not loaded yet; see
+         * {@link #isSupported(String)}.
+         */
+        @Override
+        public Set<String> getCryptosChangedAfter(long version) {
+            Set<String> changed = new HashSet<>(symbolVersions.writtenAfter(version));
+            changed.removeIf(symbol -> !isSupported(symbol));
+            return Collections.unmodifiableSet(changed);
+        }
+
+        @Override
+        public Optional<CryptoPriceSummary> getRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+            return getFixedPointRangeSummary(symbol, from, to).map(FixedPointSummary::toCryptoPriceSummary);
+        }
+
+        @Override
+        public FixedPointSummary getFixedPointSummary(String symbol) {
+            PriceSeries series = supportedSeries(symbol);
+            if (series.size() == 0) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.summary();
+        }
+
+        @Override
+        public Optional<FixedPointSummary> getFixedPointDailySummary(String symbol, LocalDate date) {
+            return series(symbol).dailySummary(date);
+        }
+
+        @Override
+        public Optional<FixedPointSummary> getFixedPointRollup(String symbol, Resolution resolution, long bucket) {
+            return series(symbol).rollup(resolution, bucket);
+        }
+
+        @Override
+        public FixedPointSummary[] getFixedPointRollups(String symbol, Resolution resolution, long fromBucket,
+                                                        long toBucket) {
+            return series(symbol).rollups(resolution, fromBucket, toBucket);
+        }
+
+        @Override
+        public Optional<FixedPointSummary> getFixedPointRangeSummary(String symbol, LocalDateTime from,
+                                                                     LocalDateTime to) {
+            return supportedSeries(symbol).rangeSummary(
+                    from == null ? Long.MIN_VALUE : PriceCodec.toEpochMilli(from),
+                    to == null ? Long.MAX_VALUE : PriceCodec.toEpochMilli(to));
+        }
+
+        private PriceSeries supportedSeries(String symbol) {
+            if (!isSupported(symbol)) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series(symbol);
+        }
+    }
+
+    /**
+     * The series loaded from CSV files, each held through a {@link SoftReference}, with at most one load per
+     * symbol in progress.
+     */
+    static final class SeriesCache {
+
+        private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+        private Timer loadTimer;
+
+        PriceSeries get(String symbol, CsvFile file) {
+            Slot slot = slots.computeIfAbsent(symbol, s -> new Slot());
+            CompletableFuture<PriceSeries> load;
+            boolean loader = false;
+            synchronized (slot) {
+                PriceSeries series = slot.series.get();
+                if (series != null) {
+                    return series;
+                }
+                load = slot.load;
+                if (load == null) {
+                    load = new CompletableFuture<>();
+                    slot.load = load;
+                    loader = true;
+                }
+            }
+            if (loader) {
+                // Parsed outside the lock, so that waiting readers do not pin the carriers of virtual threads.
+                PriceSeries series = null;
+                Throwable failure = null;
+                try {
+                    series = load(symbol, file);
+                } catch (RuntimeException | Error e) {
+                    failure = e;
+                }
+                synchronized (slot) {
+                    slot.load = null;
+                    if (series != null) {
+                        slot.series = new SoftReference<>(series);
+                    }
+                }
+                if (failure != null) {
+                    load.completeExceptionally(failure);
+                } else {
+                    load.complete(series);
+                }
+            }
+            try {
+                return load.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        private PriceSeries load(String symbol, CsvFile file) {
+            long start = System.nanoTime();
+            CsvPriceParser.Result result;
+            try {
+                result = CsvPriceParser.parse(file.path(), 0, file.length(), false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load prices of " + symbol + " from " + file.path(), e);
+            }
+            PriceSeries series = PriceSeries.EMPTY;
+            for (CsvPriceParser.ParsedSeries parsed : result.series()) {
+                if (parsed.symbol().equals(symbol)) {
+                    series = series.appendAll(parsed.timestamps(), parsed.prices());
+                } else {
+                    log.debug("Ignored {} prices of {} in {}", parsed.timestamps().length, parsed.symbol(), file.path());
+                }
+            }
+            long elapsedNanos = System.nanoTime() - start;
+            if (loadTimer != null) {
+                loadTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+            log.debug("Loaded {} prices of {} in {} ms", series.size(), symbol, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            return series;
+        }
+
+        /**
+         * Forgets the loaded series of a symbol that has been written to; its series is kept by the state.
+         */
+        void remove(String symbol) {
+            slots.remove(symbol);
+        }
+
+        void release() {
+            slots.values().forEach(slot -> {
+                synchronized (slot) {
+                    slot.series.clear();
+                }
+            });
+        }
+
+        int loadedCount() {
+            int loaded = 0;
+            for (Slot slot : slots.values()) {
+                // Unlike get(), refersTo does not count as a use that keeps the series from being released.
+                if (!slot.series.refersTo(null)) {
+                    loaded++;
+                }
+            }
+            return loaded;
+        }
+
+        private static final class Slot {
+            volatile SoftReference<PriceSeries> series = new SoftReference<>(null);
+            CompletableFuture<PriceSeries> load;
+        }
+    }
+}
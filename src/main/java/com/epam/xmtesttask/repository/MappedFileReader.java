@@ -0,0 +1,103 @@
+package com.epam.xmtesttask.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sequential big-endian reader over a file that maps windows of at most {@link #MAX_WINDOW} bytes on demand.
+ * <p>
+ * Used to read {@link PriceSnapshot} files and {@link PriceLog} segments without copying them onto the heap first.
+ * Values never straddle windows: a read that does not fit into the current window maps a new one at its start.
+ */
+final class MappedFileReader {
+
+    static final long MAX_WINDOW = 1 << 30;
+
+    private final FileChannel channel;
+    private final long end;
+    private ByteBuffer window = ByteBuffer.allocate(0);
+    private long windowStart;
+
+    /**
+     * Creates a reader over a range of a file.
+     *
+     * @param channel the file
+     * @param start   the position of the first byte to read
+     * @param end     the position after the last byte to read
+     */
+    MappedFileReader(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.end = end;
+        this.windowStart = start;
+    }
+
+    /**
+     * Returns the position of the next byte to read.
+     */
+    long position() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * Returns the number of bytes left to read.
+     */
+    long remaining() {
+        return end - position();
+    }
+
+    short getShort() throws IOException {
+        return require(Short.BYTES).getShort();
+    }
+
+    int getInt() throws IOException {
+        return require(Integer.BYTES).getInt();
+    }
+
+    long getLong() throws IOException {
+        return require(Long.BYTES).getLong();
+    }
+
+    void get(byte[] bytes) throws IOException {
+        require(bytes.length).get(bytes);
+    }
+
+    void getLongs(long[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            ByteBuffer buffer = require(Long.BYTES);
+            LongBuffer longs = buffer.asLongBuffer();
+            int length = Math.min(longs.remaining(), values.length - offset);
+            longs.get(values, offset, length);
+            buffer.position(buffer.position() + length * Long.BYTES);
+            offset += length;
+        }
+    }
+
+    /**
+     * Returns the next bytes as a buffer of their own and skips them.
+     *
+     * @param bytes the number of bytes; at most {@link #MAX_WINDOW}
+     * @return a big-endian buffer positioned at the first of the bytes
+     * @throws IOException if fewer bytes are left
+     */
+    ByteBuffer slice(int bytes) throws IOException {
+        ByteBuffer buffer = require(bytes);
+        ByteBuffer slice = buffer.slice(buffer.position(), bytes);
+        buffer.position(buffer.position() + bytes);
+        return slice;
+    }
+
+    private ByteBuffer require(int bytes) throws IOException {
+        if (window.remaining() < bytes) {
+            long position = position();
+            if (position + bytes > end) {
+                throw new IOException("Unexpected end of file at byte " + position);
+            }
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_WINDOW, end - position));
+        }
+        return window;
+    }
+}
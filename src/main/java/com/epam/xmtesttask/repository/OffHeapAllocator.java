@@ -0,0 +1,81 @@
+package com.epam.xmtesttask.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates the memory of {@link OffHeapPriceSeries} outside the Java heap.
+ * <p>
+ * Without a directory, memory is allocated as direct buffers, which count against {@code -XX:MaxDirectMemorySize}.
+ * With a directory, each buffer maps a file created in it, so the operating system can page prices out to the file
+ * and the amount of history is only limited by the disk. The files only back memory: they are deleted right after
+ * they are mapped, or on exit where the file system does not allow deleting mapped files, and are not read again.
+ * <p>
+ * The memory of a buffer is released by the garbage collector once no series refers to it any more;
+ * {@link #allocatedBytes()} tracks the memory of the buffers that have not been released yet.
+ */
+final class OffHeapAllocator {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Path directory;
+    private final AtomicLong allocatedBytes = new AtomicLong();
+
+    /**
+     * Creates an allocator.
+     *
+     * @param directory the directory of the files backing the buffers, or {@code null} for direct buffers
+     */
+    OffHeapAllocator(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Allocates a zeroed buffer in native byte order.
+     *
+     * @param bytes the size of the buffer
+     * @return the buffer
+     * @throws UncheckedIOException if the backing file cannot be created or mapped
+     */
+    ByteBuffer allocate(int bytes) {
+        ByteBuffer buffer = directory == null ? ByteBuffer.allocateDirect(bytes) : map(bytes);
+        allocatedBytes.addAndGet(bytes);
+        AtomicLong allocated = allocatedBytes;
+        CLEANER.register(buffer, () -> allocated.addAndGet(-bytes));
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns the size of the buffers that have not been released yet.
+     */
+    long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    private ByteBuffer map(int bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "prices-", ".bin");
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map off-heap price memory in " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Paths;
+
+/**
+ * Thread-safe implementation of the {@link PriceRepository} interface that keeps prices outside the Java heap.
+ * <p>
+ * Each symbol is stored as an {@link OffHeapPriceSeries}: chunks of timestamp and fixed-point price pairs,
+ * 16 bytes per price, in direct buffers or, with {@code price.offheap.directory} set, in buffers mapped from files
+ * in that directory (see {@link OffHeapAllocator}). The heap holds only a few objects per symbol, so its size and
+ * the garbage collection pauses do not grow with the history. Direct buffers are limited by
+ * {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size; mapped buffers are not, and are paged
+ * to their files by the operating system when memory runs short.
+ * <p>
+ * Only the summary of all prices is maintained; range and daily summaries and rollups scan the prices of their
+ * time range in place.
+ * <p>
+ * The {@code price.offheap.bytes} gauge reports the memory allocated outside the heap that has not been released.
+ * <p>
+ * Prices are rounded to {@value PriceCodec#PRICE_SCALE} decimal places.
+ * <p>
+ * Selected when {@code price.repository.type} is {@code off-heap}.
+ */
+@Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "off-heap")
+public class OffHeapPriceRepository extends SnapshotPriceRepository<OffHeapPriceSeries> {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.offheap.directory:}")
+    private String directory;
+
+    private OffHeapAllocator allocator;
+
+    public OffHeapPriceRepository() {
+        super(OffHeapPriceSeries.EMPTY);
+    }
+
+    @PostConstruct
+    public void init() {
+        allocator = new OffHeapAllocator(directory.isBlank() ? null : Paths.get(directory));
+        Gauge.builder("price.offheap.bytes", allocator, OffHeapAllocator::allocatedBytes)
+                .description("Memory allocated outside the heap for price series")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    OffHeapPriceSeries appendAll(OffHeapPriceSeries series, long[] timestamps, long[] prices) {
+        return series.appendAll(timestamps, prices, allocator);
+    }
+}
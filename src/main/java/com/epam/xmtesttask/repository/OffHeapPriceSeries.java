@@ -0,0 +1,237 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the price history of a single symbol, stored outside the Java heap.
+ * <p>
+ * Entries are stored as pairs of epoch milliseconds and fixed-point prices, 16 bytes each, in chunks of
+ * {@value #CHUNK_SIZE} entries allocated by an {@link OffHeapAllocator}; only the first chunk starts smaller and
+ * grows, so symbols with few prices do not take a whole chunk. The heap only holds the chunk references and the
+ * summary of all prices, which is maintained with every append, so the heap size does not depend on the length
+ * of the history.
+ * <p>
+ * Entries are kept sorted by timestamp, with entries of equal timestamps in insertion order, like in
+ * {@link PriceSeries}. {@link #rangeSummary(long, long)} finds the bounds of a range by binary search and scans
+ * the prices between them in place, in O(log n + k) for k prices in the range.
+ * <p>
+ * Appending in timestamp order returns a new instance that shares the chunks with this one, writing beyond
+ * {@link #size()}, which no existing instance reads. Entries older than the latest one are merged into new chunks
+ * from the chunk of the first entry they precede onwards. Every instance therefore stays valid and unchanged, so
+ * readers need no locking. The append methods must only be called on the most recent instance and by a single
+ * writer.
+ */
+final class OffHeapPriceSeries implements PriceHistory {
+
+    static final int CHUNK_SIZE = 1 << 16;
+
+    static final OffHeapPriceSeries EMPTY = new OffHeapPriceSeries(new ByteBuffer[0], 0, null);
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int ENTRY_BYTES = 16;
+    private static final int MIN_FIRST_CHUNK = 256;
+
+    /**
+     * The chunks holding the entries; slots after the last chunk in use may be empty or hold chunks that
+     * later instances write to.
+     */
+    private final ByteBuffer[] chunks;
+    private final int size;
+    private final FixedPointSummary summary;
+
+    private OffHeapPriceSeries(ByteBuffer[] chunks, int size, FixedPointSummary summary) {
+        this.chunks = chunks;
+        this.size = size;
+        this.summary = summary;
+    }
+
+    /**
+     * Returns a new series with a batch of prices appended.
+     * <p>
+     * A batch that is sorted and starts at or after the latest timestamp is written after the existing entries;
+     * any other batch is merged with the entries from the first one it precedes.
+     *
+     * @param epochMillis the UTC timestamps in epoch milliseconds
+     * @param newPrices   the fixed-point prices, parallel to {@code epochMillis}
+     * @param allocator   the allocator of new chunks
+     * @return the updated series
+     */
+    OffHeapPriceSeries appendAll(long[] epochMillis, long[] newPrices, OffHeapAllocator allocator) {
+        if (epochMillis.length == 0) {
+            return this;
+        }
+        FixedPointSummary batch = PriceSeries.summarize(epochMillis, newPrices, 0, epochMillis.length);
+        FixedPointSummary newSummary = summary == null ? batch : summary.merge(batch);
+        int newSize = Math.addExact(size, epochMillis.length);
+        if (!isAppendable(epochMillis)) {
+            return mergeBatch(epochMillis, newPrices, newSize, newSummary, allocator);
+        }
+        ByteBuffer[] target = reserve(chunks, size, newSize, allocator);
+        for (int i = 0; i < epochMillis.length; i++) {
+            put(target, size + i, epochMillis[i], newPrices[i]);
+        }
+        return new OffHeapPriceSeries(target, newSize, newSummary);
+    }
+
+    /**
+     * Merges a batch into new chunks from the chunk of the first entry that is later than the batch's earliest
+     * timestamp. Existing entries precede batch entries with the same timestamp.
+     */
+    private OffHeapPriceSeries mergeBatch(long[] epochMillis, long[] newPrices, int newSize,
+                                          FixedPointSummary newSummary, OffHeapAllocator allocator) {
+        int[] order = SortedPrices.order(epochMillis);
+        int first = upperBound(epochMillis[order[0]]);
+        int firstChunk = first >>> CHUNK_SHIFT;
+
+        ByteBuffer[] target = reserve(Arrays.copyOf(chunks, firstChunk), firstChunk << CHUNK_SHIFT, newSize,
+                allocator);
+        int copied = first - (firstChunk << CHUNK_SHIFT);
+        if (copied > 0) {
+            target[firstChunk].put(0, chunks[firstChunk], 0, copied * ENTRY_BYTES);
+        }
+        SortedPrices.merge(this::timestamp, this::price, first, size, epochMillis, newPrices, order,
+                (index, epochMilli, price) -> put(target, index, epochMilli, price));
+        return new OffHeapPriceSeries(target, newSize, newSummary);
+    }
+
+    /**
+     * Returns chunks that hold the first {@code size} entries of the given ones and have room for
+     * {@code capacity} entries. The given array is only reused if it has a slot for every chunk and the first
+     * chunk does not have to grow, and then only written beyond the chunks holding the first {@code size} entries.
+     */
+    private static ByteBuffer[] reserve(ByteBuffer[] chunks, int size, int capacity, OffHeapAllocator allocator) {
+        int chunkCount = ((capacity - 1) >>> CHUNK_SHIFT) + 1;
+        ByteBuffer[] target = chunks;
+        if (chunkCount > target.length) {
+            target = Arrays.copyOf(target, Math.max(chunkCount, 2 * target.length));
+        }
+        ByteBuffer head = target[0];
+        int headCapacity = head == null ? 0 : head.capacity() / ENTRY_BYTES;
+        if (headCapacity < Math.min(capacity, CHUNK_SIZE)) {
+            int grown = Math.min(CHUNK_SIZE, Math.max(capacity, Math.max(MIN_FIRST_CHUNK, 2 * headCapacity)));
+            ByteBuffer replacement = allocator.allocate(grown * ENTRY_BYTES);
+            if (head != null) {
+                replacement.put(0, head, 0, Math.min(size, headCapacity) * ENTRY_BYTES);
+            }
+            if (target == chunks) {
+                target = target.clone();
+            }
+            target[0] = replacement;
+        }
+        for (int c = 1; c < chunkCount; c++) {
+            if (target[c] == null) {
+                target[c] = allocator.allocate(CHUNK_SIZE * ENTRY_BYTES);
+            }
+        }
+        return target;
+    }
+
+    private static void put(ByteBuffer[] chunks, int index, long epochMilli, long price) {
+        ByteBuffer chunk = chunks[index >>> CHUNK_SHIFT];
+        int offset = (index & (CHUNK_SIZE - 1)) * ENTRY_BYTES;
+        chunk.putLong(offset, epochMilli);
+        chunk.putLong(offset + Long.BYTES, price);
+    }
+
+    private long timestamp(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getLong((index & (CHUNK_SIZE - 1)) * ENTRY_BYTES);
+    }
+
+    private long price(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getLong((index & (CHUNK_SIZE - 1)) * ENTRY_BYTES + Long.BYTES);
+    }
+
+    /**
+     * Checks whether a batch is sorted and starts at or after the latest timestamp.
+     */
+    private boolean isAppendable(long[] epochMillis) {
+        return SortedPrices.isAppendable(summary == null ? Long.MIN_VALUE : summary.lastEpochMilli(), epochMillis);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public FixedPointSummary summary() {
+        return summary;
+    }
+
+    /**
+     * Summarizes the prices with timestamps in {@code [fromEpochMilli, toEpochMilli)} in O(log n + k).
+     *
+     * @param fromEpochMilli the inclusive lower bound in epoch milliseconds
+     * @param toEpochMilli   the exclusive upper bound in epoch milliseconds
+     * @return the summary of the range, or empty if it contains no prices
+     */
+    @Override
+    public Optional<FixedPointSummary> rangeSummary(long fromEpochMilli, long toEpochMilli) {
+        int from = lowerBound(fromEpochMilli);
+        int to = lowerBound(toEpochMilli);
+        if (from >= to) {
+            return Optional.empty();
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            long price = price(i);
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        return Optional.of(new FixedPointSummary(timestamp(from), price(from), timestamp(to - 1), price(to - 1),
+                min, max, to - from));
+    }
+
+    /**
+     * Returns the index of the first entry with a timestamp at or after the given one, or {@link #size()}.
+     */
+    private int lowerBound(long epochMilli) {
+        return SortedPrices.lowerBound(this::timestamp, size, epochMilli);
+    }
+
+    /**
+     * Returns the index of the first entry with a timestamp after the given one, or {@link #size()}.
+     */
+    private int upperBound(long epochMilli) {
+        return epochMilli == Long.MAX_VALUE ? size : lowerBound(epochMilli + 1);
+    }
+
+    /**
+     * Materializes the price at the given index.
+     *
+     * @param index the position in timestamp order
+     * @return a new {@link CryptoPrice} for the stored values
+     */
+    CryptoPrice get(int index) {
+        return PriceListView.price(timestamp(index), price(index));
+    }
+
+    /**
+     * Returns a read-only list view of this series.
+     *
+     * @return a list that decodes each element on access
+     */
+    @Override
+    public List<CryptoPrice> asList() {
+        return new PriceListView(size, this::get);
+    }
+
+    /**
+     * Copies the entries from their chunks.
+     */
+    @Override
+    public PriceBatch toBatch(String symbol) {
+        long[] timestamps = new long[size];
+        long[] prices = new long[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = timestamp(i);
+            prices[i] = price(i);
+        }
+        return new PriceBatch(symbol, timestamps, prices);
+    }
+}
@@ -0,0 +1,43 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.util.List;
+
+/**
+ * A batch of prices of one cryptocurrency, as saved by {@link PriceRepository#savePrices(java.util.List)}.
+ *
+ * @param symbol     the cryptocurrency symbol
+ * @param timestamps the UTC timestamps in epoch milliseconds
+ * @param prices     the fixed-point prices, parallel to {@code timestamps}
+ */
+public record PriceBatch(String symbol, long[] timestamps, long[] prices) {
+
+    /**
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public PriceBatch {
+        if (timestamps.length != prices.length) {
+            throw new IllegalArgumentException("Timestamps and prices differ in length: "
+                    + timestamps.length + " != " + prices.length);
+        }
+    }
+
+    /**
+     * Encodes prices into a batch.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param prices the prices, in the order of the batch
+     * @return the batch of the encoded prices
+     */
+    public static PriceBatch of(String symbol, List<CryptoPrice> prices) {
+        long[] timestamps = new long[prices.size()];
+        long[] fixedPointPrices = new long[prices.size()];
+        for (int i = 0; i < timestamps.length; i++) {
+            CryptoPrice price = prices.get(i);
+            timestamps[i] = PriceCodec.toEpochMilli(price.utcDateTime());
+            fixedPointPrices[i] = PriceCodec.encodePrice(price.price());
+        }
+        return new PriceBatch(symbol, timestamps, fixedPointPrices);
+    }
+}
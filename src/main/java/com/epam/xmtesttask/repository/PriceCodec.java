@@ -0,0 +1,70 @@
+package com.epam.xmtesttask.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversions between the API value types and the primitive representation used by columnar storage.
+ * <p>
+ * Timestamps are stored as UTC epoch milliseconds and prices as fixed-point {@code long} values with
+ * {@value #PRICE_SCALE} decimal places. Prices loaded by {@link CSVPriceLoader} are rounded to 4 significant
+ * digits, so any realistic price is represented exactly.
+ * <p>
+ * Decoded prices are numerically equal to the encoded ones, but trailing zeros are stripped,
+ * so the scale of the returned {@link BigDecimal} may differ from the original value.
+ */
+public final class PriceCodec {
+
+    /**
+     * Number of decimal places kept by the fixed-point price representation.
+     */
+    public static final int PRICE_SCALE = 8;
+
+    private PriceCodec() {
+    }
+
+    /**
+     * Encodes a price as a fixed-point {@code long}.
+     *
+     * @param price the price to encode; must not be null
+     * @return the price in units of 10<sup>-{@value #PRICE_SCALE}</sup>
+     * @throws ArithmeticException if the price does not fit into a {@code long}
+     */
+    public static long encodePrice(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Decodes a fixed-point price created by {@link #encodePrice(BigDecimal)}.
+     *
+     * @param units the price in units of 10<sup>-{@value #PRICE_SCALE}</sup>
+     * @return the price without trailing zeros
+     */
+    public static BigDecimal decodePrice(long units) {
+        return BigDecimal.valueOf(units, PRICE_SCALE).stripTrailingZeros();
+    }
+
+    /**
+     * Converts a UTC date and time to epoch milliseconds.
+     *
+     * @param utcDateTime the UTC date and time
+     * @return milliseconds since the epoch
+     */
+    public static long toEpochMilli(LocalDateTime utcDateTime) {
+        return utcDateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Converts epoch milliseconds to a UTC date and time.
+     *
+     * @param epochMilli milliseconds since the epoch
+     * @return the UTC date and time
+     */
+    public static LocalDateTime toUtcDateTime(long epochMilli) {
+        long seconds = Math.floorDiv(epochMilli, 1000L);
+        int nanos = (int) Math.floorMod(epochMilli, 1000L) * 1_000_000;
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
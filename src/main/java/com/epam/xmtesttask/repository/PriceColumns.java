@@ -0,0 +1,66 @@
+package com.epam.xmtesttask.repository;
+
+import java.util.Arrays;
+
+/**
+ * Growable pair of primitive columns holding epoch-millisecond timestamps and fixed-point prices.
+ * <p>
+ * Used as a buffer to collect prices before a bulk {@link PriceRepository#savePrices(String, long[], long[])} call,
+ * e.g. by {@link CsvPriceParser}; the repository itself stores prices in {@link PriceSeries}.
+ * This class is not thread-safe.
+ */
+public class PriceColumns {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Appends a price to the end of the columns.
+     *
+     * @param epochMilli the UTC timestamp in epoch milliseconds
+     * @param price      the fixed-point price
+     */
+    public void append(long epochMilli, long price) {
+        if (size == timestamps.length) {
+            int newCapacity = timestamps.length + (timestamps.length >> 1);
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            prices = Arrays.copyOf(prices, newCapacity);
+        }
+        timestamps[size] = epochMilli;
+        prices[size] = price;
+        size++;
+    }
+
+    /**
+     * Appends prices to the end of the columns.
+     *
+     * @param epochMillis the UTC timestamps in epoch milliseconds
+     * @param prices      the fixed-point prices, parallel to {@code epochMillis}
+     */
+    public void appendAll(long[] epochMillis, long[] prices) {
+        int required = size + epochMillis.length;
+        if (required > timestamps.length) {
+            int newCapacity = Math.max(required, timestamps.length + (timestamps.length >> 1));
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            this.prices = Arrays.copyOf(this.prices, newCapacity);
+        }
+        System.arraycopy(epochMillis, 0, timestamps, size, epochMillis.length);
+        System.arraycopy(prices, 0, this.prices, size, prices.length);
+        size = required;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] copyTimestamps() {
+        return Arrays.copyOf(timestamps, size);
+    }
+
+    public long[] copyPrices() {
+        return Arrays.copyOf(prices, size);
+    }
+}
@@ -0,0 +1,73 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable price history of a single symbol, as stored by a {@link SnapshotPriceRepository}.
+ * <p>
+ * Implementations keep their entries sorted by timestamp, with entries of equal timestamps in the order they
+ * were written (see {@link SortedPrices}).
+ */
+interface PriceHistory {
+
+    /**
+     * Returns the summary of all prices, or {@code null} if there are none.
+     */
+    FixedPointSummary summary();
+
+    /**
+     * Summarizes the prices with timestamps in {@code [fromEpochMilli, toEpochMilli)}.
+     *
+     * @param fromEpochMilli the inclusive lower bound in epoch milliseconds
+     * @param toEpochMilli   the exclusive upper bound in epoch milliseconds
+     * @return the summary of the range, or empty if it contains no prices
+     */
+    Optional<FixedPointSummary> rangeSummary(long fromEpochMilli, long toEpochMilli);
+
+    /**
+     * Returns the rollup of a bucket. The default implementation summarizes the bucket's time range.
+     *
+     * @param resolution the resolution of the bucket
+     * @param bucket     the bucket number (see {@link Resolution#bucketOf(long)})
+     * @return the summary of the bucket, or empty if it contains no prices
+     */
+    default Optional<FixedPointSummary> rollup(Resolution resolution, long bucket) {
+        return rangeSummary(resolution.startOf(bucket), resolution.startOf(bucket + 1));
+    }
+
+    /**
+     * Returns the rollups of the buckets in {@code [fromBucket, toBucket)}. The default implementation looks up
+     * each bucket with {@link #rollup(Resolution, long)}.
+     *
+     * @param resolution the resolution of the buckets
+     * @param fromBucket the inclusive first bucket
+     * @param toBucket   the exclusive last bucket
+     * @return the summaries indexed by {@code bucket - fromBucket}, {@code null} for buckets without prices
+     */
+    default FixedPointSummary[] rollups(Resolution resolution, long fromBucket, long toBucket) {
+        FixedPointSummary[] summaries = new FixedPointSummary[Math.toIntExact(toBucket - fromBucket)];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = rollup(resolution, fromBucket + i).orElse(null);
+        }
+        return summaries;
+    }
+
+    /**
+     * Returns a read-only list of the prices in timestamp order.
+     */
+    List<CryptoPrice> asList();
+
+    /**
+     * Copies the prices in timestamp order into fixed-point columns. The default implementation encodes the
+     * elements of {@link #asList()}.
+     *
+     * @param symbol the symbol of this series
+     * @return the columns of all prices
+     */
+    default PriceBatch toBatch(String symbol) {
+        return PriceBatch.of(symbol, asList());
+    }
+}
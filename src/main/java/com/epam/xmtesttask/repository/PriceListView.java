@@ -0,0 +1,49 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Read-only list of the prices of a series that creates each {@link CryptoPrice} when it is read.
+ */
+final class PriceListView extends AbstractList<CryptoPrice> implements RandomAccess {
+
+    private final int size;
+    private final IntFunction<CryptoPrice> prices;
+
+    /**
+     * @param size   the number of prices
+     * @param prices creates the price at a position in {@code [0, size)}
+     */
+    PriceListView(int size, IntFunction<CryptoPrice> prices) {
+        this.size = size;
+        this.prices = prices;
+    }
+
+    /**
+     * Creates the price of a stored entry.
+     *
+     * @param epochMilli the UTC timestamp in epoch milliseconds
+     * @param price      the fixed-point price
+     * @return a new {@link CryptoPrice} for the stored values
+     */
+    static CryptoPrice price(long epochMilli, long price) {
+        return new CryptoPrice(PriceCodec.toUtcDateTime(epochMilli), PriceCodec.decodePrice(price));
+    }
+
+    @Override
+    public CryptoPrice get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return prices.apply(index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
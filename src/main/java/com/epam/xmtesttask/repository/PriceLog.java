@@ -0,0 +1,759 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of price batches, split into numbered segment files.
+ * <p>
+ * Segment layout (big-endian):
+ * <pre>
+ * int    magic         "PWAL"
+ * int    version       {@value #VERSION}
+ * long   number        the segment's own number
+ * records:
+ *   int    length      number of payload bytes
+ *   int    crc         CRC32C of the payload
+ *   payload:
+ *     short  nameLength, byte[nameLength] symbol (UTF-8)
+ *     int    count
+ *     long[count] timestamps (epoch milliseconds)
+ *     long[count] prices (fixed-point, see {@link PriceCodec})
+ * </pre>
+ * Segments are named after their number, e.g. {@code 00000000000000000007.wal}. Records are appended to the
+ * newest, active segment, and a new segment is started once it exceeds the configured size.
+ * <p>
+ * Appends are committed in groups: writers that arrive while a commit is in progress queue their entries, and the
+ * next writer to find no commit in progress writes all queued entries with a single write and {@code fsync}. After
+ * the {@code fsync} the committing writer hands the entries to the {@link Sink} in log order, those of each append
+ * together, so entries become visible only once they are durable and in the order in which they are replayed.
+ * <p>
+ * A failure to write the log leaves its files in an unknown state, so the log then rejects all further appends. A
+ * failure of the sink, after the entries are durable, only fails the appends whose entries it could not apply; the
+ * log stays writable and the entries are applied on the next {@link #open}. Until then the sink lacks entries that
+ * are in the log, so no checkpoint is written.
+ * <p>
+ * {@link #checkpoint(int, Supplier)} writes all prices up to the end of a segment as a {@link PriceSnapshot} named
+ * after that segment, e.g. {@code 00000000000000000007.checkpoint}, and then deletes that segment and all older ones,
+ * so the log only holds the writes since the last checkpoint. On {@link #open} the newest checkpoint is restored into
+ * the sink and the segments after it are replayed, one bulk save per symbol and segment, all symbols of a segment
+ * together; the recovery time is thus bounded by the size of the history plus the segments written since the
+ * checkpoint, not by the number of writes. An empty log can instead be seeded with {@link #seed}, which writes
+ * the initial prices straight to a checkpoint, so that they are recovered either completely or not at all.
+ * A record cut short or failing its checksum at the end of the newest segment is the trace of a crash during a
+ * write and is truncated; anywhere else it fails the recovery.
+ */
+final class PriceLog implements Closeable {
+
+    static final int MAGIC = 0x5057414C;
+    static final int VERSION = 1;
+
+    /**
+     * Largest number of prices in one record; larger entries are split.
+     */
+    static final int MAX_RECORD_PRICES = 1 << 20;
+
+    private static final Logger log = LoggerFactory.getLogger(PriceLog.class);
+
+    private static final int HEADER_BYTES = 4 + 4 + 8;
+    private static final int RECORD_HEADER_BYTES = 4 + 4;
+
+    /**
+     * Size of the largest record, with a symbol of the longest length and {@link #MAX_RECORD_PRICES} prices; records
+     * are encoded into buffers of at most this size.
+     */
+    private static final int MAX_RECORD_BYTES = RECORD_HEADER_BYTES + 2 + 0xFFFF + 4 + 16 * MAX_RECORD_PRICES;
+    private static final String SUFFIX = ".wal";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    /**
+     * Receives the entries of the log once they are durable.
+     */
+    @FunctionalInterface
+    interface Sink {
+        void save(String symbol, long[] timestamps, long[] prices);
+
+        /**
+         * Saves the entries of one append, or of one replayed segment, together. The default implementation saves
+         * them one by one; a sink that publishes a new state per save should publish one for all of them.
+         */
+        default void saveAll(List<PriceBatch> entries) {
+            for (PriceBatch entry : entries) {
+                save(entry.symbol(), entry.timestamps(), entry.prices());
+            }
+        }
+    }
+
+    /**
+     * An entry waiting for the next commit, with the ticket of the append that queued it.
+     */
+    private record Queued(long ticket, PriceBatch entry) {
+    }
+
+    /**
+     * Summary of the recovery on {@link #open}.
+     *
+     * @param checkpoint       the number of the last segment covered by the restored checkpoint, or 0 if there was
+     *                         none
+     * @param checkpointPrices the number of prices restored from the checkpoint
+     * @param segments         the number of replayed segments
+     * @param records          the number of replayed records
+     * @param prices           the number of replayed prices
+     */
+    record Recovered(long checkpoint, long checkpointPrices, int segments, long records, long prices) {
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final Sink sink;
+    private final Timer commitTimer;
+    private final DistributionSummary commitEntries;
+    private final Counter checkpoints;
+    private final Object checkpointLock = new Object();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition commitDone = lock.newCondition();
+    private List<Queued> pending = new ArrayList<>();
+    private long appended;
+    private long committed;
+    private boolean committing;
+    private Exception failure;
+
+    /**
+     * Sink failures of durable appends, by ticket, until the appending writer picks them up.
+     */
+    private final Map<Long, RuntimeException> unapplied = new HashMap<>();
+    private boolean sinkFailed;
+    private boolean closed;
+
+    /**
+     * Numbers of the segments on disk in ascending order; the last one is active. Guarded by itself, like
+     * {@link #lastSegment}.
+     */
+    private final List<Long> segments = new ArrayList<>();
+    private long lastSegment;
+
+    /**
+     * The active segment; only used by the committing writer, or while closing.
+     */
+    private FileChannel active;
+    private long activeSize;
+
+    private Recovered recovered;
+
+    private PriceLog(Path directory, long segmentBytes, boolean fsync, Sink sink, MeterRegistry registry) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.sink = sink;
+        this.commitTimer = Timer.builder("price.wal.commit.duration")
+                .description("Duration of writing and syncing a group commit of the write-ahead log")
+                .register(registry);
+        this.commitEntries = DistributionSummary.builder("price.wal.commit.entries")
+                .description("Entries written by one group commit of the write-ahead log")
+                .register(registry);
+        this.checkpoints = Counter.builder("price.wal.checkpoints")
+                .description("Checkpoints of the write-ahead log")
+                .register(registry);
+        Gauge.builder("price.wal.segments", this, PriceLog::segmentCount)
+                .description("Segment files of the write-ahead log")
+                .register(registry);
+    }
+
+    /**
+     * Opens the log in a directory, restores its newest checkpoint and replays the segments after it into a sink,
+     * and starts a new active segment.
+     *
+     * @param directory    the directory of the segment files; created if missing
+     * @param segmentBytes the size after which the active segment is closed and a new one started
+     * @param fsync        whether commits wait for the data to reach the storage device
+     * @param sink         receives the replayed entries, and later the entries of every commit
+     * @param registry     the registry of the log's metrics
+     * @return the open log
+     * @throws IOException if the directory cannot be read, the newest checkpoint is corrupt or a segment other than
+     *                     the newest is corrupt
+     */
+    static PriceLog open(Path directory, long segmentBytes, boolean fsync, Sink sink, MeterRegistry registry)
+            throws IOException {
+        Files.createDirectories(directory);
+        PriceLog priceLog = new PriceLog(directory, segmentBytes, fsync, sink, registry);
+        priceLog.recovered = priceLog.recover();
+        priceLog.roll();
+        return priceLog;
+    }
+
+    /**
+     * Returns the summary of the recovery on {@link #open}.
+     */
+    Recovered recovered() {
+        return recovered;
+    }
+
+    /**
+     * Appends entries and returns once they are durable and have been passed to the sink.
+     * <p>
+     * The entries of one call are committed together; they may share the commit with entries of concurrent calls.
+     *
+     * @param entries the entries to append
+     * @throws UncheckedIOException  if the log cannot be written; the log then rejects all further appends
+     * @throws IllegalStateException if the log is closed, or if the entries are durable but the sink failed to apply
+     *                               them; they are then applied on the next {@link #open}
+     */
+    void append(List<PriceBatch> entries) {
+        lock.lock();
+        try {
+            checkWritable();
+            long ticket = ++appended;
+            for (PriceBatch entry : entries) {
+                pending.add(new Queued(ticket, entry));
+            }
+            while (committed < ticket) {
+                checkWritable();
+                if (committing) {
+                    commitDone.awaitUninterruptibly();
+                } else {
+                    commitPending();
+                }
+            }
+            RuntimeException sinkFailure = unapplied.remove(ticket);
+            if (sinkFailure != null) {
+                throw new IllegalStateException("Prices written to write-ahead log " + directory
+                        + " could not be applied; they are applied on the next start", sinkFailure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the pending entries as the committing writer. Called and returns with the lock held, but releases it
+     * while writing, so that other writers can queue entries for the next commit.
+     */
+    private void commitPending() {
+        committing = true;
+        List<Queued> group = pending;
+        long upTo = appended;
+        pending = new ArrayList<>();
+        Exception error = null;
+        Map<Long, RuntimeException> sinkFailures = new HashMap<>();
+        lock.unlock();
+        try {
+            long startNanos = System.nanoTime();
+            write(group.stream().map(Queued::entry).toList());
+            commitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            commitEntries.record(group.size());
+            // The entries of an append are queued together, so each append is one run of the group.
+            int start = 0;
+            while (start < group.size()) {
+                long ticket = group.get(start).ticket();
+                int end = start + 1;
+                while (end < group.size() && group.get(end).ticket() == ticket) {
+                    end++;
+                }
+                List<PriceBatch> entries = group.subList(start, end).stream().map(Queued::entry).toList();
+                try {
+                    sink.saveAll(entries);
+                } catch (RuntimeException e) {
+                    log.error("Failed to apply {} entries committed to write-ahead log {}", entries.size(),
+                            directory, e);
+                    sinkFailures.put(ticket, e);
+                }
+                start = end;
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e;
+        } finally {
+            lock.lock();
+        }
+        committing = false;
+        if (error != null) {
+            failure = error;
+        } else {
+            committed = upTo;
+            unapplied.putAll(sinkFailures);
+            sinkFailed |= !sinkFailures.isEmpty();
+        }
+        commitDone.signalAll();
+    }
+
+    private void checkWritable() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log " + directory + " is closed");
+        }
+        if (failure instanceof IOException e) {
+            throw new UncheckedIOException("Write-ahead log " + directory + " failed", e);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Write-ahead log " + directory + " failed", failure);
+        }
+    }
+
+    private void write(List<PriceBatch> group) throws IOException {
+        activeSize += writeRecords(active, group);
+        if (fsync) {
+            active.force(false);
+        }
+        if (activeSize >= segmentBytes) {
+            roll();
+        }
+    }
+
+    /**
+     * Closes the active segment, if any, and starts the next one.
+     */
+    private void roll() throws IOException {
+        long number;
+        synchronized (segments) {
+            number = ++lastSegment;
+        }
+        FileChannel channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = header(number);
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        if (fsync) {
+            channel.force(true);
+            forceDirectory();
+        }
+        FileChannel previous = active;
+        active = channel;
+        activeSize = HEADER_BYTES;
+        synchronized (segments) {
+            segments.add(number);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Writes a checkpoint of all committed prices and deletes the segments it covers, if there are at least
+     * {@code minSegments} closed segments.
+     * <p>
+     * The active segment is closed while no commit is in progress, and the prices of the sink at that moment, which
+     * are exactly the prices of the segments up to the closed one, are taken from {@code prices}. The checkpoint is
+     * written from them while appends continue to a new active segment; only once it is durable are the covered
+     * segments and the previous checkpoint deleted. A crash in between leaves segments or a checkpoint behind that
+     * the next {@link #open} recognizes as covered and deletes.
+     *
+     * @param minSegments the smallest number of closed segments worth a checkpoint; at least 1 is always required
+     * @param prices      returns an immutable view of the prices the sink holds; called once no commit is in progress
+     * @return the number of deleted segments, or 0 if there were too few
+     * @throws IOException if the checkpoint cannot be written
+     */
+    int checkpoint(int minSegments, Supplier<? extends PriceReader> prices) throws IOException {
+        synchronized (checkpointLock) {
+            if (segmentCount() - 1 < Math.max(1, minSegments)) {
+                return 0;
+            }
+            long covered;
+            PriceReader view;
+            lock.lock();
+            try {
+                while (committing) {
+                    commitDone.awaitUninterruptibly();
+                }
+                checkWritable();
+                if (sinkFailed) {
+                    throw new IllegalStateException("Not checkpointing write-ahead log " + directory
+                            + ", as the sink failed to apply some of its prices");
+                }
+                committing = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                synchronized (segments) {
+                    covered = segments.getLast();
+                }
+                roll();
+                view = prices.get();
+            } finally {
+                lock.lock();
+                committing = false;
+                commitDone.signalAll();
+                lock.unlock();
+            }
+            return writeCheckpoint(covered, view);
+        }
+    }
+
+    /**
+     * Seeds an empty log with the prices that {@code load} saves to the sink directly, as a single checkpoint.
+     * <p>
+     * No commit can start while {@code load} runs. The prices are not appended to the log but written to a
+     * checkpoint at once, which only becomes visible by an atomic rename once it is complete, so a crash during the
+     * seed leaves the log empty rather than holding part of the prices.
+     *
+     * @param load   saves the prices to the sink, bypassing the log
+     * @param prices returns an immutable view of the prices the sink holds
+     * @throws IOException           if the checkpoint cannot be written
+     * @throws IllegalStateException if the log is not empty
+     */
+    void seed(Runnable load, Supplier<? extends PriceReader> prices) throws IOException {
+        synchronized (checkpointLock) {
+            long covered;
+            PriceReader view;
+            lock.lock();
+            try {
+                while (committing) {
+                    commitDone.awaitUninterruptibly();
+                }
+                checkWritable();
+                if (appended > 0 || recovered.checkpoint() > 0 || recovered.records() > 0) {
+                    throw new IllegalStateException("Write-ahead log " + directory + " is not empty");
+                }
+                committing = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                load.run();
+                synchronized (segments) {
+                    covered = segments.getLast();
+                }
+                roll();
+                view = prices.get();
+            } finally {
+                lock.lock();
+                committing = false;
+                commitDone.signalAll();
+                lock.unlock();
+            }
+            writeCheckpoint(covered, view);
+        }
+    }
+
+    /**
+     * Writes the checkpoint of the prices up to the end of a closed segment and deletes the segments it covers.
+     *
+     * @return the number of deleted segments
+     */
+    private int writeCheckpoint(long covered, PriceReader view) throws IOException {
+        long written = PriceSnapshot.write(checkpointPath(covered), view, covered, 0);
+        forceDirectory();
+        List<Long> deleted;
+        synchronized (segments) {
+            deleted = new ArrayList<>(segments.subList(0, segments.indexOf(covered) + 1));
+            segments.removeAll(deleted);
+        }
+        for (long number : deleted) {
+            Files.deleteIfExists(segmentPath(number));
+        }
+        deleteCheckpointsBefore(covered);
+        checkpoints.increment();
+        log.info("Checkpointed {} prices of write-ahead log {} up to segment {}, deleted {} segments",
+                written, directory, covered, deleted.size());
+        return deleted.size();
+    }
+
+    /**
+     * Waits for a commit in progress and closes the active segment; further appends fail.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (committing) {
+                commitDone.awaitUninterruptibly();
+            }
+            closed = true;
+            if (active != null) {
+                active.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int segmentCount() {
+        synchronized (segments) {
+            return segments.size();
+        }
+    }
+
+    private Recovered recover() throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        TreeMap<Long, Path> checkpointFiles = new TreeMap<>();
+        try (var paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.delete(path);
+                } else if (name.endsWith(SUFFIX)) {
+                    files.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), path);
+                } else if (name.endsWith(CHECKPOINT_SUFFIX)) {
+                    checkpointFiles.put(Long.parseLong(name.substring(0, name.length() - CHECKPOINT_SUFFIX.length())),
+                            path);
+                }
+            }
+        }
+        long checkpoint = 0;
+        long checkpointPrices = 0;
+        if (!checkpointFiles.isEmpty()) {
+            checkpoint = checkpointFiles.lastKey();
+            Path path = checkpointFiles.get(checkpoint);
+            PriceSnapshot.Restored restored = PriceSnapshot.restore(path, checkpoint, sink)
+                    .orElseThrow(() -> new IOException("Corrupt write-ahead log checkpoint " + path));
+            checkpointPrices = restored.rows();
+            deleteCheckpointsBefore(checkpoint);
+        }
+        // Segments covered by the checkpoint are left behind by a crash before they were deleted.
+        for (Iterator<Path> covered = files.headMap(checkpoint, true).values().iterator(); covered.hasNext(); ) {
+            Files.delete(covered.next());
+            covered.remove();
+        }
+        for (Map.Entry<Long, Path> segment : new ArrayList<>(files.entrySet())) {
+            if (!hasHeader(segment.getValue(), segment.getKey().equals(files.lastKey()))) {
+                log.warn("Deleting write-ahead log segment {} without a complete header", segment.getValue());
+                Files.delete(segment.getValue());
+                files.remove(segment.getKey());
+            }
+        }
+        long records = 0;
+        long prices = 0;
+        for (Map.Entry<Long, Path> segment : files.entrySet()) {
+            Map<String, PriceColumns> bySymbol = new LinkedHashMap<>();
+            records += readSegment(segment.getValue(), bySymbol, segment.getKey().equals(files.lastKey()));
+            List<PriceBatch> entries = new ArrayList<>(bySymbol.size());
+            for (Map.Entry<String, PriceColumns> symbol : bySymbol.entrySet()) {
+                entries.add(new PriceBatch(symbol.getKey(), symbol.getValue().copyTimestamps(),
+                        symbol.getValue().copyPrices()));
+                prices += symbol.getValue().size();
+            }
+            sink.saveAll(entries);
+            segments.add(segment.getKey());
+        }
+        // Numbers continue after the checkpoint, so that new segments are not mistaken for covered ones.
+        lastSegment = files.isEmpty() ? checkpoint : files.lastKey();
+        return new Recovered(checkpoint, checkpointPrices, files.size(), records, prices);
+    }
+
+    private void deleteCheckpointsBefore(long checkpoint) throws IOException {
+        try (var paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(CHECKPOINT_SUFFIX)
+                        && Long.parseLong(name.substring(0, name.length() - CHECKPOINT_SUFFIX.length())) < checkpoint) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the header of a segment.
+     *
+     * @return whether the header is complete; {@code false} only for the newest segment
+     * @throws IOException if the header of a segment other than the newest is invalid
+     */
+    private static boolean hasHeader(Path path, boolean newest) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() == HEADER_BYTES && header.getInt() == MAGIC && header.getInt() == VERSION) {
+                return true;
+            }
+        }
+        if (newest) {
+            return false;
+        }
+        throw new IOException("Corrupt write-ahead log segment " + path + ": invalid header");
+    }
+
+    /**
+     * Reads the records of a segment into per-symbol columns, in log order.
+     *
+     * @param newest whether the segment is the newest one, whose torn tail is truncated instead of failing
+     * @return the number of records read
+     */
+    private static long readSegment(Path path, Map<String, PriceColumns> bySymbol, boolean newest)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            MappedFileReader reader = new MappedFileReader(channel, HEADER_BYTES, size);
+            long records = 0;
+            long valid = HEADER_BYTES;
+            PriceBatch entry;
+            while (reader.remaining() > 0 && (entry = readRecord(reader)) != null) {
+                bySymbol.computeIfAbsent(entry.symbol(), symbol -> new PriceColumns())
+                        .appendAll(entry.timestamps(), entry.prices());
+                records++;
+                valid = reader.position();
+            }
+            if (valid < size) {
+                if (!newest) {
+                    throw new IOException("Corrupt write-ahead log segment " + path + " at byte " + valid);
+                }
+                log.warn("Truncating incomplete record at byte {} of write-ahead log segment {}", valid, path);
+                channel.truncate(valid);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return the entry, or {@code null} if the record is incomplete or fails its checksum
+     */
+    private static PriceBatch readRecord(MappedFileReader reader) throws IOException {
+        if (reader.remaining() < RECORD_HEADER_BYTES) {
+            return null;
+        }
+        int length = reader.getInt();
+        int crc = reader.getInt();
+        if (length < 2 + 4 || length > reader.remaining()) {
+            return null;
+        }
+        ByteBuffer payload = reader.slice(length);
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload.duplicate());
+        if ((int) checksum.getValue() != crc) {
+            return null;
+        }
+        byte[] name = new byte[Short.toUnsignedInt(payload.getShort())];
+        if (payload.remaining() < name.length + 4) {
+            return null;
+        }
+        payload.get(name);
+        int count = payload.getInt();
+        if (count < 0 || payload.remaining() != 16L * count) {
+            return null;
+        }
+        long[] timestamps = new long[count];
+        long[] prices = new long[count];
+        payload.asLongBuffer().get(timestamps);
+        payload.position(payload.position() + count * Long.BYTES);
+        payload.asLongBuffer().get(prices);
+        return new PriceBatch(new String(name, StandardCharsets.UTF_8), timestamps, prices);
+    }
+
+    private static long encodedSize(List<PriceBatch> entries) {
+        long size = 0;
+        for (PriceBatch entry : entries) {
+            int nameBytes = entry.symbol().getBytes(StandardCharsets.UTF_8).length;
+            int count = entry.timestamps().length;
+            int records = Math.max(1, (count + MAX_RECORD_PRICES - 1) / MAX_RECORD_PRICES);
+            size += (long) records * (RECORD_HEADER_BYTES + 2 + nameBytes + 4) + 16L * count;
+        }
+        return size;
+    }
+
+    /**
+     * Writes entries to a channel as records, an entry with more than {@link #MAX_RECORD_PRICES} prices as several.
+     * The records are encoded into a buffer of at most {@link #MAX_RECORD_BYTES} that is written whenever the next
+     * record does not fit, so the memory used does not grow with the size of the entries.
+     *
+     * @return the number of bytes written
+     */
+    private static long writeRecords(FileChannel channel, List<PriceBatch> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(encodedSize(entries), MAX_RECORD_BYTES));
+        long written = 0;
+        for (PriceBatch entry : entries) {
+            byte[] name = entry.symbol().getBytes(StandardCharsets.UTF_8);
+            int count = entry.timestamps().length;
+            int offset = 0;
+            do {
+                int length = Math.min(count - offset, MAX_RECORD_PRICES);
+                if (buffer.remaining() < RECORD_HEADER_BYTES + 2 + name.length + 4 + 16 * length) {
+                    written += drain(channel, buffer);
+                }
+                encode(name, entry, offset, length, buffer);
+                offset += length;
+            } while (offset < count);
+        }
+        return written + drain(channel, buffer);
+    }
+
+    /**
+     * Writes the encoded bytes of a buffer to a channel and clears the buffer.
+     *
+     * @return the number of bytes written
+     */
+    private static int drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    /**
+     * Encodes {@code length} prices of an entry from {@code offset} as one record.
+     */
+    private static void encode(byte[] name, PriceBatch entry, int offset, int length, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.position(start + RECORD_HEADER_BYTES);
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        buffer.putInt(length);
+        buffer.asLongBuffer().put(entry.timestamps(), offset, length);
+        buffer.position(buffer.position() + length * Long.BYTES);
+        buffer.asLongBuffer().put(entry.prices(), offset, length);
+        buffer.position(buffer.position() + length * Long.BYTES);
+        int payloadLength = buffer.position() - start - RECORD_HEADER_BYTES;
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(start + RECORD_HEADER_BYTES, payloadLength));
+        buffer.putInt(start, payloadLength);
+        buffer.putInt(start + 4, (int) checksum.getValue());
+    }
+
+    private static ByteBuffer header(long firstSegment) {
+        return ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putLong(firstSegment).flip();
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%020d", number) + SUFFIX);
+    }
+
+    private Path checkpointPath(long lastSegment) {
+        return directory.resolve(String.format("%020d", lastSegment) + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * Makes the creation, renaming and deletion of segment files durable, where the platform supports it.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Cannot sync directory {}", directory, e);
+        }
+    }
+}
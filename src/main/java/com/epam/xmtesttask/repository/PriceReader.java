@@ -0,0 +1,277 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Read access to cryptocurrency price data.
+ * <p>
+ * Extended by {@link PriceRepository}, and returned by {@link PriceRepository#readView()} for callers
+ * that need several reads to observe the same state.
+ */
+public interface PriceReader {
+
+    /**
+     * Checks if the given cryptocurrency symbol is supported.
+     *
+     * @param symbol the cryptocurrency symbol to check
+     * @return {@code true} if the symbol is supported, {@code false} otherwise
+     */
+    boolean isSupported(String symbol);
+
+    /**
+     * Returns a set of all supported cryptocurrency symbols.
+     *
+     * @return a set of supported symbols (e.g., {"BTC", "ETH"})
+     */
+    Set<String> getSupportedCryptos();
+
+    /**
+     * Retrieves the list of price entries for the specified cryptocurrency symbol.
+     * <p>
+     * The returned list is typically sorted by date and time in ascending order.
+     *
+     * @param symbol the cryptocurrency symbol for which to retrieve prices
+     * @return a list of {@link CryptoPrice} objects for the given symbol;
+     *         may be empty if no prices are available
+     */
+    List<CryptoPrice> getPrices(String symbol);
+
+    /**
+     * Retrieves the price history of a cryptocurrency as fixed-point columns, e.g. to write it to a file.
+     * <p>
+     * The default implementation encodes the elements of {@link #getPrices(String)}; implementations that store
+     * fixed-point prices copy them directly, without creating a {@link CryptoPrice} per entry.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @return the timestamps and prices of the symbol in the order of {@link #getPrices(String)}
+     * @throws CryptoNotFoundException if the symbol is not supported
+     */
+    default PriceBatch getFixedPointPrices(String symbol) {
+        return PriceBatch.of(symbol, getPrices(symbol));
+    }
+
+    /**
+     * Retrieves the aggregate of the whole price history of a cryptocurrency.
+     * <p>
+     * Implementations maintain this aggregate as prices are saved, so the lookup takes constant time.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @return the {@link CryptoPriceSummary} of all price entries of the symbol
+     * @throws CryptoNotFoundException if the symbol is not supported
+     */
+    CryptoPriceSummary getSummary(String symbol);
+
+    /**
+     * Retrieves the aggregate of the price entries of a cryptocurrency on a UTC calendar day.
+     * <p>
+     * Implementations maintain these aggregates as prices are saved, so the lookup does not depend
+     * on the length of the price history.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param date   the UTC calendar day
+     * @return the {@link CryptoPriceSummary} of the day, or empty if the symbol has no prices on that day
+     */
+    Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date);
+
+    /**
+     * Returns the version of all price data, which increases with every write.
+     * <p>
+     * Results computed from this reader's data can be cached under this version. Read the version before the
+     * data: if a write happens in between, the cached result is labelled with an older version than it
+     * reflects, which can only cause a needless recomputation, never a stale result.
+     *
+     * @return the current {@link DataVersion}
+     */
+    DataVersion getDataVersion();
+
+    /**
+     * Returns the version of the price data of one cryptocurrency, which increases with every write to it.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @return the {@link DataVersion} of the symbol, or {@link DataVersion#NONE} if it has no prices
+     */
+    DataVersion getDataVersion(String symbol);
+
+    /**
+     * Returns the supported cryptocurrencies whose price data changed after a version, i.e. whose
+     * {@link #getDataVersion(String)} is newer.
+     * <p>
+     * The default implementation compares the version of every supported symbol; implementations that index
+     * symbols by version return the changed ones without looking at the others.
+     *
+     * @param version the version number, e.g. of an earlier {@link #getDataVersion()}
+     * @return the symbols of the cryptocurrencies written after {@code version}
+     */
+    default Set<String> getCryptosChangedAfter(long version) {
+        Set<String> changed = new HashSet<>();
+        for (String symbol : getSupportedCryptos()) {
+            if (getDataVersion(symbol).version() > version) {
+                changed.add(symbol);
+            }
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Retrieves the aggregate of the price entries of a cryptocurrency within a time range.
+     * <p>
+     * The range includes {@code from} and excludes {@code to}; a {@code null} bound leaves that side open.
+     * The default implementation scans the whole price history; implementations that keep prices sorted
+     * by timestamp can answer in logarithmic time.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param from   the inclusive UTC start of the range, or {@code null} for no lower bound
+     * @param to     the exclusive UTC end of the range, or {@code null} for no upper bound
+     * @return the {@link CryptoPriceSummary} of the range, or empty if the symbol has no prices in the range
+     * @throws CryptoNotFoundException if the symbol is not supported
+     */
+    default Optional<CryptoPriceSummary> getRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+        CryptoPriceSummary summary = null;
+        for (CryptoPrice price : getPrices(symbol)) {
+            LocalDateTime dateTime = price.utcDateTime();
+            if ((from == null || !dateTime.isBefore(from)) && (to == null || dateTime.isBefore(to))) {
+                CryptoPriceSummary single = CryptoPriceSummary.of(dateTime, price.price());
+                summary = summary == null ? single : summary.merge(single);
+            }
+        }
+        return Optional.ofNullable(summary);
+    }
+
+    /**
+     * Retrieves the aggregate of the whole price history of a cryptocurrency in fixed-point form.
+     * <p>
+     * Calculations that only compare or combine prices use this instead of {@link #getSummary(String)}
+     * and build decimal values only for their result. The default implementation encodes the decimal summary;
+     * implementations that store fixed-point prices return their aggregate directly.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @return the {@link FixedPointSummary} of all price entries of the symbol
+     * @throws CryptoNotFoundException if the symbol is not supported
+     */
+    default FixedPointSummary getFixedPointSummary(String symbol) {
+        return FixedPointSummary.of(getSummary(symbol));
+    }
+
+    /**
+     * Retrieves the aggregate of the price entries of a cryptocurrency on a UTC calendar day in fixed-point form.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param date   the UTC calendar day
+     * @return the {@link FixedPointSummary} of the day, or empty if the symbol has no prices on that day
+     * @see #getDailySummary(String, LocalDate)
+     */
+    default Optional<FixedPointSummary> getFixedPointDailySummary(String symbol, LocalDate date) {
+        return getDailySummary(symbol, date).map(FixedPointSummary::of);
+    }
+
+    /**
+     * Retrieves the aggregate of the price entries of a cryptocurrency within a time range in fixed-point form.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param from   the inclusive UTC start of the range, or {@code null} for no lower bound
+     * @param to     the exclusive UTC end of the range, or {@code null} for no upper bound
+     * @return the {@link FixedPointSummary} of the range, or empty if the symbol has no prices in the range
+     * @throws CryptoNotFoundException if the symbol is not supported
+     * @see #getRangeSummary(String, LocalDateTime, LocalDateTime)
+     */
+    default Optional<FixedPointSummary> getFixedPointRangeSummary(String symbol, LocalDateTime from,
+                                                                  LocalDateTime to) {
+        return getRangeSummary(symbol, from, to).map(FixedPointSummary::of);
+    }
+
+    /**
+     * Retrieves the rollup of a cryptocurrency for one bucket of a {@link Resolution}.
+     * <p>
+     * Implementations maintain rollups as prices are saved, so the lookup does not depend on the length of the
+     * price history. The default implementation summarizes the bucket's time range.
+     *
+     * @param symbol     the cryptocurrency symbol
+     * @param resolution the resolution of the bucket
+     * @param bucket     the bucket number (see {@link Resolution#bucketOf(long)})
+     * @return the {@link FixedPointSummary} of the bucket, or empty if the symbol has no prices in it
+     */
+    default Optional<FixedPointSummary> getFixedPointRollup(String symbol, Resolution resolution, long bucket) {
+        if (!isSupported(symbol)) {
+            return Optional.empty();
+        }
+        return getFixedPointRangeSummary(symbol, PriceCodec.toUtcDateTime(resolution.startOf(bucket)),
+                PriceCodec.toUtcDateTime(resolution.startOf(bucket + 1)));
+    }
+
+    /**
+     * Retrieves the rollups of a cryptocurrency for consecutive buckets of a {@link Resolution}, e.g. the UTC days
+     * of a year.
+     * <p>
+     * The default implementation looks up each bucket with {@link #getFixedPointRollup(String, Resolution, long)};
+     * implementations that keep rollups sorted by bucket sweep them once.
+     *
+     * @param symbol     the cryptocurrency symbol
+     * @param resolution the resolution of the buckets
+     * @param fromBucket the inclusive first bucket
+     * @param toBucket   the exclusive last bucket
+     * @return the summaries indexed by {@code bucket - fromBucket}, with {@code null} for buckets in which the
+     *         symbol has no prices
+     */
+    default FixedPointSummary[] getFixedPointRollups(String symbol, Resolution resolution, long fromBucket,
+                                                     long toBucket) {
+        FixedPointSummary[] summaries = new FixedPointSummary[Math.toIntExact(toBucket - fromBucket)];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = getFixedPointRollup(symbol, resolution, fromBucket + i).orElse(null);
+        }
+        return summaries;
+    }
+
+    /**
+     * Retrieves the aggregate of the price entries of a cryptocurrency within a time range by combining rollups.
+     * <p>
+     * The range is covered by the coarsest rollup buckets that fit into it (see
+     * {@link Resolution#coarsestBucketAt(long, long)}), e.g. a calendar month in a time zone one hour ahead of UTC
+     * by one hourly, a few daily and weekly and 23 hourly buckets. Only parts of the range that do not start or
+     * end on a full UTC hour are summarized from the prices themselves. The result equals
+     * {@link #getFixedPointRangeSummary(String, LocalDateTime, LocalDateTime)} for the same range.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param from   the inclusive UTC start of the range
+     * @param to     the exclusive UTC end of the range
+     * @return the {@link FixedPointSummary} of the range, or empty if the symbol has no prices in the range
+     * @throws CryptoNotFoundException if the symbol is not supported
+     */
+    default Optional<FixedPointSummary> getFixedPointPeriodSummary(String symbol, LocalDateTime from,
+                                                                   LocalDateTime to) {
+        if (!isSupported(symbol)) {
+            throw new CryptoNotFoundException(symbol);
+        }
+        long end = PriceCodec.toEpochMilli(to);
+        long position = PriceCodec.toEpochMilli(from);
+        FixedPointSummary summary = null;
+        while (position < end) {
+            Resolution resolution = Resolution.coarsestBucketAt(position, end);
+            long next;
+            Optional<FixedPointSummary> part;
+            if (resolution == null) {
+                next = Math.min(Resolution.HOUR.startOf(Resolution.HOUR.bucketOf(position) + 1), end);
+                part = getFixedPointRangeSummary(symbol, PriceCodec.toUtcDateTime(position),
+                        PriceCodec.toUtcDateTime(next));
+            } else {
+                long bucket = resolution.bucketOf(position);
+                next = resolution.startOf(bucket + 1);
+                part = getFixedPointRollup(symbol, resolution, bucket);
+            }
+            if (part.isPresent()) {
+                summary = summary == null ? part.get() : summary.merge(part.get());
+            }
+            position = next;
+        }
+        return Optional.ofNullable(summary);
+    }
+}
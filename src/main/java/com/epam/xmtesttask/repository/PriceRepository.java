@@ -1,11 +1,8 @@
 package com.epam.xmtesttask.repository;
 
-import com.epam.xmtesttask.domain.crypto.CryptoPrice;
-
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Repository interface for managing cryptocurrency price data.
@@ -16,7 +13,7 @@ import java.util.Set;
  * Implementations of this interface are responsible for the actual data storage and retrieval,
  * which may be in-memory, database-backed, or file-based.
  */
-public interface PriceRepository {
+public interface PriceRepository extends PriceReader {
 
     /**
      * Saves a price entry for a given cryptocurrency symbol at a specific UTC date and time.
@@ -28,28 +25,55 @@ public interface PriceRepository {
     void savePrice(String symbol, LocalDateTime utcDateTime, BigDecimal price);
 
     /**
-     * Checks if the given cryptocurrency symbol is supported.
+     * Saves a batch of price entries for a given cryptocurrency symbol.
+     * <p>
+     * Timestamps are UTC epoch milliseconds and prices are fixed-point values as produced by
+     * {@link PriceCodec#encodePrice(BigDecimal)}. Entries are saved in array order. The default implementation
+     * delegates to {@link #savePrice(String, LocalDateTime, BigDecimal)}; implementations backed by primitive
+     * storage can append the arrays directly.
      *
-     * @param symbol the cryptocurrency symbol to check
-     * @return {@code true} if the symbol is supported, {@code false} otherwise
+     * @param symbol     the cryptocurrency symbol (e.g., "BTC", "ETH")
+     * @param timestamps the UTC timestamps in epoch milliseconds
+     * @param prices     the fixed-point prices, parallel to {@code timestamps}
+     * @throws IllegalArgumentException if the arrays differ in length
      */
-    boolean isSupported(String symbol);
+    default void savePrices(String symbol, long[] timestamps, long[] prices) {
+        if (timestamps.length != prices.length) {
+            throw new IllegalArgumentException("Timestamps and prices differ in length: "
+                    + timestamps.length + " != " + prices.length);
+        }
+        for (int i = 0; i < timestamps.length; i++) {
+            savePrice(symbol, PriceCodec.toUtcDateTime(timestamps[i]), PriceCodec.decodePrice(prices[i]));
+        }
+    }
 
     /**
-     * Returns a set of all supported cryptocurrency symbols.
+     * Saves batches of price entries of several cryptocurrencies, e.g. the ticks received since the last write.
+     * <p>
+     * Implementations that publish a new immutable state per write publish one for all batches, so the cost of
+     * copying their symbol table is paid once per call rather than once per symbol, and all batches get the same
+     * {@link DataVersion}. The default implementation saves the batches one by one with
+     * {@link #savePrices(String, long[], long[])}.
      *
-     * @return a set of supported symbols (e.g., {"BTC", "ETH"})
+     * @param batches the batches, saved in list order
      */
-    Set<String> getSupportedCryptos();
+    default void savePrices(List<PriceBatch> batches) {
+        for (PriceBatch batch : batches) {
+            savePrices(batch.symbol(), batch.timestamps(), batch.prices());
+        }
+    }
 
     /**
-     * Retrieves the list of price entries for the specified cryptocurrency symbol.
+     * Returns a read-only view on which all reads observe the same state of the repository.
      * <p>
-     * The returned list is typically sorted by date and time in ascending order.
+     * Callers that combine several reads, e.g. over all supported symbols, should read through one view
+     * so that concurrent writes cannot make the results inconsistent with each other.
+     * The default implementation returns the repository itself, which is only correct for
+     * implementations that are not written to concurrently.
      *
-     * @param symbol the cryptocurrency symbol for which to retrieve prices
-     * @return a list of {@link CryptoPrice} objects for the given symbol;
-     *         may be empty if no prices are available
+     * @return a consistent read-only view of the current data
      */
-    List<CryptoPrice> getPrices(String symbol);
+    default PriceReader readView() {
+        return this;
+    }
 }
@@ -0,0 +1,298 @@
+package com.epam.xmtesttask.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Immutable, memory-mapped file of sorted prices of one symbol, the cold tier of {@link TieredPriceRepository}.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int    magic          "PSEG"
+ * int    version        {@value #VERSION}
+ * short  nameLength, byte[nameLength] symbol (UTF-8)
+ * int    count
+ * long[7] summary       of all prices: first timestamp and price, last timestamp and price, min, max, count
+ * int    dayCount
+ * dayCount times, sorted by day:
+ *   long    epochDay    UTC day
+ *   long[7] summary     of the prices of the day
+ * long[count] timestamps (epoch milliseconds, sorted)
+ * long[count] prices (fixed-point, see {@link PriceCodec})
+ * </pre>
+ * The summaries are read when the segment is opened and from the day table, so summaries of the whole segment and
+ * of whole UTC days, weeks and months never touch the price columns. Only the parts of a range that do not cover
+ * whole days are summarized from the columns, which pages in just those prices.
+ * <p>
+ * A segment holds at most {@value #MAX_PRICES} prices, so the whole file fits into one mapping.
+ */
+final class PriceSegment {
+
+    static final int MAGIC = 0x50534547;
+    static final int VERSION = 1;
+    static final int MAX_PRICES = 1 << 26;
+
+    private static final int SUMMARY_BYTES = 7 * Long.BYTES;
+    private static final int DAY_BYTES = Long.BYTES + SUMMARY_BYTES;
+
+    private final Path file;
+    private final String symbol;
+    private final ByteBuffer buffer;
+    private final int count;
+    private final FixedPointSummary summary;
+    private final int dayCount;
+    private final int dayTable;
+    private final int timestampColumn;
+    private final int priceColumn;
+
+    private PriceSegment(Path file, String symbol, ByteBuffer buffer, int count, FixedPointSummary summary,
+                         int dayCount, int dayTable) {
+        this.file = file;
+        this.symbol = symbol;
+        this.buffer = buffer;
+        this.count = count;
+        this.summary = summary;
+        this.dayCount = dayCount;
+        this.dayTable = dayTable;
+        this.timestampColumn = dayTable + dayCount * DAY_BYTES;
+        this.priceColumn = timestampColumn + count * Long.BYTES;
+    }
+
+    /**
+     * Writes sorted prices to a new segment file and opens it.
+     * <p>
+     * The segment is written to a temporary file first and then moved into place, so a crash while writing never
+     * leaves a truncated segment behind.
+     *
+     * @param file       the segment file
+     * @param symbol     the cryptocurrency symbol
+     * @param timestamps the timestamps in epoch milliseconds, sorted
+     * @param prices     the fixed-point prices, parallel to {@code timestamps}
+     * @return the opened segment
+     * @throws IllegalArgumentException if there are no prices or more than {@value #MAX_PRICES}
+     * @throws IOException              if the segment cannot be written
+     */
+    static PriceSegment write(Path file, String symbol, long[] timestamps, long[] prices) throws IOException {
+        if (timestamps.length == 0 || timestamps.length > MAX_PRICES) {
+            throw new IllegalArgumentException("A segment holds 1 to " + MAX_PRICES + " prices, not "
+                    + timestamps.length);
+        }
+        byte[] name = symbol.getBytes(StandardCharsets.UTF_8);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeInt(timestamps.length);
+            writeSummary(out, PriceSeries.summarize(timestamps, prices, 0, timestamps.length));
+            out.writeInt(countDays(timestamps));
+            int runStart = 0;
+            while (runStart < timestamps.length) {
+                long day = Resolution.DAY.bucketOf(timestamps[runStart]);
+                int runEnd = runStart + 1;
+                while (runEnd < timestamps.length && Resolution.DAY.bucketOf(timestamps[runEnd]) == day) {
+                    runEnd++;
+                }
+                out.writeLong(day);
+                writeSummary(out, PriceSeries.summarize(timestamps, prices, runStart, runEnd));
+                runStart = runEnd;
+            }
+            for (long timestamp : timestamps) {
+                out.writeLong(timestamp);
+            }
+            for (long price : prices) {
+                out.writeLong(price);
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return open(file);
+    }
+
+    /**
+     * Maps a segment file and reads its header.
+     *
+     * @param file the segment file
+     * @return the segment
+     * @throws IOException if the file cannot be mapped or is not a segment
+     */
+    static PriceSegment open(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Price segment " + file + " exceeds " + Integer.MAX_VALUE + " bytes");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a price segment: " + file);
+            }
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            int count = buffer.getInt();
+            FixedPointSummary summary = readSummary(buffer, buffer.position());
+            buffer.position(buffer.position() + SUMMARY_BYTES);
+            int dayCount = buffer.getInt();
+            int dayTable = buffer.position();
+            if (count <= 0 || dayCount <= 0 || dayTable + (long) dayCount * DAY_BYTES + 16L * count != buffer.limit()) {
+                throw new IOException("Corrupt price segment " + file);
+            }
+            return new PriceSegment(file, new String(name, StandardCharsets.UTF_8), buffer, count, summary,
+                    dayCount, dayTable);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt price segment " + file, e);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    String symbol() {
+        return symbol;
+    }
+
+    int size() {
+        return count;
+    }
+
+    FixedPointSummary summary() {
+        return summary;
+    }
+
+    long timestamp(int index) {
+        return buffer.getLong(timestampColumn + index * Long.BYTES);
+    }
+
+    long price(int index) {
+        return buffer.getLong(priceColumn + index * Long.BYTES);
+    }
+
+    /**
+     * Summarizes the prices with timestamps in {@code [fromEpochMilli, toEpochMilli)}.
+     * <p>
+     * A range covering the whole segment returns its summary, and whole UTC days are merged from the day table;
+     * only the prices of partly covered days are read.
+     *
+     * @param fromEpochMilli the inclusive lower bound in epoch milliseconds
+     * @param toEpochMilli   the exclusive upper bound in epoch milliseconds
+     * @return the summary of the range, or empty if it contains no prices
+     */
+    Optional<FixedPointSummary> rangeSummary(long fromEpochMilli, long toEpochMilli) {
+        if (toEpochMilli <= summary.firstEpochMilli() || fromEpochMilli > summary.lastEpochMilli()) {
+            return Optional.empty();
+        }
+        if (fromEpochMilli <= summary.firstEpochMilli() && toEpochMilli > summary.lastEpochMilli()) {
+            return Optional.of(summary);
+        }
+        long from = Math.max(fromEpochMilli, summary.firstEpochMilli());
+        long to = toEpochMilli > summary.lastEpochMilli() ? summary.lastEpochMilli() + 1 : toEpochMilli;
+        long firstDay = Resolution.DAY.bucketOf(from);
+        if (Resolution.DAY.startOf(firstDay) < from) {
+            firstDay++;
+        }
+        long endDay = Resolution.DAY.bucketOf(to);
+        if (firstDay >= endDay) {
+            return Optional.ofNullable(scan(from, to));
+        }
+        FixedPointSummary result = scan(from, Resolution.DAY.startOf(firstDay));
+        for (int i = firstDayAtOrAfter(firstDay); i < dayCount && day(i) < endDay; i++) {
+            result = merge(result, readSummary(buffer, dayTable + i * DAY_BYTES + Long.BYTES));
+        }
+        return Optional.ofNullable(merge(result, scan(Resolution.DAY.startOf(endDay), to)));
+    }
+
+    /**
+     * Summarizes the prices in {@code [fromEpochMilli, toEpochMilli)} from the columns, or returns {@code null}
+     * if there are none.
+     */
+    private FixedPointSummary scan(long fromEpochMilli, long toEpochMilli) {
+        int from = lowerBound(fromEpochMilli);
+        int to = lowerBound(toEpochMilli);
+        if (from >= to) {
+            return null;
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            long price = price(i);
+            min = Math.min(min, price);
+            max = Math.max(max, price);
+        }
+        return new FixedPointSummary(timestamp(from), price(from), timestamp(to - 1), price(to - 1), min, max,
+                to - from);
+    }
+
+    /**
+     * Returns the index of the first price with a timestamp at or after the given one, or {@link #size()}.
+     */
+    private int lowerBound(long epochMilli) {
+        return SortedPrices.lowerBound(this::timestamp, count, epochMilli);
+    }
+
+    private int firstDayAtOrAfter(long epochDay) {
+        int low = 0;
+        int high = dayCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (day(mid) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long day(int index) {
+        return buffer.getLong(dayTable + index * DAY_BYTES);
+    }
+
+    private static FixedPointSummary merge(FixedPointSummary summary, FixedPointSummary later) {
+        if (later == null) {
+            return summary;
+        }
+        return summary == null ? later : summary.merge(later);
+    }
+
+    private static int countDays(long[] timestamps) {
+        int days = 1;
+        for (int i = 1; i < timestamps.length; i++) {
+            if (Resolution.DAY.bucketOf(timestamps[i]) != Resolution.DAY.bucketOf(timestamps[i - 1])) {
+                days++;
+            }
+        }
+        return days;
+    }
+
+    private static void writeSummary(DataOutputStream out, FixedPointSummary summary) throws IOException {
+        out.writeLong(summary.firstEpochMilli());
+        out.writeLong(summary.first());
+        out.writeLong(summary.lastEpochMilli());
+        out.writeLong(summary.last());
+        out.writeLong(summary.min());
+        out.writeLong(summary.max());
+        out.writeLong(summary.count());
+    }
+
+    private static FixedPointSummary readSummary(ByteBuffer buffer, int offset) {
+        return new FixedPointSummary(buffer.getLong(offset), buffer.getLong(offset + 8),
+                buffer.getLong(offset + 16), buffer.getLong(offset + 24), buffer.getLong(offset + 32),
+                buffer.getLong(offset + 40), buffer.getLong(offset + 48));
+    }
+}
@@ -0,0 +1,369 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of the price history of a single symbol, stored as parallel primitive columns.
+ * <p>
+ * The columns are split into chunks of {@value #CHUNK_SIZE} entries; only the first chunk starts smaller and
+ * grows, so symbols with few prices do not take a whole chunk.
+ * <p>
+ * Timestamps are kept as epoch milliseconds and prices as fixed-point values (see {@link PriceCodec}),
+ * which costs 16 bytes per price instead of a {@link CryptoPrice} with its date-time and decimal objects.
+ * {@link CryptoPrice} instances are only created when an element of {@link #asList()} is read.
+ * The all-time summary and the rollups of every {@link Resolution} (UTC hours, days, ISO weeks and months)
+ * are maintained with every append, as {@link FixedPointSummary} values, so neither appends nor summary reads
+ * create decimal objects.
+ * <p>
+ * Entries are kept sorted by timestamp; entries with equal timestamps keep their insertion order. This lets
+ * {@link #rangeSummary(long, long)} find the bounds of a time range by binary search and take the range
+ * minimum and maximum from a {@link RangeMinMaxTree}, in O(log n) for any range.
+ * <p>
+ * Appending in timestamp order returns a new instance that shares the chunks with this one: new values are
+ * written beyond {@link #size()}, which no existing instance reads. Entries older than the latest one are merged
+ * into new chunks from the chunk of the first entry they precede onwards, and the tree is rebuilt from that entry
+ * on, so a late price does not copy the whole history. Every instance therefore stays valid and unchanged, so
+ * readers need no locking. The append methods must only be called on the most
+ * recent instance and by a single writer.
+ */
+final class PriceSeries implements PriceHistory {
+
+    static final int CHUNK_SIZE = 1 << 12;
+
+    static final PriceSeries EMPTY = new PriceSeries(new long[0][], new long[0][], 0, null, emptyRollups(),
+            RangeMinMaxTree.EMPTY);
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+    private static final int MIN_FIRST_CHUNK = 16;
+
+    /**
+     * The chunks of the timestamp column; slots after the last chunk in use may be empty or hold chunks that
+     * later instances write to.
+     */
+    private final long[][] timestamps;
+    /**
+     * The chunks of the price column, parallel to {@link #timestamps}.
+     */
+    private final long[][] prices;
+    private final int size;
+    private final FixedPointSummary summary;
+    /**
+     * The rollup buckets of each {@link Resolution}, indexed by its ordinal.
+     */
+    private final SummaryBuckets[] rollups;
+    private final RangeMinMaxTree priceTree;
+
+    private PriceSeries(long[][] timestamps, long[][] prices, int size, FixedPointSummary summary,
+                        SummaryBuckets[] rollups, RangeMinMaxTree priceTree) {
+        this.timestamps = timestamps;
+        this.prices = prices;
+        this.size = size;
+        this.summary = summary;
+        this.rollups = rollups;
+        this.priceTree = priceTree;
+    }
+
+    /**
+     * Returns a new series with a price appended.
+     *
+     * @param epochMilli the UTC timestamp in epoch milliseconds
+     * @param price      the fixed-point price
+     * @return the updated series
+     */
+    PriceSeries append(long epochMilli, long price) {
+        return appendAll(new long[]{epochMilli}, new long[]{price});
+    }
+
+    /**
+     * Returns a new series with a batch of prices appended.
+     * <p>
+     * For each {@link Resolution}, consecutive entries of the same bucket are aggregated first, so only one
+     * summary per bucket and batch is created and merged. A batch that is sorted and starts at or after
+     * the latest timestamp is appended in place; any other batch is merged with the entries from the first one
+     * it precedes.
+     *
+     * @param epochMillis the UTC timestamps in epoch milliseconds
+     * @param newPrices   the fixed-point prices, parallel to {@code epochMillis}
+     * @return the updated series
+     */
+    PriceSeries appendAll(long[] epochMillis, long[] newPrices) {
+        if (epochMillis.length == 0) {
+            return this;
+        }
+        int newSize = Math.addExact(size, epochMillis.length);
+        long[][] newTimestamps;
+        long[][] newPriceColumn;
+        RangeMinMaxTree newPriceTree;
+        if (isAppendable(epochMillis)) {
+            newTimestamps = reserve(timestamps, newSize);
+            newPriceColumn = reserve(prices, newSize);
+            for (int i = 0; i < epochMillis.length; i++) {
+                put(newTimestamps, size + i, epochMillis[i]);
+                put(newPriceColumn, size + i, newPrices[i]);
+            }
+            newPriceTree = priceTree.update(i -> valueAt(newPriceColumn, i), size, newSize);
+        } else {
+            int[] order = SortedPrices.order(epochMillis);
+            int first = upperBound(epochMillis[order[0]]);
+            int firstChunk = first >>> CHUNK_SHIFT;
+            newTimestamps = reserve(Arrays.copyOf(timestamps, firstChunk), newSize);
+            newPriceColumn = reserve(Arrays.copyOf(prices, firstChunk), newSize);
+            int copied = first - (firstChunk << CHUNK_SHIFT);
+            if (copied > 0) {
+                System.arraycopy(timestamps[firstChunk], 0, newTimestamps[firstChunk], 0, copied);
+                System.arraycopy(prices[firstChunk], 0, newPriceColumn[firstChunk], 0, copied);
+            }
+            SortedPrices.merge(this::timestamp, this::price, first, size, epochMillis, newPrices, order,
+                    (index, epochMilli, price) -> {
+                        put(newTimestamps, index, epochMilli);
+                        put(newPriceColumn, index, price);
+                    });
+            newPriceTree = priceTree.rebuild(i -> valueAt(newPriceColumn, i), first, newSize);
+        }
+
+        FixedPointSummary batch = summarize(epochMillis, newPrices, 0, epochMillis.length);
+        SummaryBuckets[] newRollups = new SummaryBuckets[RESOLUTIONS.length];
+        for (Resolution resolution : RESOLUTIONS) {
+            int index = resolution.ordinal();
+            newRollups[index] = addRuns(rollups[index], resolution, epochMillis, newPrices);
+        }
+        return new PriceSeries(newTimestamps, newPriceColumn, newSize, summary == null ? batch : summary.merge(batch),
+                newRollups, newPriceTree);
+    }
+
+    private static SummaryBuckets[] emptyRollups() {
+        SummaryBuckets[] rollups = new SummaryBuckets[Resolution.values().length];
+        Arrays.fill(rollups, SummaryBuckets.EMPTY);
+        return rollups;
+    }
+
+    /**
+     * Adds a batch to the buckets of a resolution, one summary per run of consecutive entries in the same bucket.
+     */
+    private static SummaryBuckets addRuns(SummaryBuckets buckets, Resolution resolution, long[] epochMillis,
+                                          long[] newPrices) {
+        int runStart = 0;
+        while (runStart < epochMillis.length) {
+            long bucket = resolution.bucketOf(epochMillis[runStart]);
+            long start = resolution.startOf(bucket);
+            long end = resolution.startOf(bucket + 1);
+            int i = runStart + 1;
+            while (i < epochMillis.length && epochMillis[i] >= start && epochMillis[i] < end) {
+                i++;
+            }
+            buckets = buckets.add(bucket, summarize(epochMillis, newPrices, runStart, i));
+            runStart = i;
+        }
+        return buckets;
+    }
+
+    /**
+     * Summarizes the batch entries in {@code [from, to)}, which must not be empty.
+     */
+    static FixedPointSummary summarize(long[] epochMillis, long[] newPrices, int from, int to) {
+        int first = from;
+        int last = from;
+        int min = from;
+        int max = from;
+        for (int i = from + 1; i < to; i++) {
+            if (epochMillis[i] < epochMillis[first]) {
+                first = i;
+            }
+            if (epochMillis[i] >= epochMillis[last]) {
+                last = i;
+            }
+            if (newPrices[i] < newPrices[min]) {
+                min = i;
+            }
+            if (newPrices[i] > newPrices[max]) {
+                max = i;
+            }
+        }
+        return new FixedPointSummary(epochMillis[first], newPrices[first], epochMillis[last], newPrices[last],
+                newPrices[min], newPrices[max], to - from);
+    }
+
+    /**
+     * Returns chunks that hold the entries of the given ones and have room for {@code capacity} entries. The
+     * given array is only reused if it has a slot for every chunk and the first chunk does not have to grow, and
+     * then only written in empty slots.
+     */
+    private static long[][] reserve(long[][] chunks, int capacity) {
+        int chunkCount = ((capacity - 1) >>> CHUNK_SHIFT) + 1;
+        long[][] target = chunks;
+        if (chunkCount > target.length) {
+            target = Arrays.copyOf(target, Math.max(chunkCount, 2 * target.length));
+        }
+        long[] head = target[0];
+        int headCapacity = head == null ? 0 : head.length;
+        if (headCapacity < Math.min(capacity, CHUNK_SIZE)) {
+            int grown = Math.min(CHUNK_SIZE,
+                    Math.max(capacity, Math.max(MIN_FIRST_CHUNK, headCapacity + (headCapacity >> 1))));
+            if (target == chunks) {
+                target = target.clone();
+            }
+            target[0] = head == null ? new long[grown] : Arrays.copyOf(head, grown);
+        }
+        for (int c = 1; c < chunkCount; c++) {
+            if (target[c] == null) {
+                target[c] = new long[CHUNK_SIZE];
+            }
+        }
+        return target;
+    }
+
+    private static void put(long[][] chunks, int index, long value) {
+        chunks[index >>> CHUNK_SHIFT][index & (CHUNK_SIZE - 1)] = value;
+    }
+
+    private static long valueAt(long[][] chunks, int index) {
+        return chunks[index >>> CHUNK_SHIFT][index & (CHUNK_SIZE - 1)];
+    }
+
+    private long timestamp(int index) {
+        return valueAt(timestamps, index);
+    }
+
+    private long price(int index) {
+        return valueAt(prices, index);
+    }
+
+    /**
+     * Checks whether a batch is sorted and starts at or after the latest timestamp.
+     */
+    private boolean isAppendable(long[] epochMillis) {
+        return SortedPrices.isAppendable(size == 0 ? Long.MIN_VALUE : timestamp(size - 1), epochMillis);
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public FixedPointSummary summary() {
+        return summary;
+    }
+
+    Optional<FixedPointSummary> dailySummary(LocalDate date) {
+        return rollup(Resolution.DAY, date.toEpochDay());
+    }
+
+    /**
+     * Returns the rollup of a bucket in O(log b) for b buckets of the resolution.
+     *
+     * @param resolution the resolution of the bucket
+     * @param bucket     the bucket number (see {@link Resolution#bucketOf(long)})
+     * @return the summary of the bucket, or empty if it contains no prices
+     */
+    @Override
+    public Optional<FixedPointSummary> rollup(Resolution resolution, long bucket) {
+        return Optional.ofNullable(rollups[resolution.ordinal()].get(bucket));
+    }
+
+    /**
+     * Returns the rollups of the buckets in {@code [fromBucket, toBucket)} in one sweep, in O(log b + k) for
+     * b buckets of the resolution and k buckets in the range.
+     *
+     * @param resolution the resolution of the buckets
+     * @param fromBucket the inclusive first bucket
+     * @param toBucket   the exclusive last bucket
+     * @return the summaries indexed by {@code bucket - fromBucket}, {@code null} for buckets without prices
+     */
+    @Override
+    public FixedPointSummary[] rollups(Resolution resolution, long fromBucket, long toBucket) {
+        FixedPointSummary[] target = new FixedPointSummary[Math.toIntExact(toBucket - fromBucket)];
+        rollups[resolution.ordinal()].copyRange(fromBucket, toBucket, target);
+        return target;
+    }
+
+    /**
+     * Summarizes the prices with timestamps in {@code [fromEpochMilli, toEpochMilli)} in O(log n).
+     *
+     * @param fromEpochMilli the inclusive lower bound in epoch milliseconds
+     * @param toEpochMilli   the exclusive upper bound in epoch milliseconds
+     * @return the summary of the range, or empty if it contains no prices
+     */
+    @Override
+    public Optional<FixedPointSummary> rangeSummary(long fromEpochMilli, long toEpochMilli) {
+        int from = lowerBound(fromEpochMilli);
+        int to = lowerBound(toEpochMilli);
+        if (from >= to) {
+            return Optional.empty();
+        }
+        return Optional.of(new FixedPointSummary(timestamp(from), price(from), timestamp(to - 1), price(to - 1),
+                priceTree.min(this::price, from, to), priceTree.max(this::price, from, to), to - from));
+    }
+
+    /**
+     * Returns the index of the first entry with a timestamp at or after the given one, or {@link #size()}.
+     */
+    int lowerBound(long epochMilli) {
+        return SortedPrices.lowerBound(this::timestamp, size, epochMilli);
+    }
+
+    /**
+     * Returns the index of the first entry with a timestamp after the given one, or {@link #size()}.
+     */
+    private int upperBound(long epochMilli) {
+        return epochMilli == Long.MAX_VALUE ? size : lowerBound(epochMilli + 1);
+    }
+
+    /**
+     * Copies the timestamps of the entries in {@code [from, to)}.
+     */
+    long[] timestamps(int from, int to) {
+        return copyRange(timestamps, from, to);
+    }
+
+    /**
+     * Copies the fixed-point prices of the entries in {@code [from, to)}.
+     */
+    long[] prices(int from, int to) {
+        return copyRange(prices, from, to);
+    }
+
+    private static long[] copyRange(long[][] chunks, int from, int to) {
+        long[] target = new long[to - from];
+        for (int i = from; i < to; ) {
+            int offset = i & (CHUNK_SIZE - 1);
+            int length = Math.min(to - i, CHUNK_SIZE - offset);
+            System.arraycopy(chunks[i >>> CHUNK_SHIFT], offset, target, i - from, length);
+            i += length;
+        }
+        return target;
+    }
+
+    /**
+     * Materializes the price at the given index.
+     *
+     * @param index the position in timestamp order
+     * @return a new {@link CryptoPrice} for the stored values
+     */
+    CryptoPrice get(int index) {
+        return PriceListView.price(timestamp(index), price(index));
+    }
+
+    /**
+     * Returns a read-only list view of this series.
+     *
+     * @return a list that decodes each element on access
+     */
+    @Override
+    public List<CryptoPrice> asList() {
+        return new PriceListView(size, this::get);
+    }
+
+    /**
+     * Copies the columns of all entries.
+     */
+    @Override
+    public PriceBatch toBatch(String symbol) {
+        return new PriceBatch(symbol, timestamps(0, size), prices(0, size));
+    }
+}
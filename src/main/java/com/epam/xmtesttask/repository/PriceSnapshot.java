@@ -0,0 +1,213 @@
+package com.epam.xmtesttask.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of the prices held by a {@link PriceRepository}, used for fast restarts.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int    magic          "PRSN"
+ * int    version        {@value #VERSION}
+ * long   fingerprint    of the CSV sources the snapshot was built from
+ * long   csvLoadNanos   time the CSV load took, used to report the time saved
+ * int    symbolCount
+ * symbolCount times:
+ *   short  nameLength, byte[nameLength] name (UTF-8)
+ *   int    count
+ *   long[count] timestamps (epoch milliseconds)
+ *   long[count] prices (fixed-point, see {@link PriceCodec})
+ * long   CRC32 of all preceding bytes
+ * </pre>
+ * Snapshots are read through read-only memory mappings. A snapshot is only restored if the magic, version,
+ * fingerprint and checksum all match; otherwise the caller is expected to fall back to the CSV sources.
+ */
+final class PriceSnapshot {
+
+    static final int MAGIC = 0x5052534E;
+    static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+    private static final int CHECKSUM_BYTES = 8;
+
+    private PriceSnapshot() {
+    }
+
+    /**
+     * Summary of a restored snapshot.
+     *
+     * @param symbols      the number of restored symbols
+     * @param rows         the number of restored prices
+     * @param csvLoadNanos the time the CSV load took when the snapshot was written
+     */
+    record Restored(int symbols, long rows, long csvLoadNanos) {
+    }
+
+    /**
+     * Computes a fingerprint of CSV source files from their names, sizes and modification times.
+     *
+     * @param sources the source files
+     * @return a value that changes when any source file is added, removed or modified
+     * @throws IOException if the file attributes cannot be read
+     */
+    static long fingerprint(List<Path> sources) throws IOException {
+        List<Path> sorted = new ArrayList<>(sources);
+        sorted.sort(Comparator.comparing(Path::toString));
+        long hash = 1125899906842597L;
+        for (Path source : sorted) {
+            hash = 31 * hash + source.getFileName().toString().hashCode();
+            hash = 31 * hash + Files.size(source);
+            hash = 31 * hash + Files.getLastModifiedTime(source).toMillis();
+        }
+        return hash;
+    }
+
+    /**
+     * Writes all prices of a repository to a snapshot file.
+     * <p>
+     * The snapshot is written to a temporary file first, synced to disk and then moved into place,
+     * so a crash while writing never leaves a truncated snapshot behind. The prices are read as fixed-point columns
+     * with {@link PriceReader#getFixedPointPrices(String)}, without creating a {@link java.math.BigDecimal} per price.
+     *
+     * @param file         the snapshot file
+     * @param repository   the repository, or a read view of it, to export
+     * @param fingerprint  the fingerprint of the CSV sources, see {@link #fingerprint(List)}
+     * @param csvLoadNanos the time the CSV load took
+     * @return the number of written prices
+     * @throws IOException if the snapshot cannot be written
+     */
+    static long write(Path file, PriceReader repository, long fingerprint, long csvLoadNanos) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        List<String> symbols = new ArrayList<>(repository.getSupportedCryptos());
+        long rows = 0;
+        CRC32 crc = new CRC32();
+        try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+             var fileOut = Channels.newOutputStream(channel);
+             var checkedOut = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), crc);
+             var out = new DataOutputStream(checkedOut)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeLong(csvLoadNanos);
+            out.writeInt(symbols.size());
+            for (String symbol : symbols) {
+                byte[] name = symbol.getBytes(StandardCharsets.UTF_8);
+                PriceBatch columns = repository.getFixedPointPrices(symbol);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(columns.timestamps().length);
+                for (long timestamp : columns.timestamps()) {
+                    out.writeLong(timestamp);
+                }
+                for (long price : columns.prices()) {
+                    out.writeLong(price);
+                }
+                rows += columns.timestamps().length;
+            }
+            out.flush();
+            // The checksum covers the bytes above and is written outside the checked stream.
+            DataOutputStream trailer = new DataOutputStream(fileOut);
+            trailer.writeLong(crc.getValue());
+            trailer.flush();
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return rows;
+    }
+
+    /**
+     * Restores a snapshot into a repository if it is valid and matches the given fingerprint.
+     * <p>
+     * The whole file is validated before any price is saved, so a stale or corrupt snapshot
+     * leaves the repository untouched.
+     *
+     * @param file        the snapshot file
+     * @param fingerprint the fingerprint of the current CSV sources
+     * @param repository  the repository to load the prices into
+     * @return the restore summary, or empty if the snapshot is missing, stale or corrupt
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    static Optional<Restored> restore(Path file, long fingerprint, PriceRepository repository) throws IOException {
+        return restore(file, fingerprint, repository::savePrices);
+    }
+
+    /**
+     * Restores a snapshot into a sink if it is valid and matches the given fingerprint; see
+     * {@link #restore(Path, long, PriceRepository)}.
+     *
+     * @param file        the snapshot file
+     * @param fingerprint the fingerprint the snapshot was written with
+     * @param sink        receives the prices of each symbol
+     * @return the restore summary, or empty if the snapshot is missing, stale or corrupt
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    static Optional<Restored> restore(Path file, long fingerprint, PriceLog.Sink sink) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES) {
+                return Optional.empty();
+            }
+            MappedFileReader reader = new MappedFileReader(channel, 0, size - CHECKSUM_BYTES);
+            if (reader.getInt() != MAGIC || reader.getInt() != VERSION || reader.getLong() != fingerprint) {
+                return Optional.empty();
+            }
+            long csvLoadNanos = reader.getLong();
+            int symbolCount = reader.getInt();
+            if (symbolCount < 0 || !checksumMatches(channel, size)) {
+                return Optional.empty();
+            }
+            long rows = 0;
+            for (int i = 0; i < symbolCount; i++) {
+                byte[] name = new byte[Short.toUnsignedInt(reader.getShort())];
+                reader.get(name);
+                int count = reader.getInt();
+                if (count < 0) {
+                    throw new IOException("Corrupt snapshot " + file + ": negative price count");
+                }
+                long[] timestamps = new long[count];
+                long[] prices = new long[count];
+                reader.getLongs(timestamps);
+                reader.getLongs(prices);
+                sink.save(new String(name, StandardCharsets.UTF_8), timestamps, prices);
+                rows += count;
+            }
+            return Optional.of(new Restored(symbolCount, rows, csvLoadNanos));
+        }
+    }
+
+    private static boolean checksumMatches(FileChannel channel, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        long end = size - CHECKSUM_BYTES;
+        for (long position = 0; position < end; position += MappedFileReader.MAX_WINDOW) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(MappedFileReader.MAX_WINDOW, end - position)));
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, end, CHECKSUM_BYTES).getLong() == crc.getValue();
+    }
+}
@@ -0,0 +1,84 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Incrementally maintained price aggregates for {@link InMemoryPriceRepository}.
+ * <p>
+ * Keeps a {@link CryptoPriceSummary} per symbol over its whole history and per symbol and bucket of every
+ * {@link Resolution} (UTC hours, days, ISO weeks and months), all updated on every saved price, so statistics
+ * are answered with a single lookup instead of a scan over the price history. Oldest and newest prices are tracked by timestamp, so prices saved out of order
+ * are handled correctly.
+ * <p>
+ * This class is not thread-safe; callers are expected to guard it like the rest of their storage.
+ */
+class PriceSummaryIndex {
+
+    private final Map<String, CryptoPriceSummary> summaries = new HashMap<>();
+
+    private final Map<String, Map<Resolution, Map<Long, CryptoPriceSummary>>> rollups = new HashMap<>();
+
+    /**
+     * Adds a price entry to the aggregates of its symbol.
+     *
+     * @param symbol      the cryptocurrency symbol
+     * @param utcDateTime the UTC date and time of the entry
+     * @param price       the price of the entry
+     */
+    void add(String symbol, LocalDateTime utcDateTime, BigDecimal price) {
+        CryptoPriceSummary summary = CryptoPriceSummary.of(utcDateTime, price);
+        summaries.merge(symbol, summary, CryptoPriceSummary::merge);
+        long epochMilli = PriceCodec.toEpochMilli(utcDateTime);
+        Map<Resolution, Map<Long, CryptoPriceSummary>> symbolRollups =
+                rollups.computeIfAbsent(symbol, k -> new EnumMap<>(Resolution.class));
+        for (Resolution resolution : Resolution.values()) {
+            symbolRollups.computeIfAbsent(resolution, k -> new HashMap<>())
+                    .merge(resolution.bucketOf(epochMilli), summary, CryptoPriceSummary::merge);
+        }
+    }
+
+    /**
+     * Returns the aggregate of the whole price history of a symbol.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @return the summary, or empty if there are no prices for the symbol
+     */
+    Optional<CryptoPriceSummary> getSummary(String symbol) {
+        return Optional.ofNullable(summaries.get(symbol));
+    }
+
+    /**
+     * Returns the aggregate of a symbol for a UTC calendar day.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @param date   the UTC calendar day
+     * @return the summary, or empty if there are no prices for the symbol on that day
+     */
+    Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date) {
+        return getRollup(symbol, Resolution.DAY, date.toEpochDay());
+    }
+
+    /**
+     * Returns the aggregate of a symbol for a bucket of a resolution.
+     *
+     * @param symbol     the cryptocurrency symbol
+     * @param resolution the resolution of the bucket
+     * @param bucket     the bucket number (see {@link Resolution#bucketOf(long)})
+     * @return the summary, or empty if there are no prices for the symbol in the bucket
+     */
+    Optional<CryptoPriceSummary> getRollup(String symbol, Resolution resolution, long bucket) {
+        Map<Resolution, Map<Long, CryptoPriceSummary>> symbolRollups = rollups.get(symbol);
+        if (symbolRollups == null || !symbolRollups.containsKey(resolution)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(symbolRollups.get(resolution).get(bucket));
+    }
+}
@@ -0,0 +1,182 @@
+package com.epam.xmtesttask.repository;
+
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Segment tree answering minimum and maximum queries over index ranges of a {@code long} column.
+ * <p>
+ * The leaves hold the minimum and maximum of blocks of {@value #BLOCK_SIZE} consecutive values, so the tree
+ * costs about half a byte per value. A query combines O(log n) tree nodes for the blocks fully inside the
+ * range and scans the at most two partial blocks at its ends.
+ * <p>
+ * The tree is maintained alongside a {@link PriceSeries} whose column is appended to in place:
+ * {@link #update(IntToLongFunction, int, int)} writes only leaves of blocks at or after the previous size, and
+ * their ancestors. Queries of an earlier series only use nodes that lie entirely within that series' full blocks,
+ * which are never written again, so an instance can be updated while earlier series read it. When values are
+ * replaced instead, {@link #rebuild(IntToLongFunction, int, int)} copies the tree and recomputes only the leaves
+ * from the first replaced value on. Like the series, it must only be updated by a single writer.
+ */
+final class RangeMinMaxTree {
+
+    static final int BLOCK_SIZE = 64;
+
+    private static final int BLOCK_SHIFT = 6;
+
+    static final RangeMinMaxTree EMPTY = new RangeMinMaxTree(0);
+
+    private final int leaves;
+    private final long[] min;
+    private final long[] max;
+
+    private RangeMinMaxTree(int leaves) {
+        this.leaves = leaves;
+        this.min = new long[2 * leaves];
+        this.max = new long[2 * leaves];
+        Arrays.fill(min, Long.MAX_VALUE);
+        Arrays.fill(max, Long.MIN_VALUE);
+    }
+
+    /**
+     * Builds a tree over the first {@code size} values.
+     *
+     * @param values the column
+     * @param size   the number of values covered
+     * @return the tree
+     */
+    static RangeMinMaxTree build(IntToLongFunction values, int size) {
+        return EMPTY.update(values, 0, size);
+    }
+
+    /**
+     * Extends the tree, which covers {@code values[0, from)}, to cover {@code values[0, to)}.
+     *
+     * @param values the column, unchanged below {@code from}
+     * @param from   the number of values covered so far
+     * @param to     the number of values to cover
+     * @return this tree, or a larger copy if it has no room for the new blocks
+     */
+    RangeMinMaxTree update(IntToLongFunction values, int from, int to) {
+        int blocks = blocks(to);
+        RangeMinMaxTree tree = blocks > leaves ? grow(blocks) : this;
+        for (int block = from >>> BLOCK_SHIFT; block < blocks; block++) {
+            int start = Math.max(from, block << BLOCK_SHIFT);
+            int end = Math.min(to, (block + 1) << BLOCK_SHIFT);
+            int node = tree.leaves + block;
+            long blockMin = tree.min[node];
+            long blockMax = tree.max[node];
+            for (int i = start; i < end; i++) {
+                long value = values.applyAsLong(i);
+                blockMin = Math.min(blockMin, value);
+                blockMax = Math.max(blockMax, value);
+            }
+            tree.min[node] = blockMin;
+            tree.max[node] = blockMax;
+            for (node >>>= 1; node > 0; node >>>= 1) {
+                tree.min[node] = Math.min(tree.min[2 * node], tree.min[2 * node + 1]);
+                tree.max[node] = Math.max(tree.max[2 * node], tree.max[2 * node + 1]);
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Returns a new tree covering {@code values[0, to)} whose values below {@code from} are the ones this tree
+     * covers, in O(n / {@value #BLOCK_SIZE} + k) for k values from {@code from} on. This tree is not changed.
+     *
+     * @param values the column, unchanged below {@code from}
+     * @param from   the position of the first replaced value
+     * @param to     the number of values to cover
+     * @return the new tree
+     */
+    RangeMinMaxTree rebuild(IntToLongFunction values, int from, int to) {
+        int blocks = blocks(to);
+        int firstBlock = Math.min(from >>> BLOCK_SHIFT, leaves);
+        RangeMinMaxTree rebuilt = new RangeMinMaxTree(Math.max(capacity(blocks), leaves));
+        System.arraycopy(min, leaves, rebuilt.min, rebuilt.leaves, firstBlock);
+        System.arraycopy(max, leaves, rebuilt.max, rebuilt.leaves, firstBlock);
+        for (int block = firstBlock; block < blocks; block++) {
+            long blockMin = Long.MAX_VALUE;
+            long blockMax = Long.MIN_VALUE;
+            for (int i = block << BLOCK_SHIFT, end = Math.min(to, (block + 1) << BLOCK_SHIFT); i < end; i++) {
+                long value = values.applyAsLong(i);
+                blockMin = Math.min(blockMin, value);
+                blockMax = Math.max(blockMax, value);
+            }
+            rebuilt.min[rebuilt.leaves + block] = blockMin;
+            rebuilt.max[rebuilt.leaves + block] = blockMax;
+        }
+        rebuilt.combineAll();
+        return rebuilt;
+    }
+
+    /**
+     * Returns the minimum of {@code values[from, to)}; the range must not be empty.
+     */
+    long min(IntToLongFunction values, int from, int to) {
+        return query(values, from, to, min, Math::min, Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns the maximum of {@code values[from, to)}; the range must not be empty.
+     */
+    long max(IntToLongFunction values, int from, int to) {
+        return query(values, from, to, max, Math::max, Long.MIN_VALUE);
+    }
+
+    private long query(IntToLongFunction values, int from, int to, long[] nodes, LongBinaryOperator op, long identity) {
+        int firstBlock = (from + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        int endBlock = to >>> BLOCK_SHIFT;
+        if (firstBlock >= endBlock) {
+            return scan(values, from, to, op, identity);
+        }
+        long result = scan(values, from, firstBlock << BLOCK_SHIFT, op, identity);
+        result = scan(values, endBlock << BLOCK_SHIFT, to, op, result);
+        for (int l = firstBlock + leaves, r = endBlock + leaves; l < r; l >>>= 1, r >>>= 1) {
+            if ((l & 1) == 1) {
+                result = op.applyAsLong(result, nodes[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = op.applyAsLong(result, nodes[--r]);
+            }
+        }
+        return result;
+    }
+
+    private static long scan(IntToLongFunction values, int from, int to, LongBinaryOperator op, long result) {
+        for (int i = from; i < to; i++) {
+            result = op.applyAsLong(result, values.applyAsLong(i));
+        }
+        return result;
+    }
+
+    private RangeMinMaxTree grow(int blocks) {
+        RangeMinMaxTree grown = new RangeMinMaxTree(Math.max(capacity(blocks), 2 * leaves));
+        System.arraycopy(min, leaves, grown.min, grown.leaves, leaves);
+        System.arraycopy(max, leaves, grown.max, grown.leaves, leaves);
+        grown.combineAll();
+        return grown;
+    }
+
+    /**
+     * Recomputes all inner nodes from the leaves.
+     */
+    private void combineAll() {
+        for (int node = leaves - 1; node > 0; node--) {
+            min[node] = Math.min(min[2 * node], min[2 * node + 1]);
+            max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+        }
+    }
+
+    private static int blocks(int size) {
+        return (size + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+    }
+
+    /**
+     * Returns the number of leaves of a tree with room for the given number of blocks.
+     */
+    private static int capacity(int blocks) {
+        return Math.max(1, Integer.highestOneBit(blocks - 1) << 1);
+    }
+}
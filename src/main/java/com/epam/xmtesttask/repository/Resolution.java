@@ -0,0 +1,146 @@
+package com.epam.xmtesttask.repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Resolution of the price rollups that repositories maintain as prices are saved.
+ * <p>
+ * Each resolution divides the UTC time line into buckets numbered by a {@code long}: hours and days since the
+ * epoch, ISO weeks (starting on Monday) and calendar months. A bucket covers
+ * {@code [startOf(bucket), startOf(bucket + 1))} in epoch milliseconds. Periods that are not aligned to UTC
+ * buckets, e.g. a calendar day in another time zone, are covered by combining several buckets
+ * (see {@link #coarsestBucketAt(long, long)}).
+ */
+public enum Resolution {
+
+    HOUR {
+        @Override
+        public long bucketOf(long epochMilli) {
+            return Math.floorDiv(epochMilli, MILLIS_PER_HOUR);
+        }
+
+        @Override
+        public long startOf(long bucket) {
+            return bucket * MILLIS_PER_HOUR;
+        }
+    },
+
+    DAY {
+        @Override
+        public long bucketOf(long epochMilli) {
+            return Math.floorDiv(epochMilli, MILLIS_PER_DAY);
+        }
+
+        @Override
+        public long startOf(long bucket) {
+            return bucket * MILLIS_PER_DAY;
+        }
+    },
+
+    WEEK {
+        @Override
+        public long bucketOf(long epochMilli) {
+            // The epoch day 0 is a Thursday; week 0 starts on Monday, epoch day -3.
+            return Math.floorDiv(Math.floorDiv(epochMilli, MILLIS_PER_DAY) + 3, 7);
+        }
+
+        @Override
+        public long startOf(long bucket) {
+            return (bucket * 7 - 3) * MILLIS_PER_DAY;
+        }
+    },
+
+    MONTH {
+        @Override
+        public long bucketOf(long epochMilli) {
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMilli, MILLIS_PER_DAY));
+            return date.getYear() * 12L + date.getMonthValue() - 1;
+        }
+
+        @Override
+        public long startOf(long bucket) {
+            LocalDate date = LocalDate.of((int) Math.floorDiv(bucket, 12), Math.floorMod(bucket, 12) + 1, 1);
+            return date.toEpochDay() * MILLIS_PER_DAY;
+        }
+    };
+
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    /**
+     * Resolutions from the coarsest to the finest.
+     */
+    private static final Resolution[] COARSEST_FIRST = {MONTH, WEEK, DAY, HOUR};
+
+    /**
+     * Returns the bucket containing a timestamp.
+     *
+     * @param epochMilli the UTC timestamp in epoch milliseconds
+     * @return the bucket number
+     */
+    public abstract long bucketOf(long epochMilli);
+
+    /**
+     * Returns the start of a bucket.
+     *
+     * @param bucket the bucket number
+     * @return the inclusive start in UTC epoch milliseconds
+     */
+    public abstract long startOf(long bucket);
+
+    /**
+     * Returns the start of the period of this resolution that contains a local date and time, e.g. the Monday
+     * of its week at midnight.
+     *
+     * @param dateTime the local date and time
+     * @return the local start of the period
+     */
+    public LocalDateTime truncate(LocalDateTime dateTime) {
+        return switch (this) {
+            case HOUR -> dateTime.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> dateTime.toLocalDate().atStartOfDay();
+            case WEEK -> dateTime.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH -> dateTime.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        };
+    }
+
+    /**
+     * Returns the start of the period following the one that starts at a local date and time.
+     *
+     * @param periodStart the local start of a period, as returned by {@link #truncate(LocalDateTime)}
+     * @return the local start of the next period
+     */
+    public LocalDateTime next(LocalDateTime periodStart) {
+        return switch (this) {
+            case HOUR -> periodStart.plusHours(1);
+            case DAY -> periodStart.plusDays(1);
+            case WEEK -> periodStart.plusWeeks(1);
+            case MONTH -> periodStart.plusMonths(1);
+        };
+    }
+
+    /**
+     * Finds the coarsest bucket that starts at a timestamp and ends at or before a limit.
+     * <p>
+     * Covering {@code [from, to)} by repeatedly taking this bucket, and a raw range up to the next hour where
+     * there is none, takes few buckets: hours up to the next day, then days up to the next week or month, and so on.
+     *
+     * @param epochMilli the start of the bucket in UTC epoch milliseconds
+     * @param limit      the exclusive upper limit in UTC epoch milliseconds
+     * @return the resolution of the bucket, or {@code null} if the timestamp is not on an hour boundary or less
+     *         than an hour is left before the limit
+     */
+    public static Resolution coarsestBucketAt(long epochMilli, long limit) {
+        for (Resolution resolution : COARSEST_FIRST) {
+            long bucket = resolution.bucketOf(epochMilli);
+            if (resolution.startOf(bucket) == epochMilli && resolution.startOf(bucket + 1) <= limit) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,331 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Base of the thread-safe {@link PriceRepository} implementations that keep an immutable {@link PriceHistory} per
+ * symbol.
+ * <p>
+ * Writes are serialized by a lock and each write publishes a new immutable {@link State} through a volatile field.
+ * Reads never block: they work on the most recently published state, and {@link #readView()} hands out a state
+ * so that several reads, e.g. over all symbols, observe the same data. The symbol table is copied on each write,
+ * so bulk writes should use {@link #savePrices(String, long[], long[])}, and writes to several symbols
+ * {@link #savePrices(List)}, which copies it once for all of them.
+ * <p>
+ * Subclasses only define how a batch is appended to a series; summaries are kept as {@link FixedPointSummary}
+ * values and decoded only by the methods that return {@link CryptoPriceSummary}.
+ *
+ * @param <S> the type of the series of each symbol
+ */
+public abstract class SnapshotPriceRepository<S extends PriceHistory> implements PriceRepository {
+
+    private final Object writeLock = new Object();
+
+    /**
+     * The most recently published state. Only replaced while holding {@link #writeLock}.
+     */
+    private volatile State<S> state;
+
+    /**
+     * @param empty the series of a symbol without prices
+     */
+    SnapshotPriceRepository(S empty) {
+        state = new State<>(DataVersion.NONE, Map.of(), SymbolVersions.EMPTY, empty);
+    }
+
+    /**
+     * Returns a symbol's series with a batch of prices appended. Called while holding the write lock, on the series
+     * of the most recently published state.
+     *
+     * @param series     the series of the symbol, empty if it has no prices yet
+     * @param timestamps the UTC timestamps in epoch milliseconds
+     * @param prices     the fixed-point prices, parallel to {@code timestamps}
+     * @return the updated series
+     */
+    abstract S appendAll(S series, long[] timestamps, long[] prices);
+
+    /**
+     * Returns the most recently published state.
+     */
+    State<S> state() {
+        return state;
+    }
+
+    /**
+     * Replaces a symbol's series by one that holds the same prices, e.g. stored differently, without changing the
+     * {@link DataVersion}.
+     *
+     * @param symbol the symbol
+     * @param update maps the symbol's current series to its replacement
+     */
+    void replaceSeries(String symbol, UnaryOperator<S> update) {
+        synchronized (writeLock) {
+            State<S> current = state;
+            state = current.withReplaced(symbol, update.apply(current.series(symbol)));
+        }
+    }
+
+    @Override
+    public void savePrice(String symbol, LocalDateTime utcDateTime, BigDecimal price) {
+        savePrices(symbol, new long[]{PriceCodec.toEpochMilli(utcDateTime)}, new long[]{PriceCodec.encodePrice(price)});
+    }
+
+    @Override
+    public void savePrices(String symbol, long[] timestamps, long[] prices) {
+        save(List.of(new PriceBatch(symbol, timestamps, prices)));
+    }
+
+    @Override
+    public void savePrices(List<PriceBatch> batches) {
+        save(batches);
+    }
+
+    /**
+     * Appends the batches and publishes one state for all of them. Empty batches are skipped, and if all are empty
+     * nothing is published.
+     */
+    private void save(List<PriceBatch> batches) {
+        synchronized (writeLock) {
+            State<S> current = state;
+            Map<String, S> updated = new HashMap<>();
+            for (PriceBatch batch : batches) {
+                if (batch.timestamps().length > 0) {
+                    S series = updated.getOrDefault(batch.symbol(), current.series(batch.symbol()));
+                    updated.put(batch.symbol(), appendAll(series, batch.timestamps(), batch.prices()));
+                }
+            }
+            if (!updated.isEmpty()) {
+                state = current.with(updated, System.currentTimeMillis());
+            }
+        }
+    }
+
+    @Override
+    public PriceReader readView() {
+        return state;
+    }
+
+    @Override
+    public boolean isSupported(String symbol) {
+        return state.isSupported(symbol);
+    }
+
+    @Override
+    public Set<String> getSupportedCryptos() {
+        return state.getSupportedCryptos();
+    }
+
+    @Override
+    public List<CryptoPrice> getPrices(String symbol) {
+        return state.getPrices(symbol);
+    }
+
+    @Override
+    public CryptoPriceSummary getSummary(String symbol) {
+        return state.getSummary(symbol);
+    }
+
+    @Override
+    public Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date) {
+        return state.getDailySummary(symbol, date);
+    }
+
+    @Override
+    public DataVersion getDataVersion() {
+        return state.getDataVersion();
+    }
+
+    @Override
+    public DataVersion getDataVersion(String symbol) {
+        return state.getDataVersion(symbol);
+    }
+
+    @Override
+    public Set<String> getCryptosChangedAfter(long version) {
+        return state.getCryptosChangedAfter(version);
+    }
+
+    @Override
+    public Optional<CryptoPriceSummary> getRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+        return state.getRangeSummary(symbol, from, to);
+    }
+
+    @Override
+    public PriceBatch getFixedPointPrices(String symbol) {
+        return state.getFixedPointPrices(symbol);
+    }
+
+    @Override
+    public FixedPointSummary getFixedPointSummary(String symbol) {
+        return state.getFixedPointSummary(symbol);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointDailySummary(String symbol, LocalDate date) {
+        return state.getFixedPointDailySummary(symbol, date);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+        return state.getFixedPointRangeSummary(symbol, from, to);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointRollup(String symbol, Resolution resolution, long bucket) {
+        return state.getFixedPointRollup(symbol, resolution, bucket);
+    }
+
+    @Override
+    public FixedPointSummary[] getFixedPointRollups(String symbol, Resolution resolution, long fromBucket,
+                                                    long toBucket) {
+        return state.getFixedPointRollups(symbol, resolution, fromBucket, toBucket);
+    }
+
+    @Override
+    public Optional<FixedPointSummary> getFixedPointPeriodSummary(String symbol, LocalDateTime from,
+                                                                  LocalDateTime to) {
+        return state.getFixedPointPeriodSummary(symbol, from, to);
+    }
+
+    /**
+     * Immutable state of the repository after a write.
+     *
+     * @param version        the version of this state; its number is the number of writes that led to it
+     * @param series         the price series of each symbol; unmodifiable
+     * @param symbolVersions the version of each symbol's series
+     * @param empty          the series of a symbol without prices
+     * @param <S>            the type of the series of each symbol
+     */
+    record State<S extends PriceHistory>(DataVersion version, Map<String, S> series,
+                                         SymbolVersions symbolVersions, S empty) implements PriceReader {
+
+        S series(String symbol) {
+            return series.getOrDefault(symbol, empty);
+        }
+
+        /**
+         * Returns the state after one write that updated the series of some symbols.
+         */
+        State<S> with(Map<String, S> updated, long nowMillis) {
+            DataVersion next = version.next(nowMillis);
+            return new State<>(next, copyWith(updated), symbolVersions.with(updated.keySet(), next), empty);
+        }
+
+        /**
+         * Returns the state with a symbol's series replaced by one with the same prices, keeping the versions.
+         */
+        State<S> withReplaced(String symbol, S updated) {
+            return new State<>(version, copyWith(Map.of(symbol, updated)), symbolVersions, empty);
+        }
+
+        private Map<String, S> copyWith(Map<String, S> updated) {
+            Map<String, S> copy = new HashMap<>(series);
+            copy.putAll(updated);
+            return Collections.unmodifiableMap(copy);
+        }
+
+        @Override
+        public boolean isSupported(String symbol) {
+            return series(symbol).summary() != null;
+        }
+
+        @Override
+        public Set<String> getSupportedCryptos() {
+            return series.keySet();
+        }
+
+        @Override
+        public List<CryptoPrice> getPrices(String symbol) {
+            if (!isSupported(symbol)) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.get(symbol).asList();
+        }
+
+        @Override
+        public PriceBatch getFixedPointPrices(String symbol) {
+            if (!isSupported(symbol)) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.get(symbol).toBatch(symbol);
+        }
+
+        @Override
+        public CryptoPriceSummary getSummary(String symbol) {
+            return getFixedPointSummary(symbol).toCryptoPriceSummary();
+        }
+
+        @Override
+        public Optional<CryptoPriceSummary> getDailySummary(String symbol, LocalDate date) {
+            return getFixedPointDailySummary(symbol, date).map(FixedPointSummary::toCryptoPriceSummary);
+        }
+
+        @Override
+        public DataVersion getDataVersion() {
+            return version;
+        }
+
+        @Override
+        public DataVersion getDataVersion(String symbol) {
+            return symbolVersions.of(symbol);
+        }
+
+        @Override
+        public Set<String> getCryptosChangedAfter(long version) {
+            return symbolVersions.writtenAfter(version);
+        }
+
+        @Override
+        public Optional<CryptoPriceSummary> getRangeSummary(String symbol, LocalDateTime from, LocalDateTime to) {
+            return getFixedPointRangeSummary(symbol, from, to).map(FixedPointSummary::toCryptoPriceSummary);
+        }
+
+        @Override
+        public FixedPointSummary getFixedPointSummary(String symbol) {
+            if (!isSupported(symbol)) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.get(symbol).summary();
+        }
+
+        @Override
+        public Optional<FixedPointSummary> getFixedPointDailySummary(String symbol, LocalDate date) {
+            return getFixedPointRollup(symbol, Resolution.DAY, date.toEpochDay());
+        }
+
+        @Override
+        public Optional<FixedPointSummary> getFixedPointRollup(String symbol, Resolution resolution, long bucket) {
+            return series(symbol).rollup(resolution, bucket);
+        }
+
+        @Override
+        public FixedPointSummary[] getFixedPointRollups(String symbol, Resolution resolution, long fromBucket,
+                                                        long toBucket) {
+            return series(symbol).rollups(resolution, fromBucket, toBucket);
+        }
+
+        @Override
+        public Optional<FixedPointSummary> getFixedPointRangeSummary(String symbol, LocalDateTime from,
+                                                                     LocalDateTime to) {
+            if (!isSupported(symbol)) {
+                throw new CryptoNotFoundException(symbol);
+            }
+            return series.get(symbol).rangeSummary(
+                    from == null ? Long.MIN_VALUE : PriceCodec.toEpochMilli(from),
+                    to == null ? Long.MAX_VALUE : PriceCodec.toEpochMilli(to));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.epam.xmtesttask.repository;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Operations on timestamp-sorted prices shared by the price series.
+ * <p>
+ * Every series keeps its entries sorted by timestamp, with entries of equal timestamps in the order they were
+ * written. Sorting and merging batches here keeps that order the same for every kind of series, so all
+ * repositories list the same prices in the same order.
+ */
+final class SortedPrices {
+
+    /**
+     * Receives merged entries by position.
+     */
+    @FunctionalInterface
+    interface Target {
+
+        void put(int index, long epochMilli, long price);
+    }
+
+    private SortedPrices() {
+    }
+
+    /**
+     * Checks whether a batch is sorted and starts at or after the latest timestamp of a series.
+     *
+     * @param latestEpochMilli the latest timestamp of the series, or {@link Long#MIN_VALUE} if it is empty
+     * @param epochMillis      the timestamps of the batch
+     * @return whether the batch can be written after the existing entries
+     */
+    static boolean isAppendable(long latestEpochMilli, long[] epochMillis) {
+        long previous = latestEpochMilli;
+        for (long epochMilli : epochMillis) {
+            if (epochMilli < previous) {
+                return false;
+            }
+            previous = epochMilli;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the positions of a batch's entries in timestamp order, keeping entries with equal timestamps in their
+     * batch order.
+     *
+     * @param epochMillis the timestamps of the batch
+     * @return the batch positions, sorted
+     */
+    static int[] order(long[] epochMillis) {
+        Integer[] order = new Integer[epochMillis.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingLong(i -> epochMillis[i]));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Merges the sorted existing entries in {@code [from, to)} and a batch, written to the positions from
+     * {@code from} on. Existing entries precede batch entries with the same timestamp.
+     *
+     * @param timestamps  the timestamps of the existing entries by position
+     * @param prices      the fixed-point prices of the existing entries by position
+     * @param from        the first existing entry to merge
+     * @param to          the end of the existing entries
+     * @param epochMillis the timestamps of the batch
+     * @param newPrices   the fixed-point prices of the batch, parallel to {@code epochMillis}
+     * @param order       the batch positions in timestamp order, see {@link #order(long[])}
+     * @param target      receives the merged entries
+     */
+    static void merge(IntToLongFunction timestamps, IntToLongFunction prices, int from, int to, long[] epochMillis,
+                      long[] newPrices, int[] order, Target target) {
+        int i = from;
+        int j = 0;
+        for (int k = from; k < to + order.length; k++) {
+            if (j == order.length || (i < to && timestamps.applyAsLong(i) <= epochMillis[order[j]])) {
+                target.put(k, timestamps.applyAsLong(i), prices.applyAsLong(i));
+                i++;
+            } else {
+                target.put(k, epochMillis[order[j]], newPrices[order[j]]);
+                j++;
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the first of the sorted entries in {@code [0, size)} with a timestamp at or after
+     * the given one, or {@code size}.
+     *
+     * @param timestamps the timestamps of the entries by position
+     * @param size       the number of entries
+     * @param epochMilli the timestamp to look for
+     * @return the position
+     */
+    static int lowerBound(IntToLongFunction timestamps, int size, long epochMilli) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps.applyAsLong(mid) < epochMilli) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
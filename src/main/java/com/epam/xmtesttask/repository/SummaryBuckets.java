@@ -0,0 +1,125 @@
+package com.epam.xmtesttask.repository;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, sorted collection of {@link FixedPointSummary} buckets keyed by a {@code long} (e.g. an epoch day).
+ * <p>
+ * Designed for data that arrives mostly in key order: the bucket with the highest key is kept "open" in a field,
+ * and closed buckets live in arrays that are shared between successive instances. Adding to the open bucket or
+ * opening a new one costs O(1) amortized and never modifies data visible to earlier instances, so readers can
+ * keep using an older instance without locking. Adding to an older bucket copies the arrays.
+ * <p>
+ * {@link #add(long, FixedPointSummary)} must only be called on the most recent instance and by a single writer.
+ */
+final class SummaryBuckets {
+
+    static final SummaryBuckets EMPTY = new SummaryBuckets(new long[0], new FixedPointSummary[0], 0, 0, null);
+
+    private final long[] keys;
+    private final FixedPointSummary[] summaries;
+    private final int closedSize;
+    private final long openKey;
+    private final FixedPointSummary open;
+
+    private SummaryBuckets(long[] keys, FixedPointSummary[] summaries, int closedSize, long openKey,
+                           FixedPointSummary open) {
+        this.keys = keys;
+        this.summaries = summaries;
+        this.closedSize = closedSize;
+        this.openKey = openKey;
+        this.open = open;
+    }
+
+    /**
+     * Returns a new instance with the summary merged into the bucket of the given key.
+     *
+     * @param key     the bucket key
+     * @param summary the summary of entries aggregated after the existing ones
+     * @return the updated buckets
+     */
+    SummaryBuckets add(long key, FixedPointSummary summary) {
+        if (open == null) {
+            return new SummaryBuckets(keys, summaries, closedSize, key, summary);
+        }
+        if (key == openKey) {
+            return new SummaryBuckets(keys, summaries, closedSize, openKey, open.merge(summary));
+        }
+        if (key > openKey) {
+            long[] newKeys = keys;
+            FixedPointSummary[] newSummaries = summaries;
+            if (closedSize == keys.length) {
+                int capacity = Math.max(8, closedSize + (closedSize >> 1));
+                newKeys = Arrays.copyOf(keys, capacity);
+                newSummaries = Arrays.copyOf(summaries, capacity);
+            }
+            // Slots at and beyond closedSize are not visible to any existing instance.
+            newKeys[closedSize] = openKey;
+            newSummaries[closedSize] = open;
+            return new SummaryBuckets(newKeys, newSummaries, closedSize + 1, key, summary);
+        }
+        int index = Arrays.binarySearch(keys, 0, closedSize, key);
+        if (index >= 0) {
+            FixedPointSummary[] newSummaries = Arrays.copyOf(summaries, closedSize);
+            newSummaries[index] = newSummaries[index].merge(summary);
+            return new SummaryBuckets(Arrays.copyOf(keys, closedSize), newSummaries, closedSize, openKey, open);
+        }
+        int insertion = -index - 1;
+        long[] newKeys = new long[closedSize + 1];
+        FixedPointSummary[] newSummaries = new FixedPointSummary[closedSize + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertion);
+        System.arraycopy(summaries, 0, newSummaries, 0, insertion);
+        newKeys[insertion] = key;
+        newSummaries[insertion] = summary;
+        System.arraycopy(keys, insertion, newKeys, insertion + 1, closedSize - insertion);
+        System.arraycopy(summaries, insertion, newSummaries, insertion + 1, closedSize - insertion);
+        return new SummaryBuckets(newKeys, newSummaries, closedSize + 1, openKey, open);
+    }
+
+    /**
+     * Returns the summary of a bucket.
+     *
+     * @param key the bucket key
+     * @return the summary, or {@code null} if the bucket is empty
+     */
+    FixedPointSummary get(long key) {
+        if (open != null && key == openKey) {
+            return open;
+        }
+        int index = Arrays.binarySearch(keys, 0, closedSize, key);
+        return index >= 0 ? summaries[index] : null;
+    }
+
+    /**
+     * Copies the summaries of the buckets with keys in {@code [fromKey, toKey)} into an array indexed by
+     * {@code key - fromKey}, leaving the slots of empty buckets untouched.
+     * <p>
+     * Finds the first bucket by binary search and sweeps the following ones in key order, so copying k buckets
+     * takes O(log b + k) for b buckets instead of k lookups.
+     *
+     * @param fromKey the inclusive lowest key
+     * @param toKey   the exclusive highest key; {@code toKey - fromKey} must not exceed the length of the target
+     * @param target  the array to fill
+     * @return the number of non-empty buckets copied
+     */
+    int copyRange(long fromKey, long toKey, FixedPointSummary[] target) {
+        int index = Arrays.binarySearch(keys, 0, closedSize, fromKey);
+        int copied = 0;
+        for (int i = index >= 0 ? index : -index - 1; i < closedSize && keys[i] < toKey; i++) {
+            target[(int) (keys[i] - fromKey)] = summaries[i];
+            copied++;
+        }
+        if (open != null && openKey >= fromKey && openKey < toKey) {
+            target[(int) (openKey - fromKey)] = open;
+            copied++;
+        }
+        return copied;
+    }
+
+    /**
+     * Returns the number of non-empty buckets.
+     */
+    int size() {
+        return open == null ? 0 : closedSize + 1;
+    }
+}
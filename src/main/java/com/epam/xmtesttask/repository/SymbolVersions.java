@@ -0,0 +1,80 @@
+package com.epam.xmtesttask.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable {@link DataVersion} of each symbol of a repository state.
+ * <p>
+ * Besides the version of each symbol, the symbols are indexed by the version number of their last write, so the
+ * symbols written after a version are found in O(log n + k) for n symbols of which k changed, without comparing
+ * the version of every symbol. Like the symbol tables of the repositories, both maps are copied on each write.
+ */
+final class SymbolVersions {
+
+    static final SymbolVersions EMPTY = new SymbolVersions(Map.of(), Collections.emptyNavigableMap());
+
+    private final Map<String, DataVersion> versions;
+
+    /**
+     * The symbols last written at each version number; never contains empty sets.
+     */
+    private final NavigableMap<Long, Set<String>> written;
+
+    private SymbolVersions(Map<String, DataVersion> versions, NavigableMap<Long, Set<String>> written) {
+        this.versions = versions;
+        this.written = written;
+    }
+
+    /**
+     * Returns the version of a symbol, or {@link DataVersion#NONE} if it has not been written.
+     */
+    DataVersion of(String symbol) {
+        return versions.getOrDefault(symbol, DataVersion.NONE);
+    }
+
+    /**
+     * Returns the versions after some symbols have been written at a version newer than all others.
+     *
+     * @param symbols the written symbols
+     * @param version the version of the write
+     * @return the updated versions
+     */
+    SymbolVersions with(Collection<String> symbols, DataVersion version) {
+        Map<String, DataVersion> updatedVersions = new HashMap<>(versions);
+        NavigableMap<Long, Set<String>> updatedWritten = new TreeMap<>(written);
+        for (String symbol : symbols) {
+            DataVersion previous = updatedVersions.put(symbol, version);
+            if (previous != null) {
+                Set<String> remaining = new HashSet<>(updatedWritten.get(previous.version()));
+                remaining.remove(symbol);
+                if (remaining.isEmpty()) {
+                    updatedWritten.remove(previous.version());
+                } else {
+                    updatedWritten.put(previous.version(), Collections.unmodifiableSet(remaining));
+                }
+            }
+        }
+        updatedWritten.put(version.version(), Set.copyOf(symbols));
+        return new SymbolVersions(Collections.unmodifiableMap(updatedVersions),
+                Collections.unmodifiableNavigableMap(updatedWritten));
+    }
+
+    /**
+     * Returns the symbols whose version is newer than a version number.
+     *
+     * @param version the version number
+     * @return the symbols written after {@code version}
+     */
+    Set<String> writtenAfter(long version) {
+        Set<String> symbols = new HashSet<>();
+        written.tailMap(version, false).values().forEach(symbols::addAll);
+        return Collections.unmodifiableSet(symbols);
+    }
+}
@@ -0,0 +1,252 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe implementation of the {@link PriceRepository} interface that keeps older prices in memory-mapped
+ * segment files.
+ * <p>
+ * Each symbol is stored as a {@link TieredSeries}. Writes go to its hot tier, a {@link PriceSeries} in memory.
+ * Every {@code price.tiered.flush-interval}, the prices of a symbol that are more than
+ * {@code price.tiered.hot-retention} older than its latest price are written to an immutable, sorted
+ * {@link PriceSegment} in {@code price.tiered.directory} and removed from memory, once there are
+ * {@code price.tiered.flush-min-prices} of them. The default of 720 is a month of hourly prices, so with hourly
+ * data each symbol gets a segment about once a month, after its first month plus the hot retention; feeds with
+ * more frequent prices should raise it to keep segments large. Late prices are always written to the hot tier,
+ * even if their time is covered by segments.
+ * <p>
+ * Each segment carries the summary of its prices and of each of its UTC days. The summary of a whole history, as
+ * used by {@link #getSummary(String)} and thus by the stats and normalized range calculations, merges the segment
+ * summaries without reading their prices, and daily, weekly and monthly rollups merge day summaries. Only ranges
+ * and hourly rollups that cover parts of a day read prices from the segments, which pages in just those prices.
+ * {@link #getPrices(String)} reads and merges all prices.
+ * <p>
+ * Moving prices to a segment does not change the data, so it does not change the {@link DataVersion}, and reads of
+ * earlier states keep the prices they hold in memory.
+ * <p>
+ * The segments are not a durable store: segment files left in the directory by an earlier run are deleted on
+ * startup, and the prices are loaded from the CSV sources again. Use {@link WalPriceRepository} for durability.
+ * <p>
+ * Flushes are recorded by the {@code price.tiered.flush.duration} timer; the {@code price.tiered.segments},
+ * {@code price.tiered.hot.prices} and {@code price.tiered.cold.prices} gauges report the size of each tier.
+ * <p>
+ * Prices are rounded to {@value PriceCodec#PRICE_SCALE} decimal places.
+ * <p>
+ * Selected when {@code price.repository.type} is {@code tiered}.
+ */
+@Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "tiered")
+public class TieredPriceRepository extends SnapshotPriceRepository<TieredSeries> {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredPriceRepository.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.tiered.directory:data/segments}")
+    private Path directory;
+
+    @Value("${price.tiered.hot-retention:1d}")
+    private Duration hotRetention;
+
+    @Value("${price.tiered.flush-interval:1m}")
+    private Duration flushInterval;
+
+    @Value("${price.tiered.flush-min-prices:720}")
+    private int flushMinPrices;
+
+    /**
+     * Serializes flushes, which only take the write lock to publish their result.
+     */
+    private final Object flushLock = new Object();
+
+    private long nextSegment;
+    private Timer flushTimer;
+    private ScheduledExecutorService flusher;
+
+    public TieredPriceRepository() {
+        super(TieredSeries.EMPTY);
+    }
+
+    /**
+     * Deletes the segments of an earlier run and starts the periodic flush.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (var files = Files.list(directory)) {
+            for (Path file : files.filter(TieredPriceRepository::isSegmentFile).toList()) {
+                Files.delete(file);
+            }
+        }
+        flushTimer = Timer.builder("price.tiered.flush.duration")
+                .description("Duration of moving old prices of all symbols to segment files")
+                .register(meterRegistry);
+        Gauge.builder("price.tiered.segments", this, repository -> repository.sum(tiered -> tiered.cold().size()))
+                .description("Segment files of the tiered repository")
+                .register(meterRegistry);
+        Gauge.builder("price.tiered.hot.prices", this, repository -> repository.sum(tiered -> tiered.hot().size()))
+                .description("Prices held in memory by the tiered repository")
+                .register(meterRegistry);
+        Gauge.builder("price.tiered.cold.prices", this,
+                        repository -> repository.sum(tiered -> tiered.size() - tiered.hot().size()))
+                .description("Prices held in segment files by the tiered repository")
+                .register(meterRegistry);
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("price-tier-flusher").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::scheduledFlush, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic flush once the flush in progress, if any, is done.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    TieredSeries appendAll(TieredSeries series, long[] timestamps, long[] prices) {
+        return series.withHot(series.hot().appendAll(timestamps, prices));
+    }
+
+    /**
+     * Moves the prices that are older than the hot retention to new segments, for every symbol with at least
+     * {@code price.tiered.flush-min-prices} of them.
+     * <p>
+     * Segments are written without holding the write lock; prices saved meanwhile stay in the hot tier. If the
+     * segments of a symbol cannot be written, the files already written for it are deleted and its prices stay in
+     * the hot tier; the other symbols are still flushed.
+     *
+     * @return the number of moved prices
+     */
+    long flush() {
+        synchronized (flushLock) {
+            long start = System.nanoTime();
+            long moved = 0;
+            for (Map.Entry<String, TieredSeries> entry : state().series().entrySet()) {
+                PriceSeries hot = entry.getValue().hot();
+                if (hot.size() == 0) {
+                    continue;
+                }
+                int count = hot.lowerBound(hot.summary().lastEpochMilli() - hotRetention.toMillis());
+                if (count == 0 || count < flushMinPrices) {
+                    continue;
+                }
+                long[] timestamps = hot.timestamps(0, count);
+                long[] prices = hot.prices(0, count);
+                List<PriceSegment> segments;
+                try {
+                    segments = writeSegments(entry.getKey(), timestamps, prices);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Failed to move {} prices of {} to segments in {}, keeping them in memory", count,
+                            entry.getKey(), directory, e);
+                    continue;
+                }
+                replaceSeries(entry.getKey(),
+                        series -> series.withFlushed(segments, remove(series.hot(), timestamps, prices)));
+                moved += count;
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (moved > 0) {
+                log.debug("Moved {} prices to segments in {}", moved, directory);
+            }
+            return moved;
+        }
+    }
+
+    /**
+     * Writes prices of a symbol to new segments of at most {@link PriceSegment#MAX_PRICES} prices each. If a
+     * segment cannot be written, the files written for the symbol are deleted before the exception is thrown.
+     */
+    private List<PriceSegment> writeSegments(String symbol, long[] timestamps, long[] prices) throws IOException {
+        List<Path> files = new ArrayList<>();
+        List<PriceSegment> segments = new ArrayList<>();
+        try {
+            for (int from = 0; from < timestamps.length; from += PriceSegment.MAX_PRICES) {
+                int to = Math.min(timestamps.length, from + PriceSegment.MAX_PRICES);
+                Path file = directory.resolve(String.format("%019d%s", nextSegment++, SEGMENT_SUFFIX));
+                files.add(file);
+                segments.add(PriceSegment.write(file, symbol, Arrays.copyOfRange(timestamps, from, to),
+                        Arrays.copyOfRange(prices, from, to)));
+            }
+            return segments;
+        } catch (IOException | RuntimeException e) {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                    Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".tmp"));
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to move prices to segments in {}", directory, e);
+        }
+    }
+
+    /**
+     * Removes moved prices from a hot series. The moved prices are the first entries of an earlier state of the
+     * series, so they appear in the same order in the current one, possibly interleaved with prices saved since.
+     */
+    private static PriceSeries remove(PriceSeries hot, long[] movedTimestamps, long[] movedPrices) {
+        long[] timestamps = hot.timestamps(0, hot.size());
+        long[] prices = hot.prices(0, hot.size());
+        int kept = 0;
+        int moved = 0;
+        for (int i = 0; i < timestamps.length; i++) {
+            if (moved < movedTimestamps.length && timestamps[i] == movedTimestamps[moved]
+                    && prices[i] == movedPrices[moved]) {
+                moved++;
+            } else {
+                timestamps[kept] = timestamps[i];
+                prices[kept++] = prices[i];
+            }
+        }
+        return kept == 0 ? PriceSeries.EMPTY
+                : PriceSeries.EMPTY.appendAll(Arrays.copyOf(timestamps, kept), Arrays.copyOf(prices, kept));
+    }
+
+    private static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(SEGMENT_SUFFIX) || name.endsWith(SEGMENT_SUFFIX + ".tmp");
+    }
+
+    private long sum(ToLongFunction<TieredSeries> size) {
+        return state().series().values().stream().mapToLong(size).sum();
+    }
+}
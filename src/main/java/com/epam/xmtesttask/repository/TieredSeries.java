@@ -0,0 +1,166 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable price history of a single symbol in {@link TieredPriceRepository}: the cold {@link PriceSegment}s
+ * moved out of memory, in the order they were written, and the hot {@link PriceSeries} that takes new prices.
+ * <p>
+ * Segments and the hot series may overlap in time, as late prices are always written to the hot series, so reads
+ * merge all of them. Summaries merge the summaries of each part, and prices with equal timestamps in different
+ * parts are ordered as if the later part was written after the earlier one.
+ *
+ * @param cold the segments, unmodifiable
+ * @param hot  the prices held in memory
+ */
+record TieredSeries(List<PriceSegment> cold, PriceSeries hot) implements PriceHistory {
+
+    static final TieredSeries EMPTY = new TieredSeries(List.of(), PriceSeries.EMPTY);
+
+    TieredSeries withHot(PriceSeries updated) {
+        return new TieredSeries(cold, updated);
+    }
+
+    /**
+     * Returns the series after prices of the hot series were moved to new segments.
+     *
+     * @param segments  the new segments
+     * @param remaining the hot series without the moved prices
+     * @return the updated series
+     */
+    TieredSeries withFlushed(List<PriceSegment> segments, PriceSeries remaining) {
+        List<PriceSegment> all = new ArrayList<>(cold);
+        all.addAll(segments);
+        return new TieredSeries(List.copyOf(all), remaining);
+    }
+
+    long size() {
+        long size = hot.size();
+        for (PriceSegment segment : cold) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the summary of all prices, or {@code null} if there are none, merged from the summaries of the parts
+     * without reading any segment's prices.
+     */
+    @Override
+    public FixedPointSummary summary() {
+        FixedPointSummary result = null;
+        for (PriceSegment segment : cold) {
+            result = merge(result, segment.summary());
+        }
+        return merge(result, hot.summary());
+    }
+
+    /**
+     * Summarizes the prices with timestamps in {@code [fromEpochMilli, toEpochMilli)}.
+     *
+     * @param fromEpochMilli the inclusive lower bound in epoch milliseconds
+     * @param toEpochMilli   the exclusive upper bound in epoch milliseconds
+     * @return the summary of the range, or empty if it contains no prices
+     */
+    @Override
+    public Optional<FixedPointSummary> rangeSummary(long fromEpochMilli, long toEpochMilli) {
+        FixedPointSummary result = null;
+        for (PriceSegment segment : cold) {
+            result = merge(result, segment.rangeSummary(fromEpochMilli, toEpochMilli).orElse(null));
+        }
+        return Optional.ofNullable(merge(result, hot.rangeSummary(fromEpochMilli, toEpochMilli).orElse(null)));
+    }
+
+    /**
+     * Returns the rollup of a bucket, merged from the day tables of the segments and the rollups of the hot series.
+     *
+     * @param resolution the resolution of the bucket
+     * @param bucket     the bucket number (see {@link Resolution#bucketOf(long)})
+     * @return the summary of the bucket, or empty if it contains no prices
+     */
+    @Override
+    public Optional<FixedPointSummary> rollup(Resolution resolution, long bucket) {
+        FixedPointSummary result = null;
+        for (PriceSegment segment : cold) {
+            result = merge(result, segment.rangeSummary(resolution.startOf(bucket), resolution.startOf(bucket + 1))
+                    .orElse(null));
+        }
+        return Optional.ofNullable(merge(result, hot.rollup(resolution, bucket).orElse(null)));
+    }
+
+    /**
+     * Returns the prices of all parts merged by timestamp.
+     * <p>
+     * Unlike the other reads, this reads every price of every segment.
+     *
+     * @return a read-only list of the prices in timestamp order
+     */
+    @Override
+    public List<CryptoPrice> asList() {
+        if (cold.isEmpty()) {
+            return hot.asList();
+        }
+        PriceBatch merged = toBatch(cold.getFirst().symbol());
+        return new PriceListView(merged.timestamps().length,
+                index -> PriceListView.price(merged.timestamps()[index], merged.prices()[index]));
+    }
+
+    /**
+     * Merges the columns of all parts by timestamp; like {@link #asList()}, this reads every price of every segment.
+     */
+    @Override
+    public PriceBatch toBatch(String symbol) {
+        int size = Math.toIntExact(size());
+        long[] timestamps = new long[size];
+        long[] prices = new long[size];
+        int merged = 0;
+        for (PriceSegment segment : cold) {
+            long[] segmentTimestamps = new long[segment.size()];
+            long[] segmentPrices = new long[segment.size()];
+            for (int i = 0; i < segment.size(); i++) {
+                segmentTimestamps[i] = segment.timestamp(i);
+                segmentPrices[i] = segment.price(i);
+            }
+            merged = mergeInto(timestamps, prices, merged, segmentTimestamps, segmentPrices);
+        }
+        mergeInto(timestamps, prices, merged, hot.timestamps(0, hot.size()), hot.prices(0, hot.size()));
+        return new PriceBatch(symbol, timestamps, prices);
+    }
+
+    /**
+     * Merges sorted columns into the first {@code size} entries of sorted target columns, after entries with equal
+     * timestamps, and returns the new size.
+     */
+    private static int mergeInto(long[] timestamps, long[] prices, int size, long[] addedTimestamps,
+                                 long[] addedPrices) {
+        int added = addedTimestamps.length;
+        if (size == 0 || added == 0 || addedTimestamps[0] >= timestamps[size - 1]) {
+            System.arraycopy(addedTimestamps, 0, timestamps, size, added);
+            System.arraycopy(addedPrices, 0, prices, size, added);
+            return size + added;
+        }
+        int i = size - 1;
+        int j = added - 1;
+        for (int k = size + added - 1; j >= 0; k--) {
+            if (i >= 0 && timestamps[i] > addedTimestamps[j]) {
+                timestamps[k] = timestamps[i];
+                prices[k] = prices[i--];
+            } else {
+                timestamps[k] = addedTimestamps[j];
+                prices[k] = addedPrices[j--];
+            }
+        }
+        return size + added;
+    }
+
+    private static FixedPointSummary merge(FixedPointSummary summary, FixedPointSummary later) {
+        if (later == null) {
+            return summary;
+        }
+        return summary == null ? later : summary.merge(later);
+    }
+}
@@ -0,0 +1,189 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Durable implementation of the {@link PriceRepository} interface that keeps every write in a {@link PriceLog}.
+ * <p>
+ * Reads are served from memory exactly like {@link ColumnarPriceRepository}. Writes are appended to the log in
+ * {@code price.wal.directory} and applied in memory only once they are durable, so a write that returned is never
+ * lost and a read never sees a write that could be lost. Concurrent writes share a single {@code fsync} (group
+ * commit); with {@code price.wal.fsync=false} writes survive a crash of the application but not of the machine.
+ * <p>
+ * On startup the newest checkpoint of the log is restored and the segments written since are replayed, which
+ * restores the prices and all summaries. A new segment is started whenever the active one exceeds
+ * {@code price.wal.segment-size}. Every {@code price.wal.checkpoint-interval}, once there are
+ * {@code price.wal.checkpoint-min-segments} closed segments, all prices are written to a checkpoint and the segments
+ * it covers are deleted, so the recovery replays at most about that many segments on top of one snapshot.
+ * <p>
+ * An empty repository can be seeded with {@link #seed(Supplier)}, e.g. from CSV files on the first start: the seed is
+ * written as one checkpoint, so a crash during the seed leaves the repository empty instead of partially seeded.
+ * <p>
+ * Selected when {@code price.repository.type} is {@code wal}.
+ */
+@Repository
+@ConditionalOnProperty(name = "price.repository.type", havingValue = "wal")
+public class WalPriceRepository extends ColumnarPriceRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(WalPriceRepository.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.wal.directory:data/wal}")
+    private Path directory;
+
+    @Value("${price.wal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${price.wal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${price.wal.checkpoint-interval:1m}")
+    private Duration checkpointInterval;
+
+    @Value("${price.wal.checkpoint-min-segments:4}")
+    private int checkpointMinSegments;
+
+    private PriceLog priceLog;
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * The thread running {@link #seed(Supplier)}, whose writes bypass the log; {@code null} when not seeding.
+     */
+    private volatile Thread seedingThread;
+
+    /**
+     * Recovers the log and starts the periodic checkpoints.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        long start = System.nanoTime();
+        priceLog = PriceLog.open(directory, segmentSize.toBytes(), fsync, new PriceLog.Sink() {
+            @Override
+            public void save(String symbol, long[] timestamps, long[] prices) {
+                WalPriceRepository.super.savePrices(symbol, timestamps, prices);
+            }
+
+            @Override
+            public void saveAll(List<PriceBatch> entries) {
+                WalPriceRepository.super.savePrices(entries);
+            }
+        }, meterRegistry);
+        PriceLog.Recovered recovered = priceLog.recovered();
+        log.info("Recovered {} prices from the checkpoint up to segment {} and {} prices from {} records in {} segments "
+                        + "of write-ahead log {} in {} ms", recovered.checkpointPrices(), recovered.checkpoint(),
+                recovered.prices(), recovered.records(), recovered.segments(), directory,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        checkpointer = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("price-wal-checkpointer").daemon().factory());
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, checkpointInterval.toMillis(),
+                checkpointInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the checkpoints and closes the log once the commit in progress, if any, is done.
+     */
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        checkpointer.shutdown();
+        checkpointer.awaitTermination(10, TimeUnit.SECONDS);
+        priceLog.close();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns once the prices are durable and visible to reads.
+     *
+     * @throws UncheckedIOException  if the log cannot be written; the repository then rejects all further writes
+     * @throws IllegalStateException if the prices are durable but could not be applied in memory; they are applied
+     *                               on the next start, and later writes are still accepted
+     */
+    @Override
+    public void savePrices(String symbol, long[] timestamps, long[] prices) {
+        if (Thread.currentThread() == seedingThread) {
+            super.savePrices(symbol, timestamps, prices);
+        } else {
+            priceLog.append(List.of(new PriceBatch(symbol, timestamps, prices)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The batches are committed together and returned once they are durable and visible to reads.
+     *
+     * @throws UncheckedIOException  if the log cannot be written; the repository then rejects all further writes
+     * @throws IllegalStateException if the prices are durable but could not be applied in memory; they are applied
+     *                               on the next start, and later writes are still accepted
+     */
+    @Override
+    public void savePrices(List<PriceBatch> batches) {
+        if (Thread.currentThread() == seedingThread) {
+            super.savePrices(batches);
+        } else {
+            priceLog.append(batches);
+        }
+    }
+
+    /**
+     * Seeds the empty repository with the prices that {@code load} saves, durably and all at once.
+     * <p>
+     * The writes of {@code load} are applied in memory without being logged, while writes of other threads wait.
+     * Once {@code load} returns, all prices are written to a checkpoint of the log, which becomes visible only once
+     * it is complete; a crash before leaves the repository empty on the next start, so that it is seeded again.
+     *
+     * @param load saves the prices, on the calling thread
+     * @param <T>  the type of the result of {@code load}
+     * @return the result of {@code load}
+     * @throws IOException           if the checkpoint cannot be written
+     * @throws IllegalStateException if the repository already holds prices
+     */
+    public <T> T seed(Supplier<T> load) throws IOException {
+        AtomicReference<T> result = new AtomicReference<>();
+        priceLog.seed(() -> {
+            seedingThread = Thread.currentThread();
+            try {
+                result.set(load.get());
+            } finally {
+                seedingThread = null;
+            }
+        }, this::readView);
+        return result.get();
+    }
+
+    /**
+     * Writes a checkpoint of the write-ahead log if enough segments have been closed since the last one.
+     *
+     * @return the number of segments deleted
+     */
+    int checkpoint() {
+        try {
+            return priceLog.checkpoint(checkpointMinSegments, this::readView);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to checkpoint write-ahead log {}", directory, e);
+            return 0;
+        }
+    }
+}
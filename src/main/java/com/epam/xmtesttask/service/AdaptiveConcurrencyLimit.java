@@ -0,0 +1,101 @@
+package com.epam.xmtesttask.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted by additive increase, multiplicative decrease (AIMD) of the observed latency.
+ * <p>
+ * A request is admitted while fewer than {@link #limit()} requests are in flight. When a request completes
+ * within the target latency and at least half of the limit was in use, the limit grows by one; the utilization
+ * check keeps the limit from drifting upwards while the service is idle. When a request takes longer than the
+ * target, the limit is multiplied by the backoff ratio. Only requests started after the previous decrease can
+ * decrease it again, so one latency spike observed by many concurrent requests backs off once instead of
+ * collapsing the limit to its minimum.
+ * <p>
+ * Admission is lock-free; limit updates are serialized by the instance lock.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    /**
+     * @param initialLimit       the limit to start with
+     * @param minLimit           the lowest limit the backoff reaches
+     * @param maxLimit           the highest limit the increase reaches
+     * @param targetLatencyNanos the latency above which the limit is decreased
+     * @param backoffRatio       the factor applied to the limit on a decrease, between 0 and 1
+     */
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyNanos, double backoffRatio) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max, got min " + minLimit
+                    + ", initial " + initialLimit + ", max " + maxLimit);
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1, got " + backoffRatio);
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Admits a request if the limit allows it. An admitted request must be followed by exactly one call of
+     * {@link #release(long, long)}.
+     *
+     * @return {@code true} if the request is admitted
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Completes an admitted request and adjusts the limit by its latency.
+     *
+     * @param startNanos the {@link System#nanoTime()} when the request was admitted
+     * @param endNanos   the {@link System#nanoTime()} when it completed
+     */
+    void release(long startNanos, long endNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (endNanos - startNanos > targetLatencyNanos) {
+                if (lastDecreaseNanos == Long.MIN_VALUE || startNanos - lastDecreaseNanos >= 0) {
+                    limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                    lastDecreaseNanos = endNanos;
+                }
+            } else if (concurrent * 2 >= limit && limit < maxLimit) {
+                limit++;
+            }
+        }
+    }
+
+    /**
+     * Returns the current limit.
+     */
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of admitted requests that have not been released.
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,123 @@
+package com.epam.xmtesttask.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Servlet filter that sheds load when the API is saturated.
+ * <p>
+ * Requests to the {@code /cryptos} API are admitted while fewer than the current limit of an
+ * {@link AdaptiveConcurrencyLimit} are in flight. The limit starts at {@code concurrency-limit.initial-limit},
+ * grows while requests complete within {@code concurrency-limit.target-latency} and is multiplied by
+ * {@code concurrency-limit.backoff-ratio} when they do not, staying between {@code concurrency-limit.min-limit}
+ * and {@code concurrency-limit.max-limit}. Requests above the limit are rejected immediately with HTTP 503
+ * (Service Unavailable) and a {@code Retry-After} header instead of queueing behind the saturated ones, which
+ * keeps the latency of admitted requests bounded.
+ * <p>
+ * Unlike {@link RateLimitFilter}, which limits each client, this filter protects the service from the combined
+ * load of all clients. It can be disabled with {@code concurrency-limit.enabled=false}.
+ * <p>
+ * Decisions are counted in {@code concurrency.limit.requests}, tagged with the outcome {@code accepted} or
+ * {@code rejected}; the current limit and the number of requests in flight are published as the
+ * {@code concurrency.limit} and {@code concurrency.limit.in.flight} gauges.
+ */
+@Component
+public class ConcurrencyLimitFilter implements Filter {
+
+    private static final String API_PREFIX = "/cryptos";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${concurrency-limit.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${concurrency-limit.min-limit:4}")
+    private int minLimit;
+
+    @Value("${concurrency-limit.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${concurrency-limit.target-latency:50ms}")
+    private Duration targetLatency;
+
+    @Value("${concurrency-limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${concurrency-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private AdaptiveConcurrencyLimit limit;
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+
+    /**
+     * Creates the limit and registers its meters.
+     */
+    @PostConstruct
+    public void init() {
+        limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, targetLatency.toNanos(), backoffRatio);
+        acceptedCounter = requestCounter("accepted");
+        rejectedCounter = requestCounter("rejected");
+        Gauge.builder("concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("concurrency.limit.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Requests admitted by the concurrency limit and in progress")
+                .register(meterRegistry);
+    }
+
+    private Counter requestCounter(String outcome) {
+        return Counter.builder("concurrency.limit.requests")
+                .description("Requests checked by the concurrency limit")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!enabled || !isApiRequest(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            rejectedCounter.increment();
+            HttpServletResponse httpResp = (HttpServletResponse) response;
+            httpResp.setStatus(503);
+            httpResp.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            httpResp.getWriter().write("Service Unavailable");
+            return;
+        }
+        acceptedCounter.increment();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limit.release(start, System.nanoTime());
+        }
+    }
+
+    private static boolean isApiRequest(ServletRequest request) {
+        return request instanceof HttpServletRequest httpReq
+                && httpReq.getRequestURI().startsWith(API_PREFIX);
+    }
+}
@@ -0,0 +1,127 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.repository.PriceCodec;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Normalized range ((max-min)/min) of fixed-point prices, computed with {@code long} arithmetic.
+ * <p>
+ * The normalized range is defined by {@link #of(BigDecimal, BigDecimal)}: the exact difference divided by the
+ * minimum with {@link #PRECISION}. {@link #of(long, long)} returns the identical {@link BigDecimal}, including
+ * its scale, for prices decoded by {@link PriceCodec#decodePrice(long)}: it rounds the quotient to four
+ * significant digits half up and, like {@link BigDecimal#divide(BigDecimal, MathContext)}, strips trailing zeros
+ * of an exact quotient down to the preferred scale, i.e. the scale of the difference minus the scale of the
+ * minimum. Only the result is created as a {@link BigDecimal}. Inputs whose intermediate values do not fit into
+ * a {@code long}, and non-positive minimums, are computed by the decimal definition.
+ */
+final class FixedPointNormalizedRange {
+
+    /**
+     * Precision of normalized ranges.
+     */
+    static final MathContext PRECISION = new MathContext(4, RoundingMode.HALF_UP);
+
+    private static final int DIGITS = PRECISION.getPrecision();
+    private static final long MIN_QUOTIENT = 1_000;
+    private static final long MAX_QUOTIENT = 10_000;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private FixedPointNormalizedRange() {
+    }
+
+    /**
+     * Calculates the normalized range of decimal prices.
+     *
+     * @param max the maximum price
+     * @param min the minimum price
+     * @return {@code (max - min) / min} rounded to {@link #PRECISION}
+     * @throws ArithmeticException if {@code min} is zero
+     */
+    static BigDecimal of(BigDecimal max, BigDecimal min) {
+        return max.subtract(min).divide(min, PRECISION);
+    }
+
+    /**
+     * Calculates the normalized range of fixed-point prices.
+     *
+     * @param max the maximum price in units of 10<sup>-{@value PriceCodec#PRICE_SCALE}</sup>
+     * @param min the minimum price in units of 10<sup>-{@value PriceCodec#PRICE_SCALE}</sup>
+     * @return the value of {@link #of(BigDecimal, BigDecimal)} for the decoded prices
+     * @throws ArithmeticException if {@code min} is zero
+     */
+    static BigDecimal of(long max, long min) {
+        if (min <= 0 || max < min) {
+            return of(PriceCodec.decodePrice(max), PriceCodec.decodePrice(min));
+        }
+        int minScale = PriceCodec.PRICE_SCALE - trailingZeros(min);
+        int rangeScale = Math.max(PriceCodec.PRICE_SCALE - trailingZeros(max), minScale);
+        int preferredScale = rangeScale - minScale;
+        long range = max - min;
+        if (range == 0) {
+            return BigDecimal.valueOf(0, preferredScale);
+        }
+
+        // Find the scale at which the quotient has DIGITS digits: range / min * 10^scale in [1000, 10000).
+        // The digit counts leave it in (100, 10000), so at most one step is needed.
+        int scale = DIGITS - 1 - (digits(range) - digits(min));
+        long dividend;
+        long divisor;
+        long quotient;
+        while (true) {
+            if (Math.abs(scale) >= POWERS_OF_TEN.length) {
+                return of(PriceCodec.decodePrice(max), PriceCodec.decodePrice(min));
+            }
+            long power = POWERS_OF_TEN[Math.abs(scale)];
+            if ((scale >= 0 ? range : min) > Long.MAX_VALUE / power) {
+                return of(PriceCodec.decodePrice(max), PriceCodec.decodePrice(min));
+            }
+            dividend = scale >= 0 ? range * power : range;
+            divisor = scale >= 0 ? min : min * power;
+            quotient = dividend / divisor;
+            if (quotient >= MIN_QUOTIENT) {
+                break;
+            }
+            scale++;
+        }
+        long remainder = dividend - quotient * divisor;
+        if (remainder >= divisor - remainder) {
+            quotient++;
+            if (quotient == MAX_QUOTIENT) {
+                quotient = MIN_QUOTIENT;
+                scale--;
+            }
+        }
+        if (remainder == 0) {
+            while (scale > preferredScale && quotient % 10 == 0) {
+                quotient /= 10;
+                scale--;
+            }
+        }
+        return BigDecimal.valueOf(quotient, scale);
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int trailingZeros(long value) {
+        int zeros = 0;
+        while (value % 10 == 0) {
+            value /= 10;
+            zeros++;
+        }
+        return zeros;
+    }
+}
@@ -2,12 +2,19 @@ package com.epam.xmtesttask.service;
 
 import com.epam.xmtesttask.domain.ErrorResponse;
 import com.epam.xmtesttask.domain.exception.CryptoDataNotFoundException;
+import com.epam.xmtesttask.domain.exception.IngestionOverloadedException;
+import com.epam.xmtesttask.domain.exception.InvalidPriceTickException;
+import com.epam.xmtesttask.domain.exception.InvalidPageException;
+import com.epam.xmtesttask.domain.exception.InvalidTimeRangeException;
 import com.epam.xmtesttask.domain.exception.RateLimitExceededException;
 import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 /**
  * Global exception handler for REST controllers.
@@ -22,7 +29,13 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
  * <ul>
  *     <li>{@link CryptoNotFoundException} - 404 Not Found</li>
  *     <li>{@link CryptoDataNotFoundException} - 404 Not Found</li>
+ *     <li>{@link InvalidPriceTickException} - 400 Bad Request</li>
+ *     <li>{@link InvalidTimeRangeException} - 400 Bad Request</li>
+ *     <li>{@link InvalidPageException} - 400 Bad Request</li>
+ *     <li>{@link HttpMessageNotReadableException} - 400 Bad Request</li>
+ *     <li>{@link MethodArgumentTypeMismatchException} - 400 Bad Request</li>
  *     <li>{@link RateLimitExceededException} - 429 Too Many Requests</li>
+ *     <li>{@link IngestionOverloadedException} - 503 Service Unavailable, with a Retry-After header</li>
  *     <li>{@link Exception} (all other exceptions) - 500 Internal Server Error</li>
  * </ul>
  */
@@ -47,6 +60,43 @@ public class GlobalExceptionHandler {
                 .body(new ErrorResponse("TOO_MANY_REQUESTS", ex.getMessage()));
     }
 
+    @ExceptionHandler(InvalidPriceTickException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPriceTick(InvalidPriceTickException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("BAD_REQUEST", ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidTimeRangeException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidTimeRange(InvalidTimeRangeException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("BAD_REQUEST", ex.getMessage()));
+    }
+
+    @ExceptionHandler(InvalidPageException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidPage(InvalidPageException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("BAD_REQUEST", ex.getMessage()));
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleNotReadable(HttpMessageNotReadableException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("BAD_REQUEST", "Malformed request body"));
+    }
+
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleArgumentTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse("BAD_REQUEST", "Invalid value for parameter " + ex.getName() + ": " + ex.getValue()));
+    }
+
+    @ExceptionHandler(IngestionOverloadedException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionOverloaded(IngestionOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleOther(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
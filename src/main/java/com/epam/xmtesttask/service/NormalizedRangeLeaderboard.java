@@ -0,0 +1,222 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
+import com.epam.xmtesttask.repository.DataVersion;
+import com.epam.xmtesttask.repository.FixedPointSummary;
+import com.epam.xmtesttask.repository.PriceReader;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Normalized ranges of all cryptos over their whole price history, kept in descending order and updated
+ * incrementally.
+ * <p>
+ * The leaderboard remembers the {@link DataVersion} each crypto's range was computed from. Before a page is read,
+ * it is brought up to date with a read view of the repository: if the version of all data is unchanged nothing is
+ * done, otherwise only the cryptos whose version changed are evaluated again and moved to their new position.
+ * They are asked from the read view with {@link PriceReader#getCryptosChangedAfter(long)} for the version of the
+ * last update, so neither the versions nor the summaries and ranges of the other cryptos are touched.
+ * <p>
+ * Entries are kept in a treap ordered by {@link #ORDER} whose nodes count the entries of their subtree, so a
+ * changed crypto is moved in O(log n) for n cryptos, and a page of k entries at any offset is read in
+ * O(log n + k) without sorting or copying the whole list.
+ * <p>
+ * Thread-safe: an up-to-date leaderboard is read under a shared lock, and updates hold the exclusive lock.
+ */
+final class NormalizedRangeLeaderboard {
+
+    /**
+     * Order of the leaderboard: highest normalized range first, equal ranges by symbol.
+     */
+    static final Comparator<CryptoNormalizedRange> ORDER = Comparator
+            .comparing(CryptoNormalizedRange::normalizedRange, Comparator.reverseOrder())
+            .thenComparing(CryptoNormalizedRange::symbol);
+
+    private final SymbolFanOut fanOut;
+    private final BiFunction<String, FixedPointSummary, CryptoNormalizedRange> evaluator;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SplittableRandom priorities = new SplittableRandom(0);
+
+    /**
+     * The node of each crypto in the treap; guarded by the lock.
+     */
+    private final Map<String, Node> nodes = new HashMap<>();
+    private Node root;
+    private long version;
+
+    /**
+     * Creates an empty leaderboard.
+     *
+     * @param fanOut    evaluates the changed cryptos of an update
+     * @param evaluator calculates the normalized range of a crypto's summary; it must be safe to call from
+     *                  several threads
+     */
+    NormalizedRangeLeaderboard(SymbolFanOut fanOut,
+                               BiFunction<String, FixedPointSummary, CryptoNormalizedRange> evaluator) {
+        this.fanOut = fanOut;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Returns a page of the leaderboard, updated to at least the data of a read view.
+     *
+     * @param prices the read view to update from
+     * @param offset the number of leading entries to skip; not negative
+     * @param limit  the maximum number of entries to return; positive
+     * @return the entries from {@code offset}, in {@link #ORDER}
+     */
+    List<CryptoNormalizedRange> page(PriceReader prices, int offset, int limit) {
+        long target = prices.getDataVersion().version();
+        lock.readLock().lock();
+        try {
+            if (version >= target) {
+                return collect(offset, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (version < target) {
+                update(prices, target);
+            }
+            return collect(offset, limit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates the cryptos whose data changed since their last evaluation and moves them to their new position.
+     */
+    private void update(PriceReader prices, long target) {
+        List<String> changed = new ArrayList<>();
+        Map<String, Long> versions = new HashMap<>();
+        for (String symbol : prices.getCryptosChangedAfter(version)) {
+            long symbolVersion = prices.getDataVersion(symbol).version();
+            Node node = nodes.get(symbol);
+            if (node == null || node.version < symbolVersion) {
+                changed.add(symbol);
+                versions.put(symbol, symbolVersion);
+            }
+        }
+        List<CryptoNormalizedRange> ranges = fanOut.map(changed,
+                symbol -> evaluator.apply(symbol, prices.getFixedPointSummary(symbol)));
+        for (CryptoNormalizedRange range : ranges) {
+            Node previous = nodes.get(range.symbol());
+            if (previous != null) {
+                root = remove(root, previous.value);
+            }
+            Node node = new Node(range, versions.get(range.symbol()), priorities.nextInt());
+            nodes.put(range.symbol(), node);
+            Node[] parts = split(root, range);
+            root = merge(merge(parts[0], node), parts[1]);
+        }
+        version = target;
+    }
+
+    private List<CryptoNormalizedRange> collect(int offset, int limit) {
+        List<CryptoNormalizedRange> page = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+        collect(root, offset, limit, page);
+        return page;
+    }
+
+    /**
+     * Appends the entries of a subtree from an offset within it, in order, until the page is full.
+     */
+    private static void collect(Node node, int offset, int limit, List<CryptoNormalizedRange> page) {
+        if (node == null || page.size() == limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, limit, page);
+        }
+        if (offset <= leftSize && page.size() < limit) {
+            page.add(node.value);
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), limit, page);
+    }
+
+    /**
+     * Splits a subtree into the entries before a key and the entries at or after it.
+     */
+    private static Node[] split(Node node, CryptoNormalizedRange key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (ORDER.compare(node.value, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            parts[0] = node.resize();
+            return parts;
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        parts[1] = node.resize();
+        return parts;
+    }
+
+    /**
+     * Joins two subtrees whose entries are all ordered before the entries of the second one.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            return first.resize();
+        }
+        second.left = merge(first, second.left);
+        return second.resize();
+    }
+
+    private static Node remove(Node node, CryptoNormalizedRange value) {
+        int comparison = ORDER.compare(value, node.value);
+        if (comparison == 0) {
+            return merge(node.left, node.right);
+        }
+        if (comparison < 0) {
+            node.left = remove(node.left, value);
+        } else {
+            node.right = remove(node.right, value);
+        }
+        return node.resize();
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        final CryptoNormalizedRange value;
+        final long version;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(CryptoNormalizedRange value, long version, int priority) {
+            this.value = value;
+            this.version = version;
+            this.priority = priority;
+        }
+
+        Node resize() {
+            size = 1 + size(left) + size(right);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import com.epam.xmtesttask.repository.FixedPointSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Meters of one {@link PriceService} operation, registered once and tagged with the operation name.
+ * <ul>
+ *     <li>{@code price.service.duration} - timer with a percentile histogram</li>
+ *     <li>{@code price.service.symbols.evaluated} - number of per-symbol summaries evaluated</li>
+ *     <li>{@code price.service.rows.aggregated} - price rows covered by each evaluated summary</li>
+ * </ul>
+ */
+final class OperationMetrics {
+
+    private final Timer timer;
+    private final Counter symbolsEvaluated;
+    private final DistributionSummary rowsAggregated;
+
+    private OperationMetrics(Timer timer, Counter symbolsEvaluated, DistributionSummary rowsAggregated) {
+        this.timer = timer;
+        this.symbolsEvaluated = symbolsEvaluated;
+        this.rowsAggregated = rowsAggregated;
+    }
+
+    static OperationMetrics register(MeterRegistry registry, String operation) {
+        return new OperationMetrics(
+                Timer.builder("price.service.duration")
+                        .description("Duration of price service operations")
+                        .tag("operation", operation)
+                        .publishPercentileHistogram()
+                        // Operations read precomputed summaries and typically take microseconds.
+                        .minimumExpectedValue(Duration.ofNanos(1_000))
+                        .maximumExpectedValue(Duration.ofSeconds(1))
+                        .register(registry),
+                Counter.builder("price.service.symbols.evaluated")
+                        .description("Per-symbol price summaries evaluated")
+                        .tag("operation", operation)
+                        .register(registry),
+                DistributionSummary.builder("price.service.rows.aggregated")
+                        .description("Price rows covered by an evaluated summary")
+                        .tag("operation", operation)
+                        .register(registry));
+    }
+
+    <T> T record(Supplier<T> operation) {
+        return timer.record(operation);
+    }
+
+    /**
+     * Records the evaluation of a summary and returns it.
+     */
+    CryptoPriceSummary evaluated(CryptoPriceSummary summary) {
+        symbolsEvaluated.increment();
+        rowsAggregated.record(summary.count());
+        return summary;
+    }
+
+    FixedPointSummary evaluated(FixedPointSummary summary) {
+        symbolsEvaluated.increment();
+        rowsAggregated.record(summary.count());
+        return summary;
+    }
+}
@@ -0,0 +1,265 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPriceTick;
+import com.epam.xmtesttask.domain.exception.IngestionOverloadedException;
+import com.epam.xmtesttask.domain.exception.InvalidPriceTickException;
+import com.epam.xmtesttask.repository.PriceBatch;
+import com.epam.xmtesttask.repository.PriceCodec;
+import com.epam.xmtesttask.repository.PriceColumns;
+import com.epam.xmtesttask.repository.PriceRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Service for ingesting live price ticks.
+ * <p>
+ * Submitted ticks are validated and encoded on the calling thread and put on a bounded queue, so requests
+ * return without waiting for the repository. A single writer thread drains the queue in batches of up to
+ * {@code price.ingest.batch-size} ticks, groups them by symbol and saves all groups with one
+ * {@link PriceRepository#savePrices(List)} call, which keeps the cost per tick low and lets the repository publish
+ * one state for all symbols rather than one per symbol.
+ * <p>
+ * The queue holds at most {@code price.ingest.queue-capacity} ticks. A submission that does not fit is rejected
+ * as a whole with an {@link IngestionOverloadedException}, which applies backpressure to the clients
+ * instead of buffering without limit. Prices are rounded to 4 significant digits, like the CSV data.
+ * <p>
+ * Ticks are only accepted for symbols the repository already supports, unless
+ * {@code price.ingest.allow-new-symbols} is set. Every symbol is part of the results over all symbols and holds
+ * memory for good, so clients must not be able to add them at will.
+ * <p>
+ * Accepting ticks does not guarantee that they are saved: if the repository fails to save the ticks drained
+ * together, they are logged and dropped. Dropped ticks are counted in {@code price.ingest.dropped}.
+ */
+@Service
+public class PriceIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceIngestionService.class);
+
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("[A-Za-z0-9]{1,16}");
+    private static final MathContext PRICE_PRECISION = new MathContext(4, RoundingMode.HALF_UP);
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.ingest.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${price.ingest.batch-size:10000}")
+    private int batchSize;
+
+    @Value("${price.ingest.allow-new-symbols:false}")
+    private boolean allowNewSymbols;
+
+    private final BlockingQueue<TickBatch> queue = new LinkedBlockingQueue<>();
+    private Semaphore capacity;
+    private Counter droppedTicks;
+    private Thread writer;
+    private volatile boolean running;
+
+    /**
+     * Registers the dropped ticks counter and starts the writer thread.
+     */
+    @PostConstruct
+    public void start() {
+        capacity = new Semaphore(queueCapacity);
+        droppedTicks = Counter.builder("price.ingest.dropped")
+                .description("Accepted price ticks that could not be saved")
+                .register(meterRegistry);
+        running = true;
+        writer = Thread.ofPlatform().name("price-ingest-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * Stops the writer thread after the queued ticks have been written.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Submits price ticks of a single cryptocurrency.
+     *
+     * @param symbol the cryptocurrency symbol; ticks that name a symbol must name this one
+     * @param ticks  the ticks to save
+     * @throws InvalidPriceTickException    if a tick is invalid or the symbol is unknown; no tick of the request is
+     *                                      saved
+     * @throws IngestionOverloadedException if the queue has no room for the ticks
+     */
+    public void submit(String symbol, List<CryptoPriceTick> ticks) {
+        validateSymbol(symbol);
+        enqueue(ticks, symbol);
+    }
+
+    /**
+     * Submits price ticks of any cryptocurrencies; each tick names its symbol.
+     *
+     * @param ticks the ticks to save
+     * @throws InvalidPriceTickException    if a tick is invalid or names an unknown symbol; no tick of the request
+     *                                      is saved
+     * @throws IngestionOverloadedException if the queue has no room for the ticks
+     */
+    public void submit(List<CryptoPriceTick> ticks) {
+        enqueue(ticks, null);
+    }
+
+    /**
+     * Returns the number of ticks that are queued or being written.
+     */
+    public int getPendingTicks() {
+        return queueCapacity - capacity.availablePermits();
+    }
+
+    private void enqueue(List<CryptoPriceTick> ticks, String defaultSymbol) {
+        if (ticks == null || ticks.isEmpty()) {
+            throw new InvalidPriceTickException("no ticks given");
+        }
+        if (ticks.size() > queueCapacity) {
+            throw new InvalidPriceTickException("at most " + queueCapacity + " ticks per request, got " + ticks.size());
+        }
+        int n = ticks.size();
+        String[] symbols = new String[n];
+        long[] timestamps = new long[n];
+        long[] prices = new long[n];
+        for (int i = 0; i < n; i++) {
+            CryptoPriceTick tick = ticks.get(i);
+            if (tick == null) {
+                throw new InvalidPriceTickException("tick " + i + " is null");
+            }
+            String symbol = tick.symbol() != null ? tick.symbol() : defaultSymbol;
+            if (defaultSymbol != null && !defaultSymbol.equals(symbol)) {
+                throw new InvalidPriceTickException("tick " + i + " has symbol " + symbol + ", expected " + defaultSymbol);
+            }
+            validateSymbol(symbol);
+            if (tick.timestamp() == null || tick.timestamp() < 0) {
+                throw new InvalidPriceTickException("tick " + i + " has no valid timestamp");
+            }
+            if (tick.price() == null || tick.price().signum() <= 0) {
+                throw new InvalidPriceTickException("tick " + i + " has no positive price");
+            }
+            symbols[i] = symbol;
+            timestamps[i] = tick.timestamp();
+            prices[i] = encode(tick.price(), i);
+        }
+        if (!allowNewSymbols) {
+            requireSupported(symbols);
+        }
+        if (!capacity.tryAcquire(n)) {
+            throw new IngestionOverloadedException(n);
+        }
+        queue.add(new TickBatch(symbols, timestamps, prices));
+    }
+
+    private static long encode(BigDecimal price, int index) {
+        try {
+            return PriceCodec.encodePrice(price.round(PRICE_PRECISION));
+        } catch (ArithmeticException e) {
+            throw new InvalidPriceTickException("tick " + index + " has a price out of range");
+        }
+    }
+
+    private static void validateSymbol(String symbol) {
+        if (symbol == null || !SYMBOL_PATTERN.matcher(symbol).matches()) {
+            throw new InvalidPriceTickException("symbol must be 1 to 16 letters or digits, got " + symbol);
+        }
+    }
+
+    private void requireSupported(String[] symbols) {
+        Set<String> checked = new HashSet<>();
+        for (String symbol : symbols) {
+            if (checked.add(symbol) && !priceRepository.isSupported(symbol)) {
+                throw new InvalidPriceTickException("unknown symbol " + symbol);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<TickBatch> drained = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                TickBatch first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                int ticks = first.size();
+                TickBatch next;
+                while (ticks < batchSize && (next = queue.poll()) != null) {
+                    drained.add(next);
+                    ticks += next.size();
+                }
+                try {
+                    write(drained);
+                } finally {
+                    capacity.release(ticks);
+                    drained.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Saves the drained batches with one repository call, one price batch per symbol in the submission order of
+     * its ticks, so that the repository publishes one state for all symbols. If the call fails, all its ticks are
+     * dropped.
+     */
+    private void write(List<TickBatch> batches) {
+        Map<String, PriceColumns> bySymbol = new LinkedHashMap<>();
+        int ticks = 0;
+        for (TickBatch batch : batches) {
+            for (int i = 0; i < batch.size(); i++) {
+                bySymbol.computeIfAbsent(batch.symbols[i], s -> new PriceColumns())
+                        .append(batch.timestamps[i], batch.prices[i]);
+            }
+            ticks += batch.size();
+        }
+        List<PriceBatch> priceBatches = new ArrayList<>(bySymbol.size());
+        bySymbol.forEach((symbol, columns) ->
+                priceBatches.add(new PriceBatch(symbol, columns.copyTimestamps(), columns.copyPrices())));
+        try {
+            priceRepository.savePrices(priceBatches);
+        } catch (RuntimeException e) {
+            droppedTicks.increment(ticks);
+            log.error("Failed to save {} ingested ticks of {} symbols, dropping them", ticks, priceBatches.size(), e);
+        }
+    }
+
+    /**
+     * Ticks of one submission, validated and encoded.
+     */
+    private record TickBatch(String[] symbols, long[] timestamps, long[] prices) {
+        int size() {
+            return symbols.length;
+        }
+    }
+}
@@ -1,48 +1,148 @@
 package com.epam.xmtesttask.service;
 
+import com.epam.xmtesttask.domain.crypto.CryptoDailyNormalizedRange;
 import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
-import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
 import com.epam.xmtesttask.domain.crypto.CryptoStats;
 import com.epam.xmtesttask.domain.exception.CryptoDataNotFoundException;
+import com.epam.xmtesttask.domain.exception.InvalidPageException;
+import com.epam.xmtesttask.domain.exception.InvalidTimeRangeException;
+import com.epam.xmtesttask.repository.DataVersion;
+import com.epam.xmtesttask.repository.FixedPointSummary;
+import com.epam.xmtesttask.repository.PriceReader;
 import com.epam.xmtesttask.repository.PriceRepository;
+import com.epam.xmtesttask.repository.Resolution;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.MathContext;
-import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service class providing business logic for cryptocurrency price statistics and recommendations.
  * <p>
  * This service exposes methods to:
  * <ul>
- *     <li>Retrieve statistics (oldest, newest, min, max) for a given crypto symbol.</li>
- *     <li>Calculate normalized ranges for all supported cryptos and sort them in descending order.</li>
+ *     <li>Retrieve statistics (oldest, newest, min, max) for a given crypto symbol, optionally within a time range.</li>
+ *     <li>Calculate normalized ranges for all supported cryptos, optionally within a time range,
+ *     and sort them in descending order, optionally one page at a time.</li>
  *     <li>Find the crypto with the highest normalized range for a specific date.</li>
+ *     <li>Find the crypto with the highest normalized range for each day of a date range.</li>
+ *     <li>Find the crypto with the highest normalized range in an hour, day, week or month of a time zone.</li>
  *     <li>Calculate the normalized range for a given set of statistics.</li>
  *     <li>Retrieve statistics for a crypto symbol on a specific date.</li>
  * </ul>
  * <p>
- * The service relies on {@link PriceRepository} for data access and throws
+ * The service relies on {@link PriceRepository} for data access. Calculations over several symbols read through
+ * a single {@link PriceRepository#readView()}, so they see a consistent state while prices are written. It throws
  * {@link CryptoDataNotFoundException} when data is missing for a requested date.
+ * <p>
+ * Each operation records its duration, the number of symbols evaluated and the price rows they cover
+ * (see {@link OperationMetrics}) in the {@link MeterRegistry}.
+ * <p>
+ * Normalized ranges are computed from the repository's {@link FixedPointSummary} values with {@code long}
+ * arithmetic (see {@link FixedPointNormalizedRange}); decimal values are only created for the results.
+ * <p>
+ * The normalized ranges over the whole history are kept in a {@link NormalizedRangeLeaderboard}, which evaluates
+ * only the symbols whose prices changed since the previous call.
+ * <p>
+ * Calculations over all symbols evaluate each symbol through a {@link SymbolFanOut}: one after another by default,
+ * or on one virtual thread per symbol with {@code price.service.fan-out=virtual} once there are at least
+ * {@code price.service.fan-out-min-symbols} symbols.
  */
 @Service
 public class PriceService {
     @Autowired
     private PriceRepository priceRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${price.service.fan-out:sequential}")
+    private String fanOutMode;
+
+    @Value("${price.service.fan-out-min-symbols:16}")
+    private int fanOutMinSymbols;
+
+    @Value("${price.service.daily-max-days:366}")
+    private int dailyMaxDays;
+
+    private SymbolFanOut fanOut;
+
+    private NormalizedRangeLeaderboard leaderboard;
+
+    private OperationMetrics statsMetrics;
+    private OperationMetrics rangeStatsMetrics;
+    private OperationMetrics normalizedRangesMetrics;
+    private OperationMetrics rangeNormalizedRangesMetrics;
+    private OperationMetrics highestNormalizedRangeMetrics;
+    private OperationMetrics periodHighestNormalizedRangeMetrics;
+    private OperationMetrics dailyHighestNormalizedRangeMetrics;
+
+    /**
+     * Creates the symbol fan-out and registers the meters of all operations.
+     */
+    @PostConstruct
+    public void init() {
+        fanOut = SymbolFanOut.of(fanOutMode, fanOutMinSymbols);
+        leaderboard = new NormalizedRangeLeaderboard(fanOut,
+                (symbol, summary) -> getNormalizedRange(symbol, normalizedRangesMetrics.evaluated(summary)));
+        statsMetrics = OperationMetrics.register(meterRegistry, "stats");
+        rangeStatsMetrics = OperationMetrics.register(meterRegistry, "stats-range");
+        normalizedRangesMetrics = OperationMetrics.register(meterRegistry, "normalized-ranges");
+        rangeNormalizedRangesMetrics = OperationMetrics.register(meterRegistry, "normalized-ranges-range");
+        highestNormalizedRangeMetrics = OperationMetrics.register(meterRegistry, "highest-normalized-range");
+        periodHighestNormalizedRangeMetrics = OperationMetrics.register(meterRegistry,
+                "highest-normalized-range-period");
+        dailyHighestNormalizedRangeMetrics = OperationMetrics.register(meterRegistry,
+                "highest-normalized-range-daily");
+    }
+
     /**
      * Retrieves statistics (oldest, newest, min, max) for the specified cryptocurrency symbol.
+     * <p>
+     * The statistics are read from the repository's incrementally maintained summary in constant time.
      *
      * @param symbol the cryptocurrency symbol (e.g., "BTC", "ETH")
      * @return a {@link CryptoStats} object containing the statistics
      */
     public CryptoStats getStats(String symbol) {
-        List<CryptoPrice> cryptoPrices = priceRepository.getPrices(symbol);
-        return getCryptoStats(symbol, cryptoPrices);
+        return statsMetrics.record(() ->
+                getCryptoStats(symbol, statsMetrics.evaluated(priceRepository.getSummary(symbol))));
+    }
+
+    /**
+     * Retrieves statistics (oldest, newest, min, max) for the specified cryptocurrency symbol within a time range.
+     * <p>
+     * The range includes {@code from} and excludes {@code to}; a {@code null} bound leaves that side open.
+     * Without bounds this is {@link #getStats(String)}.
+     *
+     * @param symbol the cryptocurrency symbol (e.g., "BTC", "ETH")
+     * @param from   the inclusive UTC start of the range, or {@code null}
+     * @param to     the exclusive UTC end of the range, or {@code null}
+     * @return a {@link CryptoStats} object containing the statistics of the range
+     * @throws InvalidTimeRangeException   if {@code from} is not before {@code to}
+     * @throws CryptoDataNotFoundException if the symbol has no prices in the range
+     */
+    public CryptoStats getStats(String symbol, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return getStats(symbol);
+        }
+        validateRange(from, to);
+        return rangeStatsMetrics.record(() -> priceRepository.getRangeSummary(symbol, from, to)
+                .map(summary -> getCryptoStats(symbol, rangeStatsMetrics.evaluated(summary)))
+                .orElseThrow(() -> new CryptoDataNotFoundException(symbol, from, to)));
     }
 
     /**
@@ -51,26 +151,198 @@ public class PriceService {
      * @return a list of {@link CryptoNormalizedRange} objects, sorted by normalized range descending
      */
     public List<CryptoNormalizedRange> getDescNormalizedRanges() {
-        return priceRepository.getSupportedCryptos().stream()
-                .map(this::getStats)
-                .map(this::getNormalizedRange)
-                .sorted()
-                .toList()
-                .reversed();
+        return getDescNormalizedRanges(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a page of the descending sorted list of all supported cryptos, comparing their normalized range
+     * ((max-min)/min). Cryptos with equal ranges are ordered by symbol.
+     * <p>
+     * The list is maintained by a {@link NormalizedRangeLeaderboard}: only cryptos whose prices changed since the
+     * previous call are evaluated, and the page is read without sorting the whole list.
+     *
+     * @param offset the number of leading cryptos to skip
+     * @param limit  the maximum number of cryptos to return
+     * @return a list of {@link CryptoNormalizedRange} objects, sorted by normalized range descending
+     * @throws InvalidPageException if {@code offset} is negative or {@code limit} is not positive
+     */
+    public List<CryptoNormalizedRange> getDescNormalizedRanges(int offset, int limit) {
+        validatePage(offset, limit);
+        return normalizedRangesMetrics.record(() -> leaderboard.page(priceRepository.readView(), offset, limit));
+    }
+
+    /**
+     * Returns a descending sorted list of the cryptos with prices in a time range, comparing their normalized
+     * range ((max-min)/min) within that range.
+     * <p>
+     * The range includes {@code from} and excludes {@code to}; a {@code null} bound leaves that side open.
+     * Without bounds this is {@link #getDescNormalizedRanges()}.
+     *
+     * @param from the inclusive UTC start of the range, or {@code null}
+     * @param to   the exclusive UTC end of the range, or {@code null}
+     * @return a list of {@link CryptoNormalizedRange} objects, sorted by normalized range descending
+     * @throws InvalidTimeRangeException if {@code from} is not before {@code to}
+     */
+    public List<CryptoNormalizedRange> getDescNormalizedRanges(LocalDateTime from, LocalDateTime to) {
+        return getDescNormalizedRanges(from, to, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a page of the descending sorted list of the cryptos with prices in a time range, comparing their
+     * normalized range ((max-min)/min) within that range. Cryptos with equal ranges are ordered by symbol.
+     * <p>
+     * The range includes {@code from} and excludes {@code to}; a {@code null} bound leaves that side open.
+     * Without bounds this is {@link #getDescNormalizedRanges(int, int)}.
+     *
+     * @param from   the inclusive UTC start of the range, or {@code null}
+     * @param to     the exclusive UTC end of the range, or {@code null}
+     * @param offset the number of leading cryptos to skip
+     * @param limit  the maximum number of cryptos to return
+     * @return a list of {@link CryptoNormalizedRange} objects, sorted by normalized range descending
+     * @throws InvalidTimeRangeException if {@code from} is not before {@code to}
+     * @throws InvalidPageException      if {@code offset} is negative or {@code limit} is not positive
+     */
+    public List<CryptoNormalizedRange> getDescNormalizedRanges(LocalDateTime from, LocalDateTime to, int offset,
+                                                               int limit) {
+        if (from == null && to == null) {
+            return getDescNormalizedRanges(offset, limit);
+        }
+        validateRange(from, to);
+        validatePage(offset, limit);
+        return rangeNormalizedRangesMetrics.record(() -> {
+            PriceReader prices = priceRepository.readView();
+            return fanOut.map(prices.getSupportedCryptos(), symbol -> prices
+                            .getFixedPointRangeSummary(symbol, from, to)
+                            .map(summary -> getNormalizedRange(symbol, rangeNormalizedRangesMetrics.evaluated(summary))))
+                    .stream()
+                    .flatMap(Optional::stream)
+                    .sorted(NormalizedRangeLeaderboard.ORDER)
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        });
     }
 
     /**
      * Returns the crypto with the highest normalized range for a specific date.
+     * <p>
+     * The per-day statistics are read from the repository's daily aggregates,
+     * so the cost does not grow with the length of the price history.
      *
      * @param date the date to check
      * @return a {@link CryptoNormalizedRange} object for the crypto with the highest normalized range on the given date
      * @throws CryptoDataNotFoundException if no price data is found for any crypto on the given date
      */
     public CryptoNormalizedRange getHighestNormalizedRange(LocalDate date) {
-        return priceRepository.getSupportedCryptos().stream()
-                .map(cryptoSymbol -> getStatsForDate(cryptoSymbol, date))
-                .map(this::getNormalizedRange)
-                .max(CryptoNormalizedRange::compareTo).orElseThrow();
+        return highestNormalizedRangeMetrics.record(() -> {
+            PriceReader prices = priceRepository.readView();
+            return fanOut.map(prices.getSupportedCryptos(),
+                            cryptoSymbol -> getNormalizedRangeForDate(prices, cryptoSymbol, date))
+                    .stream()
+                    .max(CryptoNormalizedRange::compareTo).orElseThrow();
+        });
+    }
+
+    /**
+     * Returns the crypto with the highest normalized range for each UTC calendar day of a date range.
+     * <p>
+     * Each crypto's daily aggregates of the whole range are read in one sweep (see
+     * {@link PriceReader#getFixedPointRollups(String, Resolution, long, long)}) and turned into normalized ranges,
+     * which are then compared day by day. A day is decided among the cryptos that have prices on it, and days
+     * without any prices are left out, so a year costs one pass per crypto rather than a lookup of every crypto
+     * for each of its days. Ties go to the crypto listed first, as in {@link #getHighestNormalizedRange(LocalDate)}.
+     *
+     * @param from the first day, inclusive
+     * @param to   the last day, inclusive
+     * @return a list of {@link CryptoDailyNormalizedRange} objects in date order, one per day with prices
+     * @throws InvalidTimeRangeException if {@code from} is after {@code to}, or the range is longer than
+     *                                   {@code price.service.daily-max-days} days
+     */
+    public List<CryptoDailyNormalizedRange> getHighestNormalizedRanges(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new InvalidTimeRangeException(from, to);
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > dailyMaxDays) {
+            throw new InvalidTimeRangeException(from, to, dailyMaxDays);
+        }
+        long fromDay = from.toEpochDay();
+        long toDay = fromDay + days;
+        return dailyHighestNormalizedRangeMetrics.record(() -> {
+            PriceReader prices = priceRepository.readView();
+            List<String> symbols = List.copyOf(prices.getSupportedCryptos());
+            List<BigDecimal[]> ranges = fanOut.map(symbols,
+                    symbol -> getDailyNormalizedRanges(prices.getFixedPointRollups(symbol, Resolution.DAY,
+                            fromDay, toDay)));
+            List<CryptoDailyNormalizedRange> highest = new ArrayList<>();
+            for (int day = 0; day < days; day++) {
+                int best = -1;
+                for (int i = 0; i < symbols.size(); i++) {
+                    BigDecimal range = ranges.get(i)[day];
+                    if (range != null && (best < 0 || range.compareTo(ranges.get(best)[day]) > 0)) {
+                        best = i;
+                    }
+                }
+                if (best >= 0) {
+                    highest.add(new CryptoDailyNormalizedRange(LocalDate.ofEpochDay(fromDay + day),
+                            symbols.get(best), ranges.get(best)[day]));
+                }
+            }
+            return highest;
+        });
+    }
+
+    /**
+     * Returns the crypto with the highest normalized range in an hour, day, week or month of a time zone.
+     * <p>
+     * The period is the one of the given resolution that contains {@code at} on the local time line of
+     * {@code zone}, e.g. the calendar day in that zone, which may not be 24 hours long around daylight saving time
+     * changes. Each crypto's summary of the period is combined from the repository's rollups (see
+     * {@link PriceReader#getFixedPointPeriodSummary(String, LocalDateTime, LocalDateTime)}), so the cost does not
+     * grow with the number of prices in the period. Cryptos without prices in the period are left out.
+     *
+     * @param resolution the length of the period
+     * @param at         a local date and time within the period
+     * @param zone       the time zone of {@code at} and of the period boundaries
+     * @return a {@link CryptoNormalizedRange} object for the crypto with the highest normalized range in the period
+     * @throws CryptoDataNotFoundException if no crypto has prices in the period
+     */
+    public CryptoNormalizedRange getHighestNormalizedRange(Resolution resolution, LocalDateTime at, ZoneId zone) {
+        LocalDateTime periodStart = resolution.truncate(at);
+        ZonedDateTime start = ZonedDateTime.of(periodStart, zone);
+        ZonedDateTime end = ZonedDateTime.of(resolution.next(periodStart), zone);
+        LocalDateTime from = LocalDateTime.ofInstant(start.toInstant(), ZoneOffset.UTC);
+        LocalDateTime to = LocalDateTime.ofInstant(end.toInstant(), ZoneOffset.UTC);
+        return periodHighestNormalizedRangeMetrics.record(() -> {
+            PriceReader prices = priceRepository.readView();
+            return fanOut.map(prices.getSupportedCryptos(), symbol -> prices
+                            .getFixedPointPeriodSummary(symbol, from, to)
+                            .map(summary -> getNormalizedRange(symbol,
+                                    periodHighestNormalizedRangeMetrics.evaluated(summary))))
+                    .stream()
+                    .flatMap(Optional::stream)
+                    .max(CryptoNormalizedRange::compareTo)
+                    .orElseThrow(() -> new CryptoDataNotFoundException(start, end));
+        });
+    }
+
+    /**
+     * Returns the version of all price data; results over all symbols change only when it changes.
+     *
+     * @return the current {@link DataVersion}
+     */
+    public DataVersion getDataVersion() {
+        return priceRepository.getDataVersion();
+    }
+
+    /**
+     * Returns the version of the price data of one crypto; its statistics change only when it changes.
+     *
+     * @param symbol the cryptocurrency symbol
+     * @return the {@link DataVersion} of the symbol, or {@link DataVersion#NONE} if it has no prices
+     */
+    public DataVersion getDataVersion(String symbol) {
+        return priceRepository.getDataVersion(symbol);
     }
 
     /**
@@ -80,24 +352,51 @@ public class PriceService {
      * @return a {@link CryptoNormalizedRange} object representing the normalized range
      */
     public CryptoNormalizedRange getNormalizedRange(CryptoStats stats) {
-        BigDecimal normalizedRange = stats.max().subtract(stats.min()).divide(stats.min(), new MathContext(4, RoundingMode.HALF_UP));
-        return new CryptoNormalizedRange(stats.symbol(), normalizedRange);
+        return new CryptoNormalizedRange(stats.symbol(), FixedPointNormalizedRange.of(stats.max(), stats.min()));
     }
 
-    private CryptoStats getStatsForDate(String symbol, LocalDate date) {
-        List<CryptoPrice> cryptoPrices = priceRepository.getPrices(symbol).stream()
-                .filter(price -> price.utcDateTime().toLocalDate().isEqual(date)).toList();
-        if (cryptoPrices.isEmpty()) {
-            throw new CryptoDataNotFoundException(symbol, date);
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidTimeRangeException(from, to);
+        }
+    }
+
+    private static void validatePage(int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new InvalidPageException(offset, limit);
+        }
+    }
+
+    private CryptoNormalizedRange getNormalizedRangeForDate(PriceReader prices, String symbol, LocalDate date) {
+        return prices.getFixedPointDailySummary(symbol, date)
+                .map(summary -> getNormalizedRange(symbol, highestNormalizedRangeMetrics.evaluated(summary)))
+                .orElseThrow(() -> new CryptoDataNotFoundException(symbol, date));
+    }
+
+    /**
+     * Calculates the normalized range of a fixed-point summary; equal to {@link #getNormalizedRange(CryptoStats)}
+     * of the decoded summary, without decoding it.
+     */
+    private static CryptoNormalizedRange getNormalizedRange(String symbol, FixedPointSummary summary) {
+        return new CryptoNormalizedRange(symbol, FixedPointNormalizedRange.of(summary.max(), summary.min()));
+    }
+
+    /**
+     * Calculates the normalized ranges of daily summaries, keeping {@code null} for days without prices.
+     */
+    private BigDecimal[] getDailyNormalizedRanges(FixedPointSummary[] summaries) {
+        BigDecimal[] ranges = new BigDecimal[summaries.length];
+        for (int day = 0; day < summaries.length; day++) {
+            FixedPointSummary summary = summaries[day];
+            if (summary != null) {
+                dailyHighestNormalizedRangeMetrics.evaluated(summary);
+                ranges[day] = FixedPointNormalizedRange.of(summary.max(), summary.min());
+            }
         }
-        return getCryptoStats(symbol, cryptoPrices);
+        return ranges;
     }
 
-    private static CryptoStats getCryptoStats(String symbol, List<CryptoPrice> cryptoPrices) {
-        BigDecimal oldest = cryptoPrices.getFirst().price();
-        BigDecimal newest = cryptoPrices.getLast().price();
-        BigDecimal min = cryptoPrices.stream().map(CryptoPrice::price).min(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-        BigDecimal max = cryptoPrices.stream().map(CryptoPrice::price).max(BigDecimal::compareTo).orElse(BigDecimal.ZERO);
-        return new CryptoStats(symbol, oldest, newest, min, max);
+    private static CryptoStats getCryptoStats(String symbol, CryptoPriceSummary summary) {
+        return new CryptoStats(symbol, summary.first(), summary.last(), summary.min(), summary.max());
     }
 }
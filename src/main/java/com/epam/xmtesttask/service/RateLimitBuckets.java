@@ -0,0 +1,131 @@
+package com.epam.xmtesttask.service;
+
+import io.github.bucket4j.Bucket;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded store of rate limit buckets keyed by client.
+ * <p>
+ * Buckets are kept in a {@link ConcurrentHashMap}, so looking up a tracked client takes no lock and requests of
+ * different clients do not contend. Each entry records when it was last used. Entries that have not been used for
+ * longer than the idle timeout are removed by a sweep over all entries, run by the first lookup after each idle
+ * timeout, so an unused entry is kept for at most twice the idle timeout and no background thread is needed.
+ * <p>
+ * When a new client makes the store exceed the maximum number of entries, the same sweep also evicts the least
+ * recently used entries, down to nine tenths of the maximum, so that the sweep runs once per tenth of the maximum
+ * of new clients rather than for each of them. Only one thread sweeps at a time; others go on without waiting, so
+ * the store may briefly hold a few entries more than the maximum.
+ * <p>
+ * An evicted client starts again with a full bucket. With an idle timeout of at least the time a bucket needs
+ * to refill completely, idle expiry never grants extra tokens; only eviction at the size limit can, and only to
+ * clients that have been idle longer than most other tracked clients.
+ */
+final class RateLimitBuckets {
+
+    private final int maxEntries;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    /**
+     * The time of the last sweep; guarded by {@link #sweepLock} for writes.
+     */
+    private volatile long lastSweepNanos;
+
+    /**
+     * @param maxEntries       the maximum number of tracked clients
+     * @param idleTimeoutNanos the time after which an unused bucket is removed
+     * @param nanoClock        the monotonic time source, usually {@link System#nanoTime()}
+     */
+    RateLimitBuckets(int maxEntries, long idleTimeoutNanos, LongSupplier nanoClock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.idleTimeoutNanos = idleTimeoutNanos;
+        this.nanoClock = nanoClock;
+        this.lastSweepNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Returns the bucket of a client, creating it if the client is not tracked.
+     *
+     * @param key           the client key
+     * @param bucketFactory creates the bucket of a new client
+     * @return the bucket
+     */
+    Bucket resolve(String key, Supplier<Bucket> bucketFactory) {
+        long now = nanoClock.getAsLong();
+        if (now - lastSweepNanos > idleTimeoutNanos) {
+            sweep(now, false);
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key, k -> new Entry(bucketFactory.get(), now));
+            if (entries.size() > maxEntries) {
+                sweep(now, true);
+            }
+        } else {
+            entry.lastAccessNanos = now;
+        }
+        return entry.bucket;
+    }
+
+    /**
+     * Returns the number of tracked clients.
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes the idle entries and, if the store is full, the least recently used ones, unless another thread is
+     * sweeping.
+     */
+    private void sweep(long now, boolean full) {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!full && now - lastSweepNanos <= idleTimeoutNanos) {
+                return;
+            }
+            lastSweepNanos = now;
+            entries.values().removeIf(entry -> now - entry.lastAccessNanos > idleTimeoutNanos);
+            int excess = entries.size() - (maxEntries - maxEntries / 10);
+            if (full && excess > 0) {
+                // The access times are copied first, as concurrent lookups keep updating them while sorting.
+                List<Access> oldest = new ArrayList<>(entries.size());
+                entries.forEach((key, entry) -> oldest.add(new Access(key, entry, now - entry.lastAccessNanos)));
+                oldest.sort(Comparator.comparingLong(Access::age).reversed());
+                for (Access access : oldest.subList(0, Math.min(excess, oldest.size()))) {
+                    entries.remove(access.key(), access.entry());
+                }
+            }
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Bucket bucket;
+        private volatile long lastAccessNanos;
+
+        private Entry(Bucket bucket, long lastAccessNanos) {
+            this.bucket = bucket;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+
+    private record Access(String key, Entry entry, long age) {
+    }
+}
@@ -2,18 +2,26 @@ package com.epam.xmtesttask.service;
 
 import io.github.bucket4j.BandwidthBuilder;
 import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Servlet filter for IP-based rate limiting using Bucket4j.
@@ -21,29 +29,147 @@ import java.util.concurrent.ConcurrentHashMap;
  * This filter restricts the number of requests a client (identified by IP address) can make
  * within a given time window. If the rate limit is exceeded, the filter responds with HTTP 429 (Too Many Requests).
  * <p>
- * The rate limit is configured as 60 requests per minute, refilling at a rate of 6 requests every minute.
+ * Each client has a bucket of {@code rate-limit.capacity} tokens (60 by default), refilled with
+ * {@code rate-limit.refill-tokens} tokens (6) every {@code rate-limit.refill-period} (one minute). A request costs
+ * one token unless its path matches one of the {@code rate-limit.route-costs} patterns, given as comma-separated
+ * {@code <ant-pattern>=<tokens>} entries; the first matching pattern wins. This lets requests that evaluate every
+ * symbol cost more than single-symbol reads.
+ * <p>
+ * Buckets are held in a {@link RateLimitBuckets} store bounded to {@code rate-limit.max-clients} entries, from
+ * which buckets unused for {@code rate-limit.idle-timeout} are removed, so memory stays bounded under address
+ * scans or NAT churn.
+ * Price submissions ({@code POST .../prices}) are rate limited like any other request; give them a route cost
+ * to account for the writes they cause. Actuator endpoints under {@code /actuator/}, such as the Prometheus
+ * scrape endpoint, are not rate limited.
+ * <p>
+ * Decisions are counted in {@code rate.limit.requests}, tagged with the outcome {@code accepted}, {@code rejected}
+ * or {@code exempt}, and the number of tracked clients is published as the {@code rate.limit.buckets} gauge.
  */
 @Component
 public class RateLimitFilter implements Filter {
 
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.capacity:60}")
+    private long capacity;
+
+    @Value("${rate-limit.refill-tokens:6}")
+    private long refillTokens;
+
+    @Value("${rate-limit.refill-period:1m}")
+    private Duration refillPeriod;
+
+    @Value("${rate-limit.max-clients:100000}")
+    private int maxClients;
+
+    @Value("${rate-limit.idle-timeout:10m}")
+    private Duration idleTimeout;
+
+    @Value("${rate-limit.route-costs:}")
+    private String[] routeCosts;
+
+    private RateLimitBuckets buckets;
+    private List<RouteCost> costs;
+
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private Counter exemptCounter;
+
+    /**
+     * Creates the bucket store, parses the route costs and registers the request counters and the bucket count gauge.
+     *
+     * @throws IllegalStateException if a route cost is malformed or exceeds the bucket capacity
+     */
+    @PostConstruct
+    public void init() {
+        buckets = new RateLimitBuckets(maxClients, idleTimeout.toNanos(), System::nanoTime);
+        costs = parseRouteCosts(routeCosts, capacity);
+        acceptedCounter = requestCounter("accepted");
+        rejectedCounter = requestCounter("rejected");
+        exemptCounter = requestCounter("exempt");
+        Gauge.builder("rate.limit.buckets", buckets, RateLimitBuckets::size)
+                .description("Clients with a rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    private Counter requestCounter(String outcome) {
+        return Counter.builder("rate.limit.requests")
+                .description("Requests checked by the rate limiter")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (isActuatorRequest(request)) {
+            exemptCounter.increment();
+            chain.doFilter(request, response);
+            return;
+        }
         String ip = request.getRemoteAddr();
-        Bucket bucket = resolveBucket(ip);
-        if (bucket.tryConsume(1)) {
+        Bucket bucket = buckets.resolve(ip, this::newBucket);
+        if (bucket.tryConsume(costOf(request))) {
+            acceptedCounter.increment();
             chain.doFilter(request, response);
         } else {
+            rejectedCounter.increment();
             HttpServletResponse httpResp = (HttpServletResponse) response;
             httpResp.setStatus(429);
             httpResp.getWriter().write("Too Many Requests");
         }
     }
 
-    private Bucket resolveBucket(String ip) {
-        return buckets.computeIfAbsent(ip, k -> Bucket.builder()
-                .addLimit(BandwidthBuilder.builder().capacity(60).refillGreedy(6, Duration.ofMinutes(1)).build())
-                .build());
+    private static boolean isActuatorRequest(ServletRequest request) {
+        return request instanceof HttpServletRequest httpReq
+                && httpReq.getRequestURI().startsWith("/actuator/");
+    }
+
+    private long costOf(ServletRequest request) {
+        if (request instanceof HttpServletRequest httpReq && !costs.isEmpty()) {
+            String path = httpReq.getRequestURI();
+            for (RouteCost cost : costs) {
+                if (PATH_MATCHER.match(cost.pattern(), path)) {
+                    return cost.tokens();
+                }
+            }
+        }
+        return 1;
+    }
+
+    private Bucket newBucket() {
+        return Bucket.builder()
+                .addLimit(BandwidthBuilder.builder().capacity(capacity).refillGreedy(refillTokens, refillPeriod).build())
+                .build();
+    }
+
+    static List<RouteCost> parseRouteCosts(String[] entries, long capacity) {
+        List<RouteCost> costs = new ArrayList<>();
+        if (entries == null) {
+            return costs;
+        }
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            long tokens;
+            try {
+                tokens = separator < 0 ? -1 : Long.parseLong(entry.substring(separator + 1).trim());
+            } catch (NumberFormatException e) {
+                tokens = -1;
+            }
+            if (tokens < 1 || tokens > capacity) {
+                throw new IllegalStateException("Invalid rate-limit.route-costs entry '" + entry.trim()
+                        + "': expected <pattern>=<tokens> with 1 <= tokens <= " + capacity);
+            }
+            costs.add(new RouteCost(entry.substring(0, separator).trim(), tokens));
+        }
+        return List.copyOf(costs);
+    }
+
+    record RouteCost(String pattern, long tokens) {
     }
 }
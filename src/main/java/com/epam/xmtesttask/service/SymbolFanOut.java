@@ -0,0 +1,98 @@
+package com.epam.xmtesttask.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+/**
+ * Runs the per-symbol part of a calculation for every symbol, either one symbol after another on the calling
+ * thread ({@code sequential}) or with one virtual thread per symbol ({@code virtual}).
+ * <p>
+ * The virtual thread mode follows the structured concurrency model of {@code StructuredTaskScope}, which is a
+ * preview API in Java 21: the tasks of a call are forked into a scope that does not outlive the call, results
+ * are returned in symbol order, and the first failure in symbol order cancels the remaining tasks and is
+ * rethrown unchanged, just like the sequential mode would throw it.
+ * <p>
+ * Calls with fewer than {@code minSymbols} symbols always run sequentially, since forking threads costs more
+ * than reading a few precomputed summaries.
+ */
+final class SymbolFanOut {
+
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("price-fan-out-", 0).factory();
+
+    private final boolean virtual;
+    private final int minSymbols;
+
+    private SymbolFanOut(boolean virtual, int minSymbols) {
+        this.virtual = virtual;
+        this.minSymbols = minSymbols;
+    }
+
+    /**
+     * Creates the fan-out for a {@code price.service.fan-out} mode.
+     *
+     * @param mode       {@code sequential} or {@code virtual}
+     * @param minSymbols the smallest number of symbols that is forked in the {@code virtual} mode
+     * @return the fan-out
+     * @throws IllegalArgumentException if the mode is unknown
+     */
+    static SymbolFanOut of(String mode, int minSymbols) {
+        return switch (mode) {
+            case "sequential" -> new SymbolFanOut(false, minSymbols);
+            case "virtual" -> new SymbolFanOut(true, minSymbols);
+            default -> throw new IllegalArgumentException("Unknown fan-out mode: " + mode);
+        };
+    }
+
+    /**
+     * Applies a task to every symbol.
+     *
+     * @param symbols the symbols
+     * @param task    the per-symbol task; it must be safe to call from several threads
+     * @return the results in the iteration order of {@code symbols}
+     */
+    <T> List<T> map(Collection<String> symbols, Function<String, T> task) {
+        if (!virtual || symbols.size() < minSymbols) {
+            List<T> results = new ArrayList<>(symbols.size());
+            for (String symbol : symbols) {
+                results.add(task.apply(symbol));
+            }
+            return results;
+        }
+        try (ExecutorService scope = Executors.newThreadPerTaskExecutor(VIRTUAL_THREADS)) {
+            List<Future<T>> futures = new ArrayList<>(symbols.size());
+            for (String symbol : symbols) {
+                futures.add(scope.submit(() -> task.apply(symbol)));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    scope.shutdownNow();
+                    throw rethrow(e.getCause());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating symbols", e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
@@ -17,12 +18,16 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(
         classes = RecommendationServiceApplication.class)
 @AutoConfigureMockMvc
+@AutoConfigureObservability
 public class RecommendationServiceIntegrationTest {
 
     @Autowired
@@ -50,6 +55,17 @@ public class RecommendationServiceIntegrationTest {
                         .contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    public void normalizedRange_shouldReturnPage_andRejectInvalidPage()
+            throws Exception {
+
+        mvc.perform(get("/cryptos/normalized-range").param("offset", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        mvc.perform(get("/cryptos/normalized-range").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void stats_shouldReturnStatus200_whenExistingCrypto()
             throws Exception {
@@ -83,6 +99,34 @@ public class RecommendationServiceIntegrationTest {
                         .contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    public void highestNormalizedRangeForPeriod_shouldReturnStatus200_whenHasDataInZonedPeriod()
+            throws Exception {
+
+        mvc.perform(get("/cryptos/highest-normalized-range/week")
+                        .param("at", "2025-12-02T12:00:00").param("zone", "Asia/Kolkata"))
+                .andExpect(status().isOk())
+                .andExpect(content()
+                        .contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mvc.perform(get("/cryptos/highest-normalized-range/year").param("at", "2025-12-02T12:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void highestNormalizedRanges_shouldReturnWinnerOfEachDayWithData()
+            throws Exception {
+
+        mvc.perform(get("/cryptos/highest-normalized-range")
+                        .param("from", "2025-12-01").param("to", "2025-12-03"))
+                .andExpect(status().isOk())
+                .andExpect(content()
+                        .contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[*].date", hasItem("2025-12-02")));
+        mvc.perform(get("/cryptos/highest-normalized-range")
+                        .param("from", "2025-12-03").param("to", "2025-12-01"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void highestNormalizedRange_shouldReturnStatus404_whenNoDataForDate()
             throws Exception {
@@ -93,4 +137,61 @@ public class RecommendationServiceIntegrationTest {
                 .andExpect(content()
                         .contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
     }
+
+    @Test
+    public void prometheus_shouldExposeEndpointAndServiceMetrics()
+            throws Exception {
+
+        mvc.perform(get("/cryptos/TEST/stats"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("price_service_duration_seconds_count{operation=\"stats\"}")))
+                .andExpect(content().string(containsString("rate_limit_requests_total{outcome=\"accepted\"}")));
+    }
+
+    @Test
+    public void stats_shouldReturnStatus304_whenETagMatchesUntilPricesChange()
+            throws Exception {
+
+        String etag = mvc.perform(get("/cryptos/TEST/stats"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Last-Modified", notNullValue()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/cryptos/TEST/stats").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        priceRepository.savePrice("TEST", LocalDateTime.of(2025, 12, 2, 23, 9), BigDecimal.valueOf(12.4));
+
+        mvc.perform(get("/cryptos/TEST/stats").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void stats_shouldServeCachedJson_untilPricesChange()
+            throws Exception {
+
+        priceRepository.savePrice("CACHE", LocalDateTime.of(2025, 12, 2, 22, 9), BigDecimal.valueOf(12.3));
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(get("/cryptos/CACHE/stats"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.symbol").value("CACHE"))
+                    .andExpect(jsonPath("$.max").value(12.3));
+        }
+
+        priceRepository.savePrice("CACHE", LocalDateTime.of(2025, 12, 3, 22, 9), BigDecimal.valueOf(45.6));
+
+        mvc.perform(get("/cryptos/CACHE/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.max").value(45.6));
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(content().string(containsString("response_cache_requests_total{outcome=\"hit\"}")));
+    }
 }
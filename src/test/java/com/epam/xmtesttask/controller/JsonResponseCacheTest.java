@@ -0,0 +1,153 @@
+package com.epam.xmtesttask.controller;
+
+import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import com.epam.xmtesttask.repository.DataVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonResponseCacheTest {
+
+    private static final DataVersion V1 = new DataVersion(1, 1000);
+    private static final DataVersion V2 = new DataVersion(2, 2000);
+
+    private JsonResponseCache cache;
+
+    private MeterRegistry meterRegistry;
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = newCache(true, 2);
+    }
+
+    @Test
+    void get_shouldEncodeWithObjectMapper() {
+        // When
+        byte[] json = cache.get(V1, range("BTC"), "normalized-range");
+
+        // Then
+        assertEquals("{\"symbol\":\"BTC\",\"normalizedRange\":0.5}", new String(json, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void get_shouldReturnCachedBytes_forSameKeyAndVersion() {
+        // Given
+        byte[] first = cache.get(V1, range("BTC"), "highest-normalized-range", LocalDate.of(2022, 1, 1));
+
+        // When
+        byte[] second = cache.get(V1, range("BTC"), "highest-normalized-range", LocalDate.of(2022, 1, 1));
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+        assertEquals(1, meterRegistry.get("response.cache.requests").tag("outcome", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("response.cache.requests").tag("outcome", "miss").counter().count());
+    }
+
+    @Test
+    void get_shouldRecompute_whenVersionOrParametersDiffer() {
+        // Given
+        cache.get(V1, range("BTC"), "stats", "BTC", null, null);
+
+        // When
+        cache.get(V2, range("BTC"), "stats", "BTC", null, null);
+        cache.get(V2, range("ETH"), "stats", "ETH", null, null);
+        cache.get(V2, range("BTC"), "stats", "BTC", null, null);
+
+        // Then
+        assertEquals(3, computations.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void get_shouldNotReplaceNewerEntry_withOlderVersion() {
+        // Given: an entry of version 2
+        byte[] newer = cache.get(V2, range("BTC"), "normalized-range");
+
+        // When: a request that read version 1 completes afterwards
+        cache.get(V1, range("ETH"), "normalized-range");
+
+        // Then
+        assertSame(newer, cache.get(V2, range("BTC"), "normalized-range"));
+    }
+
+    @Test
+    void get_shouldEvictLeastRecentlyUsed_beyondMaxEntries() {
+        // Given: a cache of two entries where "a" was used after "b"
+        cache.get(V1, range("BTC"), "a");
+        cache.get(V1, range("BTC"), "b");
+        cache.get(V1, range("BTC"), "a");
+
+        // When
+        cache.get(V1, range("BTC"), "c");
+
+        // Then: "b" was evicted
+        assertEquals(2, cache.size());
+        cache.get(V1, range("BTC"), "a");
+        assertEquals(3, computations.get());
+        cache.get(V1, range("BTC"), "b");
+        assertEquals(4, computations.get());
+        assertEquals(2, meterRegistry.get("response.cache.entries").gauge().value());
+    }
+
+    @Test
+    void get_shouldPropagateFailures_withoutCaching() {
+        // Given
+        Supplier<Object> failing = () -> {
+            computations.incrementAndGet();
+            throw new CryptoNotFoundException("NO");
+        };
+
+        // When & Then
+        assertThrows(CryptoNotFoundException.class, () -> cache.get(V1, failing, "stats", "NO"));
+        assertThrows(CryptoNotFoundException.class, () -> cache.get(V1, failing, "stats", "NO"));
+        assertEquals(2, computations.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_shouldAlwaysCompute_whenDisabled() {
+        // Given
+        cache = newCache(false, 2);
+
+        // When
+        cache.get(V1, range("BTC"), "normalized-range");
+        cache.get(V1, range("BTC"), "normalized-range");
+
+        // Then
+        assertEquals(2, computations.get());
+        assertEquals(0, cache.size());
+    }
+
+    private Supplier<Object> range(String symbol) {
+        return () -> {
+            computations.incrementAndGet();
+            return new CryptoNormalizedRange(symbol, new BigDecimal("0.5"));
+        };
+    }
+
+    private JsonResponseCache newCache(boolean enabled, int maxEntries) {
+        meterRegistry = new SimpleMeterRegistry();
+        JsonResponseCache responseCache = new JsonResponseCache();
+        ReflectionTestUtils.setField(responseCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(responseCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(responseCache, "enabled", enabled);
+        ReflectionTestUtils.setField(responseCache, "maxEntries", maxEntries);
+        responseCache.init();
+        return responseCache;
+    }
+}
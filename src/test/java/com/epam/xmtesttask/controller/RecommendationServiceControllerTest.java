@@ -1,15 +1,28 @@
 package com.epam.xmtesttask.controller;
 
+import com.epam.xmtesttask.domain.crypto.CryptoDailyNormalizedRange;
 import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceTick;
 import com.epam.xmtesttask.domain.crypto.CryptoStats;
+import com.epam.xmtesttask.repository.DataVersion;
+import com.epam.xmtesttask.repository.Resolution;
+import com.epam.xmtesttask.service.PriceIngestionService;
 import com.epam.xmtesttask.service.PriceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,33 +33,72 @@ class RecommendationServiceControllerTest {
     @Mock
     private PriceService priceService;
 
+    @Mock
+    private PriceIngestionService priceIngestionService;
+
     @InjectMocks
     private RecommendationServiceController controller;
 
+    private static final DataVersion VERSION = new DataVersion(42, 1700000000000L);
+
+    private MockHttpServletRequest httpRequest;
+
+    private MockHttpServletResponse httpResponse;
+
+    private ServletWebRequest webRequest;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        JsonResponseCache responseCache = new JsonResponseCache();
+        ReflectionTestUtils.setField(responseCache, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(responseCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(responseCache, "enabled", true);
+        ReflectionTestUtils.setField(responseCache, "maxEntries", 16);
+        responseCache.init();
+        ReflectionTestUtils.setField(controller, "responseCache", responseCache);
+        httpRequest = new MockHttpServletRequest("GET", "/cryptos/normalized-range");
+        httpResponse = new MockHttpServletResponse();
+        webRequest = new ServletWebRequest(httpRequest, httpResponse);
+        when(priceService.getDataVersion()).thenReturn(VERSION);
+        when(priceService.getDataVersion(anyString())).thenReturn(VERSION);
     }
 
     @Test
-    void getDescNormalizedRanges_returnsList() {
+    void getDescNormalizedRanges_returnsList() throws Exception {
         // Arrange
         List<CryptoNormalizedRange> expected = List.of(
                 new CryptoNormalizedRange("BTC", new BigDecimal("0.5")),
                 new CryptoNormalizedRange("ETH", new BigDecimal("0.3"))
         );
-        when(priceService.getDescNormalizedRanges()).thenReturn(expected);
+        when(priceService.getDescNormalizedRanges(null, null, 0, Integer.MAX_VALUE)).thenReturn(expected);
+
+        // Act
+        ResponseEntity<byte[]> result = controller.getDescNormalizedRanges(null, null, 0, null, webRequest);
+
+        // Assert
+        assertJson(expected, result);
+        verify(priceService, times(1)).getDescNormalizedRanges(null, null, 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void getDescNormalizedRanges_passesPage() throws Exception {
+        // Arrange
+        List<CryptoNormalizedRange> expected = List.of(new CryptoNormalizedRange("ETH", new BigDecimal("0.3")));
+        when(priceService.getDescNormalizedRanges(null, null, 1, 1)).thenReturn(expected);
 
         // Act
-        List<CryptoNormalizedRange> result = controller.getDescNormalizedRanges();
+        ResponseEntity<byte[]> result = controller.getDescNormalizedRanges(null, null, 1, 1, webRequest);
 
         // Assert
-        assertEquals(expected, result);
-        verify(priceService, times(1)).getDescNormalizedRanges();
+        assertJson(expected, result);
+        verify(priceService, times(1)).getDescNormalizedRanges(null, null, 1, 1);
     }
 
     @Test
-    void getStats_returnsStats() {
+    void getStats_returnsStats() throws Exception {
         // Arrange
         String symbol = "BTC";
         CryptoStats expected = new CryptoStats(
@@ -56,28 +108,204 @@ class RecommendationServiceControllerTest {
                 new BigDecimal("90"),
                 new BigDecimal("210")
         );
-        when(priceService.getStats(symbol)).thenReturn(expected);
+        when(priceService.getStats(symbol, null, null)).thenReturn(expected);
+
+        // Act
+        ResponseEntity<byte[]> result = controller.getStats(symbol, null, null, webRequest);
+
+        // Assert
+        assertJson(expected, result);
+        verify(priceService, times(1)).getStats(symbol, null, null);
+    }
+
+    @Test
+    void getStats_passesTimeRange() throws Exception {
+        // Arrange
+        String symbol = "BTC";
+        LocalDateTime from = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 1, 8, 0, 0);
+        CryptoStats expected = new CryptoStats(
+                symbol,
+                new BigDecimal("100"),
+                new BigDecimal("120"),
+                new BigDecimal("95"),
+                new BigDecimal("130")
+        );
+        when(priceService.getStats(symbol, from, to)).thenReturn(expected);
 
         // Act
-        CryptoStats result = controller.getStats(symbol);
+        ResponseEntity<byte[]> result = controller.getStats(symbol, from, to, webRequest);
 
         // Assert
-        assertEquals(expected, result);
-        verify(priceService, times(1)).getStats(symbol);
+        assertJson(expected, result);
+        verify(priceService, times(1)).getStats(symbol, from, to);
     }
 
     @Test
-    void getHighestNormalizedRange_returnsRange() {
+    void getHighestNormalizedRange_returnsRange() throws Exception {
         // Arrange
         LocalDate date = LocalDate.of(2023, 1, 15);
         CryptoNormalizedRange expected = new CryptoNormalizedRange("BTC", new BigDecimal("0.7"));
         when(priceService.getHighestNormalizedRange(date)).thenReturn(expected);
 
         // Act
-        CryptoNormalizedRange result = controller.getHighestNormalizedRange(date);
+        ResponseEntity<byte[]> result = controller.getHighestNormalizedRange(date, webRequest);
 
         // Assert
-        assertEquals(expected, result);
+        assertJson(expected, result);
         verify(priceService, times(1)).getHighestNormalizedRange(date);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getHighestNormalizedRanges_returnsWinnerPerDay() throws Exception {
+        // Arrange
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2023, 1, 31);
+        List<CryptoDailyNormalizedRange> expected = List.of(
+                new CryptoDailyNormalizedRange(from, "BTC", new BigDecimal("0.7")),
+                new CryptoDailyNormalizedRange(from.plusDays(1), "ETH", new BigDecimal("0.2"))
+        );
+        when(priceService.getHighestNormalizedRanges(from, to)).thenReturn(expected);
+
+        // Act
+        ResponseEntity<byte[]> result = controller.getHighestNormalizedRanges(from, to, webRequest);
+
+        // Assert
+        assertJson(expected, result);
+        verify(priceService, times(1)).getHighestNormalizedRanges(from, to);
+    }
+
+    @Test
+    void getHighestNormalizedRangeForPeriod_returnsRange_andCachesPerPeriod() throws Exception {
+        // Arrange
+        ZoneId zone = ZoneId.of("Europe/Budapest");
+        LocalDateTime wednesday = LocalDateTime.of(2023, 1, 4, 12, 0);
+        CryptoNormalizedRange expected = new CryptoNormalizedRange("ETH", new BigDecimal("0.25"));
+        when(priceService.getHighestNormalizedRange(Resolution.WEEK, wednesday, zone)).thenReturn(expected);
+
+        // Act: two requests within the same week
+        ResponseEntity<byte[]> result = controller.getHighestNormalizedRange(Resolution.WEEK, wednesday, zone,
+                webRequest);
+        ResponseEntity<byte[]> cached = controller.getHighestNormalizedRange(Resolution.WEEK, wednesday.plusDays(2),
+                zone, webRequest);
+
+        // Assert: the second one is served from the cache entry of the week
+        assertJson(expected, result);
+        assertJson(expected, cached);
+        verify(priceService, times(1)).getHighestNormalizedRange(any(Resolution.class), any(), any());
+    }
+
+    @Test
+    void getDescNormalizedRanges_setsValidatorsFromDataVersion() {
+        // Arrange
+        when(priceService.getDescNormalizedRanges(null, null, 0, Integer.MAX_VALUE)).thenReturn(List.of());
+
+        // Act
+        controller.getDescNormalizedRanges(null, null, 0, null, webRequest);
+
+        // Assert
+        assertEquals(200, httpResponse.getStatus());
+        assertEquals("\"42-18bcfe56800\"", httpResponse.getHeader("ETag"));
+        assertEquals(1700000000000L, httpResponse.getDateHeader("Last-Modified"));
+    }
+
+    @Test
+    void getDescNormalizedRanges_returnsNotModified_whenETagMatches() {
+        // Arrange
+        httpRequest.addHeader("If-None-Match", "\"42-18bcfe56800\"");
+
+        // Act
+        ResponseEntity<byte[]> result = controller.getDescNormalizedRanges(null, null, 0, null, webRequest);
+
+        // Assert
+        assertNull(result);
+        assertEquals(304, httpResponse.getStatus());
+        verify(priceService, never()).getDescNormalizedRanges(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getStats_computesStats_whenSymbolVersionChanged() throws Exception {
+        // Arrange
+        String symbol = "BTC";
+        httpRequest.addHeader("If-None-Match", "\"41-18bcfe56800\"");
+        CryptoStats expected = new CryptoStats(symbol, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE);
+        when(priceService.getStats(symbol, null, null)).thenReturn(expected);
+
+        // Act
+        ResponseEntity<byte[]> result = controller.getStats(symbol, null, null, webRequest);
+
+        // Assert
+        assertJson(expected, result);
+        assertEquals(200, httpResponse.getStatus());
+        verify(priceService, times(1)).getDataVersion(symbol);
+    }
+
+    @Test
+    void getStats_setsNoValidators_whenSymbolHasNoData() {
+        // Arrange
+        httpRequest.addHeader("If-None-Match", "*");
+        when(priceService.getDataVersion("NO")).thenReturn(DataVersion.NONE);
+
+        // Act
+        controller.getStats("NO", null, null, webRequest);
+
+        // Assert
+        assertNull(httpResponse.getHeader("ETag"));
+        verify(priceService, times(1)).getStats("NO", null, null);
+    }
+
+    @Test
+    void getStats_servesCachedJson_untilSymbolVersionChanges() throws Exception {
+        // Arrange
+        String symbol = "BTC";
+        CryptoStats first = new CryptoStats(symbol, BigDecimal.ONE, BigDecimal.TWO, BigDecimal.ONE, BigDecimal.TWO);
+        CryptoStats second = new CryptoStats(symbol, BigDecimal.ONE, BigDecimal.TEN, BigDecimal.ONE, BigDecimal.TEN);
+        when(priceService.getStats(symbol, null, null)).thenReturn(first, second);
+
+        // Act
+        ResponseEntity<byte[]> computed = controller.getStats(symbol, null, null, webRequest);
+        ResponseEntity<byte[]> cached = controller.getStats(symbol, null, null, webRequest);
+        when(priceService.getDataVersion(symbol)).thenReturn(new DataVersion(43, 1700000000001L));
+        ResponseEntity<byte[]> recomputed = controller.getStats(symbol, null, null, webRequest);
+
+        // Assert
+        assertJson(first, computed);
+        assertSame(computed.getBody(), cached.getBody());
+        assertJson(second, recomputed);
+        verify(priceService, times(2)).getStats(symbol, null, null);
+    }
+
+    @Test
+    void submitPrices_queuesTicksOfSymbol() {
+        // Arrange
+        List<CryptoPriceTick> ticks = List.of(new CryptoPriceTick(null, 1641009600000L, new BigDecimal("46813.21")));
+
+        // Act
+        ResponseEntity<Void> response = controller.submitPrices("BTC", ticks);
+
+        // Assert
+        assertEquals(202, response.getStatusCode().value());
+        verify(priceIngestionService, times(1)).submit("BTC", ticks);
+    }
+
+    @Test
+    void submitPrices_queuesTicksOfSeveralSymbols() {
+        // Arrange
+        List<CryptoPriceTick> ticks = List.of(
+                new CryptoPriceTick("BTC", 1641009600000L, new BigDecimal("46813.21")),
+                new CryptoPriceTick("ETH", 1641009600000L, new BigDecimal("3715.32")));
+
+        // Act
+        ResponseEntity<Void> response = controller.submitPrices(ticks);
+
+        // Assert
+        assertEquals(202, response.getStatusCode().value());
+        verify(priceIngestionService, times(1)).submit(ticks);
+    }
+
+    private void assertJson(Object expected, ResponseEntity<byte[]> response) throws Exception {
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("application/json", String.valueOf(response.getHeaders().getContentType()));
+        assertArrayEquals(objectMapper.writeValueAsBytes(expected), response.getBody());
+    }
+}
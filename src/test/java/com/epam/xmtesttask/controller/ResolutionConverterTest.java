@@ -0,0 +1,23 @@
+package com.epam.xmtesttask.controller;
+
+import com.epam.xmtesttask.repository.Resolution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolutionConverterTest {
+
+    private final ResolutionConverter converter = new ResolutionConverter();
+
+    @Test
+    void convert_shouldIgnoreCase() {
+        assertEquals(Resolution.HOUR, converter.convert("hour"));
+        assertEquals(Resolution.WEEK, converter.convert(" Week "));
+        assertEquals(Resolution.MONTH, converter.convert("MONTH"));
+    }
+
+    @Test
+    void convert_shouldRejectUnknownResolution() {
+        assertThrows(IllegalArgumentException.class, () -> converter.convert("year"));
+    }
+}
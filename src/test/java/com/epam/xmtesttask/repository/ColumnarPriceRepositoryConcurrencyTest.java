@@ -0,0 +1,99 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test running ingestion and queries against {@link ColumnarPriceRepository} at the same time.
+ */
+class ColumnarPriceRepositoryConcurrencyTest {
+
+    private static final String[] SYMBOLS = {"BTC", "ETH", "XRP"};
+    private static final int ROUNDS = 20_000;
+    private static final int READERS = 4;
+
+    @Test
+    void concurrentReads_shouldAlwaysSeeConsistentSnapshots() throws Exception {
+        // Given: a repository that is written round-robin, one price per symbol and round
+        ColumnarPriceRepository repository = new ColumnarPriceRepository();
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(READERS + 1)) {
+            // When: one thread writes while several threads read
+            Future<?> writer = executor.submit(() -> {
+                try {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        for (String symbol : SYMBOLS) {
+                            if (round % 100 == 0) {
+                                repository.savePrices(symbol,
+                                        new long[]{PriceCodec.toEpochMilli(start.plusMinutes(round))},
+                                        new long[]{PriceCodec.encodePrice(BigDecimal.valueOf(round + 1))});
+                            } else {
+                                repository.savePrice(symbol, start.plusMinutes(round), BigDecimal.valueOf(round + 1));
+                            }
+                        }
+                    }
+                } finally {
+                    writing.set(false);
+                }
+            });
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> readUntilDone(repository, writing)));
+            }
+
+            // Then: the writer finishes and no reader observed an inconsistent view
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+            }
+        }
+        for (String symbol : SYMBOLS) {
+            assertEquals(ROUNDS, repository.getPrices(symbol).size());
+            assertEquals(ROUNDS, repository.getSummary(symbol).count());
+        }
+    }
+
+    private static int readUntilDone(ColumnarPriceRepository repository, AtomicBoolean writing) {
+        int reads = 0;
+        do {
+            PriceReader view = repository.readView();
+            List<Integer> sizes = new ArrayList<>();
+            for (String symbol : view.getSupportedCryptos()) {
+                List<CryptoPrice> prices = view.getPrices(symbol);
+                CryptoPriceSummary summary = view.getSummary(symbol);
+                int size = prices.size();
+                // The summary belongs to exactly the prices of the same view.
+                assertEquals(size, summary.count());
+                assertEquals(0, BigDecimal.valueOf(size).compareTo(summary.max()));
+                assertEquals(0, BigDecimal.valueOf(size).compareTo(prices.get(size - 1).price()));
+                assertEquals(0, BigDecimal.ONE.compareTo(summary.min()));
+                sizes.add(size);
+            }
+            // Symbols are written round-robin, so within one view their sizes differ by at most one.
+            if (!sizes.isEmpty()) {
+                int max = sizes.stream().mapToInt(Integer::intValue).max().orElseThrow();
+                int min = view.getSupportedCryptos().size() < SYMBOLS.length
+                        ? max - 1
+                        : sizes.stream().mapToInt(Integer::intValue).min().orElseThrow();
+                assertTrue(max - min <= 1, "Inconsistent sizes " + sizes);
+            }
+            reads++;
+        } while (writing.get());
+        return reads;
+    }
+}
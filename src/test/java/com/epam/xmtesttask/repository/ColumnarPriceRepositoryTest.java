@@ -0,0 +1,618 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPriceRepositoryTest {
+
+    private ColumnarPriceRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ColumnarPriceRepository();
+    }
+
+    @Test
+    void savePrice_and_getPrices_shouldStoreAndRetrievePrice() {
+        // Given: a symbol, date, and price rounded like CSVPriceLoader does
+        String symbol = "BTC";
+        LocalDateTime dateTime = LocalDateTime.of(2023, 1, 1, 0, 0, 0, 123_000_000);
+        BigDecimal price = new BigDecimal("46813.21", new MathContext(4));
+
+        // When: saving the price
+        repository.savePrice(symbol, dateTime, price);
+
+        // Then: the price can be retrieved and matches the input
+        List<CryptoPrice> prices = repository.getPrices(symbol);
+        assertEquals(1, prices.size());
+        assertEquals(dateTime, prices.get(0).utcDateTime());
+        assertEquals(price, prices.get(0).price());
+    }
+
+    @Test
+    void getPrices_shouldKeepInsertionOrderAndNumericValues() {
+        // Given: several prices with different scales
+        repository.savePrice("DOGE", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("0.07"));
+        repository.savePrice("DOGE", LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("10000"));
+        repository.savePrice("DOGE", LocalDateTime.of(2023, 1, 3, 0, 0), new BigDecimal("0.00001234"));
+
+        // When: retrieving the prices
+        List<CryptoPrice> prices = repository.getPrices("DOGE");
+
+        // Then: values are numerically equal and in insertion order
+        assertEquals(3, prices.size());
+        assertEquals(0, new BigDecimal("0.07").compareTo(prices.get(0).price()));
+        assertEquals(0, new BigDecimal("10000").compareTo(prices.get(1).price()));
+        assertEquals(0, new BigDecimal("0.00001234").compareTo(prices.get(2).price()));
+        assertEquals(LocalDateTime.of(2023, 1, 3, 0, 0), prices.getLast().utcDateTime());
+    }
+
+    @Test
+    void getPrices_shouldGrowBeyondInitialCapacity() {
+        // Given: more prices than the initial column capacity
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            repository.savePrice("ETH", start.plusHours(i), BigDecimal.valueOf(i + 1));
+        }
+
+        // When: retrieving the prices
+        List<CryptoPrice> prices = repository.getPrices("ETH");
+
+        // Then: every price is retained
+        assertEquals(1000, prices.size());
+        assertEquals(start.plusHours(999), prices.get(999).utcDateTime());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(prices.get(999).price()));
+    }
+
+    @Test
+    void getPrices_shouldRejectOutOfRangeIndex() {
+        // Given: a symbol with one price
+        repository.savePrice("BTC", LocalDateTime.now(), new BigDecimal("10000"));
+
+        // When & Then: reading past the end should throw
+        List<CryptoPrice> prices = repository.getPrices("BTC");
+        assertThrows(IndexOutOfBoundsException.class, () -> prices.get(1));
+    }
+
+    @Test
+    void isSupported_shouldReturnTrueIfSymbolHasPrices() {
+        // Given: a symbol with a saved price
+        repository.savePrice("ETH", LocalDateTime.now(), new BigDecimal("2000"));
+
+        // When & Then: the symbol should be supported
+        assertTrue(repository.isSupported("ETH"));
+    }
+
+    @Test
+    void isSupported_shouldReturnFalseIfSymbolNotPresent() {
+        // Given: a symbol that has not been added
+
+        // When & Then: the symbol should not be supported
+        assertFalse(repository.isSupported("DOGE"));
+    }
+
+    @Test
+    void getSupportedCryptos_shouldReturnAllSymbols() {
+        // Given: two symbols with saved prices
+        repository.savePrice("BTC", LocalDateTime.now(), new BigDecimal("10000"));
+        repository.savePrice("ETH", LocalDateTime.now(), new BigDecimal("2000"));
+
+        // When: retrieving supported cryptos
+        Set<String> supported = repository.getSupportedCryptos();
+
+        // Then: both symbols should be present
+        assertEquals(Set.of("BTC", "ETH"), supported);
+    }
+
+    @Test
+    void getPrices_shouldThrowExceptionIfSymbolNotSupported() {
+        // Given: a symbol that has not been added
+
+        // When & Then: requesting prices should throw CryptoNotFoundException
+        assertThrows(CryptoNotFoundException.class, () -> repository.getPrices("UNKNOWN"));
+    }
+
+    @Test
+    void getDailySummary_shouldAggregatePricesOfTheDay() {
+        // Given: prices on two days, one of them saved out of order
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        repository.savePrice("BTC", day.atTime(10, 0), new BigDecimal("120"));
+        repository.savePrice("BTC", day.atTime(8, 0), new BigDecimal("100"));
+        repository.savePrice("BTC", day.atTime(12, 0), new BigDecimal("90"));
+        repository.savePrice("BTC", day.atTime(23, 59), new BigDecimal("110"));
+        repository.savePrice("BTC", day.plusDays(1).atStartOfDay(), new BigDecimal("500"));
+
+        // When: retrieving the summary of the first day
+        Optional<CryptoPriceSummary> summary = repository.getDailySummary("BTC", day);
+
+        // Then: the summary covers only that day, ordered by timestamp
+        assertTrue(summary.isPresent());
+        assertEquals(day.atTime(8, 0), summary.get().firstDateTime());
+        assertEquals(0, new BigDecimal("100").compareTo(summary.get().first()));
+        assertEquals(0, new BigDecimal("110").compareTo(summary.get().last()));
+        assertEquals(0, new BigDecimal("90").compareTo(summary.get().min()));
+        assertEquals(0, new BigDecimal("120").compareTo(summary.get().max()));
+        assertEquals(4, summary.get().count());
+    }
+
+    @Test
+    void getDailySummary_shouldReturnEmptyIfNoPricesOnDay() {
+        // Given: a price on another day
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("100"));
+
+        // When & Then: days without prices and unknown symbols have no summary
+        assertTrue(repository.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).isEmpty());
+        assertTrue(repository.getDailySummary("ETH", LocalDate.of(2023, 1, 2)).isEmpty());
+    }
+
+    @Test
+    void getSummary_shouldTrackAllTimeStatsWithOutOfOrderTimestamps() {
+        // Given: prices saved out of chronological order
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("200"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 5, 0, 0), new BigDecimal("250"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("180"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 3, 0, 0), new BigDecimal("300"));
+
+        // When: retrieving the all-time summary
+        CryptoPriceSummary summary = repository.getSummary("ETH");
+
+        // Then: oldest and newest follow the timestamps, not the insertion order
+        assertEquals(0, new BigDecimal("180").compareTo(summary.first()));
+        assertEquals(0, new BigDecimal("250").compareTo(summary.last()));
+        assertEquals(0, new BigDecimal("180").compareTo(summary.min()));
+        assertEquals(0, new BigDecimal("300").compareTo(summary.max()));
+        assertEquals(4, summary.count());
+    }
+
+    @Test
+    void getSummary_shouldThrowExceptionIfSymbolNotSupported() {
+        // Given: a symbol that has not been added
+
+        // When & Then: requesting the summary should throw CryptoNotFoundException
+        assertThrows(CryptoNotFoundException.class, () -> repository.getSummary("UNKNOWN"));
+    }
+
+    @Test
+    void savePrices_shouldAppendBatchAndUpdateSummaries() {
+        // Given: a batch spanning two UTC days
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 22, 0);
+        long[] timestamps = {
+                PriceCodec.toEpochMilli(start),
+                PriceCodec.toEpochMilli(start.plusHours(1)),
+                PriceCodec.toEpochMilli(start.plusHours(2))
+        };
+        long[] prices = {
+                PriceCodec.encodePrice(new BigDecimal("10")),
+                PriceCodec.encodePrice(new BigDecimal("12")),
+                PriceCodec.encodePrice(new BigDecimal("11"))
+        };
+
+        // When: saving the batch
+        repository.savePrices("BTC", timestamps, prices);
+
+        // Then: prices and summaries reflect the batch
+        List<CryptoPrice> saved = repository.getPrices("BTC");
+        assertEquals(3, saved.size());
+        assertEquals(start.plusHours(2), saved.get(2).utcDateTime());
+        assertEquals(0, new BigDecimal("11").compareTo(saved.get(2).price()));
+        assertEquals(0, new BigDecimal("12").compareTo(repository.getSummary("BTC").max()));
+        assertEquals(2, repository.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).orElseThrow().count());
+        assertEquals(1, repository.getDailySummary("BTC", LocalDate.of(2023, 1, 2)).orElseThrow().count());
+    }
+
+    @Test
+    void savePrices_shouldRejectArraysOfDifferentLength() {
+        // Given: arrays of different length
+
+        // When & Then: saving should throw IllegalArgumentException
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.savePrices("BTC", new long[]{1L, 2L}, new long[]{1L}));
+    }
+
+    @Test
+    void getCryptosChangedAfter_shouldReturnSymbolsWrittenAfterVersion() {
+        // Given
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("10"));
+        long version = repository.getDataVersion().version();
+        repository.savePrice("XRP", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("1"));
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 1, 0), new BigDecimal("101"));
+
+        // When & Then: a symbol written several times is returned once
+        assertEquals(Set.of("BTC", "ETH", "XRP"), repository.getCryptosChangedAfter(0));
+        assertEquals(Set.of("BTC", "XRP"), repository.getCryptosChangedAfter(version));
+        assertEquals(Set.of("BTC"), repository.getCryptosChangedAfter(version + 1));
+        assertEquals(Set.of(), repository.getCryptosChangedAfter(repository.getDataVersion().version()));
+    }
+
+    @Test
+    void savePrices_shouldSaveBatchesOfSeveralSymbolsAsOneWrite() {
+        // Given
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100"));
+        long version = repository.getDataVersion().version();
+
+        // When: BTC appears twice and XRP only has an empty batch
+        repository.savePrices(List.of(
+                batch("BTC", 1_672_534_800_000L, BigDecimal.TEN),
+                batch("ETH", 1_672_531_200_000L, BigDecimal.ONE),
+                batch("BTC", 1_672_538_400_000L, BigDecimal.TWO),
+                new PriceBatch("XRP", new long[0], new long[0])));
+
+        // Then: one version for all symbols, and the batches of a symbol saved in order
+        assertEquals(version + 1, repository.getDataVersion().version());
+        assertEquals(repository.getDataVersion(), repository.getDataVersion("BTC"));
+        assertEquals(repository.getDataVersion(), repository.getDataVersion("ETH"));
+        assertEquals(Set.of("BTC", "ETH"), repository.getSupportedCryptos());
+        assertEquals(List.of(100, 10, 2),
+                repository.getPrices("BTC").stream().map(price -> price.price().intValueExact()).toList());
+        assertEquals(Set.of("BTC", "ETH"), repository.getCryptosChangedAfter(version));
+    }
+
+    @Test
+    void savePrices_shouldIgnoreEmptyBatches() {
+        // Given: a symbol with a price
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100"));
+        DataVersion version = repository.getDataVersion();
+
+        // When: empty batches are saved for it and for a new symbol
+        repository.savePrices("BTC", new long[0], new long[0]);
+        repository.savePrices("ETH", new long[0], new long[0]);
+
+        // Then: nothing changes
+        assertEquals(Set.of("BTC"), repository.getSupportedCryptos());
+        assertEquals(1, repository.getPrices("BTC").size());
+        assertEquals(version, repository.getDataVersion());
+    }
+
+    @Test
+    void readView_shouldNotObserveLaterWrites() {
+        // Given: a view taken after the first price
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100"));
+        PriceReader view = repository.readView();
+
+        // When: more prices and symbols are saved
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 1, 0), new BigDecimal("50"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("2000"));
+
+        // Then: the view still shows the data at the time it was taken
+        assertEquals(Set.of("BTC"), view.getSupportedCryptos());
+        assertEquals(1, view.getPrices("BTC").size());
+        assertEquals(1, view.getSummary("BTC").count());
+        assertEquals(1, view.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).orElseThrow().count());
+        assertFalse(view.isSupported("ETH"));
+        assertEquals(2, repository.getPrices("BTC").size());
+    }
+
+    @Test
+    void getDailySummary_shouldMergeLateArrivalsIntoEarlierDays() {
+        // Given: prices for three days, then a late price for the first day
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 12, 0), new BigDecimal("100"));
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 3, 12, 0), new BigDecimal("300"));
+        PriceReader before = repository.readView();
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 13, 0), new BigDecimal("90"));
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 2, 12, 0), new BigDecimal("200"));
+
+        // When & Then: late prices are aggregated into their own day
+        assertEquals(0, new BigDecimal("90").compareTo(
+                repository.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).orElseThrow().min()));
+        assertEquals(1, repository.getDailySummary("BTC", LocalDate.of(2023, 1, 2)).orElseThrow().count());
+        assertEquals(1, repository.getDailySummary("BTC", LocalDate.of(2023, 1, 3)).orElseThrow().count());
+        // and earlier views are unaffected
+        assertEquals(1, before.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).orElseThrow().count());
+        assertTrue(before.getDailySummary("BTC", LocalDate.of(2023, 1, 2)).isEmpty());
+    }
+
+    @Test
+    void getPrices_shouldBeSortedByTimestampAfterOutOfOrderWrites() {
+        // Given: prices saved out of chronological order, one of them in a batch
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        repository.savePrice("BTC", start.plusHours(2), new BigDecimal("300"));
+        repository.savePrice("BTC", start, new BigDecimal("100"));
+        repository.savePrices("BTC",
+                new long[]{PriceCodec.toEpochMilli(start.plusHours(3)), PriceCodec.toEpochMilli(start.plusHours(1))},
+                new long[]{PriceCodec.encodePrice(new BigDecimal("400")), PriceCodec.encodePrice(new BigDecimal("200"))});
+
+        // When
+        List<CryptoPrice> prices = repository.getPrices("BTC");
+
+        // Then
+        assertEquals(4, prices.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(start.plusHours(i), prices.get(i).utcDateTime());
+            assertEquals(0, BigDecimal.valueOf(100L * (i + 1)).compareTo(prices.get(i).price()));
+        }
+    }
+
+    @Test
+    void getRangeSummary_shouldAggregatePricesInRange() {
+        // Given: prices on four consecutive hours
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        repository.savePrice("BTC", start, new BigDecimal("100"));
+        repository.savePrice("BTC", start.plusHours(1), new BigDecimal("90"));
+        repository.savePrice("BTC", start.plusHours(2), new BigDecimal("120"));
+        repository.savePrice("BTC", start.plusHours(3), new BigDecimal("80"));
+
+        // When: summarizing the second and third hour
+        CryptoPriceSummary summary = repository.getRangeSummary("BTC", start.plusHours(1), start.plusHours(3))
+                .orElseThrow();
+
+        // Then: the upper bound is excluded
+        assertEquals(0, new BigDecimal("90").compareTo(summary.first()));
+        assertEquals(0, new BigDecimal("120").compareTo(summary.last()));
+        assertEquals(0, new BigDecimal("90").compareTo(summary.min()));
+        assertEquals(0, new BigDecimal("120").compareTo(summary.max()));
+        assertEquals(2, summary.count());
+        assertEquals(repository.getSummary("BTC"), repository.getRangeSummary("BTC", null, null).orElseThrow());
+        assertTrue(repository.getRangeSummary("BTC", start.plusHours(4), null).isEmpty());
+        assertThrows(CryptoNotFoundException.class, () -> repository.getRangeSummary("ETH", null, null));
+    }
+
+    @Test
+    void getRangeSummary_shouldMatchScanForRandomRanges() {
+        // Given: a long history written in batches, partly out of order
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        long startMilli = PriceCodec.toEpochMilli(start);
+        PriceRepository reference = new InMemoryPriceRepository();
+        for (int batch = 0; batch < 50; batch++) {
+            int length = 1 + random.nextInt(200);
+            long[] timestamps = new long[length];
+            long[] prices = new long[length];
+            for (int i = 0; i < length; i++) {
+                timestamps[i] = startMilli + 60_000L * (random.nextInt(10) == 0
+                        ? random.nextInt(batch * 100 + 1) : batch * 100 + random.nextInt(100));
+                prices[i] = PriceCodec.encodePrice(BigDecimal.valueOf(1 + random.nextInt(100_000), 2));
+            }
+            repository.savePrices("BTC", timestamps, prices);
+            reference.savePrices("BTC", timestamps, prices);
+        }
+
+        // When & Then: every range summary equals a full scan of the same prices
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime from = start.plusMinutes(random.nextInt(5_100) - 50);
+            LocalDateTime to = from.plusMinutes(random.nextInt(i % 2 == 0 ? 100 : 5_000));
+            Optional<CryptoPriceSummary> expected = reference.getRangeSummary("BTC", from, to);
+            Optional<CryptoPriceSummary> actual = repository.getRangeSummary("BTC", from, to);
+            assertEquals(expected.isPresent(), actual.isPresent(), from + " - " + to);
+            expected.ifPresent(summary -> {
+                assertEquals(summary.firstDateTime(), actual.get().firstDateTime());
+                assertEquals(summary.lastDateTime(), actual.get().lastDateTime());
+                assertEquals(0, summary.first().compareTo(actual.get().first()));
+                assertEquals(0, summary.last().compareTo(actual.get().last()));
+                assertEquals(0, summary.min().compareTo(actual.get().min()));
+                assertEquals(0, summary.max().compareTo(actual.get().max()));
+                assertEquals(summary.count(), actual.get().count());
+            });
+        }
+    }
+
+    @Test
+    void getRangeSummary_shouldNotObserveLaterWritesInEarlierViews() {
+        // Given: a view taken after the first block of prices
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            repository.savePrice("BTC", start.plusMinutes(i), BigDecimal.valueOf(100 + i));
+        }
+        PriceReader before = repository.readView();
+
+        // When: lower and higher prices are appended to the same block of the range tree
+        for (int i = 100; i < 200; i++) {
+            repository.savePrice("BTC", start.plusMinutes(i), BigDecimal.valueOf(i % 2 == 0 ? 1 : 1_000));
+        }
+
+        // Then: the earlier view still sees only its own prices
+        CryptoPriceSummary summary = before.getRangeSummary("BTC", null, null).orElseThrow();
+        assertEquals(100, summary.count());
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(summary.min()));
+        assertEquals(0, BigDecimal.valueOf(199).compareTo(summary.max()));
+        assertEquals(200, repository.getRangeSummary("BTC", null, null).orElseThrow().count());
+    }
+
+    @Test
+    void savePrices_shouldMergeLateArrivalsAcrossChunksWithoutChangingEarlierViews() {
+        // Given: a history spanning more than two chunks, with a view taken before the late prices
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        long startMilli = PriceCodec.toEpochMilli(start);
+        int count = 2 * PriceSeries.CHUNK_SIZE + 100;
+        long[] timestamps = new long[count];
+        long[] prices = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = startMilli + 120_000L * i;
+            prices[i] = PriceCodec.encodePrice(BigDecimal.valueOf(1_000 + i % 500));
+        }
+        repository.savePrices("BTC", timestamps, prices);
+        PriceReader before = repository.readView();
+        CryptoPriceSummary all = before.getRangeSummary("BTC", null, null).orElseThrow();
+
+        // When: a low price arrives late in the last chunk and a high one in the middle of the first chunk
+        int late = count - 50;
+        repository.savePrice("BTC", start.plusMinutes(2L * late - 1), BigDecimal.ONE);
+        repository.savePrice("BTC", start.plusMinutes(101), BigDecimal.valueOf(5_000));
+
+        // Then: both are merged in timestamp order and summarized, while the earlier view is unchanged
+        List<CryptoPrice> merged = repository.getPrices("BTC");
+        assertEquals(count + 2, merged.size());
+        assertEquals(start.plusMinutes(101), merged.get(51).utcDateTime());
+        assertEquals(start.plusMinutes(2L * late - 1), merged.get(late + 1).utcDateTime());
+        CryptoPriceSummary tail = repository.getRangeSummary("BTC", start.plusMinutes(2L * late - 10),
+                start.plusMinutes(2L * late + 10)).orElseThrow();
+        assertEquals(0, BigDecimal.ONE.compareTo(tail.min()));
+        assertEquals(11, tail.count());
+        CryptoPriceSummary head = repository.getRangeSummary("BTC", start, start.plusMinutes(200)).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(5_000).compareTo(head.max()));
+        assertEquals(101, head.count());
+        CryptoPriceSummary unchanged = before.getRangeSummary("BTC", null, null).orElseThrow();
+        assertEquals(count, unchanged.count());
+        assertEquals(0, all.min().compareTo(unchanged.min()));
+        assertEquals(0, all.max().compareTo(unchanged.max()));
+        assertEquals(start.plusMinutes(2L * late), before.getPrices("BTC").get(late).utcDateTime());
+    }
+
+    @Test
+    void getDataVersion_shouldIncreaseWithEveryWrite() {
+        // Given: an empty repository
+        assertEquals(DataVersion.NONE, repository.getDataVersion());
+        assertEquals(DataVersion.NONE, repository.getDataVersion("BTC"));
+
+        // When: prices of two symbols are saved
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100"));
+        DataVersion btc = repository.getDataVersion("BTC");
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 1, 0), new BigDecimal("10"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 2, 0), new BigDecimal("11"));
+        DataVersion eth = repository.getDataVersion("ETH");
+
+        // Then: the global version counts the writes and each symbol keeps the version of its last write
+        assertEquals(3, repository.getDataVersion().version());
+        assertEquals(eth, repository.getDataVersion());
+        assertEquals(1, btc.version());
+        assertEquals(btc, repository.getDataVersion("BTC"));
+        assertTrue(eth.modifiedAt() >= btc.modifiedAt());
+        assertEquals(DataVersion.NONE, repository.getDataVersion("XRP"));
+
+        // Then: a view keeps the version of the state it was taken from
+        PriceReader view = repository.readView();
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 3, 0), new BigDecimal("1"));
+        assertEquals(eth, view.getDataVersion());
+        assertEquals(4, repository.getDataVersion().version());
+    }
+
+    @Test
+    void getFixedPointSummaries_shouldMatchDecodedSummaries() {
+        // Given: prices of two days saved out of order
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        repository.savePrice("BTC", day.atTime(12, 0), new BigDecimal("46810"));
+        repository.savePrice("BTC", day.atTime(6, 0), new BigDecimal("46950"));
+        repository.savePrice("BTC", day.plusDays(1).atTime(1, 0), new BigDecimal("0.5"));
+
+        // When: reading the fixed-point summaries
+        FixedPointSummary summary = repository.getFixedPointSummary("BTC");
+        FixedPointSummary daily = repository.getFixedPointDailySummary("BTC", day).orElseThrow();
+        FixedPointSummary range = repository.getFixedPointRangeSummary("BTC", day.atTime(7, 0), null).orElseThrow();
+
+        // Then: they hold the encoded prices and decode to the decimal summaries
+        assertEquals(new FixedPointSummary(PriceCodec.toEpochMilli(day.atTime(6, 0)), 4_695_000_000_000L,
+                PriceCodec.toEpochMilli(day.plusDays(1).atTime(1, 0)), 50_000_000L,
+                50_000_000L, 4_695_000_000_000L, 3), summary);
+        assertEquals(repository.getSummary("BTC"), summary.toCryptoPriceSummary());
+        assertEquals(repository.getDailySummary("BTC", day), Optional.of(daily.toCryptoPriceSummary()));
+        assertEquals(2, daily.count());
+        assertEquals(repository.getRangeSummary("BTC", day.atTime(7, 0), null),
+                Optional.of(range.toCryptoPriceSummary()));
+        assertEquals(50_000_000L, range.min());
+        assertThrows(CryptoNotFoundException.class, () -> repository.getFixedPointSummary("XRP"));
+    }
+
+    @Test
+    void getFixedPointRollup_shouldAggregateBucketsOfEveryResolution() {
+        // Given: prices on a Sunday and the following Monday, which starts a new ISO week
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 10, 15), new BigDecimal("100"));
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 10, 45), new BigDecimal("120"));
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 2, 9, 0), new BigDecimal("90"));
+        long epochMilli = PriceCodec.toEpochMilli(LocalDateTime.of(2023, 1, 1, 10, 30));
+
+        // When & Then: the hour and day hold the Sunday prices, the month holds all of them
+        FixedPointSummary hour = repository.getFixedPointRollup("BTC", Resolution.HOUR,
+                Resolution.HOUR.bucketOf(epochMilli)).orElseThrow();
+        assertEquals(2, hour.count());
+        assertEquals(PriceCodec.encodePrice(new BigDecimal("120")), hour.max());
+        assertEquals(2, repository.getFixedPointRollup("BTC", Resolution.DAY, Resolution.DAY.bucketOf(epochMilli))
+                .orElseThrow().count());
+        assertEquals(2, repository.getFixedPointRollup("BTC", Resolution.WEEK, Resolution.WEEK.bucketOf(epochMilli))
+                .orElseThrow().count());
+        FixedPointSummary month = repository.getFixedPointRollup("BTC", Resolution.MONTH,
+                Resolution.MONTH.bucketOf(epochMilli)).orElseThrow();
+        assertEquals(3, month.count());
+        assertEquals(PriceCodec.encodePrice(new BigDecimal("90")), month.min());
+        assertTrue(repository.getFixedPointRollup("BTC", Resolution.HOUR, Resolution.HOUR.bucketOf(epochMilli) + 1)
+                .isEmpty());
+        assertTrue(repository.getFixedPointRollup("ETH", Resolution.DAY, 0).isEmpty());
+    }
+
+    @Test
+    void getFixedPointRollups_shouldMatchLookupsOfEachBucket() {
+        // Given: prices on scattered days, written partly out of order, and a reference repository
+        Random random = new Random(11);
+        long startMilli = PriceCodec.toEpochMilli(LocalDateTime.of(2023, 1, 1, 0, 0));
+        PriceRepository reference = new InMemoryPriceRepository();
+        for (int batch = 0; batch < 60; batch++) {
+            long day = random.nextInt(10) == 0 ? random.nextInt(batch + 1) : batch + random.nextInt(3);
+            long timestamp = startMilli + day * 86_400_000L + 60_000L * random.nextInt(1_440);
+            long price = PriceCodec.encodePrice(BigDecimal.valueOf(1 + random.nextInt(100_000), 2));
+            repository.savePrices("BTC", new long[]{timestamp}, new long[]{price});
+            reference.savePrices("BTC", new long[]{timestamp}, new long[]{price});
+        }
+        long firstDay = Resolution.DAY.bucketOf(startMilli);
+
+        // When & Then: every range, including ones beyond the data, equals the lookups of its buckets
+        for (int i = 0; i < 200; i++) {
+            long fromDay = firstDay - 5 + random.nextInt(75);
+            long toDay = fromDay + random.nextInt(40);
+            FixedPointSummary[] rollups = repository.getFixedPointRollups("BTC", Resolution.DAY, fromDay, toDay);
+            assertEquals(toDay - fromDay, rollups.length);
+            for (int day = 0; day < rollups.length; day++) {
+                assertEquals(repository.getFixedPointRollup("BTC", Resolution.DAY, fromDay + day).orElse(null),
+                        rollups[day]);
+            }
+            assertArrayEquals(rollups, reference.getFixedPointRollups("BTC", Resolution.DAY, fromDay, toDay));
+        }
+        assertArrayEquals(new FixedPointSummary[3], repository.getFixedPointRollups("ETH", Resolution.DAY, 0, 3));
+    }
+
+    @Test
+    void getFixedPointPeriodSummary_shouldMatchRangeSummaryForZonedPeriods() {
+        // Given: three months of prices written in batches, partly out of order
+        Random random = new Random(7);
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        long startMilli = PriceCodec.toEpochMilli(start);
+        PriceRepository reference = new InMemoryPriceRepository();
+        for (int batch = 0; batch < 90; batch++) {
+            int length = 1 + random.nextInt(100);
+            long[] timestamps = new long[length];
+            long[] prices = new long[length];
+            for (int i = 0; i < length; i++) {
+                long day = random.nextInt(20) == 0 ? random.nextInt(batch + 1) : batch;
+                timestamps[i] = startMilli + day * 86_400_000L + 60_000L * random.nextInt(1_440);
+                prices[i] = PriceCodec.encodePrice(BigDecimal.valueOf(1 + random.nextInt(100_000), 2));
+            }
+            repository.savePrices("BTC", timestamps, prices);
+            reference.savePrices("BTC", timestamps, prices);
+        }
+        List<ZoneId> zones = List.of(ZoneOffset.UTC, ZoneId.of("Europe/Budapest"), ZoneId.of("Asia/Kolkata"),
+                ZoneId.of("Asia/Kathmandu"), ZoneId.of("America/New_York"));
+
+        // When & Then: the period combined from rollups equals the range summary of the same prices
+        for (int i = 0; i < 400; i++) {
+            Resolution resolution = Resolution.values()[i % Resolution.values().length];
+            LocalDateTime periodStart = resolution.truncate(start.plusMinutes(random.nextInt(100 * 1_440) - 1_440));
+            ZoneId zone = zones.get(random.nextInt(zones.size()));
+            LocalDateTime from = LocalDateTime.ofInstant(periodStart.atZone(zone).toInstant(), ZoneOffset.UTC);
+            LocalDateTime to = LocalDateTime.ofInstant(resolution.next(periodStart).atZone(zone).toInstant(),
+                    ZoneOffset.UTC);
+            Optional<FixedPointSummary> expected = repository.getFixedPointRangeSummary("BTC", from, to);
+            assertEquals(expected, repository.getFixedPointPeriodSummary("BTC", from, to), from + " - " + to);
+            assertEquals(expected, reference.getFixedPointPeriodSummary("BTC", from, to), from + " - " + to);
+        }
+        assertThrows(CryptoNotFoundException.class,
+                () -> repository.getFixedPointPeriodSummary("ETH", start, start.plusDays(1)));
+    }
+
+    private static PriceBatch batch(String symbol, long epochMilli, BigDecimal price) {
+        return new PriceBatch(symbol, new long[]{epochMilli}, new long[]{PriceCodec.encodePrice(price)});
+    }
+}
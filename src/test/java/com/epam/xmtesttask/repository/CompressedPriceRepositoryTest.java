@@ -0,0 +1,94 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedPriceRepositoryTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_640_995_200_000L;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompressedPriceRepository repository;
+    private ColumnarPriceRepository expected;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new CompressedPriceRepository();
+        ReflectionTestUtils.setField(repository, "meterRegistry", meterRegistry);
+        repository.registerMetrics();
+        expected = new ColumnarPriceRepository();
+    }
+
+    @Test
+    void savePrice_shouldAppendSinglePricesAcrossBlocks() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        int count = 3 * CompressedPriceSeries.BLOCK_SIZE + 5;
+
+        // When: prices are saved one by one, as CSVPriceLoader does in sequential mode
+        for (int i = 0; i < count; i++) {
+            BigDecimal price = BigDecimal.valueOf(46_000 + i * 7 % 100);
+            repository.savePrice("ETH", start.plusHours(i), price);
+            expected.savePrice("ETH", start.plusHours(i), price);
+        }
+
+        // Then
+        assertEquals(expected.getPrices("ETH"), repository.getPrices("ETH"));
+        assertEquals(expected.getSummary("ETH"), repository.getSummary("ETH"));
+        assertEquals(expected.getDailySummary("ETH", LocalDate.of(2022, 1, 20)),
+                repository.getDailySummary("ETH", LocalDate.of(2022, 1, 20)));
+        assertEquals(count, meterRegistry.get("price.compressed.prices").gauge().value());
+    }
+
+    @Test
+    void readView_shouldNotObserveLaterWrites() {
+        // Given: a view of a series whose tail is shared with later states
+        repository.savePrices("BTC", new long[]{START, START + HOUR}, new long[]{1, 2});
+        PriceReader view = repository.readView();
+
+        // When: appending in order and then out of order
+        repository.savePrices("BTC", new long[]{START + 2 * HOUR}, new long[]{3});
+        repository.savePrices("BTC", new long[]{START - HOUR}, new long[]{4});
+
+        // Then
+        assertEquals(2, view.getPrices("BTC").size());
+        assertEquals(2, view.getFixedPointSummary("BTC").max());
+        assertEquals(4, repository.getPrices("BTC").size());
+        assertEquals(START - HOUR, repository.getFixedPointSummary("BTC").firstEpochMilli());
+    }
+
+    @Test
+    void savePrices_shouldStoreHourlyRoundedPricesInUnderThreeBytesEach() {
+        // Given: a year of hourly prices following a random walk, rounded to four significant digits like the CSV
+        Random random = new Random(7);
+        int count = 24 * 365;
+        long[] timestamps = new long[count];
+        long[] prices = new long[count];
+        double price = 40_000;
+        for (int i = 0; i < count; i++) {
+            price *= 1 + random.nextGaussian() * 0.005;
+            timestamps[i] = START + i * HOUR;
+            prices[i] = PriceCodec.encodePrice(new BigDecimal(price, new MathContext(4)));
+        }
+
+        // When
+        repository.savePrices("BTC", timestamps, prices);
+
+        // Then: at least five times less than the 16 bytes per price of the columnar repository
+        double bytesPerPrice = meterRegistry.get("price.compressed.bytes").gauge().value() / count;
+        assertTrue(bytesPerPrice < 3.2, "bytes per price: " + bytesPerPrice);
+        assertEquals(prices[count - 1], repository.getFixedPointSummary("BTC").last());
+    }
+}
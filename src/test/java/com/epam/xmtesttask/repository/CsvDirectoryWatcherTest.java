@@ -0,0 +1,170 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class CsvDirectoryWatcherTest {
+
+    private static final String HEADER = "timestamp,symbol,price\n";
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private CSVPriceLoader csvPriceLoader;
+
+    private ColumnarPriceRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private CsvDirectoryWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        repository = new ColumnarPriceRepository();
+        meterRegistry = new SimpleMeterRegistry();
+        watcher = new CsvDirectoryWatcher();
+        ReflectionTestUtils.setField(watcher, "priceRepository", repository);
+        ReflectionTestUtils.setField(watcher, "csvPriceLoader", csvPriceLoader);
+        ReflectionTestUtils.setField(watcher, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(watcher, "directory", directory.toString());
+        ReflectionTestUtils.setField(watcher, "rescanInterval", Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (ReflectionTestUtils.getField(watcher, "watcher") != null) {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void start_shouldIngestLinesAppendedAfterLoadedOffsetOnce() throws Exception {
+        // Given: a file the loader read up to the end of its first row
+        Path file = directory.resolve("BTC_values.csv");
+        String loaded = HEADER + "1641009600000,BTC,46813.21\n";
+        Files.writeString(file, loaded + "1641020400000,BTC,46979.61\n");
+        when(csvPriceLoader.getLoadedOffsets()).thenReturn(Map.of(file, (long) loaded.length()));
+
+        // When: the watcher starts, then a complete and an incomplete line are appended
+        watcher.start();
+        awaitTrue(() -> repository.isSupported("BTC") && repository.getPrices("BTC").size() == 1);
+        append(file, "1641031200000,BTC,47000\n1641042000000,BTC,47");
+
+        // Then: only the lines after the offset are ingested, the incomplete one once it is completed
+        awaitTrue(() -> repository.getPrices("BTC").size() == 2);
+        append(file, "100\n");
+        awaitTrue(() -> repository.getPrices("BTC").size() == 3);
+        assertEquals(1641042000000L, PriceCodec.toEpochMilli(repository.getPrices("BTC").get(2).utcDateTime()));
+        assertEquals(3, meterRegistry.get("price.watcher.rows").tag("outcome", "loaded").counter().count());
+    }
+
+    @Test
+    void start_shouldIngestFilesOfNewSymbolsFromTheirStart() throws Exception {
+        // Given: a watcher over an empty directory
+        when(csvPriceLoader.getLoadedOffsets()).thenReturn(Map.of());
+        watcher.start();
+
+        // When: a file of a new symbol is created
+        Files.writeString(directory.resolve("SOL_values.csv"), HEADER + "1641009600000,SOL,170.1\n");
+
+        // Then: its prices are ingested without treating the header as a row
+        awaitTrue(() -> repository.isSupported("SOL"));
+        assertEquals(1, repository.getPrices("SOL").size());
+        assertEquals(0, meterRegistry.get("price.watcher.rows").tag("outcome", "rejected").counter().count());
+        assertEquals(1, meterRegistry.get("price.watcher.ingest.lag").timer().count());
+    }
+
+    @Test
+    void start_shouldStopFollowingFilesThatShrink() throws Exception {
+        // Given: a followed file whose rows were ingested
+        Path file = directory.resolve("BTC_values.csv");
+        when(csvPriceLoader.getLoadedOffsets()).thenReturn(Map.of());
+        Files.writeString(file, HEADER + "1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n");
+        watcher.start();
+        awaitTrue(() -> repository.isSupported("BTC") && repository.getPrices("BTC").size() == 2);
+
+        // When: the file is rewritten with fewer rows, then a new symbol's file is created
+        Files.writeString(file, HEADER + "1641009600000,BTC,46813.21\n");
+        Thread.sleep(300);
+        append(file, "1641031200000,BTC,47000\n1641042000000,BTC,47100\n1641052800000,BTC,47200\n");
+        Files.writeString(directory.resolve("SOL_values.csv"), HEADER + "1641009600000,SOL,170.1\n");
+
+        // Then: the rewritten file is no longer ingested, so no price is saved twice
+        awaitTrue(() -> repository.isSupported("SOL"));
+        assertEquals(2, repository.getPrices("BTC").size());
+        assertEquals(1.0, meterRegistry.get("price.watcher.files").gauge().value());
+    }
+
+    @Test
+    void start_shouldStopFollowingFilesWhosePricesWereOnlyPartlySaved() throws Exception {
+        // Given: a repository that accepts the first batch of a write and then fails
+        AtomicBoolean failed = new AtomicBoolean();
+        ColumnarPriceRepository failing = new ColumnarPriceRepository() {
+            @Override
+            public void savePrices(List<PriceBatch> batches) {
+                if (failed.compareAndSet(false, true)) {
+                    PriceBatch first = batches.getFirst();
+                    savePrices(first.symbol(), first.timestamps(), first.prices());
+                    throw new IllegalStateException("failed after the first batch");
+                }
+                super.savePrices(batches);
+            }
+        };
+        ReflectionTestUtils.setField(watcher, "priceRepository", failing);
+        when(csvPriceLoader.getLoadedOffsets()).thenReturn(Map.of());
+        Path file = directory.resolve("MIXED_values.csv");
+        Files.writeString(file, HEADER + "1641009600000,BTC,46813.21\n1641009600000,ETH,3715.32\n");
+        watcher.start();
+        awaitTrue(failed::get);
+
+        // When: more lines are appended, then a new symbol's file is created
+        Thread.sleep(300);
+        append(file, "1641020400000,BTC,46979.61\n");
+        Files.writeString(directory.resolve("SOL_values.csv"), HEADER + "1641009600000,SOL,170.1\n");
+
+        // Then: the file is not read again, so the accepted price is not saved twice
+        awaitTrue(() -> failing.isSupported("SOL"));
+        assertEquals(1, failing.getPrices("BTC").size());
+        assertFalse(failing.isSupported("ETH"));
+    }
+
+    @Test
+    void start_shouldRequireDirectory() {
+        // Given
+        ReflectionTestUtils.setField(watcher, "directory", "");
+
+        // When & Then
+        assertThrows(IllegalStateException.class, watcher::start);
+    }
+
+    private static void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardOpenOption.APPEND);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 10 seconds");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.epam.xmtesttask.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvPriceParserTest {
+
+    @Test
+    void parse_shouldGroupRowsBySymbolAndSkipHeader() {
+        // Given: CSV content with a header, CRLF line ends and two symbols
+        String csv = "timestamp,symbol,price\r\n"
+                + "1641009600000,BTC,46813.21\r\n"
+                + "1641020400000,BTC,46979.61\r\n"
+                + "1641009600000,ETH,3715.32\r\n";
+
+        // When: parsing the content
+        CsvPriceParser.Result result = CsvPriceParser.parse(buffer(csv));
+
+        // Then: rows are grouped by symbol with fixed-point prices
+        assertEquals(3, result.rows());
+        assertEquals(0, result.rejected());
+        assertEquals(2, result.series().size());
+        CsvPriceParser.ParsedSeries btc = result.series().get(0);
+        assertEquals("BTC", btc.symbol());
+        assertArrayEquals(new long[]{1641009600000L, 1641020400000L}, btc.timestamps());
+        assertArrayEquals(new long[]{4_681_000_000_000L, 4_698_000_000_000L}, btc.prices());
+        assertEquals("ETH", result.series().get(1).symbol());
+    }
+
+    @Test
+    void parse_shouldCountMalformedLinesAndIgnoreBlankLines() {
+        // Given: CSV content with malformed and blank lines and no trailing line feed
+        String csv = "timestamp,symbol,price\n"
+                + "1641009600000,BTC,46813.21\n"
+                + "\n"
+                + "not-a-timestamp,BTC,1\n"
+                + "1641009600000,BTC\n"
+                + "1641009600000,,1\n"
+                + "1641009600000,BTC,1.2.3\n"
+                + "1641020400000,BTC,46979.61";
+
+        // When: parsing the content
+        CsvPriceParser.Result result = CsvPriceParser.parse(buffer(csv));
+
+        // Then: valid rows are kept and malformed lines are counted
+        assertEquals(2, result.rows());
+        assertEquals(4, result.rejected());
+        assertEquals(4, result.firstRejectedLine());
+    }
+
+    @Test
+    void parse_shouldReadMemoryMappedFile(@TempDir Path directory) throws IOException {
+        // Given: a CSV file
+        Path file = directory.resolve("XRP_values.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,XRP,0.8298\n");
+
+        // When: parsing the file
+        CsvPriceParser.Result result = CsvPriceParser.parse(file);
+
+        // Then: the row is parsed
+        assertEquals(1, result.rows());
+        assertArrayEquals(new long[]{82_980_000L}, result.series().getFirst().prices());
+    }
+
+    @Test
+    void parse_shouldContinueFromOffsetWithCompleteLinesOnly(@TempDir Path directory) throws IOException {
+        // Given: a file whose last line is still being written
+        Path file = directory.resolve("XRP_values.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,XRP,0.8298\n1641020400000,XRP,0.8");
+
+        // When: parsing it, then parsing again from the end of the first result after the line is completed
+        CsvPriceParser.Result first = CsvPriceParser.parse(file, 0, true);
+        Files.writeString(file, "3\n1641031200000,XRP,0.84\n", StandardOpenOption.APPEND);
+        CsvPriceParser.Result second = CsvPriceParser.parse(file, first.end(), true);
+
+        // Then: each row is parsed exactly once, and no appended line is taken for a header
+        assertEquals(1, first.rows());
+        assertEquals("timestamp,symbol,price\n1641009600000,XRP,0.8298\n".length(), first.end());
+        assertEquals(2, second.rows());
+        assertArrayEquals(new long[]{1641020400000L, 1641031200000L}, second.series().getFirst().timestamps());
+        assertArrayEquals(new long[]{83_000_000L, 84_000_000L}, second.series().getFirst().prices());
+        assertEquals(Files.size(file), second.end());
+    }
+
+    @Test
+    void parseLines_shouldStopAtLastCompleteLineUnlessEndOfInput() {
+        // Given: a window that ends in the middle of a line
+        CsvPriceParser parser = new CsvPriceParser();
+        ByteBuffer window = buffer("timestamp,symbol,price\n1641009600000,BTC,1\n1641020400000,BT");
+
+        // When: parsing the window
+        int consumed = parser.parseLines(window, false);
+
+        // Then: only complete lines are consumed
+        assertEquals("timestamp,symbol,price\n1641009600000,BTC,1\n".length(), consumed);
+        assertEquals(1, parser.result(consumed).rows());
+    }
+
+    @Test
+    void parsePrice_shouldMatchBigDecimalWithFourSignificantDigits() {
+        // Given: prices covering rounding, carries, leading zeros and tiny values
+        String[] prices = {"46813.21", "46815.5", "9999.5", "0.00001234", "0.000000004", "0.000000005",
+                "0.0000000049999", "0", "0.000", "-12.345", "+7", "1", "100", "3715.32", "0.8298", "0.1999999",
+                "123456789", "12.35", "12.25", ".5", "5."};
+
+        for (String price : prices) {
+            // When: parsing the price
+            long parsed = CsvPriceParser.parsePrice(buffer(price), 0, price.length());
+
+            // Then: it equals the BigDecimal reference used by the sequential loader
+            assertEquals(PriceCodec.encodePrice(new BigDecimal(price, new MathContext(4))), parsed, price);
+        }
+    }
+
+    @Test
+    void parsePrice_shouldMatchBigDecimalForRandomPrices() {
+        // Given: random prices with varying integer and fraction digits
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            String integerPart = Long.toString(Math.abs(random.nextLong()) % 1_000_000_000L);
+            String fractionPart = Long.toString(Math.abs(random.nextLong()) % 1_000_000_000_000L);
+            String price = random.nextBoolean() ? integerPart + "." + fractionPart : "0.0000" + fractionPart;
+
+            // When & Then: the parser agrees with the BigDecimal reference
+            long expected = PriceCodec.encodePrice(new BigDecimal(price, new MathContext(4)));
+            assertEquals(expected, CsvPriceParser.parsePrice(buffer(price), 0, price.length()), price);
+        }
+    }
+
+    @Test
+    void parsePrice_shouldRejectInvalidInput() {
+        // Given: values that are not plain decimal numbers
+        String[] invalid = {"", "-", "abc", "1e5", "1,5", "."};
+
+        for (String price : invalid) {
+            // When & Then: parsing should fail
+            assertThrows(NumberFormatException.class,
+                    () -> CsvPriceParser.parsePrice(buffer(price), 0, price.length()), price);
+        }
+    }
+
+    @Test
+    void parsePrice_shouldRejectOverflow() {
+        // Given: a price too large for the fixed-point representation
+        String price = "99999999999999";
+
+        // When & Then: parsing should fail
+        assertThrows(ArithmeticException.class, () -> CsvPriceParser.parsePrice(buffer(price), 0, price.length()));
+    }
+
+    @Test
+    void parse_shouldReadFilesOfJarFileSystem(@TempDir Path directory) throws IOException {
+        // Given: a CSV file in a jar, which cannot be memory-mapped
+        String loaded = "timestamp,symbol,price\n1641009600000,BTC,46813.21\n";
+        try (FileSystem jar = FileSystems.newFileSystem(directory.resolve("prices.jar"), Map.of("create", "true"))) {
+            Path file = jar.getPath("BTC_values.csv");
+            Files.writeString(file, loaded + "1641020400000,BTC,46979.61\n1641031200000,BTC,47");
+
+            // When: the file is parsed from its start, and from the end of its first row to its last line feed
+            CsvPriceParser.Result all = CsvPriceParser.parse(file);
+            CsvPriceParser.Result appended = CsvPriceParser.parse(file, loaded.length(), true);
+
+            // Then
+            assertEquals(3, all.rows());
+            assertEquals(1, appended.rows());
+            assertArrayEquals(new long[]{1641020400000L}, appended.series().getFirst().timestamps());
+            assertEquals(loaded.length() + "1641020400000,BTC,46979.61\n".length(), appended.end());
+        }
+    }
+
+    private static ByteBuffer buffer(String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,13 +1,16 @@
 package com.epam.xmtesttask.repository;
 
 import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
 import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -103,4 +106,170 @@ class InMemoryPriceRepositoryTest {
         // When & Then: requesting prices should throw CryptoNotFoundException
         assertThrows(CryptoNotFoundException.class, () -> repository.getPrices("LTC"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDailySummary_shouldAggregatePricesOfTheDay() {
+        // Given: prices on two days, one of them saved out of order
+        LocalDate day = LocalDate.of(2023, 1, 1);
+        repository.savePrice("BTC", day.atTime(10, 0), new BigDecimal("120"));
+        repository.savePrice("BTC", day.atTime(8, 0), new BigDecimal("100"));
+        repository.savePrice("BTC", day.atTime(12, 0), new BigDecimal("90"));
+        repository.savePrice("BTC", day.atTime(23, 59), new BigDecimal("110"));
+        repository.savePrice("BTC", day.plusDays(1).atStartOfDay(), new BigDecimal("500"));
+
+        // When: retrieving the summary of the first day
+        Optional<CryptoPriceSummary> summary = repository.getDailySummary("BTC", day);
+
+        // Then: the summary covers only that day, ordered by timestamp
+        assertTrue(summary.isPresent());
+        assertEquals(day.atTime(8, 0), summary.get().firstDateTime());
+        assertEquals(0, new BigDecimal("100").compareTo(summary.get().first()));
+        assertEquals(0, new BigDecimal("110").compareTo(summary.get().last()));
+        assertEquals(0, new BigDecimal("90").compareTo(summary.get().min()));
+        assertEquals(0, new BigDecimal("120").compareTo(summary.get().max()));
+        assertEquals(4, summary.get().count());
+    }
+
+    @Test
+    void getFixedPointRollup_shouldAggregatePricesOfTheBucket() {
+        // Given: prices in two hours of a week, saved out of order
+        LocalDate monday = LocalDate.of(2023, 1, 2);
+        repository.savePrice("BTC", monday.atTime(10, 30), new BigDecimal("120"));
+        repository.savePrice("BTC", monday.atTime(10, 5), new BigDecimal("100"));
+        repository.savePrice("BTC", monday.plusDays(6).atTime(23, 0), new BigDecimal("80"));
+        long epochMilli = PriceCodec.toEpochMilli(monday.atTime(10, 0));
+
+        // When: retrieving the rollups of the hour and the week
+        FixedPointSummary hour = repository.getFixedPointRollup("BTC", Resolution.HOUR,
+                Resolution.HOUR.bucketOf(epochMilli)).orElseThrow();
+        FixedPointSummary week = repository.getFixedPointRollup("BTC", Resolution.WEEK,
+                Resolution.WEEK.bucketOf(epochMilli)).orElseThrow();
+
+        // Then: each rollup covers only its bucket, ordered by timestamp
+        assertEquals(PriceCodec.toEpochMilli(monday.atTime(10, 5)), hour.firstEpochMilli());
+        assertEquals(PriceCodec.encodePrice(new BigDecimal("120")), hour.last());
+        assertEquals(2, hour.count());
+        assertEquals(PriceCodec.encodePrice(new BigDecimal("80")), week.min());
+        assertEquals(3, week.count());
+        assertTrue(repository.getFixedPointRollup("ETH", Resolution.HOUR, 0).isEmpty());
+    }
+
+    @Test
+    void getDailySummary_shouldReturnEmptyIfNoPricesOnDay() {
+        // Given: a price on another day
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("100"));
+
+        // When & Then: days without prices and unknown symbols have no summary
+        assertTrue(repository.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).isEmpty());
+        assertTrue(repository.getDailySummary("ETH", LocalDate.of(2023, 1, 2)).isEmpty());
+    }
+
+    @Test
+    void getSummary_shouldTrackAllTimeStatsWithOutOfOrderTimestamps() {
+        // Given: prices saved out of chronological order
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("200"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 5, 0, 0), new BigDecimal("250"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("180"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 3, 0, 0), new BigDecimal("300"));
+
+        // When: retrieving the all-time summary
+        CryptoPriceSummary summary = repository.getSummary("ETH");
+
+        // Then: oldest and newest follow the timestamps, not the insertion order
+        assertEquals(0, new BigDecimal("180").compareTo(summary.first()));
+        assertEquals(0, new BigDecimal("250").compareTo(summary.last()));
+        assertEquals(0, new BigDecimal("180").compareTo(summary.min()));
+        assertEquals(0, new BigDecimal("300").compareTo(summary.max()));
+        assertEquals(4, summary.count());
+    }
+
+    @Test
+    void getSummary_shouldThrowExceptionIfSymbolNotSupported() {
+        // Given: a symbol that has not been added
+
+        // When & Then: requesting the summary should throw CryptoNotFoundException
+        assertThrows(CryptoNotFoundException.class, () -> repository.getSummary("UNKNOWN"));
+    }
+
+    @Test
+    void savePrices_shouldAppendBatchAndUpdateSummaries() {
+        // Given: a batch spanning two UTC days
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 22, 0);
+        long[] timestamps = {
+                PriceCodec.toEpochMilli(start),
+                PriceCodec.toEpochMilli(start.plusHours(1)),
+                PriceCodec.toEpochMilli(start.plusHours(2))
+        };
+        long[] prices = {
+                PriceCodec.encodePrice(new BigDecimal("10")),
+                PriceCodec.encodePrice(new BigDecimal("12")),
+                PriceCodec.encodePrice(new BigDecimal("11"))
+        };
+
+        // When: saving the batch
+        repository.savePrices("BTC", timestamps, prices);
+
+        // Then: prices and summaries reflect the batch
+        List<CryptoPrice> saved = repository.getPrices("BTC");
+        assertEquals(3, saved.size());
+        assertEquals(start.plusHours(2), saved.get(2).utcDateTime());
+        assertEquals(0, new BigDecimal("11").compareTo(saved.get(2).price()));
+        assertEquals(0, new BigDecimal("12").compareTo(repository.getSummary("BTC").max()));
+        assertEquals(2, repository.getDailySummary("BTC", LocalDate.of(2023, 1, 1)).orElseThrow().count());
+        assertEquals(1, repository.getDailySummary("BTC", LocalDate.of(2023, 1, 2)).orElseThrow().count());
+    }
+
+    @Test
+    void savePrices_shouldRejectArraysOfDifferentLength() {
+        // Given: arrays of different length
+
+        // When & Then: saving should throw IllegalArgumentException
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.savePrices("BTC", new long[]{1L, 2L}, new long[]{1L}));
+    }
+
+    @Test
+    void getRangeSummary_shouldAggregatePricesInRange() {
+        // Given: prices on four consecutive hours
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        repository.savePrice("BTC", start, new BigDecimal("100"));
+        repository.savePrice("BTC", start.plusHours(1), new BigDecimal("90"));
+        repository.savePrice("BTC", start.plusHours(2), new BigDecimal("120"));
+        repository.savePrice("BTC", start.plusHours(3), new BigDecimal("80"));
+
+        // When: summarizing the second and third hour
+        CryptoPriceSummary summary = repository.getRangeSummary("BTC", start.plusHours(1), start.plusHours(3))
+                .orElseThrow();
+
+        // Then: the upper bound is excluded
+        assertEquals(new BigDecimal("90"), summary.first());
+        assertEquals(new BigDecimal("120"), summary.last());
+        assertEquals(new BigDecimal("90"), summary.min());
+        assertEquals(new BigDecimal("120"), summary.max());
+        assertEquals(2, summary.count());
+        assertTrue(repository.getRangeSummary("BTC", start.plusHours(4), null).isEmpty());
+        assertThrows(CryptoNotFoundException.class, () -> repository.getRangeSummary("ETH", null, null));
+    }
+
+    @Test
+    void getDataVersion_shouldIncreaseWithEveryWrite() {
+        // Given: an empty repository
+        assertEquals(DataVersion.NONE, repository.getDataVersion());
+        assertEquals(DataVersion.NONE, repository.getDataVersion("BTC"));
+
+        // When: prices of two symbols are saved
+        repository.savePrice("BTC", LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100"));
+        DataVersion btc = repository.getDataVersion("BTC");
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 1, 0), new BigDecimal("10"));
+        repository.savePrice("ETH", LocalDateTime.of(2023, 1, 1, 2, 0), new BigDecimal("11"));
+        DataVersion eth = repository.getDataVersion("ETH");
+
+        // Then: the global version counts the writes and each symbol keeps the version of its last write
+        assertEquals(3, repository.getDataVersion().version());
+        assertEquals(eth, repository.getDataVersion());
+        assertEquals(1, btc.version());
+        assertEquals(btc, repository.getDataVersion("BTC"));
+        assertTrue(eth.modifiedAt() >= btc.modifiedAt());
+        assertEquals(DataVersion.NONE, repository.getDataVersion("XRP"));
+    }
+}
@@ -0,0 +1,212 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyPriceRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LazyPriceRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new LazyPriceRepository();
+        ReflectionTestUtils.setField(repository, "meterRegistry", meterRegistry);
+        repository.registerMetrics();
+        repository.index(Map.of(
+                "BTC", file("BTC", "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n"),
+                "ETH", file("ETH", "timestamp,symbol,price\n1641009600000,ETH,3715.32\n")));
+    }
+
+    @Test
+    void index_shouldRegisterSymbolsWithoutLoadingThem() {
+        // When & Then
+        assertTrue(repository.getDataVersion().version() > 0);
+        assertEquals(repository.getDataVersion(), repository.getDataVersion("BTC"));
+        assertEquals(0, loads());
+        assertTrue(repository.isSupported("BTC"));
+        assertFalse(repository.isSupported("XRP"));
+        assertEquals(1, loads());
+        assertEquals(Set.of("BTC", "ETH"), repository.getSupportedCryptos());
+        assertEquals(2, loads());
+    }
+
+    @Test
+    void getSupportedCryptos_shouldLeaveOutFilesWithoutPricesOfTheirSymbol() throws IOException {
+        // Given: a header-only file and a misnamed file
+        repository.index(Map.of(
+                "SOL", file("SOL", "timestamp,symbol,price\n"),
+                "XRP", file("XRP", "timestamp,symbol,price\n1641009600000,DOGE,0.17\n")));
+
+        // When & Then: neither symbol is supported, so reads over all symbols do not fail on them
+        assertEquals(Set.of("BTC", "ETH"), repository.getSupportedCryptos());
+        assertFalse(repository.isSupported("SOL"));
+        assertFalse(repository.isSupported("XRP"));
+        assertThrows(CryptoNotFoundException.class, () -> repository.getFixedPointSummary("SOL"));
+        for (String symbol : repository.getSupportedCryptos()) {
+            assertNotNull(repository.getFixedPointSummary(symbol));
+        }
+    }
+
+    @Test
+    void getCryptosChangedAfter_shouldReturnWrittenAndIndexedSymbolsWithPrices() throws IOException {
+        // Given
+        long indexed = repository.getDataVersion().version();
+        repository.savePrice("ETH", LocalDateTime.of(2022, 1, 2, 0, 0), new BigDecimal("3800"));
+        long written = repository.getDataVersion().version();
+        repository.index(Map.of(
+                "SOL", file("SOL", "timestamp,symbol,price\n"),
+                "XRP", file("XRP", "timestamp,symbol,price\n1641009600000,XRP,0.83\n")));
+
+        // When & Then: the header-only file is left out
+        assertEquals(Set.of("BTC", "ETH", "XRP"), repository.getCryptosChangedAfter(0));
+        assertEquals(Set.of("ETH", "XRP"), repository.getCryptosChangedAfter(indexed));
+        assertEquals(Set.of("XRP"), repository.getCryptosChangedAfter(written));
+        assertEquals(Set.of(), repository.getCryptosChangedAfter(repository.getDataVersion().version()));
+    }
+
+    @Test
+    void getPrices_shouldLoadSeriesOnFirstAccessOnly() {
+        // When
+        var prices = repository.getPrices("BTC");
+        var summary = repository.getSummary("BTC");
+
+        // Then: one load, with the same results as the columnar repository given prices rounded like the CSV
+        ColumnarPriceRepository expected = new ColumnarPriceRepository();
+        expected.savePrice("BTC", LocalDateTime.of(2022, 1, 1, 4, 0), new BigDecimal("46813.21", new MathContext(4)));
+        expected.savePrice("BTC", LocalDateTime.of(2022, 1, 1, 7, 0), new BigDecimal("46979.61", new MathContext(4)));
+        assertEquals(1, loads());
+        assertEquals(expected.getPrices("BTC"), prices);
+        assertEquals(expected.getSummary("BTC"), summary);
+        assertEquals(1, meterRegistry.get("price.lazy.series.loaded").gauge().value());
+        assertThrows(CryptoNotFoundException.class, () -> repository.getPrices("XRP"));
+    }
+
+    @Test
+    void getPrices_shouldShareOneLoadBetweenConcurrentReaders() throws Exception {
+        // Given
+        int readers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> sizes = new ArrayList<>();
+
+        // When: readers request the same cold series at once
+        try (ExecutorService executor = Executors.newFixedThreadPool(readers)) {
+            for (int i = 0; i < readers; i++) {
+                sizes.add(executor.submit(() -> {
+                    start.await();
+                    return repository.getPrices("BTC").size();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> size : sizes) {
+                assertEquals(2, size.get());
+            }
+        }
+
+        // Then
+        assertEquals(1, loads());
+    }
+
+    @Test
+    void releaseLoadedSeries_shouldLoadAgainOnNextAccessWithoutChangingVersion() {
+        // Given
+        repository.getPrices("BTC");
+        DataVersion version = repository.getDataVersion();
+
+        // When
+        repository.releaseLoadedSeries();
+
+        // Then
+        assertEquals(0, meterRegistry.get("price.lazy.series.loaded").gauge().value());
+        assertEquals(2, repository.getPrices("BTC").size());
+        assertEquals(2, loads());
+        assertEquals(version, repository.getDataVersion());
+    }
+
+    @Test
+    void savePrices_shouldKeepWrittenSeriesAcrossRelease() throws IOException {
+        // Given: a write to an indexed symbol and a new one, and a row appended to the file after indexing
+        repository.savePrice("ETH", LocalDateTime.of(2022, 1, 2, 0, 0), new BigDecimal("3800"));
+        repository.savePrice("SOL", LocalDateTime.of(2022, 1, 2, 0, 0), new BigDecimal("170"));
+        Files.writeString(directory.resolve("BTC_values.csv"), "1641031200000,BTC,1\n", StandardOpenOption.APPEND);
+
+        // When
+        repository.releaseLoadedSeries();
+
+        // Then: the file's prices and the written ones are kept; the row appended to the file is not loaded
+        assertEquals(2, repository.getPrices("ETH").size());
+        assertEquals(0, new BigDecimal("3800").compareTo(repository.getSummary("ETH").max()));
+        assertEquals(Set.of("BTC", "ETH", "SOL"), repository.getSupportedCryptos());
+        assertEquals(1, repository.getPrices("SOL").size());
+        assertEquals(2, repository.getPrices("BTC").size());
+        assertTrue(repository.getDataVersion("ETH").version() > repository.getDataVersion("BTC").version());
+    }
+
+    @Test
+    void savePrices_shouldKeepSeriesOnEmptyBatch() {
+        // When
+        repository.savePrices("ETH", new long[0], new long[0]);
+
+        // Then
+        assertEquals(1, repository.getPrices("ETH").size());
+        assertEquals(Set.of("BTC", "ETH"), repository.getSupportedCryptos());
+    }
+
+    @Test
+    void savePrices_shouldLoadSeriesWithoutHoldingWriteLock() throws Exception {
+        // Given: the write lock is held, as by another writer
+        Object writeLock = ReflectionTestUtils.getField(repository, "writeLock");
+        Thread writer;
+        synchronized (writeLock) {
+            // When: a price of a symbol that is not loaded is saved
+            writer = Thread.ofPlatform().start(() ->
+                    repository.savePrice("ETH", LocalDateTime.of(2022, 1, 2, 0, 0), new BigDecimal("3800")));
+
+            // Then: the file is parsed while the writer waits for the lock
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (loads() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, loads());
+        }
+        writer.join();
+        assertEquals(2, repository.getPrices("ETH").size());
+        assertEquals(1, loads());
+    }
+
+    private LazyPriceRepository.CsvFile file(String symbol, String content) throws IOException {
+        Path file = directory.resolve(symbol + "_values.csv");
+        Files.writeString(file, content);
+        return new LazyPriceRepository.CsvFile(file, Files.size(file));
+    }
+
+    private long loads() {
+        return meterRegistry.get("price.lazy.load.duration").timer().count();
+    }
+}
@@ -0,0 +1,83 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapPriceRepositoryTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_640_995_200_000L;
+
+    @TempDir
+    private Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @Test
+    void savePrices_shouldMergeLateArrivalsAcrossChunksOfMappedFiles() throws IOException {
+        // Given: a series of mapped chunks that spans more than two chunks
+        OffHeapPriceRepository repository = repository(directory.toString());
+        int count = 2 * OffHeapPriceSeries.CHUNK_SIZE + 10;
+        long[] timestamps = new long[count];
+        long[] prices = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = START + 2 * i * HOUR;
+            prices[i] = 1_000 + i;
+        }
+        repository.savePrices("ETH", timestamps, prices);
+        PriceReader view = repository.readView();
+
+        // When: a price between the first two is saved
+        repository.savePrice("ETH", PriceCodec.toUtcDateTime(START + HOUR), BigDecimal.ONE);
+
+        // Then: it is merged in place while the earlier view is unchanged, and no backing file is left behind
+        assertEquals(count + 1, repository.getPrices("ETH").size());
+        assertEquals(PriceCodec.toUtcDateTime(START + HOUR), repository.getPrices("ETH").get(1).utcDateTime());
+        assertEquals(PriceCodec.toUtcDateTime(timestamps[count - 1]),
+                repository.getPrices("ETH").getLast().utcDateTime());
+        assertEquals(count, view.getPrices("ETH").size());
+        assertEquals(PriceCodec.toUtcDateTime(START + 2 * HOUR), view.getPrices("ETH").get(1).utcDateTime());
+        assertEquals(0, BigDecimal.ONE.compareTo(repository.getPrices("ETH").get(1).price()));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void savePrice_shouldGrowFirstChunkAndReportAllocatedMemory() {
+        // Given
+        OffHeapPriceRepository repository = repository("");
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+        // When: prices are saved one by one, as CSVPriceLoader does in sequential mode
+        for (int i = 0; i < 1000; i++) {
+            repository.savePrice("SOL", start.plusHours(i), BigDecimal.valueOf(100 + i % 7));
+        }
+
+        // Then: the first chunk has grown to hold every price
+        assertEquals(1000, repository.getPrices("SOL").size());
+        assertEquals(0, BigDecimal.valueOf(106).compareTo(repository.getSummary("SOL").max()));
+        assertEquals(24, repository.getDailySummary("SOL", LocalDate.of(2022, 1, 2)).orElseThrow().count());
+        assertTrue(meterRegistry.get("price.offheap.bytes").gauge().value() >= 1000 * 16);
+    }
+
+    private OffHeapPriceRepository repository(String directory) {
+        meterRegistry = new SimpleMeterRegistry();
+        OffHeapPriceRepository repository = new OffHeapPriceRepository();
+        ReflectionTestUtils.setField(repository, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(repository, "directory", directory);
+        repository.init();
+        return repository;
+    }
+}
@@ -0,0 +1,336 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceLogTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void open_shouldReplayAppendedEntriesInOrder() throws IOException {
+        // Given: entries appended to a log, across several segments
+        Recorder written = new Recorder();
+        try (PriceLog log = PriceLog.open(directory, 200, true, written, new SimpleMeterRegistry())) {
+            for (int i = 0; i < 10; i++) {
+                log.append(List.of(entry("BTC", i, 2), entry("ETH", i, 1)));
+            }
+        }
+
+        // When: the log is opened again
+        Recorder replayed = new Recorder();
+        PriceLog.Recovered recovered;
+        try (PriceLog log = PriceLog.open(directory, 200, true, replayed, new SimpleMeterRegistry())) {
+            recovered = log.recovered();
+        }
+
+        // Then: every price is replayed, per symbol in the order it was appended
+        assertEquals(written.timestamps, replayed.timestamps);
+        assertEquals(written.prices, replayed.prices);
+        assertEquals(30, recovered.prices());
+        assertEquals(20, recovered.records());
+        assertTrue(recovered.segments() > 1);
+    }
+
+    @Test
+    void open_shouldTruncateIncompleteRecordAtEndOfNewestSegment() throws IOException {
+        // Given: a crash in the middle of writing the last record
+        try (PriceLog log = PriceLog.open(directory, 1 << 20, true, new Recorder(), new SimpleMeterRegistry())) {
+            log.append(List.of(entry("BTC", 0, 3)));
+            log.append(List.of(entry("BTC", 3, 3)));
+        }
+        Path segment = newestSegment();
+        long size = Files.size(segment);
+        truncate(segment, size - 5);
+
+        // When
+        Recorder replayed = new Recorder();
+        List<Long> recovered;
+        try (PriceLog log = PriceLog.open(directory, 1 << 20, true, replayed, new SimpleMeterRegistry())) {
+            recovered = List.copyOf(replayed.timestamps.get("BTC"));
+            log.append(List.of(entry("BTC", 10, 1)));
+        }
+        Recorder again = new Recorder();
+        PriceLog.open(directory, 1 << 20, true, again, new SimpleMeterRegistry()).close();
+
+        // Then: the torn record is dropped and later appends are kept
+        assertEquals(List.of(0L, 1L, 2L), recovered);
+        assertEquals(List.of(0L, 1L, 2L, 10L), again.timestamps.get("BTC"));
+    }
+
+    @Test
+    void open_shouldFailOnCorruptRecordInOlderSegment() throws IOException {
+        // Given: a flipped byte in a record of a closed segment
+        try (PriceLog log = PriceLog.open(directory, 1 << 20, true, new Recorder(), new SimpleMeterRegistry())) {
+            log.append(List.of(entry("BTC", 0, 3)));
+        }
+        Path segment = newestSegment();
+        PriceLog.open(directory, 1 << 20, true, new Recorder(), new SimpleMeterRegistry()).close();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            file.write(file.read() ^ 1);
+        }
+
+        // When & Then
+        IOException exception = assertThrows(IOException.class,
+                () -> PriceLog.open(directory, 1 << 20, true, new Recorder(), new SimpleMeterRegistry()));
+        assertTrue(exception.getMessage().startsWith("Corrupt write-ahead log segment"));
+    }
+
+    @Test
+    void checkpoint_shouldDeleteCoveredSegmentsAndKeepAllPrices() throws IOException {
+        // Given: many small segments
+        ColumnarPriceRepository written = new ColumnarPriceRepository();
+        try (PriceLog log = PriceLog.open(directory, 100, true, written::savePrices, new SimpleMeterRegistry())) {
+            for (int i = 0; i < 20; i++) {
+                log.append(List.of(entry(i % 2 == 0 ? "BTC" : "ETH", i, 1)));
+            }
+            int segmentsBefore = segmentFiles().size();
+
+            // When
+            int deleted = log.checkpoint(4, written::readView);
+
+            // Then: all segments, including the active one, are replaced by the checkpoint, and appends continue
+            assertEquals(segmentsBefore, deleted);
+            assertEquals(1, segmentFiles().size());
+            assertEquals(1, checkpointFiles().size());
+            log.append(List.of(entry("BTC", 100, 1)));
+            assertEquals(0, log.checkpoint(4, written::readView));
+        }
+        ColumnarPriceRepository replayed = new ColumnarPriceRepository();
+        PriceLog.Recovered recovered;
+        try (PriceLog log = PriceLog.open(directory, 100, true, replayed::savePrices, new SimpleMeterRegistry())) {
+            recovered = log.recovered();
+        }
+        assertEquals(written.getPrices("BTC"), replayed.getPrices("BTC"));
+        assertEquals(written.getPrices("ETH"), replayed.getPrices("ETH"));
+        assertEquals(20, recovered.checkpointPrices());
+        assertEquals(1, recovered.records());
+        assertEquals(1, recovered.prices());
+    }
+
+    @Test
+    void open_shouldDeleteSegmentsCoveredByCheckpoint() throws IOException {
+        // Given: a checkpoint whose deletion of the covered segments was interrupted
+        ColumnarPriceRepository written = new ColumnarPriceRepository();
+        try (PriceLog log = PriceLog.open(directory, 100, true, written::savePrices, new SimpleMeterRegistry())) {
+            for (int i = 0; i < 10; i++) {
+                log.append(List.of(entry("BTC", i, 1)));
+            }
+        }
+        List<Path> segments = segmentFiles();
+        Path first = directory.resolve("copy-of-first");
+        Files.copy(segments.getFirst(), first);
+        ColumnarPriceRepository restored = new ColumnarPriceRepository();
+        try (PriceLog log = PriceLog.open(directory, 100, true, restored::savePrices, new SimpleMeterRegistry())) {
+            log.checkpoint(1, restored::readView);
+        }
+        Files.move(first, segments.getFirst());
+
+        // When
+        ColumnarPriceRepository replayed = new ColumnarPriceRepository();
+        try (PriceLog log = PriceLog.open(directory, 100, true, replayed::savePrices, new SimpleMeterRegistry())) {
+            assertEquals(10, log.recovered().checkpointPrices());
+        }
+
+        // Then: the leftover segment is not replayed twice, and new segments are numbered after the checkpoint
+        assertFalse(Files.exists(segments.getFirst()));
+        assertEquals(written.getPrices("BTC"), replayed.getPrices("BTC"));
+        assertTrue(segmentFiles().getLast().compareTo(segments.getLast()) > 0);
+    }
+
+    @Test
+    void open_shouldFailOnCorruptCheckpoint() throws IOException {
+        // Given
+        ColumnarPriceRepository written = new ColumnarPriceRepository();
+        try (PriceLog log = PriceLog.open(directory, 100, true, written::savePrices, new SimpleMeterRegistry())) {
+            log.append(List.of(entry("BTC", 0, 10)));
+            log.checkpoint(1, written::readView);
+        }
+        Path checkpoint = checkpointFiles().getFirst();
+        truncate(checkpoint, Files.size(checkpoint) - 1);
+
+        // When & Then
+        IOException exception = assertThrows(IOException.class,
+                () -> PriceLog.open(directory, 100, true, new Recorder(), new SimpleMeterRegistry()));
+        assertTrue(exception.getMessage().startsWith("Corrupt write-ahead log checkpoint"));
+    }
+
+    @Test
+    void append_shouldSplitLargeEntriesIntoRecords() throws IOException {
+        // Given: a symbol with more prices than fit into two records
+        int count = 2 * PriceLog.MAX_RECORD_PRICES + 3;
+        try (PriceLog log = PriceLog.open(directory, 1 << 30, false, (symbol, timestamps, prices) -> {
+        }, new SimpleMeterRegistry())) {
+            // When
+            log.append(List.of(entry("BTC", 0, count), entry("ETH", 0, 1)));
+        }
+
+        // Then: the symbol is written as three records
+        long[] replayed = new long[2];
+        PriceLog.Recovered recovered;
+        try (PriceLog log = PriceLog.open(directory, 1 << 30, false, (symbol, timestamps, prices) -> {
+            if (symbol.equals("BTC")) {
+                replayed[0] += timestamps.length;
+                replayed[1] = prices[prices.length - 1];
+            }
+        }, new SimpleMeterRegistry())) {
+            recovered = log.recovered();
+        }
+        assertEquals(count, replayed[0]);
+        assertEquals((count - 1) * 100L + 7, replayed[1]);
+        assertEquals(3 + 1, recovered.records());
+    }
+
+    @Test
+    void append_shouldCommitConcurrentWritersAndReturnOnceApplied() throws Exception {
+        // Given
+        Recorder applied = new Recorder();
+        int writers = 8;
+        int appends = 50;
+        try (PriceLog log = PriceLog.open(directory, 4096, true, applied, new SimpleMeterRegistry());
+             ExecutorService executor = Executors.newFixedThreadPool(writers)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+
+            // When: writers append concurrently, each checking that its own append is applied on return
+            for (int w = 0; w < writers; w++) {
+                String symbol = "S" + w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < appends; i++) {
+                        log.append(List.of(entry(symbol, i, 1)));
+                        assertEquals(i + 1, applied.size(symbol));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // Then: every append is recovered, in order per writer
+        Recorder replayed = new Recorder();
+        PriceLog.open(directory, 4096, true, replayed, new SimpleMeterRegistry()).close();
+        for (int w = 0; w < writers; w++) {
+            assertEquals(LongStream.range(0, appends).boxed().toList(), replayed.timestamps.get("S" + w));
+        }
+    }
+
+    @Test
+    void append_shouldStayWritableWhenSinkFails() throws IOException {
+        // Given: a sink that fails to apply ETH
+        ColumnarPriceRepository applied = new ColumnarPriceRepository();
+        PriceLog.Sink sink = (symbol, timestamps, prices) -> {
+            if (symbol.equals("ETH")) {
+                throw new IllegalArgumentException("rejected");
+            }
+            applied.savePrices(symbol, timestamps, prices);
+        };
+        try (PriceLog log = PriceLog.open(directory, 100, true, sink, new SimpleMeterRegistry())) {
+            // When
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> log.append(List.of(entry("BTC", 0, 1), entry("ETH", 0, 1))));
+            log.append(List.of(entry("BTC", 1, 1)));
+
+            // Then: the append fails but the rest of its group is applied, later appends succeed, and no
+            // checkpoint drops the entry the sink lacks
+            assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+            assertEquals(2, applied.getPrices("BTC").size());
+            assertThrows(IllegalStateException.class, () -> log.checkpoint(1, applied::readView));
+        }
+
+        // Then: the durable entry is applied on the next open
+        Recorder replayed = new Recorder();
+        PriceLog.open(directory, 100, true, replayed, new SimpleMeterRegistry()).close();
+        assertEquals(List.of(0L), replayed.timestamps.get("ETH"));
+        assertEquals(List.of(0L, 1L), replayed.timestamps.get("BTC"));
+    }
+
+    @Test
+    void append_shouldRejectWritesAfterClose() throws IOException {
+        // Given
+        PriceLog log = PriceLog.open(directory, 1 << 20, true, new Recorder(), new SimpleMeterRegistry());
+        log.close();
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> log.append(List.of(entry("BTC", 0, 1))));
+    }
+
+    private static PriceBatch entry(String symbol, long firstTimestamp, int count) {
+        long[] timestamps = LongStream.range(firstTimestamp, firstTimestamp + count).toArray();
+        long[] prices = LongStream.of(timestamps).map(t -> t * 100 + 7).toArray();
+        return new PriceBatch(symbol, timestamps, prices);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".wal")).sorted().toList();
+        }
+    }
+
+    private List<Path> checkpointFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".checkpoint")).sorted().toList();
+        }
+    }
+
+    private Path newestSegment() throws IOException {
+        return segmentFiles().stream()
+                .filter(path -> {
+                    try {
+                        return Files.size(path) > 16;
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .reduce((first, second) -> second)
+                .orElseThrow();
+    }
+
+    private static void truncate(Path path, long size) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(size);
+        }
+    }
+
+    /**
+     * Sink that records the saved prices per symbol.
+     */
+    private static final class Recorder implements PriceLog.Sink {
+        private final Map<String, List<Long>> timestamps = new LinkedHashMap<>();
+        private final Map<String, List<Long>> prices = new LinkedHashMap<>();
+
+        @Override
+        public synchronized void save(String symbol, long[] timestamps, long[] prices) {
+            for (int i = 0; i < timestamps.length; i++) {
+                this.timestamps.computeIfAbsent(symbol, s -> new ArrayList<>()).add(timestamps[i]);
+                this.prices.computeIfAbsent(symbol, s -> new ArrayList<>()).add(prices[i]);
+            }
+        }
+
+        synchronized int size(String symbol) {
+            return timestamps.getOrDefault(symbol, List.of()).size();
+        }
+    }
+}
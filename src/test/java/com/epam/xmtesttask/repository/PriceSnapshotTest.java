@@ -0,0 +1,141 @@
+package com.epam.xmtesttask.repository;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceSnapshotTest {
+
+    private static final long FINGERPRINT = 42L;
+
+    @TempDir
+    private Path directory;
+
+    private Path snapshot;
+    private ColumnarPriceRepository source;
+
+    @BeforeEach
+    void setUp() {
+        snapshot = directory.resolve("snapshots/prices.snapshot");
+        source = new ColumnarPriceRepository();
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            source.savePrice("BTC", start.plusHours(i), new BigDecimal(46000 + i));
+        }
+        source.savePrice("XRP", start, new BigDecimal("0.8298"));
+    }
+
+    @Test
+    void write_and_restore_shouldRoundTripAllPrices() throws IOException {
+        // Given: a snapshot written from the source repository
+        long written = PriceSnapshot.write(snapshot, source, FINGERPRINT, 5_000_000L);
+
+        // When: restoring it into an empty repository
+        ColumnarPriceRepository target = new ColumnarPriceRepository();
+        Optional<PriceSnapshot.Restored> restored = PriceSnapshot.restore(snapshot, FINGERPRINT, target);
+
+        // Then: all prices and the CSV load time are restored
+        assertEquals(101, written);
+        assertTrue(restored.isPresent());
+        assertEquals(2, restored.get().symbols());
+        assertEquals(101, restored.get().rows());
+        assertEquals(5_000_000L, restored.get().csvLoadNanos());
+        assertEquals(source.getSupportedCryptos(), target.getSupportedCryptos());
+        assertEquals(source.getPrices("BTC"), target.getPrices("BTC"));
+        assertEquals(source.getPrices("XRP"), target.getPrices("XRP"));
+        assertEquals(source.getSummary("BTC"), target.getSummary("BTC"));
+    }
+
+    @Test
+    void restore_shouldReturnEmptyWhenSnapshotIsMissing() throws IOException {
+        // Given: no snapshot file
+
+        // When & Then: nothing is restored
+        assertTrue(PriceSnapshot.restore(snapshot, FINGERPRINT, new ColumnarPriceRepository()).isEmpty());
+    }
+
+    @Test
+    void restore_shouldReturnEmptyWhenFingerprintDiffers() throws IOException {
+        // Given: a snapshot of other CSV sources
+        PriceSnapshot.write(snapshot, source, FINGERPRINT, 0);
+
+        // When: restoring with another fingerprint
+        ColumnarPriceRepository target = new ColumnarPriceRepository();
+        Optional<PriceSnapshot.Restored> restored = PriceSnapshot.restore(snapshot, FINGERPRINT + 1, target);
+
+        // Then: the stale snapshot is ignored
+        assertTrue(restored.isEmpty());
+        assertTrue(target.getSupportedCryptos().isEmpty());
+    }
+
+    @Test
+    void restore_shouldReturnEmptyWhenChecksumDoesNotMatch() throws IOException {
+        // Given: a snapshot with a corrupted price byte
+        PriceSnapshot.write(snapshot, source, FINGERPRINT, 0);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 20] ^= 0x01;
+        Files.write(snapshot, bytes);
+
+        // When: restoring it
+        ColumnarPriceRepository target = new ColumnarPriceRepository();
+        Optional<PriceSnapshot.Restored> restored = PriceSnapshot.restore(snapshot, FINGERPRINT, target);
+
+        // Then: nothing is restored
+        assertTrue(restored.isEmpty());
+        assertTrue(target.getSupportedCryptos().isEmpty());
+    }
+
+    @Test
+    void restore_shouldReturnEmptyWhenVersionDiffers() throws IOException {
+        // Given: a snapshot with another format version
+        PriceSnapshot.write(snapshot, source, FINGERPRINT, 0);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[7] = (byte) (PriceSnapshot.VERSION + 1);
+        Files.write(snapshot, bytes);
+
+        // When & Then: nothing is restored
+        assertTrue(PriceSnapshot.restore(snapshot, FINGERPRINT, new ColumnarPriceRepository()).isEmpty());
+    }
+
+    @Test
+    void restore_shouldWorkWithListBasedRepository() throws IOException {
+        // Given: a snapshot written from the columnar repository
+        PriceSnapshot.write(snapshot, source, FINGERPRINT, 0);
+
+        // When: restoring into the default repository
+        InMemoryPriceRepository target = new InMemoryPriceRepository();
+        PriceSnapshot.restore(snapshot, FINGERPRINT, target);
+
+        // Then: prices are numerically equal
+        List<CryptoPrice> prices = target.getPrices("XRP");
+        assertEquals(1, prices.size());
+        assertEquals(0, new BigDecimal("0.8298").compareTo(prices.getFirst().price()));
+    }
+
+    @Test
+    void fingerprint_shouldChangeWhenSourceIsModified() throws IOException {
+        // Given: a CSV source file
+        Path csv = directory.resolve("BTC_values.csv");
+        Files.writeString(csv, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(1_000_000L));
+        long before = PriceSnapshot.fingerprint(List.of(csv));
+
+        // When: the file is modified
+        Files.writeString(csv, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n");
+
+        // Then: the fingerprint changes
+        assertNotEquals(before, PriceSnapshot.fingerprint(List.of(csv)));
+    }
+}
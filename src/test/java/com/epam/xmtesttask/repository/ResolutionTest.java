@@ -0,0 +1,57 @@
+package com.epam.xmtesttask.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolutionTest {
+
+    @Test
+    void bucketOf_shouldStartBucketsOnUtcCalendarBoundaries() {
+        // Given: a Wednesday afternoon
+        long epochMilli = PriceCodec.toEpochMilli(LocalDateTime.of(2022, 1, 5, 13, 45));
+
+        // When & Then: each bucket starts at the hour, midnight, the preceding Monday and the first of the month
+        assertEquals(LocalDateTime.of(2022, 1, 5, 13, 0), start(Resolution.HOUR, epochMilli));
+        assertEquals(LocalDateTime.of(2022, 1, 5, 0, 0), start(Resolution.DAY, epochMilli));
+        assertEquals(LocalDateTime.of(2022, 1, 3, 0, 0), start(Resolution.WEEK, epochMilli));
+        assertEquals(LocalDateTime.of(2022, 1, 1, 0, 0), start(Resolution.MONTH, epochMilli));
+        assertEquals(LocalDateTime.of(2022, 2, 1, 0, 0), PriceCodec.toUtcDateTime(
+                Resolution.MONTH.startOf(Resolution.MONTH.bucketOf(epochMilli) + 1)));
+        assertEquals(LocalDateTime.of(1969, 12, 29, 0, 0), start(Resolution.WEEK, 0));
+        assertEquals(LocalDateTime.of(1969, 12, 1, 0, 0), start(Resolution.MONTH, -1));
+    }
+
+    @Test
+    void truncate_shouldReturnLocalPeriodBoundaries() {
+        // Given
+        LocalDateTime sunday = LocalDateTime.of(2022, 1, 9, 23, 59);
+
+        // When & Then
+        assertEquals(LocalDateTime.of(2022, 1, 9, 23, 0), Resolution.HOUR.truncate(sunday));
+        assertEquals(LocalDateTime.of(2022, 1, 3, 0, 0), Resolution.WEEK.truncate(sunday));
+        assertEquals(LocalDateTime.of(2022, 1, 10, 0, 0), Resolution.WEEK.next(Resolution.WEEK.truncate(sunday)));
+        assertEquals(LocalDateTime.of(2022, 2, 1, 0, 0), Resolution.MONTH.next(Resolution.MONTH.truncate(sunday)));
+    }
+
+    @Test
+    void coarsestBucketAt_shouldPickTheLargestAlignedBucketThatFits() {
+        // Given
+        long monday = PriceCodec.toEpochMilli(LocalDateTime.of(2022, 1, 3, 0, 0));
+        long firstOfMonth = PriceCodec.toEpochMilli(LocalDateTime.of(2022, 2, 1, 0, 0));
+
+        // When & Then
+        assertEquals(Resolution.WEEK, Resolution.coarsestBucketAt(monday, monday + 8 * 86_400_000L));
+        assertEquals(Resolution.DAY, Resolution.coarsestBucketAt(monday, monday + 6 * 86_400_000L));
+        assertEquals(Resolution.HOUR, Resolution.coarsestBucketAt(monday + 3_600_000L, monday + 86_400_000L));
+        assertEquals(Resolution.MONTH, Resolution.coarsestBucketAt(firstOfMonth, firstOfMonth + 28 * 86_400_000L));
+        assertNull(Resolution.coarsestBucketAt(monday + 1_800_000L, monday + 86_400_000L));
+        assertNull(Resolution.coarsestBucketAt(monday, monday + 1_800_000L));
+    }
+
+    private static LocalDateTime start(Resolution resolution, long epochMilli) {
+        return PriceCodec.toUtcDateTime(resolution.startOf(resolution.bucketOf(epochMilli)));
+    }
+}
@@ -0,0 +1,130 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares each {@link SnapshotPriceRepository} with {@link ColumnarPriceRepository}, the reference for the order
+ * of prices and for every summary.
+ */
+class SnapshotPriceRepositoryTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_640_995_200_000L;
+
+    @TempDir
+    private Path directory;
+
+    private TieredPriceRepository tiered;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (tiered != null) {
+            tiered.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"compressed", "off-heap", "off-heap-mapped", "tiered"})
+    void savePrices_shouldMatchColumnarRepositoryForRandomBatches(String type) throws IOException {
+        // Given: irregular timestamps with duplicates, prices of every magnitude, and batches out of order
+        SnapshotPriceRepository<?> repository = repository(type);
+        ColumnarPriceRepository expected = new ColumnarPriceRepository();
+        Random random = new Random(42);
+        for (int batch = 0; batch < 40; batch++) {
+            int length = 1 + random.nextInt(200);
+            long[] timestamps = new long[length];
+            long[] prices = new long[length];
+            long base = START + (batch * 50L + random.nextInt(200) - 150) * HOUR;
+            for (int i = 0; i < length; i++) {
+                timestamps[i] = base + random.nextInt(50) * HOUR + (random.nextBoolean() ? random.nextInt(1000) : 0);
+                prices[i] = random.nextInt(3) == 0 ? random.nextLong(1, Long.MAX_VALUE >> 2) : random.nextInt(1000);
+            }
+            if (random.nextBoolean()) {
+                Arrays.sort(timestamps);
+            }
+
+            // When: the tiered repository also moves prices to segments in between
+            repository.savePrices("BTC", timestamps, prices);
+            expected.savePrices("BTC", timestamps, prices);
+            if (repository == tiered && batch % 5 == 4) {
+                tiered.flush();
+            }
+        }
+
+        // Then: prices, fixed-point columns, summaries, ranges, periods and rollups of every resolution are equal
+        assertTrue(repository != tiered || tiered.state().series("BTC").cold().size() > 1);
+        assertEquals(expected.getPrices("BTC"), repository.getPrices("BTC"));
+        PriceBatch encoded = PriceBatch.of("BTC", expected.getPrices("BTC"));
+        for (PriceBatch columns : new PriceBatch[]{expected.getFixedPointPrices("BTC"),
+                repository.getFixedPointPrices("BTC")}) {
+            assertArrayEquals(encoded.timestamps(), columns.timestamps());
+            assertArrayEquals(encoded.prices(), columns.prices());
+        }
+        assertEquals(expected.getFixedPointSummary("BTC"), repository.getFixedPointSummary("BTC"));
+        assertEquals(expected.getFixedPointRangeSummary("BTC", null, null),
+                repository.getFixedPointRangeSummary("BTC", null, null));
+        for (int i = 0; i < 200; i++) {
+            long epochMilli = START + random.nextLong(2100 * HOUR);
+            LocalDateTime from = PriceCodec.toUtcDateTime(epochMilli);
+            LocalDateTime to = from.plusMinutes(random.nextInt(100_000));
+            assertEquals(expected.getFixedPointRangeSummary("BTC", from, to),
+                    repository.getFixedPointRangeSummary("BTC", from, to));
+            assertEquals(expected.getFixedPointPeriodSummary("BTC", from, to),
+                    repository.getFixedPointPeriodSummary("BTC", from, to));
+            assertEquals(expected.getFixedPointDailySummary("BTC", from.toLocalDate()),
+                    repository.getFixedPointDailySummary("BTC", from.toLocalDate()));
+            for (Resolution resolution : Resolution.values()) {
+                long bucket = resolution.bucketOf(epochMilli);
+                assertEquals(expected.getFixedPointRollup("BTC", resolution, bucket),
+                        repository.getFixedPointRollup("BTC", resolution, bucket));
+                assertArrayEquals(expected.getFixedPointRollups("BTC", resolution, bucket - 2, bucket + 2),
+                        repository.getFixedPointRollups("BTC", resolution, bucket - 2, bucket + 2));
+            }
+        }
+    }
+
+    private SnapshotPriceRepository<?> repository(String type) throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        switch (type) {
+            case "compressed" -> {
+                CompressedPriceRepository repository = new CompressedPriceRepository();
+                ReflectionTestUtils.setField(repository, "meterRegistry", meterRegistry);
+                repository.registerMetrics();
+                return repository;
+            }
+            case "off-heap", "off-heap-mapped" -> {
+                OffHeapPriceRepository repository = new OffHeapPriceRepository();
+                ReflectionTestUtils.setField(repository, "meterRegistry", meterRegistry);
+                ReflectionTestUtils.setField(repository, "directory",
+                        type.equals("off-heap") ? "" : directory.toString());
+                repository.init();
+                return repository;
+            }
+            case "tiered" -> {
+                tiered = new TieredPriceRepository();
+                ReflectionTestUtils.setField(tiered, "meterRegistry", meterRegistry);
+                ReflectionTestUtils.setField(tiered, "directory", directory);
+                ReflectionTestUtils.setField(tiered, "hotRetention", Duration.ofHours(48));
+                ReflectionTestUtils.setField(tiered, "flushInterval", Duration.ofHours(1));
+                ReflectionTestUtils.setField(tiered, "flushMinPrices", 1);
+                tiered.open();
+                return tiered;
+            }
+            default -> throw new IllegalArgumentException(type);
+        }
+    }
+}
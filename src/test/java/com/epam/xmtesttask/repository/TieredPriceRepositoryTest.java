@@ -0,0 +1,129 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredPriceRepositoryTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long START = 1_640_995_200_000L;
+
+    @TempDir
+    private Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TieredPriceRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        repository = new TieredPriceRepository();
+        ReflectionTestUtils.setField(repository, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(repository, "directory", directory);
+        ReflectionTestUtils.setField(repository, "hotRetention", Duration.ofHours(48));
+        ReflectionTestUtils.setField(repository, "flushInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(repository, "flushMinPrices", 1);
+        repository.open();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        repository.close();
+    }
+
+    @Test
+    void flush_shouldMoveOldPricesToSegmentFilesWithoutChangingVersion() throws IOException {
+        // Given: four days of hourly prices
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 96; i++) {
+            repository.savePrice("ETH", start.plusHours(i), BigDecimal.valueOf(3000 + i));
+        }
+        DataVersion version = repository.getDataVersion();
+
+        // When
+        long moved = repository.flush();
+
+        // Then: all but the last 48 hours are in a segment file, and reads are unchanged
+        assertEquals(47, moved);
+        assertEquals(49, meterRegistry.get("price.tiered.hot.prices").gauge().value());
+        assertEquals(47, meterRegistry.get("price.tiered.cold.prices").gauge().value());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(version, repository.getDataVersion());
+        assertEquals(96, repository.getPrices("ETH").size());
+        assertEquals(0, BigDecimal.valueOf(3000).compareTo(repository.getSummary("ETH").first()));
+        assertEquals(0, BigDecimal.valueOf(3095).compareTo(repository.getSummary("ETH").last()));
+        assertEquals(24, repository.getDailySummary("ETH", start.toLocalDate()).orElseThrow().count());
+        assertEquals(0, repository.flush());
+    }
+
+    @Test
+    void flush_shouldKeepPricesOfSymbolWhoseSegmentFailsAndFlushTheOthers() throws IOException {
+        // Given: two symbols with four days of hourly prices, and the first segment file cannot be created
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 96; i++) {
+            repository.savePrice("ETH", start.plusHours(i), BigDecimal.valueOf(3000 + i));
+            repository.savePrice("BTC", start.plusHours(i), BigDecimal.valueOf(46000 + i));
+        }
+        Files.createDirectory(directory.resolve(String.format("%019d.seg.tmp", 0)));
+
+        // When
+        long moved = repository.flush();
+
+        // Then: one symbol is moved and the other keeps its prices in memory, with nothing left of its attempt
+        assertEquals(47, moved);
+        assertEquals(47, meterRegistry.get("price.tiered.cold.prices").gauge().value());
+        assertEquals(96 + 49, meterRegistry.get("price.tiered.hot.prices").gauge().value());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(96, repository.getPrices("ETH").size());
+        assertEquals(96, repository.getPrices("BTC").size());
+        assertEquals(47, repository.flush());
+    }
+
+    @Test
+    void flush_shouldWaitForMinimumNumberOfPrices() {
+        // Given
+        ReflectionTestUtils.setField(repository, "flushMinPrices", 100);
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 96; i++) {
+            repository.savePrice("ETH", start.plusHours(i), BigDecimal.valueOf(3000 + i));
+        }
+
+        // When & Then
+        assertEquals(0, repository.flush());
+        assertEquals(0, meterRegistry.get("price.tiered.segments").gauge().value());
+    }
+
+    @Test
+    void open_shouldDeleteSegmentsOfEarlierRun() throws Exception {
+        // Given: a segment written by a repository that is closed
+        repository.savePrices("SOL", new long[]{START, START + 100 * HOUR}, new long[]{1, 2});
+        repository.flush();
+        repository.close();
+
+        // When
+        setUp();
+
+        // Then
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        assertFalse(repository.isSupported("SOL"));
+    }
+}
@@ -0,0 +1,183 @@
+package com.epam.xmtesttask.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalPriceRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void open_shouldRecoverPricesAndSummariesAfterRestart() throws Exception {
+        // Given: prices saved one by one and in bulk before a restart
+        WalPriceRepository before = open();
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 48; i++) {
+            before.savePrice("BTC", start.plusHours(i), new BigDecimal(46000 + i));
+        }
+        before.savePrices("XRP", new long[]{PriceCodec.toEpochMilli(start)},
+                new long[]{PriceCodec.encodePrice(new BigDecimal("0.8298"))});
+        before.close();
+
+        // When
+        WalPriceRepository after = open();
+
+        // Then
+        assertEquals(before.getSupportedCryptos(), after.getSupportedCryptos());
+        assertEquals(before.getPrices("BTC"), after.getPrices("BTC"));
+        assertEquals(before.getPrices("XRP"), after.getPrices("XRP"));
+        assertEquals(before.getSummary("BTC"), after.getSummary("BTC"));
+        assertEquals(before.getDailySummary("BTC", LocalDate.of(2022, 1, 2)),
+                after.getDailySummary("BTC", LocalDate.of(2022, 1, 2)));
+        assertTrue(after.getDataVersion().version() > 0);
+        after.close();
+    }
+
+    @Test
+    void checkpoint_shouldTruncateLogAndRecoverFromCheckpoint() throws Exception {
+        // Given: enough prices for several segments
+        WalPriceRepository before = open();
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        for (int i = 0; i < 200; i++) {
+            before.savePrice("ETH", start.plusHours(i), new BigDecimal(3000 + i));
+        }
+
+        // When
+        int deleted = before.checkpoint();
+        before.savePrice("ETH", start.plusHours(200), new BigDecimal(3200));
+        before.close();
+
+        // Then: only the segment since the checkpoint is left, and all prices are recovered
+        assertTrue(deleted >= 4);
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".wal")).count());
+        }
+        WalPriceRepository after = open();
+        assertEquals(before.getPrices("ETH"), after.getPrices("ETH"));
+        assertEquals(before.getSummary("ETH"), after.getSummary("ETH"));
+        after.close();
+    }
+
+    @Test
+    void savePrices_shouldApplyBatchesOfSeveralSymbolsAsOneWriteAndRecoverThem() throws Exception {
+        // Given
+        WalPriceRepository before = open();
+        long timestamp = PriceCodec.toEpochMilli(LocalDateTime.of(2022, 1, 1, 0, 0));
+
+        // When
+        before.savePrices(List.of(
+                new PriceBatch("BTC", new long[]{timestamp}, new long[]{PriceCodec.encodePrice(BigDecimal.TEN)}),
+                new PriceBatch("ETH", new long[]{timestamp}, new long[]{PriceCodec.encodePrice(BigDecimal.ONE)})));
+        before.close();
+
+        // Then: both symbols share the version of the write, and are recovered after a restart
+        assertEquals(1, before.getDataVersion().version());
+        assertEquals(before.getDataVersion(), before.getDataVersion("ETH"));
+        WalPriceRepository after = open();
+        assertEquals(before.getPrices("BTC"), after.getPrices("BTC"));
+        assertEquals(before.getPrices("ETH"), after.getPrices("ETH"));
+        after.close();
+    }
+
+    @Test
+    void savePrices_shouldRejectColumnsOfDifferentLength() throws Exception {
+        // Given
+        WalPriceRepository repository = open();
+
+        // When & Then: nothing is logged
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.savePrices("BTC", new long[]{1, 2}, new long[]{100}));
+        repository.close();
+        WalPriceRepository reopened = open();
+        assertFalse(reopened.isSupported("BTC"));
+        reopened.close();
+    }
+
+    @Test
+    void seed_shouldWriteSeededPricesAsOneCheckpoint() throws Exception {
+        // Given
+        WalPriceRepository before = open();
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+        // When: prices for several segments are seeded
+        int seeded = before.seed(() -> {
+            for (int i = 0; i < 200; i++) {
+                before.savePrice("ETH", start.plusHours(i), new BigDecimal(3000 + i));
+            }
+            return 200;
+        });
+        before.close();
+
+        // Then: they are all in one checkpoint, none in the log, and are recovered after a restart
+        assertEquals(200, seeded);
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(".checkpoint", ".wal"), files.map(path -> path.toString()
+                    .substring(path.toString().lastIndexOf('.'))).sorted().toList());
+        }
+        WalPriceRepository after = open();
+        assertEquals(before.getPrices("ETH"), after.getPrices("ETH"));
+        assertEquals(before.getSummary("ETH"), after.getSummary("ETH"));
+        after.close();
+    }
+
+    @Test
+    void seed_shouldLeaveRepositoryEmptyIfInterrupted() throws Exception {
+        // Given
+        WalPriceRepository before = open();
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+        // When: the seed fails after saving some prices
+        assertThrows(IllegalStateException.class, () -> before.seed(() -> {
+            before.savePrice("BTC", start, BigDecimal.TEN);
+            throw new IllegalStateException("interrupted");
+        }));
+        before.close();
+
+        // Then: nothing was made durable, so the repository can be seeded again
+        WalPriceRepository after = open();
+        assertEquals(0, after.getDataVersion().version());
+        after.seed(() -> {
+            after.savePrice("BTC", start, BigDecimal.ONE);
+            return null;
+        });
+        assertEquals(1, after.getPrices("BTC").size());
+        after.close();
+    }
+
+    @Test
+    void seed_shouldRejectRepositoryWithPrices() throws Exception {
+        // Given
+        WalPriceRepository repository = open();
+        repository.savePrice("BTC", LocalDateTime.of(2022, 1, 1, 0, 0), BigDecimal.TEN);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> repository.seed(() -> null));
+        repository.close();
+    }
+
+    private WalPriceRepository open() throws Exception {
+        WalPriceRepository repository = new WalPriceRepository();
+        ReflectionTestUtils.setField(repository, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(repository, "directory", directory);
+        ReflectionTestUtils.setField(repository, "segmentSize", DataSize.ofKilobytes(1));
+        ReflectionTestUtils.setField(repository, "fsync", true);
+        ReflectionTestUtils.setField(repository, "checkpointInterval", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(repository, "checkpointMinSegments", 4);
+        repository.open();
+        return repository;
+    }
+}
@@ -0,0 +1,98 @@
+package com.epam.xmtesttask.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long TARGET = 100;
+
+    @Test
+    void tryAcquire_shouldRejectRequests_aboveLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, TARGET, 0.5);
+
+        // When / Then
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.inFlight());
+    }
+
+    @Test
+    void release_shouldIncreaseLimit_whenFastAndUtilized() {
+        // Given: a limit of 4 with 2 requests in flight
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 5, TARGET, 0.5);
+        limit.tryAcquire();
+        limit.tryAcquire();
+
+        // When: both complete within the target latency
+        limit.release(0, TARGET);
+        limit.release(0, TARGET);
+
+        // Then: the first grows the limit, the second sees too little utilization
+        assertEquals(5, limit.limit());
+        assertEquals(0, limit.inFlight());
+    }
+
+    @Test
+    void release_shouldNotExceedMaxLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 2, TARGET, 0.5);
+        limit.tryAcquire();
+
+        // When
+        limit.release(0, 1);
+
+        // Then
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void release_shouldBackOffOnce_forRequestsStartedBeforeLastDecrease() {
+        // Given: three requests admitted at time 0
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 10, TARGET, 0.5);
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.tryAcquire();
+
+        // When: all of them are slow
+        limit.release(0, 200);
+        limit.release(0, 210);
+        limit.release(0, 220);
+
+        // Then: the limit is halved once
+        assertEquals(4, limit.limit());
+
+        // When: a request started after the decrease is slow as well
+        limit.tryAcquire();
+        limit.release(300, 500);
+
+        // Then: the limit is halved again
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void release_shouldNotGoBelowMinLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(3, 2, 10, TARGET, 0.5);
+        limit.tryAcquire();
+
+        // When
+        limit.release(0, 1000);
+
+        // Then
+        assertEquals(2, limit.limit());
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 6, 10, TARGET, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 0, 10, TARGET, 0.5));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimit(5, 1, 10, TARGET, 1.0));
+    }
+}
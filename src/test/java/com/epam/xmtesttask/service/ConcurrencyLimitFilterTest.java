@@ -0,0 +1,112 @@
+package com.epam.xmtesttask.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ConcurrencyLimitFilterTest {
+
+    private ConcurrencyLimitFilter filter;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ConcurrencyLimitFilter();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "initialLimit", 1);
+        ReflectionTestUtils.setField(filter, "minLimit", 1);
+        ReflectionTestUtils.setField(filter, "maxLimit", 1);
+        ReflectionTestUtils.setField(filter, "targetLatency", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(filter, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 1);
+        filter.init();
+    }
+
+    @Test
+    void doFilter_shouldShedRequest_whenLimitIsReached() throws IOException, ServletException {
+        // Given: one request in progress while a second one arrives
+        HttpServletRequest request = apiRequest();
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        HttpServletResponse shedResponse = mock(HttpServletResponse.class);
+        when(shedResponse.getWriter()).thenReturn(mock(PrintWriter.class));
+        FilterChain chain = mock(FilterChain.class);
+        FilterChain innerChain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            filter.doFilter(request, shedResponse, innerChain);
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        // When: the first request is processed
+        filter.doFilter(request, response, chain);
+
+        // Then: the nested request is rejected with 503 and Retry-After, the first one passes
+        verify(shedResponse).setStatus(503);
+        verify(shedResponse).setHeader("Retry-After", "1");
+        verifyNoInteractions(innerChain);
+        verifyNoInteractions(response);
+        assertEquals(1, meterRegistry.get("concurrency.limit.requests").tag("outcome", "accepted").counter().count());
+        assertEquals(1, meterRegistry.get("concurrency.limit.requests").tag("outcome", "rejected").counter().count());
+        assertEquals(0, meterRegistry.get("concurrency.limit.in.flight").gauge().value());
+    }
+
+    @Test
+    void doFilter_shouldReleasePermit_whenChainFails() throws IOException, ServletException {
+        // Given: a chain that throws
+        HttpServletRequest request = apiRequest();
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain failing = mock(FilterChain.class);
+        doThrow(new ServletException("boom")).when(failing).doFilter(request, response);
+        FilterChain chain = mock(FilterChain.class);
+
+        // When
+        try {
+            filter.doFilter(request, response, failing);
+        } catch (ServletException expected) {
+            // the exception is propagated
+        }
+        filter.doFilter(request, response, chain);
+
+        // Then: the permit was released and the next request passes
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_shouldNotLimitNonApiRequests() throws IOException, ServletException {
+        // Given: an actuator request and a filter whose single slot is taken
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/actuator/prometheus");
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+        AdaptiveConcurrencyLimit limit = (AdaptiveConcurrencyLimit) ReflectionTestUtils.getField(filter, "limit");
+        limit.tryAcquire();
+
+        // When
+        filter.doFilter(request, response, chain);
+
+        // Then
+        verify(chain).doFilter(request, response);
+        verifyNoInteractions(response);
+    }
+
+    private static HttpServletRequest apiRequest() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/cryptos/BTC/stats");
+        return request;
+    }
+}
@@ -0,0 +1,101 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.repository.PriceCodec;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointNormalizedRangeTest {
+
+    private static final long SEED = 20240516L;
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void of_shouldMatchDecimalDivisionForRandomPrices() {
+        // Given: a fixed seed, so that a failure can be reproduced
+        Random random = new Random(SEED);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            long min = randomPrice(random);
+            long max = switch (i % 5) {
+                case 0 -> randomPrice(random);
+                case 1 -> min + random.nextInt(1_000);
+                case 2 -> min * (1 + random.nextInt(20));
+                case 3 -> min + min / (1 + random.nextInt(64)) * random.nextInt(8);
+                default -> min + randomPrice(random) / POWERS[random.nextInt(6)];
+            };
+            if (max < min) {
+                long swap = max;
+                max = min;
+                min = swap;
+            }
+
+            // When & Then
+            assertEquivalent(max, min);
+        }
+    }
+
+    @Test
+    void of_shouldMatchDecimalDivisionForEdgeCases() {
+        // Equal prices
+        assertEquivalent(100_000_000L, 100_000_000L);
+        assertEquivalent(123_456_789L, 123_456_789L);
+        // Exact quotients with trailing zeros: (150-100)/100, (300-100)/100, (2.5-1)/1
+        assertEquivalent(15_000_000_000L, 10_000_000_000L);
+        assertEquivalent(30_000_000_000L, 10_000_000_000L);
+        assertEquivalent(250_000_000L, 100_000_000L);
+        // Inexact quotient keeping four digits: (1.638-1)/1 rounded
+        assertEquivalent(163_801_000L, 100_000_000L);
+        // Rounding up to the next power of ten: 0.99995 -> 1.000 and 9.9995 -> 10.00
+        assertEquivalent(199_995L, 100_000L);
+        assertEquivalent(1_099_950L, 100_000L);
+        assertEquivalent(9_999_999L, 1L);
+        // Smallest and largest representable prices
+        assertEquivalent(2L, 1L);
+        assertEquivalent(Long.MAX_VALUE, 1L);
+        assertEquivalent(Long.MAX_VALUE, Long.MAX_VALUE - 1);
+        assertEquivalent(Long.MAX_VALUE, 3_000_000_000_000_000_000L);
+    }
+
+    @Test
+    void of_shouldRejectZeroMinimumLikeDecimalDivision() {
+        assertThrows(ArithmeticException.class, () -> FixedPointNormalizedRange.of(100L, 0L));
+        assertThrows(ArithmeticException.class, () -> FixedPointNormalizedRange.of(0L, 0L));
+    }
+
+    private static final long[] POWERS = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L};
+
+    /**
+     * Generates fixed-point prices of different magnitudes with zero to eight trailing zeros, so that the decoded
+     * prices have different scales, like prices rounded to a few significant digits.
+     */
+    private static long randomPrice(Random random) {
+        long mantissa = 1 + (long) (random.nextDouble() * Math.pow(10, 1 + random.nextInt(8)));
+        int zeros = random.nextInt(9);
+        long price = mantissa;
+        for (int i = 0; i < zeros && price < Long.MAX_VALUE / 10; i++) {
+            price *= 10;
+        }
+        return price;
+    }
+
+    /**
+     * Asserts that the result equals the decimal calculation in value and scale.
+     */
+    private static void assertEquivalent(long max, long min) {
+        BigDecimal decimalMax = PriceCodec.decodePrice(max);
+        BigDecimal decimalMin = PriceCodec.decodePrice(min);
+        BigDecimal expected = decimalMax.subtract(decimalMin)
+                .divide(decimalMin, new MathContext(4, RoundingMode.HALF_UP));
+
+        BigDecimal actual = FixedPointNormalizedRange.of(max, min);
+
+        assertEquals(expected, actual, () -> "max " + decimalMax + ", min " + decimalMin);
+        assertEquals(expected.scale(), actual.scale());
+    }
+}
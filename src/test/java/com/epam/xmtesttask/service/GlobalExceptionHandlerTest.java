@@ -3,6 +3,9 @@ package com.epam.xmtesttask.service;
 import com.epam.xmtesttask.domain.ErrorResponse;
 import com.epam.xmtesttask.domain.exception.CryptoDataNotFoundException;
 import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import com.epam.xmtesttask.domain.exception.IngestionOverloadedException;
+import com.epam.xmtesttask.domain.exception.InvalidPageException;
+import com.epam.xmtesttask.domain.exception.InvalidPriceTickException;
 import com.epam.xmtesttask.domain.exception.RateLimitExceededException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -73,6 +76,53 @@ class GlobalExceptionHandlerTest {
         assertEquals(message, response.getBody().message());
     }
 
+    @Test
+    void handleInvalidPage_shouldReturn400AndErrorResponse() {
+        // Given
+        String expectedMessage = "Invalid page: offset (-1) must not be negative and limit (10) must be positive";
+        InvalidPageException ex = new InvalidPageException(-1, 10);
+
+        // When
+        ResponseEntity<ErrorResponse> response = handler.handleInvalidPage(ex);
+
+        // Then
+        assertEquals(400, response.getStatusCodeValue());
+        assertNotNull(response.getBody());
+        assertEquals("BAD_REQUEST", response.getBody().code());
+        assertEquals(expectedMessage, response.getBody().message());
+    }
+
+    @Test
+    void handleInvalidPriceTick_shouldReturn400AndErrorResponse() {
+        // Given
+        InvalidPriceTickException ex = new InvalidPriceTickException("tick 0 has no positive price");
+
+        // When
+        ResponseEntity<ErrorResponse> response = handler.handleInvalidPriceTick(ex);
+
+        // Then
+        assertEquals(400, response.getStatusCode().value());
+        assertNotNull(response.getBody());
+        assertEquals("BAD_REQUEST", response.getBody().code());
+        assertEquals("Invalid price tick: tick 0 has no positive price", response.getBody().message());
+    }
+
+    @Test
+    void handleIngestionOverloaded_shouldReturn503WithRetryAfter() {
+        // Given
+        IngestionOverloadedException ex = new IngestionOverloadedException(100);
+
+        // When
+        ResponseEntity<ErrorResponse> response = handler.handleIngestionOverloaded(ex);
+
+        // Then
+        assertEquals(503, response.getStatusCode().value());
+        assertEquals("1", response.getHeaders().getFirst("Retry-After"));
+        assertNotNull(response.getBody());
+        assertEquals("SERVICE_UNAVAILABLE", response.getBody().code());
+        assertEquals("Ingestion queue is full, rejected 100 ticks", response.getBody().message());
+    }
+
     @Test
     void handleOther_shouldReturn500AndErrorResponse() {
         // Given
@@ -0,0 +1,83 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
+import com.epam.xmtesttask.repository.ColumnarPriceRepository;
+import com.epam.xmtesttask.repository.PriceCodec;
+import com.epam.xmtesttask.repository.PriceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NormalizedRangeLeaderboardTest {
+
+    @Test
+    void page_shouldMatchSortedRangesAfterRandomWrites() {
+        // Given: a leaderboard over a repository that keeps receiving prices
+        Random random = new Random(19);
+        PriceRepository repository = new ColumnarPriceRepository();
+        NormalizedRangeLeaderboard leaderboard = new NormalizedRangeLeaderboard(SymbolFanOut.of("sequential", 1),
+                (symbol, summary) -> new CryptoNormalizedRange(symbol,
+                        FixedPointNormalizedRange.of(summary.max(), summary.min())));
+        long timestamp = 1_672_531_200_000L;
+
+        for (int round = 0; round < 300; round++) {
+            // When: one to three symbols out of 40 get prices, some of which give equal ranges
+            for (int write = 1 + random.nextInt(3); write > 0; write--) {
+                long price = PriceCodec.encodePrice(BigDecimal.valueOf(1 + random.nextInt(200)));
+                repository.savePrices("S" + random.nextInt(40), new long[]{timestamp++}, new long[]{price});
+            }
+            List<CryptoNormalizedRange> expected = expectedRanges(repository);
+            int offset = random.nextInt(expected.size() + 2);
+            int limit = 1 + random.nextInt(10);
+
+            // Then: every page equals the corresponding part of the fully sorted list
+            assertEquals(expected.subList(Math.min(offset, expected.size()),
+                    Math.min(offset + limit, expected.size())), leaderboard.page(repository, offset, limit));
+            assertEquals(expected, leaderboard.page(repository, 0, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void page_shouldNotEvaluateCryptosWhenDataIsUnchanged() {
+        // Given
+        PriceRepository repository = new ColumnarPriceRepository();
+        repository.savePrices("BTC", new long[]{1, 2}, new long[]{100, 150});
+        repository.savePrices("ETH", new long[]{1, 2}, new long[]{50, 80});
+        AtomicInteger evaluations = new AtomicInteger();
+        NormalizedRangeLeaderboard leaderboard = new NormalizedRangeLeaderboard(SymbolFanOut.of("sequential", 1),
+                (symbol, summary) -> {
+                    evaluations.incrementAndGet();
+                    return new CryptoNormalizedRange(symbol, FixedPointNormalizedRange.of(summary.max(), summary.min()));
+                });
+
+        // When
+        leaderboard.page(repository, 0, 10);
+        leaderboard.page(repository, 1, 10);
+        repository.savePrices("ETH", new long[]{3}, new long[]{40});
+        List<CryptoNormalizedRange> page = leaderboard.page(repository, 0, 10);
+
+        // Then: both cryptos once, then only ETH
+        assertEquals(3, evaluations.get());
+        assertEquals(List.of("ETH", "BTC"), page.stream().map(CryptoNormalizedRange::symbol).toList());
+        assertEquals(new BigDecimal("1"), page.get(0).normalizedRange());
+    }
+
+    /**
+     * Computes all ranges from scratch and sorts them in leaderboard order.
+     */
+    private static List<CryptoNormalizedRange> expectedRanges(PriceRepository repository) {
+        List<CryptoNormalizedRange> ranges = new ArrayList<>();
+        for (String symbol : repository.getSupportedCryptos()) {
+            var summary = repository.getFixedPointSummary(symbol);
+            ranges.add(new CryptoNormalizedRange(symbol, FixedPointNormalizedRange.of(summary.max(), summary.min())));
+        }
+        ranges.sort(NormalizedRangeLeaderboard.ORDER);
+        return ranges;
+    }
+}
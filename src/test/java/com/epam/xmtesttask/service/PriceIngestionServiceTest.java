@@ -0,0 +1,192 @@
+package com.epam.xmtesttask.service;
+
+import com.epam.xmtesttask.domain.crypto.CryptoPriceTick;
+import com.epam.xmtesttask.domain.exception.IngestionOverloadedException;
+import com.epam.xmtesttask.domain.exception.InvalidPriceTickException;
+import com.epam.xmtesttask.repository.ColumnarPriceRepository;
+import com.epam.xmtesttask.repository.PriceBatch;
+import com.epam.xmtesttask.repository.PriceCodec;
+import com.epam.xmtesttask.repository.PriceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PriceIngestionServiceTest {
+
+    private static final long T0 = 1641009600000L;
+
+    private PriceIngestionService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void submit_shouldSaveTicksOfSymbol() throws InterruptedException {
+        // Given
+        PriceRepository repository = new ColumnarPriceRepository();
+        service = startService(repository, 100, 10);
+
+        // When
+        service.submit("BTC", List.of(
+                new CryptoPriceTick(null, T0, new BigDecimal("46813.21")),
+                new CryptoPriceTick("BTC", T0 + 1000, new BigDecimal("46979.61"))));
+        service.stop();
+
+        // Then: prices are rounded to 4 significant digits like the CSV data
+        assertEquals(2, repository.getPrices("BTC").size());
+        assertEquals(PriceCodec.toUtcDateTime(T0), repository.getPrices("BTC").get(0).utcDateTime());
+        assertEquals(0, new BigDecimal("46810").compareTo(repository.getPrices("BTC").get(0).price()));
+        assertEquals(0, new BigDecimal("46980").compareTo(repository.getPrices("BTC").get(1).price()));
+        assertEquals(0, service.getPendingTicks());
+    }
+
+    @Test
+    void submit_shouldGroupBatchBySymbol() {
+        // Given
+        PriceRepository repository = mock(PriceRepository.class);
+        service = startService(repository, 100, 10);
+
+        // When
+        service.submit(List.of(
+                new CryptoPriceTick("BTC", T0, BigDecimal.ONE),
+                new CryptoPriceTick("ETH", T0, BigDecimal.TWO),
+                new CryptoPriceTick("BTC", T0 + 1, BigDecimal.TEN)));
+
+        // Then: one repository call with a batch per symbol, in submission order
+        List<PriceBatch> saved = savedBatches(repository);
+        assertEquals(List.of("BTC", "ETH"), saved.stream().map(PriceBatch::symbol).toList());
+        assertArrayEquals(new long[]{T0, T0 + 1}, saved.get(0).timestamps());
+        assertArrayEquals(new long[]{PriceCodec.encodePrice(BigDecimal.ONE), PriceCodec.encodePrice(BigDecimal.TEN)},
+                saved.get(0).prices());
+        assertArrayEquals(new long[]{T0}, saved.get(1).timestamps());
+        assertArrayEquals(new long[]{PriceCodec.encodePrice(BigDecimal.TWO)}, saved.get(1).prices());
+    }
+
+    @Test
+    void submit_shouldRejectInvalidTicks() {
+        // Given
+        PriceRepository repository = mock(PriceRepository.class);
+        service = startService(repository, 100, 10);
+        CryptoPriceTick valid = new CryptoPriceTick("BTC", T0, BigDecimal.ONE);
+
+        // When / Then: the whole submission is rejected
+        assertThrows(InvalidPriceTickException.class, () -> service.submit(List.of()));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit(List.of(valid, new CryptoPriceTick(null, T0, BigDecimal.ONE))));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit(List.of(valid, new CryptoPriceTick("BTC", null, BigDecimal.ONE))));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit(List.of(valid, new CryptoPriceTick("BTC", T0, BigDecimal.ZERO))));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit(List.of(valid, new CryptoPriceTick("BTC", T0, new BigDecimal("1E+30")))));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit(List.of(new CryptoPriceTick("B-TC", T0, BigDecimal.ONE))));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit("BTC", List.of(new CryptoPriceTick("ETH", T0, BigDecimal.ONE))));
+        assertEquals(0, service.getPendingTicks());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void submit_shouldRejectUnknownSymbols_whenNewSymbolsAreNotAllowed() {
+        // Given: a repository that only supports BTC
+        PriceRepository repository = mock(PriceRepository.class);
+        when(repository.isSupported("BTC")).thenReturn(true);
+        service = startService(repository, 100, 10);
+        ReflectionTestUtils.setField(service, "allowNewSymbols", false);
+
+        // When / Then: a submission naming another symbol is rejected as a whole
+        assertThrows(InvalidPriceTickException.class, () -> service.submit(List.of(
+                new CryptoPriceTick("BTC", T0, BigDecimal.ONE),
+                new CryptoPriceTick("NEW", T0, BigDecimal.ONE))));
+        assertThrows(InvalidPriceTickException.class,
+                () -> service.submit("NEW", List.of(new CryptoPriceTick(null, T0, BigDecimal.ONE))));
+        service.submit(ticks(2));
+        assertEquals(List.of("BTC"), savedBatches(repository).stream().map(PriceBatch::symbol).toList());
+    }
+
+    @Test
+    void submit_shouldCountDroppedTicks_whenSaveFails() throws InterruptedException {
+        // Given: a repository that fails to save
+        PriceRepository repository = mock(PriceRepository.class);
+        doThrow(new IllegalStateException("disk full")).when(repository).savePrices(anyList());
+        service = startService(repository, 100, 10);
+
+        // When
+        service.submit(List.of(
+                new CryptoPriceTick("ETH", T0, BigDecimal.ONE),
+                new CryptoPriceTick("ETH", T0 + 1, BigDecimal.ONE),
+                new CryptoPriceTick("BTC", T0, BigDecimal.ONE)));
+        service.stop();
+
+        // Then: the ticks saved together are dropped and counted
+        MeterRegistry meterRegistry = (MeterRegistry) ReflectionTestUtils.getField(service, "meterRegistry");
+        assertEquals(3, meterRegistry.get("price.ingest.dropped").counter().count());
+        assertEquals(0, service.getPendingTicks());
+    }
+
+    @Test
+    void submit_shouldRejectWhenQueueIsFull() throws Exception {
+        // Given: a writer that is blocked in the repository
+        CountDownLatch release = new CountDownLatch(1);
+        PriceRepository repository = mock(PriceRepository.class);
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(repository).savePrices(anyList());
+        service = startService(repository, 4, 10);
+
+        // When
+        service.submit(ticks(3));
+
+        // Then: submissions that exceed the remaining capacity are rejected until the writer catches up
+        assertThrows(IngestionOverloadedException.class, () -> service.submit(ticks(2)));
+        service.submit(ticks(1));
+        assertEquals(4, service.getPendingTicks());
+        assertThrows(InvalidPriceTickException.class, () -> service.submit(ticks(5)));
+        release.countDown();
+        service.stop();
+        assertEquals(0, service.getPendingTicks());
+        verify(repository, atLeastOnce()).savePrices(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<PriceBatch> savedBatches(PriceRepository repository) {
+        ArgumentCaptor<List<PriceBatch>> batches = ArgumentCaptor.forClass(List.class);
+        verify(repository, timeout(5000)).savePrices(batches.capture());
+        return batches.getValue();
+    }
+
+    private static List<CryptoPriceTick> ticks(int count) {
+        List<CryptoPriceTick> ticks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ticks.add(new CryptoPriceTick("BTC", T0 + i, BigDecimal.ONE));
+        }
+        return ticks;
+    }
+
+    private static PriceIngestionService startService(PriceRepository repository, int queueCapacity, int batchSize) {
+        PriceIngestionService service = new PriceIngestionService();
+        ReflectionTestUtils.setField(service, "priceRepository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "allowNewSymbols", true);
+        service.start();
+        return service;
+    }
+}
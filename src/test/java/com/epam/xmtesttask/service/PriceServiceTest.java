@@ -1,18 +1,32 @@
 package com.epam.xmtesttask.service;
 
+import com.epam.xmtesttask.domain.crypto.CryptoDailyNormalizedRange;
 import com.epam.xmtesttask.domain.crypto.CryptoNormalizedRange;
 import com.epam.xmtesttask.domain.crypto.CryptoPrice;
+import com.epam.xmtesttask.domain.crypto.CryptoPriceSummary;
 import com.epam.xmtesttask.domain.crypto.CryptoStats;
 import com.epam.xmtesttask.domain.exception.CryptoDataNotFoundException;
+import com.epam.xmtesttask.domain.exception.CryptoNotFoundException;
+import com.epam.xmtesttask.domain.exception.InvalidPageException;
+import com.epam.xmtesttask.domain.exception.InvalidTimeRangeException;
+import com.epam.xmtesttask.repository.DataVersion;
+import com.epam.xmtesttask.repository.FixedPointSummary;
 import com.epam.xmtesttask.repository.PriceRepository;
+import com.epam.xmtesttask.repository.Resolution;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,24 +37,30 @@ class PriceServiceTest {
     @Mock
     private PriceRepository priceRepository;
 
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private PriceService priceService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(priceService, "fanOutMode", "sequential");
+        priceService.init();
+        when(priceRepository.readView()).thenReturn(priceRepository);
     }
 
     @Test
     void getStats_shouldReturnCryptoStats() {
         // Given
         String symbol = "BTC";
-        List<CryptoPrice> prices = List.of(
+        CryptoPriceSummary summary = summaryOf(
                 new CryptoPrice(LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100")),
                 new CryptoPrice(LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("200")),
                 new CryptoPrice(LocalDateTime.of(2023, 1, 3, 0, 0), new BigDecimal("150"))
         );
-        when(priceRepository.getPrices(symbol)).thenReturn(prices);
+        when(priceRepository.getSummary(symbol)).thenReturn(summary);
 
         // When
         CryptoStats stats = priceService.getStats(symbol);
@@ -51,6 +71,16 @@ class PriceServiceTest {
         assertEquals(new BigDecimal("150"), stats.newest());
         assertEquals(new BigDecimal("100"), stats.min());
         assertEquals(new BigDecimal("200"), stats.max());
+        verify(priceRepository, never()).getPrices(anyString());
+    }
+
+    @Test
+    void getStats_shouldPropagateCryptoNotFound() {
+        // Given
+        when(priceRepository.getSummary("NO")).thenThrow(new CryptoNotFoundException("NO"));
+
+        // When & Then
+        assertThrows(CryptoNotFoundException.class, () -> priceService.getStats("NO"));
     }
 
     @Test
@@ -59,16 +89,20 @@ class PriceServiceTest {
         Set<String> symbols = Set.of("BTC", "ETH");
         when(priceRepository.getSupportedCryptos()).thenReturn(symbols);
 
-        List<CryptoPrice> btcPrices = List.of(
+        CryptoPriceSummary btcSummary = summaryOf(
                 new CryptoPrice(LocalDateTime.now(), new BigDecimal("100")),
                 new CryptoPrice(LocalDateTime.now(), new BigDecimal("150"))
         );
-        List<CryptoPrice> ethPrices = List.of(
+        CryptoPriceSummary ethSummary = summaryOf(
                 new CryptoPrice(LocalDateTime.now(), new BigDecimal("50")),
                 new CryptoPrice(LocalDateTime.now(), new BigDecimal("80"))
         );
-        when(priceRepository.getPrices("BTC")).thenReturn(btcPrices);
-        when(priceRepository.getPrices("ETH")).thenReturn(ethPrices);
+        when(priceRepository.getFixedPointSummary("BTC")).thenReturn(FixedPointSummary.of(btcSummary));
+        when(priceRepository.getFixedPointSummary("ETH")).thenReturn(FixedPointSummary.of(ethSummary));
+        when(priceRepository.getDataVersion()).thenReturn(new DataVersion(2, 0));
+        when(priceRepository.getDataVersion("BTC")).thenReturn(new DataVersion(1, 0));
+        when(priceRepository.getDataVersion("ETH")).thenReturn(new DataVersion(2, 0));
+        when(priceRepository.getCryptosChangedAfter(0)).thenReturn(symbols);
 
         // When
         List<CryptoNormalizedRange> result = priceService.getDescNormalizedRanges();
@@ -79,6 +113,60 @@ class PriceServiceTest {
         assertEquals("BTC", result.get(1).symbol());
         assertEquals(new BigDecimal("0.6"), result.get(0).normalizedRange());
         assertEquals(new BigDecimal("0.5"), result.get(1).normalizedRange());
+        assertEquals(1, meterRegistry.get("price.service.duration").tag("operation", "normalized-ranges").timer().count());
+        assertEquals(2, meterRegistry.get("price.service.symbols.evaluated").tag("operation", "normalized-ranges")
+                .counter().count());
+        assertEquals(4, meterRegistry.get("price.service.rows.aggregated").tag("operation", "normalized-ranges")
+                .summary().totalAmount());
+    }
+
+    @Test
+    void getDescNormalizedRanges_shouldEvaluateOnlyCryptosWhoseDataChanged() {
+        // Given: three cryptos evaluated once
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of("BTC", "ETH", "XRP"));
+        when(priceRepository.getFixedPointSummary("BTC")).thenReturn(fixedPointSummaryOf(
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("100")),
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("150"))));
+        when(priceRepository.getFixedPointSummary("ETH")).thenReturn(fixedPointSummaryOf(
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("50")),
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("80"))));
+        when(priceRepository.getFixedPointSummary("XRP")).thenReturn(fixedPointSummaryOf(
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("1")),
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("1.1"))));
+        when(priceRepository.getDataVersion()).thenReturn(new DataVersion(3, 0));
+        when(priceRepository.getDataVersion("BTC")).thenReturn(new DataVersion(1, 0));
+        when(priceRepository.getDataVersion("ETH")).thenReturn(new DataVersion(2, 0));
+        when(priceRepository.getDataVersion("XRP")).thenReturn(new DataVersion(3, 0));
+        when(priceRepository.getCryptosChangedAfter(0)).thenReturn(Set.of("BTC", "ETH", "XRP"));
+        priceService.getDescNormalizedRanges();
+
+        // When: an unchanged page is read, then a new BTC price overtakes ETH
+        List<CryptoNormalizedRange> unchanged = priceService.getDescNormalizedRanges(1, 1);
+        when(priceRepository.getFixedPointSummary("BTC")).thenReturn(fixedPointSummaryOf(
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("100")),
+                new CryptoPrice(LocalDateTime.now(), new BigDecimal("170"))));
+        when(priceRepository.getDataVersion()).thenReturn(new DataVersion(4, 0));
+        when(priceRepository.getDataVersion("BTC")).thenReturn(new DataVersion(4, 0));
+        when(priceRepository.getCryptosChangedAfter(3)).thenReturn(Set.of("BTC"));
+        List<CryptoNormalizedRange> changed = priceService.getDescNormalizedRanges(0, 2);
+
+        // Then: only BTC is evaluated again
+        assertEquals(List.of(new CryptoNormalizedRange("BTC", new BigDecimal("0.5"))), unchanged);
+        assertEquals(List.of(new CryptoNormalizedRange("BTC", new BigDecimal("0.7")),
+                new CryptoNormalizedRange("ETH", new BigDecimal("0.6"))), changed);
+        assertEquals(4, meterRegistry.get("price.service.symbols.evaluated").tag("operation", "normalized-ranges")
+                .counter().count());
+        verify(priceRepository, times(2)).getFixedPointSummary("BTC");
+        verify(priceRepository, times(1)).getFixedPointSummary("ETH");
+        verify(priceRepository, times(1)).getFixedPointSummary("XRP");
+    }
+
+    @Test
+    void getDescNormalizedRanges_shouldRejectInvalidPage() {
+        assertThrows(InvalidPageException.class, () -> priceService.getDescNormalizedRanges(-1, 10));
+        assertThrows(InvalidPageException.class, () -> priceService.getDescNormalizedRanges(0, 0));
+        assertThrows(InvalidPageException.class, () -> priceService.getDescNormalizedRanges(null,
+                LocalDateTime.of(2023, 1, 2, 0, 0), 0, 0));
     }
 
     @Test
@@ -88,16 +176,18 @@ class PriceServiceTest {
         LocalDate date = LocalDate.of(2023, 1, 1);
         when(priceRepository.getSupportedCryptos()).thenReturn(symbols);
 
-        List<CryptoPrice> btcPrices = List.of(
+        CryptoPriceSummary btcSummary = summaryOf(
                 new CryptoPrice(date.atStartOfDay(), new BigDecimal("100")),
                 new CryptoPrice(date.atTime(12, 0), new BigDecimal("150"))
         );
-        List<CryptoPrice> ethPrices = List.of(
+        CryptoPriceSummary ethSummary = summaryOf(
                 new CryptoPrice(date.atStartOfDay(), new BigDecimal("50")),
                 new CryptoPrice(date.atTime(12, 0), new BigDecimal("60"))
         );
-        when(priceRepository.getPrices("BTC")).thenReturn(btcPrices);
-        when(priceRepository.getPrices("ETH")).thenReturn(ethPrices);
+        when(priceRepository.getFixedPointDailySummary("BTC", date))
+                .thenReturn(Optional.of(FixedPointSummary.of(btcSummary)));
+        when(priceRepository.getFixedPointDailySummary("ETH", date))
+                .thenReturn(Optional.of(FixedPointSummary.of(ethSummary)));
 
         // When
         CryptoNormalizedRange result = priceService.getHighestNormalizedRange(date);
@@ -105,6 +195,7 @@ class PriceServiceTest {
         // Then
         assertEquals("BTC", result.symbol());
         assertEquals(new BigDecimal("0.5"), result.normalizedRange());
+        verify(priceRepository, never()).getPrices(anyString());
     }
 
     @Test
@@ -113,12 +204,181 @@ class PriceServiceTest {
         Set<String> symbols = Set.of("BTC");
         LocalDate date = LocalDate.of(2023, 1, 1);
         when(priceRepository.getSupportedCryptos()).thenReturn(symbols);
-        when(priceRepository.getPrices("BTC")).thenReturn(List.of());
+        when(priceRepository.getFixedPointDailySummary("BTC", date)).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(CryptoDataNotFoundException.class, () -> priceService.getHighestNormalizedRange(date));
     }
 
+    @Test
+    void getHighestNormalizedRange_shouldFanOutOnVirtualThreads() {
+        // Given: the virtual fan-out for every call and one symbol without data on the date
+        ReflectionTestUtils.setField(priceService, "fanOutMode", "virtual");
+        ReflectionTestUtils.setField(priceService, "fanOutMinSymbols", 1);
+        priceService.init();
+        LocalDate date = LocalDate.of(2023, 1, 1);
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of("BTC", "ETH"));
+        when(priceRepository.getFixedPointDailySummary("BTC", date)).thenReturn(Optional.of(fixedPointSummaryOf(
+                new CryptoPrice(date.atStartOfDay(), new BigDecimal("100")),
+                new CryptoPrice(date.atTime(12, 0), new BigDecimal("150")))));
+        when(priceRepository.getFixedPointDailySummary("ETH", date)).thenReturn(Optional.of(fixedPointSummaryOf(
+                new CryptoPrice(date.atStartOfDay(), new BigDecimal("50")),
+                new CryptoPrice(date.atTime(12, 0), new BigDecimal("60")))));
+        LocalDate otherDate = date.plusDays(1);
+        when(priceRepository.getFixedPointDailySummary("BTC", otherDate)).thenReturn(Optional.empty());
+        when(priceRepository.getFixedPointDailySummary("ETH", otherDate)).thenReturn(Optional.empty());
+
+        // When
+        CryptoNormalizedRange result = priceService.getHighestNormalizedRange(date);
+
+        // Then: the result matches the sequential mode and failures keep their type
+        assertEquals("BTC", result.symbol());
+        assertEquals(new BigDecimal("0.5"), result.normalizedRange());
+        assertThrows(CryptoDataNotFoundException.class, () -> priceService.getHighestNormalizedRange(otherDate));
+    }
+
+    @Test
+    void getHighestNormalizedRangeForPeriod_shouldCombineRollupsOfTheZonedPeriod() {
+        // Given: the ISO week of 2023-01-04 in Budapest, which starts an hour before midnight UTC
+        LocalDateTime from = LocalDateTime.of(2023, 1, 1, 23, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 1, 8, 23, 0);
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of("BTC", "ETH", "XRP"));
+        when(priceRepository.getFixedPointPeriodSummary("BTC", from, to)).thenReturn(Optional.of(fixedPointSummaryOf(
+                new CryptoPrice(from, new BigDecimal("100")),
+                new CryptoPrice(from.plusDays(1), new BigDecimal("130")))));
+        when(priceRepository.getFixedPointPeriodSummary("ETH", from, to)).thenReturn(Optional.of(fixedPointSummaryOf(
+                new CryptoPrice(from, new BigDecimal("50")),
+                new CryptoPrice(from.plusDays(2), new BigDecimal("60")))));
+        when(priceRepository.getFixedPointPeriodSummary("XRP", from, to)).thenReturn(Optional.empty());
+
+        // When
+        CryptoNormalizedRange result = priceService.getHighestNormalizedRange(Resolution.WEEK,
+                LocalDateTime.of(2023, 1, 4, 12, 0), ZoneId.of("Europe/Budapest"));
+
+        // Then: the crypto without prices in the period is left out
+        assertEquals(new CryptoNormalizedRange("BTC", new BigDecimal("0.3")), result);
+        assertEquals(2, meterRegistry.get("price.service.symbols.evaluated")
+                .tag("operation", "highest-normalized-range-period").counter().count());
+        verify(priceRepository, never()).getPrices(anyString());
+    }
+
+    @Test
+    void getHighestNormalizedRangeForPeriod_shouldThrowIfNoCryptoHasData() {
+        // Given
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of("BTC"));
+        when(priceRepository.getFixedPointPeriodSummary(eq("BTC"), any(), any())).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(CryptoDataNotFoundException.class, () -> priceService.getHighestNormalizedRange(
+                Resolution.HOUR, LocalDateTime.of(2023, 1, 4, 12, 30), ZoneOffset.UTC));
+    }
+
+    @Test
+    void getHighestNormalizedRanges_shouldPickTheHighestCryptoOfEachDay() {
+        // Given: three days; ETH has no prices on the second day and no crypto has prices on the third
+        ReflectionTestUtils.setField(priceService, "dailyMaxDays", 366);
+        LocalDate from = LocalDate.of(2023, 1, 1);
+        LocalDate to = LocalDate.of(2023, 1, 3);
+        long fromDay = from.toEpochDay();
+        LocalDateTime day1 = from.atStartOfDay();
+        LocalDateTime day2 = day1.plusDays(1);
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of("BTC", "ETH"));
+        when(priceRepository.getFixedPointRollups("BTC", Resolution.DAY, fromDay, fromDay + 3))
+                .thenReturn(new FixedPointSummary[]{
+                        fixedPointSummaryOf(new CryptoPrice(day1, new BigDecimal("100")),
+                                new CryptoPrice(day1.plusHours(1), new BigDecimal("110"))),
+                        fixedPointSummaryOf(new CryptoPrice(day2, new BigDecimal("100")),
+                                new CryptoPrice(day2.plusHours(1), new BigDecimal("105"))),
+                        null});
+        when(priceRepository.getFixedPointRollups("ETH", Resolution.DAY, fromDay, fromDay + 3))
+                .thenReturn(new FixedPointSummary[]{
+                        fixedPointSummaryOf(new CryptoPrice(day1, new BigDecimal("50")),
+                                new CryptoPrice(day1.plusHours(1), new BigDecimal("75"))),
+                        null,
+                        null});
+
+        // When
+        List<CryptoDailyNormalizedRange> result = priceService.getHighestNormalizedRanges(from, to);
+
+        // Then: each crypto's days are read in one call, and the empty day is left out
+        assertEquals(List.of(
+                new CryptoDailyNormalizedRange(from, "ETH", new BigDecimal("0.5")),
+                new CryptoDailyNormalizedRange(from.plusDays(1), "BTC", new BigDecimal("0.05"))), result);
+        assertEquals(3, meterRegistry.get("price.service.symbols.evaluated")
+                .tag("operation", "highest-normalized-range-daily").counter().count());
+        verify(priceRepository, never()).getFixedPointDailySummary(anyString(), any());
+        verify(priceRepository, never()).getPrices(anyString());
+    }
+
+    @Test
+    void getHighestNormalizedRanges_shouldRejectInvalidOrTooLongRanges() {
+        // Given
+        ReflectionTestUtils.setField(priceService, "dailyMaxDays", 31);
+        LocalDate from = LocalDate.of(2023, 1, 1);
+
+        // When & Then: a single day is valid, a reversed range and a 32-day range are not
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of());
+        assertEquals(List.of(), priceService.getHighestNormalizedRanges(from, from));
+        assertThrows(InvalidTimeRangeException.class, () -> priceService.getHighestNormalizedRanges(from,
+                from.minusDays(1)));
+        assertThrows(InvalidTimeRangeException.class, () -> priceService.getHighestNormalizedRanges(from,
+                from.plusDays(31)));
+        assertEquals(List.of(), priceService.getHighestNormalizedRanges(from, from.plusDays(30)));
+    }
+
+    @Test
+    void getStatsInRange_shouldUseRangeSummary() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2023, 1, 2, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 1, 4, 0, 0);
+        CryptoPriceSummary summary = summaryOf(
+                new CryptoPrice(LocalDateTime.of(2023, 1, 2, 0, 0), new BigDecimal("200")),
+                new CryptoPrice(LocalDateTime.of(2023, 1, 3, 0, 0), new BigDecimal("150"))
+        );
+        when(priceRepository.getRangeSummary("BTC", from, to)).thenReturn(Optional.of(summary));
+
+        // When
+        CryptoStats stats = priceService.getStats("BTC", from, to);
+
+        // Then
+        assertEquals(new BigDecimal("200"), stats.oldest());
+        assertEquals(new BigDecimal("150"), stats.newest());
+        assertEquals(new BigDecimal("150"), stats.min());
+        assertEquals(new BigDecimal("200"), stats.max());
+        verify(priceRepository, never()).getSummary(anyString());
+    }
+
+    @Test
+    void getStatsInRange_shouldThrowIfRangeHasNoDataOrIsInvalid() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2023, 1, 2, 0, 0);
+        when(priceRepository.getRangeSummary("BTC", from, null)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(CryptoDataNotFoundException.class, () -> priceService.getStats("BTC", from, null));
+        assertThrows(InvalidTimeRangeException.class, () -> priceService.getStats("BTC", from, from));
+    }
+
+    @Test
+    void getDescNormalizedRangesInRange_shouldSkipCryptosWithoutDataInRange() {
+        // Given
+        LocalDateTime to = LocalDateTime.of(2023, 1, 2, 0, 0);
+        when(priceRepository.getSupportedCryptos()).thenReturn(Set.of("BTC", "ETH"));
+        CryptoPriceSummary btcSummary = summaryOf(
+                new CryptoPrice(LocalDateTime.of(2023, 1, 1, 0, 0), new BigDecimal("100")),
+                new CryptoPrice(LocalDateTime.of(2023, 1, 1, 12, 0), new BigDecimal("120"))
+        );
+        when(priceRepository.getFixedPointRangeSummary("BTC", null, to))
+                .thenReturn(Optional.of(FixedPointSummary.of(btcSummary)));
+        when(priceRepository.getFixedPointRangeSummary("ETH", null, to)).thenReturn(Optional.empty());
+
+        // When
+        List<CryptoNormalizedRange> result = priceService.getDescNormalizedRanges(null, to);
+
+        // Then
+        assertEquals(List.of(new CryptoNormalizedRange("BTC", new BigDecimal("0.2"))), result);
+    }
+
     @Test
     void getNormalizedRange_shouldCalculateCorrectly() {
         // Given
@@ -135,4 +395,20 @@ class PriceServiceTest {
         assertEquals("BTC", range.symbol());
         assertEquals(new BigDecimal("0.5"), range.normalizedRange());
     }
-}
\ No newline at end of file
+
+    /**
+     * Utility method to build the summary a repository would maintain for the given prices.
+     */
+    private static CryptoPriceSummary summaryOf(CryptoPrice... prices) {
+        CryptoPriceSummary summary = null;
+        for (CryptoPrice price : prices) {
+            CryptoPriceSummary next = CryptoPriceSummary.of(price.utcDateTime(), price.price());
+            summary = summary == null ? next : summary.merge(next);
+        }
+        return summary;
+    }
+
+    private static FixedPointSummary fixedPointSummaryOf(CryptoPrice... prices) {
+        return FixedPointSummary.of(summaryOf(prices));
+    }
+}
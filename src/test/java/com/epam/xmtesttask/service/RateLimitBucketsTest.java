@@ -0,0 +1,120 @@
+package com.epam.xmtesttask.service;
+
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+class RateLimitBucketsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void resolve_shouldReturnSameBucket_forTrackedClient() {
+        // Given
+        RateLimitBuckets buckets = new RateLimitBuckets(10, 100, clock::get);
+        Bucket bucket = buckets.resolve("a", () -> mock(Bucket.class));
+
+        // When
+        Bucket resolved = buckets.resolve("a", () -> mock(Bucket.class));
+
+        // Then
+        assertSame(bucket, resolved);
+        assertEquals(1, buckets.size());
+    }
+
+    @Test
+    void resolve_shouldExpireIdleBuckets() {
+        // Given: "a" idle since 0, "b" used at 60
+        RateLimitBuckets buckets = new RateLimitBuckets(10, 100, clock::get);
+        Bucket a = buckets.resolve("a", () -> mock(Bucket.class));
+        clock.set(60);
+        buckets.resolve("b", () -> mock(Bucket.class));
+
+        // When: "c" arrives after "a" has been idle for longer than the timeout
+        clock.set(101);
+        buckets.resolve("c", () -> mock(Bucket.class));
+
+        // Then: only "a" is removed and gets a new bucket when it returns
+        assertEquals(2, buckets.size());
+        assertNotSame(a, buckets.resolve("a", () -> mock(Bucket.class)));
+        assertEquals(3, buckets.size());
+    }
+
+    @Test
+    void resolve_shouldEvictLeastRecentlyUsed_whenFull() {
+        // Given: a store of two clients where "a" was used after "b"
+        RateLimitBuckets buckets = new RateLimitBuckets(2, Long.MAX_VALUE, clock::get);
+        Bucket a = buckets.resolve("a", () -> mock(Bucket.class));
+        clock.set(1);
+        Bucket b = buckets.resolve("b", () -> mock(Bucket.class));
+        clock.set(2);
+        buckets.resolve("a", () -> mock(Bucket.class));
+
+        // When: a third client arrives
+        clock.set(3);
+        buckets.resolve("c", () -> mock(Bucket.class));
+
+        // Then: "b" is evicted and "a" is kept
+        assertEquals(2, buckets.size());
+        assertSame(a, buckets.resolve("a", () -> mock(Bucket.class)));
+        assertNotSame(b, buckets.resolve("b", () -> mock(Bucket.class)));
+    }
+
+    @Test
+    void resolve_shouldEvictDownToNineTenths_whenFull() {
+        // Given: a full store of 20 clients, used in order
+        RateLimitBuckets buckets = new RateLimitBuckets(20, Long.MAX_VALUE, clock::get);
+        for (int i = 0; i < 20; i++) {
+            clock.set(i);
+            buckets.resolve("client-" + i, () -> mock(Bucket.class));
+        }
+
+        // When: a new client arrives
+        clock.set(20);
+        Bucket bucket = buckets.resolve("new", () -> mock(Bucket.class));
+
+        // Then: the three least recently used clients are evicted, the new one is kept
+        assertEquals(18, buckets.size());
+        assertSame(bucket, buckets.resolve("new", () -> mock(Bucket.class)));
+        assertSame(bucket, buckets.resolve("new", () -> mock(Bucket.class)));
+        assertEquals(18, buckets.size());
+    }
+
+    @Test
+    void resolve_shouldKeepAllClientsTracked_whenCalledConcurrently() throws Exception {
+        // Given
+        RateLimitBuckets buckets = new RateLimitBuckets(1000, Long.MAX_VALUE, System::nanoTime);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When: eight threads resolve the same 100 clients
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        buckets.resolve("client-" + i % 100, () -> mock(Bucket.class));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then: one bucket per client
+        assertEquals(100, buckets.size());
+    }
+}
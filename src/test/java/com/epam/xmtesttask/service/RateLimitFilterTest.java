@@ -1,27 +1,46 @@
 package com.epam.xmtesttask.service;
 
 import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.Map;
+import java.time.Duration;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class RateLimitFilterTest {
 
     private RateLimitFilter filter;
 
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         filter = new RateLimitFilter();
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "capacity", 60L);
+        ReflectionTestUtils.setField(filter, "refillTokens", 6L);
+        ReflectionTestUtils.setField(filter, "refillPeriod", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(filter, "maxClients", 1000);
+        ReflectionTestUtils.setField(filter, "idleTimeout", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(filter, "routeCosts", new String[]{"/cryptos/normalized-range=5", "/cryptos/*/stats=2",
+                "/cryptos/**/prices=3"});
+        filter.init();
     }
 
     @Test
@@ -33,13 +52,12 @@ class RateLimitFilterTest {
         FilterChain chain = mock(FilterChain.class);
         when(request.getRemoteAddr()).thenReturn(ip);
 
-        // Inject a mock bucket into the filter's internal map
+        // Inject a mock bucket into the filter's bucket store
         Bucket mockBucket = mock(Bucket.class);
         when(mockBucket.tryConsume(1)).thenReturn(true);
         // Use reflection to access the private buckets field
-        Map<String, Bucket> buckets = (Map<String, Bucket>)
-                getPrivateField(filter, "buckets");
-        buckets.put(ip, mockBucket);
+        RateLimitBuckets buckets = (RateLimitBuckets) getPrivateField(filter, "buckets");
+        buckets.resolve(ip, () -> mockBucket);
 
         // When: doFilter is called
         filter.doFilter(request, response, chain);
@@ -48,6 +66,8 @@ class RateLimitFilterTest {
         verify(chain, times(1)).doFilter(request, response);
         // No status should be set on response
         verifyNoInteractions(response);
+        assertEquals(1, meterRegistry.get("rate.limit.requests").tag("outcome", "accepted").counter().count());
+        assertEquals(1, meterRegistry.get("rate.limit.buckets").gauge().value());
     }
 
     @Test
@@ -59,12 +79,11 @@ class RateLimitFilterTest {
         FilterChain chain = mock(FilterChain.class);
         when(request.getRemoteAddr()).thenReturn(ip);
 
-        // Inject a mock bucket into the filter's internal map
+        // Inject a mock bucket into the filter's bucket store
         Bucket mockBucket = mock(Bucket.class);
         when(mockBucket.tryConsume(1)).thenReturn(false);
-        Map<String, Bucket> buckets = (Map<String, Bucket>)
-                getPrivateField(filter, "buckets");
-        buckets.put(ip, mockBucket);
+        RateLimitBuckets buckets = (RateLimitBuckets) getPrivateField(filter, "buckets");
+        buckets.resolve(ip, () -> mockBucket);
 
         PrintWriter writer = mock(PrintWriter.class);
         when(response.getWriter()).thenReturn(writer);
@@ -76,6 +95,94 @@ class RateLimitFilterTest {
         verify(response, times(1)).setStatus(429);
         verify(writer, times(1)).write("Too Many Requests");
         verify(chain, never()).doFilter(request, response);
+        assertEquals(1, meterRegistry.get("rate.limit.requests").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_shouldLimitPriceSubmissions() throws IOException, ServletException {
+        // Given: a price submission from an IP whose bucket has no tokens
+        String ip = "127.0.0.1";
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+        when(request.getRemoteAddr()).thenReturn(ip);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getRequestURI()).thenReturn("/cryptos/BTC/prices");
+        when(response.getWriter()).thenReturn(mock(PrintWriter.class));
+
+        Bucket mockBucket = mock(Bucket.class);
+        when(mockBucket.tryConsume(3)).thenReturn(false);
+        RateLimitBuckets buckets = (RateLimitBuckets) getPrivateField(filter, "buckets");
+        buckets.resolve(ip, () -> mockBucket);
+
+        // When: doFilter is called
+        filter.doFilter(request, response, chain);
+
+        // Then: the submission is charged its route cost and rejected
+        verify(mockBucket, times(1)).tryConsume(3);
+        verify(response, times(1)).setStatus(429);
+        verify(chain, never()).doFilter(request, response);
+        assertEquals(1, meterRegistry.get("rate.limit.requests").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void doFilter_shouldChargeConfiguredRouteCost() throws IOException, ServletException {
+        // Given: a request to a route that costs 5 tokens
+        String ip = "127.0.0.1";
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+        when(request.getRemoteAddr()).thenReturn(ip);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/cryptos/normalized-range");
+
+        Bucket mockBucket = mock(Bucket.class);
+        when(mockBucket.tryConsume(5)).thenReturn(true);
+        RateLimitBuckets buckets = (RateLimitBuckets) getPrivateField(filter, "buckets");
+        buckets.resolve(ip, () -> mockBucket);
+
+        // When: doFilter is called
+        filter.doFilter(request, response, chain);
+
+        // Then: five tokens are consumed and the request passes
+        verify(mockBucket, times(1)).tryConsume(5);
+        verify(chain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void doFilter_shouldRejectCostlyRoute_whenTokensAreInsufficient() throws IOException, ServletException {
+        // Given: a client that has used 58 of its 60 tokens
+        String ip = "10.0.0.1";
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        FilterChain chain = mock(FilterChain.class);
+        when(request.getRemoteAddr()).thenReturn(ip);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/cryptos/BTC/stats");
+        when(response.getWriter()).thenReturn(mock(PrintWriter.class));
+        for (int i = 0; i < 29; i++) {
+            filter.doFilter(request, response, chain);
+        }
+
+        // When: a stats request (2 tokens) and a normalized-range request (5 tokens) are made
+        filter.doFilter(request, response, chain);
+        when(request.getRequestURI()).thenReturn("/cryptos/normalized-range");
+        filter.doFilter(request, response, chain);
+
+        // Then: the stats request passes and the normalized-range request is rejected
+        verify(chain, times(30)).doFilter(request, response);
+        verify(response, times(1)).setStatus(429);
+    }
+
+    @Test
+    void parseRouteCosts_shouldRejectMalformedEntries() {
+        // Given / When / Then
+        assertEquals(List.of(new RateLimitFilter.RouteCost("/a/**", 3)),
+                RateLimitFilter.parseRouteCosts(new String[]{" /a/** = 3 ", ""}, 60));
+        assertThrows(IllegalStateException.class, () -> RateLimitFilter.parseRouteCosts(new String[]{"/a"}, 60));
+        assertThrows(IllegalStateException.class, () -> RateLimitFilter.parseRouteCosts(new String[]{"/a=x"}, 60));
+        assertThrows(IllegalStateException.class, () -> RateLimitFilter.parseRouteCosts(new String[]{"/a=0"}, 60));
+        assertThrows(IllegalStateException.class, () -> RateLimitFilter.parseRouteCosts(new String[]{"/a=61"}, 60));
     }
 
     /**
@@ -0,0 +1,91 @@
+package com.epam.xmtesttask.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SymbolFanOutTest {
+
+    private static final List<String> SYMBOLS = List.of("BTC", "DOGE", "ETH", "LTC", "XRP");
+
+    @Test
+    void map_shouldRunOnCallingThread_inSequentialMode() {
+        // Given
+        SymbolFanOut fanOut = SymbolFanOut.of("sequential", 1);
+        Thread caller = Thread.currentThread();
+
+        // When
+        List<Boolean> onCaller = fanOut.map(SYMBOLS, symbol -> Thread.currentThread() == caller);
+
+        // Then
+        assertEquals(List.of(true, true, true, true, true), onCaller);
+    }
+
+    @Test
+    void map_shouldRunConcurrentlyOnVirtualThreads_andKeepOrder() throws InterruptedException {
+        // Given: tasks that only finish once all of them have started
+        SymbolFanOut fanOut = SymbolFanOut.of("virtual", 2);
+        CountDownLatch started = new CountDownLatch(SYMBOLS.size());
+
+        // When
+        List<String> results = fanOut.map(SYMBOLS, symbol -> {
+            assertTrue(Thread.currentThread().isVirtual());
+            started.countDown();
+            try {
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return symbol.toLowerCase();
+        });
+
+        // Then
+        assertEquals(List.of("btc", "doge", "eth", "ltc", "xrp"), results);
+    }
+
+    @Test
+    void map_shouldRunSequentially_belowMinSymbols() {
+        // Given
+        SymbolFanOut fanOut = SymbolFanOut.of("virtual", SYMBOLS.size() + 1);
+
+        // When
+        List<Boolean> virtual = fanOut.map(SYMBOLS, symbol -> Thread.currentThread().isVirtual());
+
+        // Then
+        assertFalse(virtual.contains(true));
+    }
+
+    @Test
+    void map_shouldRethrowFirstFailureInSymbolOrder() {
+        // Given
+        SymbolFanOut fanOut = SymbolFanOut.of("virtual", 1);
+        IllegalArgumentException eth = new IllegalArgumentException("ETH");
+
+        // When
+        RuntimeException thrown = assertThrows(RuntimeException.class, () -> fanOut.map(SYMBOLS, symbol -> {
+            if (symbol.equals("XRP")) {
+                throw new IllegalStateException("XRP");
+            }
+            if (symbol.equals("ETH")) {
+                throw eth;
+            }
+            return symbol;
+        }));
+
+        // Then
+        assertSame(eth, thrown);
+    }
+
+    @Test
+    void of_shouldRejectUnknownMode() {
+        assertThrows(IllegalArgumentException.class, () -> SymbolFanOut.of("parallel", 1));
+    }
+}